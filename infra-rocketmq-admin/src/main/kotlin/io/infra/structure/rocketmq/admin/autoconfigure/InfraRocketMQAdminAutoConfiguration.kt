@@ -41,7 +41,7 @@ class InfraRocketMQAdminAutoConfiguration {
         properties: RocketMQAdminProperties
     ): RocketMQClusterService = RocketMQClusterService(client, properties)
 
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
     fun rocketMQTopicService(
         client: RocketMQAdminClient,
@@ -49,14 +49,14 @@ class InfraRocketMQAdminAutoConfiguration {
         properties: RocketMQAdminProperties
     ): RocketMQTopicService = RocketMQTopicService(client, clusterService, properties)
 
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
     fun rocketMQConsumerGroupService(
         client: RocketMQAdminClient,
         properties: RocketMQAdminProperties
     ): RocketMQConsumerGroupService = RocketMQConsumerGroupService(client, properties)
 
-    @Bean
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
     fun rocketMQMessageService(
         client: RocketMQAdminClient,
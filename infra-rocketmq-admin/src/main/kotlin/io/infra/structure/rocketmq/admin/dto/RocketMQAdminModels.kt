@@ -208,6 +208,14 @@ data class RocketMQMessageView(
     val deadLetter: Boolean
 )
 
+/** 按游标分页浏览的消息列表。 */
+data class RocketMQMessagePage(
+    /** 当前页消息，按存储时间倒序。 */
+    val items: List<RocketMQMessageListItem>,
+    /** 下一页游标；为空表示时间范围内已无更早的消息。 */
+    val nextCursor: String?
+)
+
 /** 重发消息结果。 */
 data class RocketMQResendResult(
     /** 重发后生成的消息 ID。 */
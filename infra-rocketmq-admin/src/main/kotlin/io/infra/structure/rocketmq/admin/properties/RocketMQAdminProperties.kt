@@ -25,6 +25,14 @@ class RocketMQAdminProperties {
     var useTLS: Boolean = false
     /** 单次管理操作（查询、重发等）的超时毫秒数。 */
     var operationTimeoutMillis: Long = 5_000
+    /** Topic 与消费组列表统计快照的后台刷新间隔毫秒数。 */
+    var statsRefreshIntervalMillis: Long = 30_000
+    /** 统计未变化的 Topic / 消费组最多经过多少轮刷新后重新拉取一次。 */
+    var statsFullRefreshCycles: Int = 10
+    /** 刷新统计快照时并行拉取的线程数。 */
+    var statsParallelism: Int = 8
+    /** 无 Key 浏览消息时并行扫描队列的线程数，同时也是复用的 Pull Consumer 数量上限。 */
+    var messageQueryParallelism: Int = 4
     /** 管理端接口安全开关。 */
     var authEnabled: Boolean = false
     /** 管理端访问令牌，不可在配置文件中写入明文。 */
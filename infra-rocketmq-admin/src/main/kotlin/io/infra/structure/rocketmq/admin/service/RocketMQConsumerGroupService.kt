@@ -6,38 +6,33 @@ import io.infra.structure.rocketmq.admin.dto.RocketMQConsumerGroupDetail
 import io.infra.structure.rocketmq.admin.dto.RocketMQConsumerGroupView
 import io.infra.structure.rocketmq.admin.properties.RocketMQAdminProperties
 import io.infra.structure.rocketmq.admin.support.RocketMQAdminClient
+import io.infra.structure.rocketmq.admin.support.RocketMQStatsSnapshot
 import io.infra.structure.rocketmq.admin.web.RocketMQAdminException
 import org.apache.rocketmq.common.message.MessageQueue
 import org.apache.rocketmq.remoting.protocol.admin.ConsumeStats
 import org.apache.rocketmq.remoting.protocol.body.ConsumerConnection
 import org.springframework.stereotype.Service
+import java.io.Closeable
 
 /** 消费组查询与位点维护。 */
 @Service
 class RocketMQConsumerGroupService(
     private val client: RocketMQAdminClient,
     private val properties: RocketMQAdminProperties
-) {
+) : Closeable {
 
-    /** 全量消费组列表，附带消费 TPS、堆积量与在线状态。 */
-    fun consumerGroups(): List<RocketMQConsumerGroupView> {
-        val groups = allConsumerGroups().sorted()
-        val now = System.currentTimeMillis()
-        return groups.mapNotNull { group ->
-            val stats = consumeStats(group) ?: return@mapNotNull null
-            val online = isOnline(group)
-            RocketMQConsumerGroupView(
-                group = group,
-                consumeTps = stats.consumeTps,
-                diffTotal = stats.computeTotalDiff(),
-                online = online,
-                lastTimestamp = stats.offsetTable.values
-                    .maxOfOrNull { it.lastTimestamp }
-                    ?: 0L,
-                topics = stats.offsetTable.keys.map { it.topic }.distinct().sorted()
-            )
-        }
-    }
+    /** 消费组统计快照，按 [RocketMQAdminProperties.statsRefreshIntervalMillis] 后台增量刷新。 */
+    private val groupStats = RocketMQStatsSnapshot(
+        name = "infra-rocketmq-admin-group-stats",
+        refreshIntervalMillis = properties.statsRefreshIntervalMillis,
+        fullRefreshCycles = properties.statsFullRefreshCycles,
+        parallelism = properties.statsParallelism,
+        listKeys = { allConsumerGroups().associateWith { } },
+        loadStats = { group, _: Unit -> consumerGroupView(group) }
+    )
+
+    /** 全量消费组列表，附带消费 TPS、堆积量与在线状态；数据来自后台刷新的统计快照。 */
+    fun consumerGroups(): List<RocketMQConsumerGroupView> = groupStats.entries().map { it.stats }
 
     /** 单个消费组详情：在线连接、订阅 Topic 与各队列消费进度。 */
     fun consumerGroupDetail(group: String): RocketMQConsumerGroupDetail {
@@ -106,6 +101,25 @@ class RocketMQConsumerGroupService(
                 .sortedWith(compareBy({ it.brokerName }, { it.queueId }))
         }
 
+    override fun close() {
+        groupStats.close()
+    }
+
+    /** 单个消费组的列表视图；尚未开始消费的组返回 null。 */
+    private fun consumerGroupView(group: String): RocketMQConsumerGroupView? {
+        val stats = consumeStats(group) ?: return null
+        return RocketMQConsumerGroupView(
+            group = group,
+            consumeTps = stats.consumeTps,
+            diffTotal = stats.computeTotalDiff(),
+            online = isOnline(group),
+            lastTimestamp = stats.offsetTable.values
+                .maxOfOrNull { it.lastTimestamp }
+                ?: 0L,
+            topics = stats.offsetTable.keys.map { it.topic }.distinct().sorted()
+        )
+    }
+
     /** 消费组列表：汇总各主 Broker 上注册的订阅组。 */
     private fun allConsumerGroups(): Set<String> = client.execute { admin ->
         val groups = LinkedHashSet<String>()
@@ -123,13 +137,13 @@ class RocketMQConsumerGroupService(
     }
 
     private fun consumeStats(group: String): ConsumeStats? = try {
-        client.execute { it.examineConsumeStats(group) }
+        client.query { it.examineConsumeStats(group) }
     } catch (exception: Exception) {
         null
     }
 
     private fun consumerConnections(group: String): List<RocketMQConsumerConnectionView> = try {
-        client.execute { admin ->
+        client.query { admin ->
             val connection: ConsumerConnection = admin.examineConsumerConnectionInfo(group)
             connection.connectionSet
                 .sortedBy { it.clientId }
@@ -0,0 +1,47 @@
+package io.infra.structure.rocketmq.admin.service
+
+import org.apache.rocketmq.common.message.MessageQueue
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+
+/**
+ * 无 Key 分页浏览的游标编解码与位点推进规则。
+ *
+ * 游标格式：`brokerName:queueId:upperOffset` 以分号连接后做 URL 安全的 Base64；上界不含，缺失的队列表示已读完。
+ */
+internal object RocketMQMessageCursor {
+
+    fun encode(bounds: Map<MessageQueue, Long>): String {
+        val raw = bounds.entries.joinToString(";") { (queue, upper) -> "${queue.brokerName}:${queue.queueId}:$upper" }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toByteArray(StandardCharsets.UTF_8))
+    }
+
+    fun decode(topic: String, cursor: String): Map<MessageQueue, Long?> {
+        val raw = try {
+            String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8)
+        } catch (exception: IllegalArgumentException) {
+            throw IllegalArgumentException("分页游标无效", exception)
+        }
+        return raw.split(';').filter { it.isNotBlank() }.associate { entry ->
+            val parts = entry.split(':')
+            val queueId = parts.getOrNull(parts.size - 2)?.toIntOrNull()
+            val upper = parts.lastOrNull()?.toLongOrNull()
+            require(parts.size >= 3 && queueId != null && upper != null) { "分页游标无效" }
+            MessageQueue(topic, parts.dropLast(2).joinToString(":"), queueId) to upper
+        }
+    }
+
+    /**
+     * 计算队列下一页的位点上界；返回 null 表示该队列已无更多消息。
+     *
+     * `[windowStart, upper)` 为本轮完整读取的区间，其中 [itemCount] 条落在时间范围内，本页取走其中 [takenOffsets]：
+     * - 全部取走：从窗口起点继续向前，已到达最小位点或越过起始时间则结束；
+     * - 部分取走：从取走的最小位点继续，未取走的较旧消息留给下一页；
+     * - 未取走：上界不变。
+     */
+    fun nextUpper(upper: Long, windowStart: Long, itemCount: Int, takenOffsets: List<Long>, exhausted: Boolean): Long? =
+        when {
+            takenOffsets.size == itemCount -> if (exhausted) null else windowStart
+            else -> takenOffsets.minOrNull() ?: upper
+        }
+}
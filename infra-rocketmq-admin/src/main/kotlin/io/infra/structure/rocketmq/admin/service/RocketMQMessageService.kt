@@ -1,28 +1,36 @@
 package io.infra.structure.rocketmq.admin.service
 
 import io.infra.structure.rocketmq.admin.dto.RocketMQMessageListItem
+import io.infra.structure.rocketmq.admin.dto.RocketMQMessagePage
 import io.infra.structure.rocketmq.admin.dto.RocketMQMessageView
 import io.infra.structure.rocketmq.admin.dto.RocketMQResendResult
 import io.infra.structure.rocketmq.admin.dto.RocketMQSendResult
 import io.infra.structure.rocketmq.admin.properties.RocketMQAdminProperties
 import io.infra.structure.rocketmq.admin.support.RocketMQAdminClient
+import io.infra.structure.rocketmq.admin.support.RocketMQPullConsumerPool
 import io.infra.structure.rocketmq.admin.web.RocketMQAdminException
 import org.apache.rocketmq.acl.common.AclClientRPCHook
 import org.apache.rocketmq.acl.common.SessionCredentials
 import org.apache.rocketmq.client.exception.MQBrokerException
 import org.apache.rocketmq.client.exception.MQClientException
-import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer
 import org.apache.rocketmq.client.producer.DefaultMQProducer
 import org.apache.rocketmq.common.MixAll
 import org.apache.rocketmq.common.message.Message
 import org.apache.rocketmq.common.message.MessageConst
 import org.apache.rocketmq.common.message.MessageExt
+import org.apache.rocketmq.common.message.MessageQueue
 import org.apache.rocketmq.remoting.RPCHook
 import org.apache.rocketmq.remoting.protocol.ResponseCode
 import org.springframework.stereotype.Service
 import java.io.ByteArrayInputStream
+import java.io.Closeable
 import java.nio.charset.StandardCharsets
-import java.util.UUID
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.zip.GZIPInputStream
 import java.util.zip.InflaterInputStream
 
@@ -31,11 +39,23 @@ import java.util.zip.InflaterInputStream
 class RocketMQMessageService(
     private val client: RocketMQAdminClient,
     private val properties: RocketMQAdminProperties
-) {
+) : Closeable {
 
     /** 默认回查时间窗口：最近 3 天。 */
     private val defaultQueryWindowMillis = 3L * 24 * 60 * 60 * 1000
 
+    /** 无 Key 浏览消息时复用的 Pull Consumer，避免每次查询新建客户端与 Broker 连接。 */
+    private val consumerPool = RocketMQPullConsumerPool(properties, properties.messageQueryParallelism)
+
+    /** 并行扫描各队列的线程池，与 [consumerPool] 同等大小。 */
+    private val queryExecutor: ExecutorService = Executors.newFixedThreadPool(
+        properties.messageQueryParallelism.coerceAtLeast(1),
+        queryThreadFactory()
+    )
+
+    @Volatile
+    private var producer: DefaultMQProducer? = null
+
     /** 按 Topic + 时间范围或 Key 查询消息索引。 */
     fun queryMessages(
         topic: String,
@@ -49,36 +69,106 @@ class RocketMQMessageService(
         val end = endTime ?: System.currentTimeMillis()
         val begin = beginTime ?: (end - defaultQueryWindowMillis)
         require(begin <= end) { "起始时间不能晚于结束时间" }
+        val limit = maxNum.coerceIn(1, 500)
+        if (key.isNullOrBlank()) {
+            return queryMessagePage(topicName, begin, end, limit, null).items
+        }
         return client.execute { admin ->
-            val limit = maxNum.coerceIn(1, 500)
-            val messages = if (key.isNullOrBlank()) {
-                queryRecentMessages(topicName, begin, end, limit)
-            } else {
-                val result = try {
-                    admin.queryMessage(topicName, key, limit, begin, end)
-                } catch (exception: MQBrokerException) {
-                    if (exception.responseCode == ResponseCode.QUERY_NOT_FOUND) {
-                        return@execute emptyList()
-                    }
-                    throw translate("消息查询失败", exception)
-                } catch (exception: MQClientException) {
-                    if (exception.responseCode == ResponseCode.QUERY_NOT_FOUND ||
-                        exception.responseCode == ResponseCode.NO_MESSAGE
-                    ) {
-                        return@execute emptyList()
-                    }
-                    throw translate("消息查询失败", exception)
-                } catch (exception: Exception) {
-                    throw translate("消息查询失败", exception)
+            val result = try {
+                admin.queryMessage(topicName, key, limit, begin, end)
+            } catch (exception: MQBrokerException) {
+                if (exception.responseCode == ResponseCode.QUERY_NOT_FOUND) {
+                    return@execute emptyList()
                 }
-                result.messageList ?: emptyList()
+                throw translate("消息查询失败", exception)
+            } catch (exception: MQClientException) {
+                if (exception.responseCode == ResponseCode.QUERY_NOT_FOUND ||
+                    exception.responseCode == ResponseCode.NO_MESSAGE
+                ) {
+                    return@execute emptyList()
+                }
+                throw translate("消息查询失败", exception)
+            } catch (exception: Exception) {
+                throw translate("消息查询失败", exception)
             }
-            messages.sortedByDescending { it.storeTimestamp }
+            (result.messageList ?: emptyList())
+                .sortedByDescending { it.storeTimestamp }
                 .take(limit)
                 .map(::toListItem)
         }
     }
 
+    /**
+     * 无 Key 时按游标分页浏览 Topic 在时间范围内的消息，按存储时间倒序。
+     *
+     * 游标记录每个队列下一页的位点上界（不含）。各队列先并行从上界向前读取一个小窗口（约一页均分到各队列），
+     * 合并后只对“已读最旧消息仍不早于当前第 pageSize 新消息”的队列成倍向前扩展，单队列累计至多一页；
+     * 其余队列更早的消息不可能进入本页，不再读取。最后取最新的一页并按 [RocketMQMessageCursor.nextUpper] 推进上界。
+     * 列表只保留索引字段，正文在查看详情时才解码。
+     */
+    fun queryMessagePage(
+        topic: String,
+        beginTime: Long?,
+        endTime: Long?,
+        pageSize: Int,
+        cursor: String?
+    ): RocketMQMessagePage {
+        val topicName = topic.trim()
+        require(topicName.isNotBlank()) { "Topic 不能为空" }
+        val end = endTime ?: System.currentTimeMillis()
+        val begin = beginTime ?: (end - defaultQueryWindowMillis)
+        require(begin <= end) { "起始时间不能晚于结束时间" }
+        val limit = pageSize.coerceIn(1, 500)
+        val bounds: Map<MessageQueue, Long?> = if (cursor.isNullOrBlank()) {
+            fetchQueues(topicName).associateWith { null }
+        } else {
+            RocketMQMessageCursor.decode(topicName, cursor)
+        }
+        if (bounds.isEmpty()) return RocketMQMessagePage(emptyList(), null)
+
+        val initialWindow = ((limit + bounds.size - 1) / bounds.size).coerceAtLeast(MIN_SCAN_WINDOW).coerceAtMost(limit)
+        var scans = bounds
+            .map { (queue, upper) ->
+                CompletableFuture.supplyAsync({ scanQueue(queue, upper, begin, end, initialWindow) }, queryExecutor)
+            }
+            .map(::await)
+        while (true) {
+            val cutoff = scans.flatMap { it.items }
+                .map { it.storeTimestamp }
+                .sortedDescending()
+                .getOrNull(limit - 1)
+            val extending = scans
+                .filter { !it.exhausted && it.readCount < limit && (cutoff == null || it.oldestTimestamp >= cutoff) }
+                .associate { scan ->
+                    val window = scan.readCount.coerceAtLeast(MIN_SCAN_WINDOW).coerceAtMost(limit - scan.readCount)
+                    scan.queue to CompletableFuture.supplyAsync({ extendScan(scan, begin, end, window) }, queryExecutor)
+                }
+            if (extending.isEmpty()) break
+            scans = scans.map { scan -> extending[scan.queue]?.let(::await) ?: scan }
+        }
+        val page = scans
+            .flatMap { scan -> scan.items.map { scan to it } }
+            .sortedWith(compareByDescending<Pair<QueueScan, RocketMQMessageListItem>> { it.second.storeTimestamp }
+                .thenByDescending { it.second.queueOffset })
+            .take(limit)
+        val taken = page.groupBy({ it.first }, { it.second })
+        val next = LinkedHashMap<MessageQueue, Long>()
+        scans.forEach { scan ->
+            val upper = RocketMQMessageCursor.nextUpper(
+                upper = scan.upper,
+                windowStart = scan.windowStart,
+                itemCount = scan.items.size,
+                takenOffsets = taken[scan].orEmpty().map { it.queueOffset },
+                exhausted = scan.exhausted
+            )
+            if (upper != null) next[scan.queue] = upper
+        }
+        return RocketMQMessagePage(
+            items = page.map { it.second },
+            nextCursor = next.takeIf { it.isNotEmpty() }?.let(RocketMQMessageCursor::encode)
+        )
+    }
+
     /** 按消息 ID 加载完整消息详情；优先按 offsetMsgId，失败后回退到唯一 ID + Topic。 */
     fun viewMessage(msgId: String, topic: String?): RocketMQMessageView {
         val message = loadMessage(msgId.trim(), topic?.trim())
@@ -155,60 +245,110 @@ class RocketMQMessageService(
         }
     }
 
-    /** 未指定 Key 时，从各队列末尾读取指定时间范围内的最近消息。 */
-    private fun queryRecentMessages(topic: String, begin: Long, end: Long, limit: Int): List<MessageExt> {
-        val queues = try {
-            withPullConsumer { it.fetchMessageQueues(topic) }
-        } catch (exception: Exception) {
-            throw translate("无法获取 Topic 队列：$topic", exception)
-        }
-        if (queues.isEmpty()) return emptyList()
-        // 每个队列独立 assign + seek + poll：各队列并行、专注单队列，取回最近 limit 条
-        return queues.flatMap { queue ->
-            try {
-                withPullConsumer { consumer ->
-                    consumer.assign(listOf(queue))
-                    val seekOffset = (consumer.offsetForTimestamp(queue, end) ?: 0L) - limit
-                    consumer.seek(queue, seekOffset.coerceAtLeast(0L))
-                    val messages = ArrayList<MessageExt>()
-                    val deadline = System.currentTimeMillis() + properties.operationTimeoutMillis
-                    while (messages.size < limit && System.currentTimeMillis() < deadline) {
-                        val batch = consumer.poll(200L)
-                        if (batch.isEmpty()) break
-                        messages += batch.filter { it.storeTimestamp in begin..end }
-                    }
-                    messages.take(limit)
-                }
-            } catch (exception: Exception) {
-                throw translate("读取 Topic 队列消息失败：${queue.brokerName}/${queue.queueId}", exception)
+    /**
+     * 单个队列的扫描结果：`[windowStart, upper)` 已完整读取，[items] 为其中落在时间范围内的消息。
+     * [oldestTimestamp] 为已读消息的最早存储时间，用于判断是否还需向前扩展。
+     */
+    private class QueueScan(
+        val queue: MessageQueue,
+        val minOffset: Long,
+        val upper: Long,
+        val windowStart: Long,
+        val readCount: Int,
+        val oldestTimestamp: Long,
+        val items: List<RocketMQMessageListItem>,
+        val exhausted: Boolean
+    )
+
+    private fun fetchQueues(topic: String): Collection<MessageQueue> = try {
+        consumerPool.withConsumer { it.fetchMessageQueues(topic) }
+    } catch (exception: RocketMQAdminException) {
+        throw exception
+    } catch (exception: Exception) {
+        throw translate("无法获取 Topic 队列：$topic", exception)
+    }
+
+    /** 确定队列位点上界后读取 `[max(minOffset, upper - window), upper)` 区间。 */
+    private fun scanQueue(queue: MessageQueue, upper: Long?, begin: Long, end: Long, window: Int): QueueScan {
+        val (minOffset, upperBound) = try {
+            client.query { admin ->
+                val bound = upper ?: (admin.searchOffset(queue, end) + 1).coerceAtMost(admin.maxOffset(queue))
+                admin.minOffset(queue) to bound
             }
+        } catch (exception: Exception) {
+            throw translate("读取 Topic 队列位点失败：${queue.brokerName}/${queue.queueId}", exception)
         }
+        val empty = QueueScan(queue, minOffset, upperBound, upperBound, 0, Long.MAX_VALUE, emptyList(), exhausted = false)
+        return extendScan(empty, begin, end, window)
     }
 
-    /** 创建一次性 Lite Pull Consumer，仅用于无 Key 的管理端消息浏览。 */
-    private fun <T> withPullConsumer(block: (DefaultLitePullConsumer) -> T): T {
-        val rpcHook: RPCHook? = properties.accessKey?.takeIf { it.isNotBlank() }?.let {
-            AclClientRPCHook(SessionCredentials(it, properties.secretKey ?: ""))
+    /** 从已读区间起点继续向前读取至多 [window] 条，与已读结果合并。 */
+    private fun extendScan(scan: QueueScan, begin: Long, end: Long, window: Int): QueueScan {
+        val start = maxOf(scan.minOffset, scan.windowStart - window)
+        if (start >= scan.windowStart) {
+            return QueueScan(
+                scan.queue, scan.minOffset, scan.upper, scan.windowStart, scan.readCount,
+                scan.oldestTimestamp, scan.items, exhausted = true
+            )
         }
-        val group = "infra_rocketmq_admin_query_${UUID.randomUUID()}"
-        val consumer = if (rpcHook == null) DefaultLitePullConsumer(group) else DefaultLitePullConsumer(group, rpcHook)
-        consumer.namesrvAddr = properties.namesrvAddr
-        consumer.instanceName = "$group-${properties.instanceName}"
-        consumer.isUseTLS = properties.useTLS
-        consumer.isVipChannelEnabled = false
-        consumer.consumerPullTimeoutMillis = properties.operationTimeoutMillis
-        return try {
-            consumer.start()
-            block(consumer)
+        val messages = readWindow(scan.queue, start, scan.windowStart)
+        return QueueScan(
+            queue = scan.queue,
+            minOffset = scan.minOffset,
+            upper = scan.upper,
+            windowStart = start,
+            readCount = scan.readCount + messages.size,
+            oldestTimestamp = minOf(scan.oldestTimestamp, messages.minOfOrNull { it.storeTimestamp } ?: Long.MAX_VALUE),
+            items = messages.filter { it.storeTimestamp in begin..end }.map(::toListItem) + scan.items,
+            exhausted = start == scan.minOffset || messages.any { it.storeTimestamp < begin }
+        )
+    }
+
+    /**
+     * 读取队列 `[start, upper)` 区间，位点读到上界即停止。
+     *
+     * 超时前未读到上界时整页失败：已读部分缺少更新的尾段，若按部分结果推进游标会静默跳过未读位点。
+     */
+    private fun readWindow(queue: MessageQueue, start: Long, upper: Long): List<MessageExt> {
+        try {
+            return consumerPool.withConsumer { consumer ->
+                consumer.assign(listOf(queue))
+                consumer.seek(queue, start)
+                consumer.resume(listOf(queue))
+                val collected = ArrayList<MessageExt>()
+                var reached = start
+                val deadline = System.currentTimeMillis() + properties.operationTimeoutMillis
+                while (reached < upper) {
+                    val remaining = deadline - System.currentTimeMillis()
+                    if (remaining <= 0) break
+                    val batch = consumer.poll(remaining)
+                    if (batch.isEmpty()) break
+                    batch.forEach { message ->
+                        if (message.queueId != queue.queueId) return@forEach
+                        if (message.queueOffset in start until upper) collected += message
+                        reached = maxOf(reached, minOf(message.queueOffset + 1, upper))
+                    }
+                }
+                if (reached < upper) {
+                    throw RocketMQAdminException(
+                        "读取队列 ${queue.brokerName}/${queue.queueId} 超时：位点 [$start, $upper) 仅读到 $reached，请重试或缩小分页"
+                    )
+                }
+                collected
+            }
         } catch (exception: RocketMQAdminException) {
             throw exception
         } catch (exception: Exception) {
-            throw translate("初始化消息读取客户端失败", exception)
-        } finally {
-            consumer.shutdown()
+            throw translate("读取 Topic 队列消息失败：${queue.brokerName}/${queue.queueId}", exception)
         }
     }
 
+    private fun <T> await(future: CompletableFuture<T>): T = try {
+        future.join()
+    } catch (exception: CompletionException) {
+        throw exception.cause as? RuntimeException ?: translate("消息查询失败", exception)
+    }
+
     private fun toListItem(message: MessageExt): RocketMQMessageListItem = RocketMQMessageListItem(
         msgId = message.msgId,
         topic = message.topic,
@@ -290,8 +430,12 @@ class RocketMQMessageService(
         }.getOrNull()?.takeIf { it.isNotEmpty() }
     }
 
-    /** 使用独立 Producer 执行发送类操作，避免复用管理客户端的连接。 */
-    private fun <T> withProducer(block: (DefaultMQProducer) -> T): T {
+    /** 使用独立 Producer 执行发送类操作，避免复用管理客户端的连接；Producer 首次使用时启动并一直复用。 */
+    private fun <T> withProducer(block: (DefaultMQProducer) -> T): T = block(producer ?: startProducer())
+
+    @Synchronized
+    private fun startProducer(): DefaultMQProducer {
+        producer?.let { return it }
         val rpcHook: RPCHook? = properties.accessKey?.takeIf { it.isNotBlank() }?.let {
             AclClientRPCHook(SessionCredentials(it, properties.secretKey ?: ""))
         }
@@ -310,10 +454,16 @@ class RocketMQMessageService(
         } catch (exception: Exception) {
             throw RocketMQAdminException("无法连接 RocketMQ NameServer（${properties.namesrvAddr}）：${exception.message}", exception)
         }
-        try {
-            return block(producer)
-        } finally {
-            runCatching { producer.shutdown() }
+        this.producer = producer
+        return producer
+    }
+
+    override fun close() {
+        queryExecutor.shutdownNow()
+        consumerPool.close()
+        synchronized(this) {
+            producer?.let { runCatching { it.shutdown() } }
+            producer = null
         }
     }
 
@@ -321,7 +471,16 @@ class RocketMQMessageService(
         RocketMQAdminException("$action：${exception.message}", exception)
 
     private companion object {
-        /** 管理后台发送/重发消息使用的临时 Producer 组。 */
+        /** 管理后台发送/重发消息使用的 Producer 组。 */
         const val PRODUCER_GROUP = "infra-rocketmq-admin"
+        /** 单队列每轮最少读取的消息数，避免队列很多时退化为逐条拉取。 */
+        const val MIN_SCAN_WINDOW = 16
+
+        fun queryThreadFactory(): ThreadFactory {
+            val index = AtomicInteger()
+            return ThreadFactory { runnable ->
+                Thread(runnable, "infra-rocketmq-admin-message-query-${index.incrementAndGet()}").apply { isDaemon = true }
+            }
+        }
     }
 }
@@ -5,9 +5,11 @@ import io.infra.structure.rocketmq.admin.dto.RocketMQTopicDetail
 import io.infra.structure.rocketmq.admin.dto.RocketMQTopicView
 import io.infra.structure.rocketmq.admin.properties.RocketMQAdminProperties
 import io.infra.structure.rocketmq.admin.support.RocketMQAdminClient
+import io.infra.structure.rocketmq.admin.support.RocketMQStatsSnapshot
 import io.infra.structure.rocketmq.admin.web.RocketMQAdminException
 import org.apache.rocketmq.common.TopicConfig
 import org.springframework.stereotype.Service
+import java.io.Closeable
 
 /** Topic 查询与维护。 */
 @Service
@@ -15,30 +17,29 @@ class RocketMQTopicService(
     private val client: RocketMQAdminClient,
     private val clusterService: RocketMQClusterService,
     private val properties: RocketMQAdminProperties
-) {
+) : Closeable {
 
-    /** 全量 Topic 列表，附带各 Topic 的队列配置。 */
-    fun topics(): List<RocketMQTopicView> = client.execute { admin ->
-        val allTopics = try {
-            admin.fetchAllTopicList().topicList ?: emptySet()
-        } catch (exception: Exception) {
-            throw translate("无法获取 Topic 列表", exception)
-        }
-        val configs = topicConfigs(admin)
-        allTopics
-            .filterNot { it.startsWith(SYSTEM_TOPIC_PREFIX) }
-            .map { topic ->
-                val config = configs[topic]
-                RocketMQTopicView(
-                    topic = topic,
-                    readQueueNums = config?.readQueueNums ?: 0,
-                    writeQueueNums = config?.writeQueueNums ?: 0,
-                    perm = config?.perm ?: 0,
-                    order = config?.isOrder ?: false,
-                    messageCount = messageCount(admin, topic)
-                )
-            }
-            .sortedBy { it.topic }
+    /** Topic 消息数量快照，按 [RocketMQAdminProperties.statsRefreshIntervalMillis] 后台增量刷新。 */
+    private val topicStats = RocketMQStatsSnapshot(
+        name = "infra-rocketmq-admin-topic-stats",
+        refreshIntervalMillis = properties.statsRefreshIntervalMillis,
+        fullRefreshCycles = properties.statsFullRefreshCycles,
+        parallelism = properties.statsParallelism,
+        listKeys = ::listTopics,
+        loadStats = { topic, _: TopicConfig? -> client.query { admin -> messageCount(admin, topic) } }
+    )
+
+    /** 全量 Topic 列表，附带各 Topic 的队列配置；消息数量来自后台刷新的统计快照。 */
+    fun topics(): List<RocketMQTopicView> = topicStats.entries().map { entry ->
+        val config = entry.context
+        RocketMQTopicView(
+            topic = entry.key,
+            readQueueNums = config?.readQueueNums ?: 0,
+            writeQueueNums = config?.writeQueueNums ?: 0,
+            perm = config?.perm ?: 0,
+            order = config?.isOrder ?: false,
+            messageCount = entry.stats
+        )
     }
 
     /** 单个 Topic 详情：路由 Broker、队列位点、生产与消费关系。 */
@@ -98,6 +99,7 @@ class RocketMQTopicService(
                 throw translate("在 Broker $addr 上创建 Topic 失败：$topicName", exception)
             }
         }
+        topicStats.invalidate()
     }
 
     /** 删除 Broker 与 NameServer 上的 Topic 路由。 */
@@ -129,6 +131,24 @@ class RocketMQTopicService(
         if (topicStillExists) {
             throw RocketMQAdminException("Topic 路由仍存在，未完成删除：$topicName")
         }
+        topicStats.invalidate()
+    }
+
+    override fun close() {
+        topicStats.close()
+    }
+
+    /** 业务 Topic 名称及其配置，供统计快照枚举 key。 */
+    private fun listTopics(): Map<String, TopicConfig?> = client.execute { admin ->
+        val allTopics = try {
+            admin.fetchAllTopicList().topicList ?: emptySet()
+        } catch (exception: Exception) {
+            throw translate("无法获取 Topic 列表", exception)
+        }
+        val configs = topicConfigs(admin)
+        allTopics
+            .filterNot { it.startsWith(SYSTEM_TOPIC_PREFIX) }
+            .associateWith { configs[it] }
     }
 
     /** 汇总所有主 Broker 上的 Topic 配置，供列表页一次性使用。 */
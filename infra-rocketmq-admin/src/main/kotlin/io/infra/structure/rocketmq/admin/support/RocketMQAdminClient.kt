@@ -13,27 +13,41 @@ import kotlin.concurrent.withLock
 /**
  * RocketMQ 管理客户端的线程安全包装。
  *
- * [DefaultMQAdminExt] 内部存在共享状态，对低并发的管理后台直接复用单个实例即可；
- * 这里统一串行化全部管理操作，避免并发查询与写操作互相干扰。
+ * [DefaultMQAdminExt] 内部存在共享状态，对低并发的管理后台直接复用单个实例即可。
+ * 写操作与有状态调用经 [execute] 串行化，避免并发查询与写操作互相干扰；
+ * 只读统计查询经 [query] 绕过该锁并行执行，仅首次连接时借锁完成启动。
  */
-class RocketMQAdminClient(
-    private val properties: RocketMQAdminProperties
+class RocketMQAdminClient internal constructor(
+    private val properties: RocketMQAdminProperties,
+    private val admin: DefaultMQAdminExt
 ) : Closeable {
 
+    constructor(properties: RocketMQAdminProperties) : this(properties, buildAdmin(properties))
+
     private val log = LoggerFactory.getLogger(RocketMQAdminClient::class.java)
     private val lock = ReentrantLock()
 
     @Volatile
     private var started = false
 
-    private val admin: DefaultMQAdminExt = buildAdmin(properties)
-
     /** 串行执行一次管理操作。 */
     fun <T> execute(block: (DefaultMQAdminExt) -> T): T = lock.withLock {
         ensureStarted()
         block(admin)
     }
 
+    /**
+     * 不加锁执行只读查询。
+     *
+     * 统计类查询底层是线程安全的远程调用，列表统计需要并行拉取时使用；写操作仍应通过 [execute] 串行执行。
+     */
+    fun <T> query(block: (DefaultMQAdminExt) -> T): T {
+        if (!started) {
+            lock.withLock { ensureStarted() }
+        }
+        return block(admin)
+    }
+
     /** 是否已成功连接到 NameServer。 */
     val connected: Boolean
         get() = started
@@ -0,0 +1,117 @@
+package io.infra.structure.rocketmq.admin.support
+
+import io.infra.structure.rocketmq.admin.properties.RocketMQAdminProperties
+import io.infra.structure.rocketmq.admin.web.RocketMQAdminException
+import org.apache.rocketmq.acl.common.AclClientRPCHook
+import org.apache.rocketmq.acl.common.SessionCredentials
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer
+import org.apache.rocketmq.remoting.RPCHook
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 消息浏览用的 Lite Pull Consumer 池。
+ *
+ * 启动一个 Pull Consumer 需要建立 NameServer / Broker 连接，耗时可达秒级；池内客户端按需创建、
+ * 用完归还，最多 [size] 个。每个客户端使用独立的消费组与实例名，只通过 assign 读取单个队列，不提交位点。
+ * 读取过程中出错的客户端直接关闭丢弃，下次借用时重新创建。
+ */
+class RocketMQPullConsumerPool(
+    private val properties: RocketMQAdminProperties,
+    size: Int
+) : Closeable {
+
+    private val log = LoggerFactory.getLogger(RocketMQPullConsumerPool::class.java)
+    private val size = size.coerceAtLeast(1)
+    private val idle = LinkedBlockingQueue<DefaultLitePullConsumer>()
+    private val created = AtomicInteger()
+    private val sequence = AtomicInteger()
+
+    @Volatile
+    private var closed = false
+
+    /** 借用一个客户端执行 [block]，结束后归还；池已满时最多等待一次操作超时。 */
+    fun <T> withConsumer(block: (DefaultLitePullConsumer) -> T): T {
+        val consumer = borrow()
+        val result = try {
+            block(consumer)
+        } catch (exception: Exception) {
+            discard(consumer)
+            throw exception
+        }
+        release(consumer)
+        return result
+    }
+
+    override fun close() {
+        closed = true
+        generateSequence { idle.poll() }.forEach(::shutdownQuietly)
+    }
+
+    private fun borrow(): DefaultLitePullConsumer {
+        check(!closed) { "消息读取客户端池已关闭" }
+        idle.poll()?.let { return it }
+        while (true) {
+            val current = created.get()
+            if (current >= size) break
+            if (created.compareAndSet(current, current + 1)) {
+                return try {
+                    create()
+                } catch (exception: Exception) {
+                    created.decrementAndGet()
+                    throw RocketMQAdminException("初始化消息读取客户端失败：${exception.message}", exception)
+                }
+            }
+        }
+        return idle.poll(properties.operationTimeoutMillis, TimeUnit.MILLISECONDS)
+            ?: throw RocketMQAdminException("消息读取客户端繁忙，请稍后重试")
+    }
+
+    private fun release(consumer: DefaultLitePullConsumer) {
+        if (closed) {
+            discard(consumer)
+            return
+        }
+        // 暂停当前分配的队列，避免空闲期间后台线程继续预拉取；下次 assign 会整体替换分配
+        runCatching { consumer.pause(consumer.assignment()) }
+        idle.offer(consumer)
+    }
+
+    private fun discard(consumer: DefaultLitePullConsumer) {
+        created.decrementAndGet()
+        shutdownQuietly(consumer)
+    }
+
+    private fun create(): DefaultLitePullConsumer {
+        val rpcHook: RPCHook? = properties.accessKey?.takeIf { it.isNotBlank() }?.let {
+            AclClientRPCHook(SessionCredentials(it, properties.secretKey ?: ""))
+        }
+        val group = "$GROUP_PREFIX${sequence.incrementAndGet()}"
+        val consumer = if (rpcHook == null) DefaultLitePullConsumer(group) else DefaultLitePullConsumer(group, rpcHook)
+        consumer.namesrvAddr = properties.namesrvAddr
+        consumer.instanceName = "$group-${properties.instanceName}"
+        consumer.isUseTLS = properties.useTLS
+        consumer.isVipChannelEnabled = false
+        consumer.isAutoCommit = false
+        consumer.consumerPullTimeoutMillis = properties.operationTimeoutMillis
+        consumer.start()
+        log.info("RocketMQ 消息读取客户端已启动：{}", group)
+        return consumer
+    }
+
+    private fun shutdownQuietly(consumer: DefaultLitePullConsumer) {
+        try {
+            consumer.shutdown()
+        } catch (exception: Exception) {
+            log.warn("RocketMQ 消息读取客户端关闭异常：{}", consumer.consumerGroup, exception)
+        }
+    }
+
+    private companion object {
+        /** 池内客户端的消费组前缀，仅用于 assign 模式读取，不参与负载均衡。 */
+        const val GROUP_PREFIX = "infra_rocketmq_admin_query_"
+    }
+}
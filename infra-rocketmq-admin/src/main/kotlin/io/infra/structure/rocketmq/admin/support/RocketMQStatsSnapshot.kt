@@ -0,0 +1,128 @@
+package io.infra.structure.rocketmq.admin.support
+
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 后台定时刷新的列表统计快照。
+ *
+ * 每轮先获取全量 key 及其附带信息（廉价），再只为新增 key、上一轮统计发生变化的 key，
+ * 以及轮转到的一部分未变化 key 并行拉取统计（昂贵）；其余 key 沿用上一轮结果，
+ * 保证每个 key 至多 [fullRefreshCycles] 轮内重新拉取一次。首次访问时同步加载并启动后台刷新。
+ */
+class RocketMQStatsSnapshot<C, V : Any>(
+    private val name: String,
+    private val refreshIntervalMillis: Long,
+    fullRefreshCycles: Int,
+    parallelism: Int,
+    private val listKeys: () -> Map<String, C>,
+    private val loadStats: (String, C) -> V?
+) : Closeable {
+
+    /** 快照中的一项：key、列表附带信息与统计值。 */
+    class Entry<C, V>(val key: String, val context: C, val stats: V)
+
+    private val log = LoggerFactory.getLogger(RocketMQStatsSnapshot::class.java)
+    private val fullRefreshCycles = fullRefreshCycles.coerceAtLeast(1)
+    private val loader: ExecutorService = Executors.newFixedThreadPool(parallelism.coerceAtLeast(1), threadFactory("$name-loader"))
+    private val scheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(threadFactory("$name-refresh"))
+    private val scheduled = AtomicBoolean(false)
+
+    @Volatile
+    private var entries: List<Entry<C, V>>? = null
+    private var stats: Map<String, V> = emptyMap()
+    private var changed: Set<String> = emptySet()
+    private var cursor = 0
+
+    /** 当前快照。 */
+    fun entries(): List<Entry<C, V>> {
+        val current = entries ?: refresh()
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.scheduleWithFixedDelay(::refreshQuietly, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS)
+        }
+        return current
+    }
+
+    /** 使当前快照失效，下次访问时同步做一次增量刷新；用于新建、删除等写操作之后。 */
+    fun invalidate() {
+        entries = null
+    }
+
+    /** 执行一轮增量刷新并返回新快照。 */
+    @Synchronized
+    fun refresh(): List<Entry<C, V>> {
+        val keys = listKeys()
+        val previous = stats
+        val unchanged = keys.keys.filter { it in previous && it !in changed }.sorted()
+        val slice = if (unchanged.isEmpty()) {
+            emptyList()
+        } else {
+            val size = (unchanged.size + fullRefreshCycles - 1) / fullRefreshCycles
+            val start = cursor % unchanged.size
+            cursor = (start + size) % unchanged.size
+            (0 until size).map { unchanged[(start + it) % unchanged.size] }
+        }
+        val targets = keys.keys.filter { it !in previous || it in changed } + slice
+        val results = targets
+            .associateWith { key ->
+                CompletableFuture.supplyAsync({ runCatching { loadStats(key, keys.getValue(key)) } }, loader)
+            }
+            .mapValues { (_, future) -> future.join() }
+
+        val next = LinkedHashMap<String, V>()
+        val nextChanged = HashSet<String>()
+        keys.keys.sorted().forEach { key ->
+            val result = results[key]
+            val value = when {
+                result == null -> previous[key]
+                result.isFailure -> previous[key].also {
+                    log.warn("[{}] 统计拉取失败，沿用上一轮结果：{}", name, key, result.exceptionOrNull())
+                }
+                else -> result.getOrNull()
+            }
+            if (value != null) {
+                next[key] = value
+            }
+            // 失败的 key 同样视为变化，下一轮重新拉取；新增 key 不计入变化
+            if (result != null && (result.isFailure || (key in previous && value != previous[key]))) {
+                nextChanged += key
+            }
+        }
+        stats = next
+        changed = nextChanged
+        val snapshot = next.map { (key, value) -> Entry(key, keys.getValue(key), value) }
+        entries = snapshot
+        log.debug("[{}] 统计快照刷新完成，共 {} 项，本轮拉取 {} 项", name, snapshot.size, targets.size)
+        return snapshot
+    }
+
+    override fun close() {
+        scheduler.shutdownNow()
+        loader.shutdownNow()
+    }
+
+    private fun refreshQuietly() {
+        try {
+            refresh()
+        } catch (exception: Exception) {
+            log.warn("[{}] 统计快照刷新失败，继续使用上一轮结果", name, exception)
+        }
+    }
+
+    private companion object {
+        fun threadFactory(prefix: String): ThreadFactory {
+            val index = AtomicInteger()
+            return ThreadFactory { runnable ->
+                Thread(runnable, "$prefix-${index.incrementAndGet()}").apply { isDaemon = true }
+            }
+        }
+    }
+}
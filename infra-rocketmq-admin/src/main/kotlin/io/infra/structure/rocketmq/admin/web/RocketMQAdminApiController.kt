@@ -78,6 +78,15 @@ class RocketMQAdminApiController(
         @RequestParam(defaultValue = "100") @Min(1) @Max(500) maxNum: Int
     ) = messageService.queryMessages(topic, key, begin, end, maxNum)
 
+    @GetMapping(RocketMQAdminWebPaths.API_MESSAGE_PAGE)
+    fun queryMessagePage(
+        @RequestParam @NotBlank topic: String,
+        @RequestParam(required = false) begin: Long?,
+        @RequestParam(required = false) end: Long?,
+        @RequestParam(defaultValue = "100") @Min(1) @Max(500) pageSize: Int,
+        @RequestParam(required = false) cursor: String?
+    ) = messageService.queryMessagePage(topic, begin, end, pageSize, cursor)
+
     @GetMapping(RocketMQAdminWebPaths.API_MESSAGE_DETAIL)
     fun messageDetail(
         @PathVariable msgId: String,
@@ -48,6 +48,9 @@ object RocketMQAdminWebPaths {
     /** 消息索引查询。 */
     const val API_MESSAGE_QUERY = "/messages/query"
 
+    /** 无 Key 消息游标分页浏览。 */
+    const val API_MESSAGE_PAGE = "/messages/page"
+
     /** 消息详情。 */
     const val API_MESSAGE_DETAIL = "/messages/{msgId}"
 
@@ -513,6 +513,34 @@
         document.getElementById("query-end").value = fmtDateTimeLocal(end.getTime());
 
         const form = document.getElementById("query-form");
+        const moreButton = document.getElementById("results-more");
+        let pageQuery = null;
+        let pageResults = [];
+
+        function loadPage() {
+            const errorEl = document.getElementById("query-error");
+            const params = new URLSearchParams(pageQuery.params);
+            if (pageQuery.cursor) params.set("cursor", pageQuery.cursor);
+            if (moreButton) moreButton.disabled = true;
+            return api("/messages/page?" + params.toString()).then(function (page) {
+                setQueryLoading(false);
+                pageResults = pageResults.concat(page.items || []);
+                pageQuery.cursor = page.nextCursor || null;
+                renderResults(pageResults);
+                setPaginationVisible(!!pageQuery.cursor);
+            }).catch(function (error) {
+                setQueryLoading(false);
+                if (errorEl) errorEl.textContent = error.message;
+                toast(error.message, true);
+            }).finally(function () {
+                if (moreButton) moreButton.disabled = false;
+            });
+        }
+
+        if (moreButton) moreButton.addEventListener("click", function () {
+            if (pageQuery && pageQuery.cursor) loadPage();
+        });
+
         form.addEventListener("submit", function (event) {
             event.preventDefault();
             const errorEl = document.getElementById("query-error");
@@ -531,6 +559,17 @@
             if (beginMs) params.set("begin", String(beginMs));
             if (endMs) params.set("end", String(endMs));
             setQueryLoading(true);
+            setPaginationVisible(false);
+            if (!key) {
+                // 无 Key 时按游标分页浏览，后续页通过“加载更多”追加
+                params.delete("maxNum");
+                params.set("pageSize", String(maxNum));
+                pageQuery = { params: params.toString(), cursor: null };
+                pageResults = [];
+                loadPage();
+                return;
+            }
+            pageQuery = null;
             api("/messages/query?" + params.toString()).then(function (list) {
                 setQueryLoading(false);
                 renderResults(list || []);
@@ -586,6 +625,11 @@
         if (bodyEl && loading) bodyEl.innerHTML = "";
     }
 
+    function setPaginationVisible(visible) {
+        const pagination = document.getElementById("results-pagination");
+        if (pagination) pagination.hidden = !visible;
+    }
+
     function renderResults(list) {
         const body = document.getElementById("results-body");
         const empty = document.getElementById("results-empty");
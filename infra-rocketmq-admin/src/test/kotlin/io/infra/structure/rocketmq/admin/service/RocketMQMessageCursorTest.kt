@@ -0,0 +1,50 @@
+package io.infra.structure.rocketmq.admin.service
+
+import org.apache.rocketmq.common.message.MessageQueue
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import java.nio.charset.StandardCharsets
+import java.util.Base64
+
+class RocketMQMessageCursorTest {
+
+    @Test
+    fun cursorRoundTripsQueueBoundsIncludingColonInBrokerName() {
+        val bounds = linkedMapOf(
+            MessageQueue("order", "broker-a", 0) to 120L,
+            MessageQueue("order", "10.0.0.1:10911", 3) to 7L
+        )
+
+        val decoded = RocketMQMessageCursor.decode("order", RocketMQMessageCursor.encode(bounds))
+
+        assertThat(decoded).isEqualTo(bounds)
+    }
+
+    @Test
+    fun malformedCursorIsRejected() {
+        assertThatThrownBy { RocketMQMessageCursor.decode("order", "%%%") }
+            .isInstanceOf(IllegalArgumentException::class.java)
+        val missingOffset = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("broker-a:0".toByteArray(StandardCharsets.UTF_8))
+        assertThatThrownBy { RocketMQMessageCursor.decode("order", missingOffset) }
+            .isInstanceOf(IllegalArgumentException::class.java)
+    }
+
+    @Test
+    fun fullyTakenWindowContinuesFromWindowStartUntilExhausted() {
+        assertThat(RocketMQMessageCursor.nextUpper(100, 80, 3, listOf(99, 98, 97), exhausted = false)).isEqualTo(80L)
+        assertThat(RocketMQMessageCursor.nextUpper(100, 0, 3, listOf(99, 98, 97), exhausted = true)).isNull()
+        assertThat(RocketMQMessageCursor.nextUpper(100, 0, 0, emptyList(), exhausted = true)).isNull()
+    }
+
+    @Test
+    fun partiallyTakenWindowResumesFromOldestTakenOffset() {
+        assertThat(RocketMQMessageCursor.nextUpper(100, 80, 5, listOf(99, 97), exhausted = true)).isEqualTo(97L)
+    }
+
+    @Test
+    fun untouchedWindowKeepsUpperBound() {
+        assertThat(RocketMQMessageCursor.nextUpper(100, 80, 5, emptyList(), exhausted = false)).isEqualTo(100L)
+    }
+}
@@ -0,0 +1,77 @@
+package io.infra.structure.rocketmq.admin.service
+
+import io.infra.structure.rocketmq.admin.properties.RocketMQAdminProperties
+import io.infra.structure.rocketmq.admin.support.RocketMQAdminClient
+import org.apache.rocketmq.common.TopicConfig
+import org.apache.rocketmq.common.message.MessageQueue
+import org.apache.rocketmq.remoting.protocol.admin.TopicOffset
+import org.apache.rocketmq.remoting.protocol.admin.TopicStatsTable
+import org.apache.rocketmq.remoting.protocol.body.ClusterInfo
+import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper
+import org.apache.rocketmq.remoting.protocol.body.TopicList
+import org.apache.rocketmq.remoting.protocol.route.BrokerData
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito
+import java.util.concurrent.ConcurrentHashMap
+
+class RocketMQTopicServiceTest {
+
+    private val admin: DefaultMQAdminExt = Mockito.mock(DefaultMQAdminExt::class.java)
+    private val properties = RocketMQAdminProperties().apply { statsRefreshIntervalMillis = 3_600_000 }
+    private val client = RocketMQAdminClient(properties, admin)
+    private val service = RocketMQTopicService(client, RocketMQClusterService(client, properties), properties)
+
+    @AfterEach
+    fun close() {
+        service.close()
+    }
+
+    @Test
+    fun topicsAreServedFromSnapshotAfterFirstLoad() {
+        stubCluster(listOf("order", "pay", "%RETRY%order_group"))
+
+        val first = service.topics()
+        assertThat(first.map { it.topic }).containsExactly("order", "pay")
+        assertThat(first.first { it.topic == "order" }.messageCount).isEqualTo(100L)
+        assertThat(first.first { it.topic == "order" }.writeQueueNums).isEqualTo(4)
+
+        service.topics()
+        Mockito.verify(admin, Mockito.times(2)).examineTopicStats(Mockito.anyString())
+    }
+
+    @Test
+    fun createTopicMakesNextReadPickUpNewTopic() {
+        stubCluster(listOf("order"))
+        assertThat(service.topics().map { it.topic }).containsExactly("order")
+
+        stubCluster(listOf("order", "refund"))
+        service.createTopic("refund", 4, 4)
+
+        assertThat(service.topics().map { it.topic }).containsExactly("order", "refund")
+        Mockito.verify(admin, Mockito.times(1)).examineTopicStats("refund")
+    }
+
+    private fun stubCluster(topics: List<String>) {
+        val clusterInfo = ClusterInfo().apply {
+            brokerAddrTable = hashMapOf("broker-a" to BrokerData("DefaultCluster", "broker-a", hashMapOf(0L to "127.0.0.1:10911")))
+        }
+        Mockito.`when`(admin.examineBrokerClusterInfo()).thenReturn(clusterInfo)
+        Mockito.`when`(admin.fetchAllTopicList()).thenReturn(TopicList().apply { topicList = topics.toMutableSet() })
+        val configs = ConcurrentHashMap<String, TopicConfig>()
+        topics.forEach { configs[it] = TopicConfig(it, 4, 4, 6) }
+        Mockito.`when`(admin.getAllTopicConfig(Mockito.anyString(), Mockito.anyLong()))
+            .thenReturn(TopicConfigSerializeWrapper().apply { topicConfigTable = configs })
+        Mockito.`when`(admin.examineTopicStats(Mockito.anyString())).thenAnswer { invocation ->
+            val topic = invocation.getArgument<String>(0)
+            TopicStatsTable().apply {
+                offsetTable = hashMapOf(MessageQueue(topic, "broker-a", 0) to TopicOffset().apply {
+                    minOffset = 0
+                    maxOffset = 100
+                })
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.infra.structure.rocketmq.admin.support
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+
+class RocketMQStatsSnapshotTest {
+
+    private val keys = LinkedHashMap<String, Int>()
+    private val counts = ConcurrentHashMap<String, Long>()
+    private val loaded = CopyOnWriteArrayList<String>()
+    private val loaderThreads = ConcurrentHashMap.newKeySet<String>()
+    private val snapshot = RocketMQStatsSnapshot(
+        name = "test-stats",
+        refreshIntervalMillis = 3_600_000,
+        fullRefreshCycles = 4,
+        parallelism = 4,
+        listKeys = { LinkedHashMap(keys) },
+        loadStats = { key, _: Int ->
+            loaded += key
+            loaderThreads += Thread.currentThread().name
+            Thread.sleep(20)
+            counts[key]
+        }
+    )
+
+    @AfterEach
+    fun close() {
+        snapshot.close()
+    }
+
+    @Test
+    fun firstAccessLoadsAllKeysInParallelAndThenServesFromSnapshot() {
+        (1..8).forEach { put("topic-$it", 0) }
+
+        assertThat(snapshot.entries().map { it.key }).hasSize(8).isSorted
+        assertThat(loaded).hasSize(8)
+        assertThat(loaderThreads.size).isGreaterThan(1)
+
+        snapshot.entries()
+        assertThat(loaded).hasSize(8)
+    }
+
+    @Test
+    fun refreshOnlyReloadsChangedNewAndRotatingKeys() {
+        (1..8).forEach { put("topic-$it", 0) }
+        snapshot.refresh()
+        loaded.clear()
+
+        // 首轮之后没有变化：只拉取轮转到的 8 / 4 = 2 个
+        snapshot.refresh()
+        assertThat(loaded).hasSize(2)
+        loaded.clear()
+
+        counts["topic-3"] = 10
+        put("topic-9", 5)
+        snapshot.refresh()
+        assertThat(loaded).contains("topic-9").hasSize(3)
+        loaded.clear()
+
+        // 上一轮发生变化的 key 在下一轮继续拉取
+        snapshot.refresh()
+        assertThat(loaded).contains("topic-3")
+        assertThat(snapshot.entries().first { it.key == "topic-9" }.stats).isEqualTo(5L)
+    }
+
+    @Test
+    fun everyKeyIsReloadedWithinFullRefreshCycles() {
+        (1..8).forEach { put("topic-$it", 0) }
+        snapshot.refresh()
+        loaded.clear()
+        (1..4).forEach { _ -> snapshot.refresh() }
+        assertThat(loaded.toSet()).hasSize(8)
+    }
+
+    @Test
+    fun removedKeysDisappearAndFailuresKeepPreviousValue() {
+        put("a", 1)
+        put("b", 2)
+        snapshot.refresh()
+
+        keys.remove("a")
+        assertThat(snapshot.refresh().map { it.key }).containsExactly("b")
+
+        val failing = RocketMQStatsSnapshot(
+            name = "failing-stats",
+            refreshIntervalMillis = 3_600_000,
+            fullRefreshCycles = 1,
+            parallelism = 1,
+            listKeys = { mapOf("a" to 0) },
+            loadStats = { _, _: Int -> if (loaded.add("a") && loaded.size > 1) throw IllegalStateException("down") else 7L }
+        )
+        failing.use {
+            loaded.clear()
+            assertThat(it.refresh().single().stats).isEqualTo(7L)
+            assertThat(it.refresh().single().stats).isEqualTo(7L)
+        }
+    }
+
+    private fun put(key: String, count: Long) {
+        keys[key] = 0
+        counts[key] = count
+    }
+}
@@ -0,0 +1,39 @@
+package io.infra.structure.rocketmq.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 为 {@code @RocketMQMessageListener} 监听器开启幂等消费，重复消息在反序列化和业务处理之前被跳过。
+ *
+ * @author codex
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface InfraRocketMQDedup {
+    /**
+     * 去重 key 的 SpEL 表达式，根对象为 {@code MessageExt}，例如 {@code keys}、{@code getUserProperty('orderId')}。
+     * 为空或表达式结果为空时使用 msgId。
+     */
+    String key() default "";
+
+    /**
+     * 去重存储的 Bean 名称，为空时使用容器中的 {@code RocketMQDedupStore}。
+     */
+    String store() default "";
+
+    /**
+     * 消费成功后已消费标记的保留时间，单位秒
+     */
+    long ttlSeconds() default 86400;
+
+    /**
+     * 消费中标记的保留时间，单位秒，应覆盖一次消费的最长耗时；进程中途退出时重投的消息最多等待该时长后再次消费。
+     * 小于等于 0 时取监听器 consumeTimeout 的 3 倍。
+     */
+    long inFlightTtlSeconds() default 0;
+}
@@ -4,7 +4,9 @@ import io.infra.structure.core.tool.BinderTool;
 import io.infra.structure.rocketmq.constants.Const;
 import io.infra.structure.rocketmq.core.RocketMQConsumerFactory;
 import io.infra.structure.rocketmq.core.RocketMQManager;
+import io.infra.structure.rocketmq.core.RocketMQRequestTemplate;
 import io.infra.structure.rocketmq.definition.RocketMQBeanDefinitionRegistry;
+import io.infra.structure.rocketmq.delay.RocketMQDelayedMessageSender;
 import io.infra.structure.rocketmq.listener.RocketMQListenerAnnotationProcessor;
 import io.infra.structure.rocketmq.properties.RocketMQConfig;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
@@ -46,6 +48,20 @@ public class InfraRocketMQAutoConfiguration {
         );
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public RocketMQRequestTemplate rocketMQRequestTemplate(RocketMQManager rocketMQManager) {
+        return new RocketMQRequestTemplate(rocketMQManager);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = Const.configPrefix + ".delay", value = "enabled", havingValue = "true")
+    public RocketMQDelayedMessageSender rocketMQDelayedMessageSender(RocketMQConfig rocketMQConfig,
+                                                                     RocketMQManager rocketMQManager) {
+        return new RocketMQDelayedMessageSender(rocketMQConfig.getDelay(), rocketMQManager);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public RocketMQListenerAnnotationProcessor rocketMQListenerAnnotationProcessor(RocketMQManager rocketMQManager,
@@ -0,0 +1,85 @@
+package io.infra.structure.rocketmq.core;
+
+import io.infra.structure.core.tool.JsonTool;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.RequestCallback;
+import org.apache.rocketmq.common.message.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于 RocketMQ 原生 request-reply 的请求模板。
+ * <p>
+ * 回复消息由 broker 直接推送给发起请求的客户端实例，并按 correlationId 关联到对应的 future，
+ * 每个客户端实例共享同一条回复通道，调用方无需为每次请求创建 consumer。
+ *
+ * @author codex
+ */
+public class RocketMQRequestTemplate {
+    private final RocketMQManager rocketMQManager;
+
+    public RocketMQRequestTemplate(RocketMQManager rocketMQManager) {
+        this.rocketMQManager = rocketMQManager;
+    }
+
+    public CompletableFuture<Message> request(String producerName, Message message, long timeoutMillis) {
+        DefaultMQProducer producer = rocketMQManager.getProducer(producerName);
+        if (producer == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("未找到 RocketMQ producer 配置: " + producerName));
+        }
+        return request(producer, message, timeoutMillis);
+    }
+
+    public <T> CompletableFuture<T> request(String producerName, String topic, Object payload,
+                                            Class<T> replyType, long timeoutMillis) {
+        Message message = new Message(topic, toBody(payload));
+        return request(producerName, message, timeoutMillis)
+                .thenApply(reply -> fromBody(reply.getBody(), replyType));
+    }
+
+    public CompletableFuture<Message> request(DefaultMQProducer producer, Message message, long timeoutMillis) {
+        CompletableFuture<Message> future = new CompletableFuture<>();
+        try {
+            producer.request(message, new RequestCallback() {
+                @Override
+                public void onSuccess(Message reply) {
+                    future.complete(reply);
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }, timeoutMillis);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public static byte[] toBody(Object payload) {
+        if (payload == null) {
+            return new byte[0];
+        }
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (payload instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        return JsonTool.toJsonString(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T fromBody(byte[] body, Class<T> type) {
+        if (byte[].class.equals(type)) {
+            return (T) body;
+        }
+        String text = body == null ? "" : new String(body, StandardCharsets.UTF_8);
+        if (type == null || String.class.equals(type) || Object.class.equals(type)) {
+            return (T) text;
+        }
+        return JsonTool.parseObject(text, type);
+    }
+}
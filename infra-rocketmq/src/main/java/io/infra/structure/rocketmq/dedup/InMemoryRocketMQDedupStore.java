@@ -0,0 +1,86 @@
+package io.infra.structure.rocketmq.dedup;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 单实例部署使用的内存去重存储，按写入顺序淘汰最旧记录，容量有上限。
+ *
+ * @author codex
+ */
+public class InMemoryRocketMQDedupStore implements RocketMQDedupStore {
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryRocketMQDedupStore() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public InMemoryRocketMQDedupStore(int maxEntries) {
+        this(maxEntries, System::currentTimeMillis);
+    }
+
+    public InMemoryRocketMQDedupStore(int maxEntries, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized RocketMQDedupStatus tryAcquire(String key, Duration inFlightTtl) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expireAt > now) {
+            return entry.consumed ? RocketMQDedupStatus.CONSUMED : RocketMQDedupStatus.CONSUMING;
+        }
+        put(key, new Entry(false, now + inFlightTtl.toMillis()), now);
+        return RocketMQDedupStatus.ACQUIRED;
+    }
+
+    @Override
+    public synchronized void markConsumed(String key, Duration ttl) {
+        long now = clock.getAsLong();
+        put(key, new Entry(true, now + ttl.toMillis()), now);
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 先移除再写入，使更新过的记录移到淘汰顺序末尾
+     */
+    private void put(String key, Entry entry, long now) {
+        entries.remove(key);
+        entries.put(key, entry);
+        evict(now);
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (entries.size() > maxEntries || eldest.getValue().expireAt <= now) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private record Entry(boolean consumed, long expireAt) {
+    }
+}
@@ -0,0 +1,55 @@
+package io.infra.structure.rocketmq.dedup;
+
+import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.params.SetParams;
+
+import java.time.Duration;
+
+/**
+ * 多实例部署使用的 Redis 去重存储，基于 SET NX PX 写入消费中标记，可直接传入 infra-redis 的 JedisTemplate。
+ *
+ * @author codex
+ */
+public class RedisRocketMQDedupStore implements RocketMQDedupStore {
+    private static final String DEFAULT_KEY_PREFIX = "infra:rocketmq:dedup:";
+    private static final String CONSUMING = "consuming";
+    private static final String CONSUMED = "consumed";
+
+    private final JedisCommands commands;
+    private final String keyPrefix;
+
+    public RedisRocketMQDedupStore(JedisCommands commands) {
+        this(commands, DEFAULT_KEY_PREFIX);
+    }
+
+    public RedisRocketMQDedupStore(JedisCommands commands, String keyPrefix) {
+        this.commands = commands;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+    }
+
+    @Override
+    public RocketMQDedupStatus tryAcquire(String key, Duration inFlightTtl) {
+        String redisKey = keyPrefix + key;
+        String reply = commands.set(redisKey, CONSUMING, SetParams.setParams().nx().px(toMillis(inFlightTtl)));
+        if ("OK".equals(reply)) {
+            return RocketMQDedupStatus.ACQUIRED;
+        }
+        // 标记恰好在两次命令之间过期时按消费中处理，稍后重投即可重新占用
+        String value = commands.get(redisKey);
+        return value == null || CONSUMING.equals(value) ? RocketMQDedupStatus.CONSUMING : RocketMQDedupStatus.CONSUMED;
+    }
+
+    @Override
+    public void markConsumed(String key, Duration ttl) {
+        commands.set(keyPrefix + key, CONSUMED, SetParams.setParams().px(toMillis(ttl)));
+    }
+
+    @Override
+    public void release(String key) {
+        commands.del(keyPrefix + key);
+    }
+
+    private long toMillis(Duration ttl) {
+        return Math.max(1L, ttl.toMillis());
+    }
+}
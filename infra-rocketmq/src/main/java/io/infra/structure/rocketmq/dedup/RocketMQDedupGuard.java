@@ -0,0 +1,81 @@
+package io.infra.structure.rocketmq.dedup;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.time.Duration;
+
+/**
+ * 单个监听器的去重守卫，仅读取消息元数据计算 key，不触发消息体反序列化。
+ *
+ * @author codex
+ */
+public class RocketMQDedupGuard {
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private final String namespace;
+    private final RocketMQDedupStore store;
+    private final Expression keyExpression;
+    private final Duration inFlightTtl;
+    private final Duration consumedTtl;
+
+    /**
+     * @param inFlightTtl 消费中标记的保留时间，应覆盖一次消费的最长耗时；进程中途退出时重投消息最多等待该时长
+     * @param consumedTtl 已消费标记的保留时间
+     */
+    public RocketMQDedupGuard(String namespace, RocketMQDedupStore store, String keyExpression,
+                              Duration inFlightTtl, Duration consumedTtl) {
+        this.namespace = namespace;
+        this.store = store;
+        this.keyExpression = StringUtils.isBlank(keyExpression) ? null : PARSER.parseExpression(keyExpression);
+        this.inFlightTtl = inFlightTtl;
+        this.consumedTtl = consumedTtl;
+    }
+
+    /**
+     * 计算消息的去重 key
+     *
+     * @param messageExt 消息
+     * @return 带 namespace 前缀的去重 key
+     */
+    public String key(MessageExt messageExt) {
+        return namespace + ":" + resolveKey(messageExt);
+    }
+
+    /**
+     * 尝试占用去重 key，成功时写入消费中标记
+     *
+     * @param key {@link #key(MessageExt)} 返回的去重 key
+     * @return 占用结果
+     */
+    public RocketMQDedupStatus tryAcquire(String key) {
+        return store.tryAcquire(key, inFlightTtl);
+    }
+
+    /**
+     * 消费成功后把消费中标记改写为已消费标记
+     */
+    public void markConsumed(String key) {
+        if (key != null) {
+            store.markConsumed(key, consumedTtl);
+        }
+    }
+
+    public void release(String key) {
+        if (key != null) {
+            store.release(key);
+        }
+    }
+
+    String resolveKey(MessageExt messageExt) {
+        if (keyExpression != null) {
+            Object value = keyExpression.getValue(messageExt);
+            if (value != null && StringUtils.isNotBlank(value.toString())) {
+                return value.toString();
+            }
+        }
+        return messageExt.getMsgId();
+    }
+}
@@ -0,0 +1,21 @@
+package io.infra.structure.rocketmq.dedup;
+
+/**
+ * 占用去重 key 的结果。
+ *
+ * @author codex
+ */
+public enum RocketMQDedupStatus {
+    /**
+     * 首次出现，已写入消费中标记，可以执行业务处理
+     */
+    ACQUIRED,
+    /**
+     * 已有消费中标记：其他消费者正在处理，或上次处理的进程中途退出而标记尚未过期，应稍后重投
+     */
+    CONSUMING,
+    /**
+     * 已成功消费，直接跳过
+     */
+    CONSUMED
+}
@@ -0,0 +1,37 @@
+package io.infra.structure.rocketmq.dedup;
+
+import java.time.Duration;
+
+/**
+ * 幂等消费的去重存储。
+ * <p>
+ * 采用两阶段标记：处理前写入短期的消费中标记，处理成功后改写为长期的已消费标记。
+ * 消费进程中途退出时只留下消费中标记，过期后重投的消息可以再次消费，不会被当作重复消息丢弃。
+ *
+ * @author codex
+ */
+public interface RocketMQDedupStore {
+    /**
+     * 尝试占用去重 key，key 不存在时写入消费中标记
+     *
+     * @param key         去重 key
+     * @param inFlightTtl 消费中标记的保留时间
+     * @return 占用结果
+     */
+    RocketMQDedupStatus tryAcquire(String key, Duration inFlightTtl);
+
+    /**
+     * 消费成功后把消费中标记改写为已消费标记
+     *
+     * @param key 去重 key
+     * @param ttl 已消费标记的保留时间
+     */
+    void markConsumed(String key, Duration ttl);
+
+    /**
+     * 释放去重 key，消费失败时调用，使重投的消息可以再次消费
+     *
+     * @param key 去重 key
+     */
+    void release(String key);
+}
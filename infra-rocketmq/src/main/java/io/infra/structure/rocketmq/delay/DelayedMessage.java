@@ -0,0 +1,41 @@
+package io.infra.structure.rocketmq.delay;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.rocketmq.common.message.Message;
+
+/**
+ * 本地暂存的延迟消息。
+ *
+ * @author codex
+ */
+@Data
+@AllArgsConstructor
+public class DelayedMessage {
+    /**
+     * 本地唯一 ID
+     */
+    private String id;
+
+    /**
+     * producer 配置名
+     */
+    private String producerName;
+
+    /**
+     * 期望投递时间戳，单位毫秒
+     */
+    private long deliverAt;
+
+    /**
+     * 发送到 broker 时使用的延迟级别，0 表示不延迟
+     */
+    private int delayLevel;
+
+    /**
+     * 本地发送时间戳，即 deliverAt 减去延迟级别对应的时长
+     */
+    private long dispatchAt;
+
+    private Message message;
+}
@@ -0,0 +1,13 @@
+package io.infra.structure.rocketmq.delay;
+
+import org.apache.rocketmq.common.message.Message;
+
+/**
+ * 延迟消息到期后的实际发送动作。
+ *
+ * @author codex
+ */
+@FunctionalInterface
+public interface DelayedMessageDispatcher {
+    void dispatch(String producerName, Message message) throws Exception;
+}
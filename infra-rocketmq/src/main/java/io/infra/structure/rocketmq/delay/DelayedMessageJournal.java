@@ -0,0 +1,189 @@
+package io.infra.structure.rocketmq.delay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageDecoder;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 延迟消息的本地预写日志，每条记录一行：{@code A} 表示新增，{@code D} 表示已投递。
+ * 已投递记录累积到一定数量后重写文件，只保留未投递的消息。
+ *
+ * @author codex
+ */
+@Slf4j
+public class DelayedMessageJournal implements Closeable {
+    private static final int MIN_COMPACT_THRESHOLD = 1024;
+
+    private final Path file;
+    private final boolean fsync;
+    private final Map<String, DelayedMessage> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+    private int completedSinceCompact;
+
+    public DelayedMessageJournal(Path file, boolean fsync) {
+        this.file = file;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 打开日志并返回崩溃前未投递的消息
+     */
+    public synchronized List<DelayedMessage> recover() {
+        pending.clear();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (Files.exists(file)) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        replay(line);
+                    }
+                }
+            }
+            rewrite();
+        } catch (IOException e) {
+            throw new UncheckedIOException("RocketMQ 延迟消息日志恢复失败: " + file, e);
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized void append(DelayedMessage delayedMessage) {
+        write(encode(delayedMessage));
+        pending.put(delayedMessage.getId(), delayedMessage);
+    }
+
+    public synchronized void complete(String id) {
+        if (pending.remove(id) == null) {
+            return;
+        }
+        write("D\t" + id);
+        completedSinceCompact++;
+        if (completedSinceCompact >= Math.max(MIN_COMPACT_THRESHOLD, pending.size())) {
+            try {
+                rewrite();
+            } catch (IOException e) {
+                log.warn("RocketMQ 延迟消息日志压缩失败: {}", file, e);
+            }
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void replay(String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        String[] parts = line.split("\t", -1);
+        try {
+            if ("D".equals(parts[0])) {
+                pending.remove(parts[1]);
+            } else if ("A".equals(parts[0])) {
+                DelayedMessage delayedMessage = decode(parts);
+                pending.put(delayedMessage.getId(), delayedMessage);
+            }
+        } catch (RuntimeException e) {
+            // 崩溃时最后一行可能只写了一半
+            log.warn("RocketMQ 延迟消息日志存在无法解析的记录, 已忽略: {}", line, e);
+        }
+    }
+
+    private void rewrite() throws IOException {
+        close();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (DelayedMessage delayedMessage : pending.values()) {
+                writeLine(out, encode(delayedMessage));
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        completedSinceCompact = 0;
+    }
+
+    private void write(String line) {
+        if (channel == null) {
+            throw new IllegalStateException("RocketMQ 延迟消息日志未打开: " + file);
+        }
+        try {
+            writeLine(channel, line);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("RocketMQ 延迟消息日志写入失败: " + file, e);
+        }
+    }
+
+    private static void writeLine(FileChannel out, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static String encode(DelayedMessage delayedMessage) {
+        Message message = delayedMessage.getMessage();
+        Base64.Encoder encoder = Base64.getEncoder();
+        String properties = message.getProperties() == null ? "" : MessageDecoder.messageProperties2String(message.getProperties());
+        byte[] body = message.getBody() == null ? new byte[0] : message.getBody();
+        return String.join("\t", "A",
+                delayedMessage.getId(),
+                encoder.encodeToString(delayedMessage.getProducerName().getBytes(StandardCharsets.UTF_8)),
+                String.valueOf(delayedMessage.getDeliverAt()),
+                String.valueOf(delayedMessage.getDelayLevel()),
+                String.valueOf(delayedMessage.getDispatchAt()),
+                encoder.encodeToString(message.getTopic().getBytes(StandardCharsets.UTF_8)),
+                String.valueOf(message.getFlag()),
+                encoder.encodeToString(properties.getBytes(StandardCharsets.UTF_8)),
+                encoder.encodeToString(body));
+    }
+
+    private static DelayedMessage decode(String[] parts) {
+        Base64.Decoder decoder = Base64.getDecoder();
+        Message message = new Message();
+        message.setTopic(new String(decoder.decode(parts[6]), StandardCharsets.UTF_8));
+        message.setFlag(Integer.parseInt(parts[7]));
+        MessageAccessor.setProperties(message,
+                MessageDecoder.string2messageProperties(new String(decoder.decode(parts[8]), StandardCharsets.UTF_8)));
+        message.setBody(decoder.decode(parts[9]));
+        return new DelayedMessage(parts[1],
+                new String(decoder.decode(parts[2]), StandardCharsets.UTF_8),
+                Long.parseLong(parts[3]),
+                Integer.parseInt(parts[4]),
+                Long.parseLong(parts[5]),
+                message);
+    }
+}
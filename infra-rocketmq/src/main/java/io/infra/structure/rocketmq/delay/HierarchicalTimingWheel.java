@@ -0,0 +1,154 @@
+package io.infra.structure.rocketmq.delay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮，时间由调用方通过 {@link #advance(long)} 推进，本身不持有线程也不做同步。
+ * <p>
+ * 第 0 层按 tick 精度触发，超出当前层跨度的任务放入上层，上层槽位到期后降级回下层重新分配。
+ *
+ * @author codex
+ */
+public class HierarchicalTimingWheel<T> {
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize must be greater than 1");
+        }
+        this.wheelSize = wheelSize;
+        levels.add(new Level<>(tickMillis, wheelSize, startMillis - Math.floorMod(startMillis, tickMillis)));
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param deadline 到期时间戳，单位毫秒
+     * @param task     任务
+     * @return false 表示任务已到期，未加入时间轮
+     */
+    public boolean add(long deadline, T task) {
+        if (!insert(new Entry<>(deadline, task))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进时间轮到指定时间
+     *
+     * @param now 当前时间戳，单位毫秒
+     * @return 到期的任务
+     */
+    public List<T> advance(long now) {
+        List<T> due = new ArrayList<>();
+        Level<T> root = levels.get(0);
+        if (size == 0) {
+            skipTo(now);
+            return due;
+        }
+        while (root.currentTime + root.tickMillis <= now) {
+            long time = root.currentTime + root.tickMillis;
+            root.currentTime = time;
+            List<Entry<T>> pending = new ArrayList<>(root.drain(time));
+            for (int i = 1; i < levels.size(); i++) {
+                Level<T> level = levels.get(i);
+                if (time % level.tickMillis != 0) {
+                    break;
+                }
+                level.currentTime = time;
+                pending.addAll(level.drain(time));
+            }
+            for (Entry<T> entry : pending) {
+                if (!insert(entry)) {
+                    due.add(entry.task);
+                    size--;
+                }
+            }
+        }
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTime() {
+        return levels.get(0).currentTime;
+    }
+
+    private void skipTo(long now) {
+        for (Level<T> level : levels) {
+            long aligned = now - Math.floorMod(now, level.tickMillis);
+            if (aligned > level.currentTime) {
+                level.currentTime = aligned;
+            }
+        }
+    }
+
+    private boolean insert(Entry<T> entry) {
+        Level<T> root = levels.get(0);
+        if (entry.deadline <= root.currentTime) {
+            return false;
+        }
+        for (int i = 0; ; i++) {
+            Level<T> level = level(i);
+            if (entry.deadline < level.currentTime + level.interval) {
+                level.bucket(entry.deadline, i == 0).add(entry);
+                return true;
+            }
+        }
+    }
+
+    private Level<T> level(int index) {
+        while (levels.size() <= index) {
+            Level<T> lower = levels.get(levels.size() - 1);
+            long tickMillis = lower.interval;
+            long rootTime = levels.get(0).currentTime;
+            levels.add(new Level<>(tickMillis, wheelSize, rootTime - Math.floorMod(rootTime, tickMillis)));
+        }
+        return levels.get(index);
+    }
+
+    private record Entry<T>(long deadline, T task) {
+    }
+
+    private static final class Level<T> {
+        private final long tickMillis;
+        private final long interval;
+        private final List<List<Entry<T>>> buckets;
+        private long currentTime;
+
+        private Level(long tickMillis, int wheelSize, long currentTime) {
+            this.tickMillis = tickMillis;
+            this.interval = Math.multiplyExact(tickMillis, (long) wheelSize);
+            this.currentTime = currentTime;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * 第 0 层向上取整，保证任务不会早于到期时间触发；上层向下取整，保证在到期前降级回下层。
+         */
+        private List<Entry<T>> bucket(long deadline, boolean ceil) {
+            long virtualId = ceil ? Math.floorDiv(deadline + tickMillis - 1, tickMillis) : Math.floorDiv(deadline, tickMillis);
+            return buckets.get((int) Math.floorMod(virtualId, (long) buckets.size()));
+        }
+
+        private List<Entry<T>> drain(long time) {
+            int index = (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) buckets.size());
+            List<Entry<T>> bucket = buckets.get(index);
+            if (bucket.isEmpty()) {
+                return List.of();
+            }
+            buckets.set(index, new ArrayList<>());
+            return bucket;
+        }
+    }
+}
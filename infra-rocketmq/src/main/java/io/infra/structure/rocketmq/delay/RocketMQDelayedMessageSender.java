@@ -0,0 +1,210 @@
+package io.infra.structure.rocketmq.delay;
+
+import io.infra.structure.rocketmq.core.RocketMQManager;
+import io.infra.structure.rocketmq.properties.RocketMQDelayProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.common.message.Message;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 任意精度延迟发送。
+ * <p>
+ * 短延迟在本进程的分层时间轮中暂存，到期后直接发送；长延迟选用不超过剩余时长的最大 broker 延迟级别，
+ * 本地只暂存差值部分。所有暂存消息先写入本地预写日志，进程重启后会重新加载并补发。
+ *
+ * @author codex
+ */
+@Slf4j
+public class RocketMQDelayedMessageSender {
+    private final RocketMQDelayProperties properties;
+    private final DelayedMessageDispatcher dispatcher;
+    private final LongSupplier clock;
+    private final DelayedMessageJournal journal;
+    private final long[] delayLevelMillis;
+    private HierarchicalTimingWheel<DelayedMessage> wheel;
+    private ScheduledExecutorService scheduler;
+
+    public RocketMQDelayedMessageSender(RocketMQDelayProperties properties, RocketMQManager rocketMQManager) {
+        this(properties, (producerName, message) -> resolveProducer(rocketMQManager, producerName).send(message),
+                System::currentTimeMillis);
+    }
+
+    public RocketMQDelayedMessageSender(RocketMQDelayProperties properties, DelayedMessageDispatcher dispatcher,
+                                        LongSupplier clock) {
+        this.properties = properties;
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+        this.journal = new DelayedMessageJournal(Path.of(properties.getJournalFile()), properties.isJournalFsync());
+        this.delayLevelMillis = parseDelayLevels(properties.getDelayLevels());
+    }
+
+    /**
+     * 加载崩溃前未投递的消息并启动后台 tick 线程
+     */
+    public void start() {
+        recover();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "infra-rocketmq-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tickSafely, properties.getTickMillis(), properties.getTickMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 只加载日志不启动线程，便于由调用方驱动 {@link #tick()}
+     */
+    public synchronized void recover() {
+        wheel = new HierarchicalTimingWheel<>(properties.getTickMillis(), properties.getWheelSize(), clock.getAsLong());
+        List<DelayedMessage> recovered = journal.recover();
+        List<DelayedMessage> due = new ArrayList<>();
+        for (DelayedMessage delayedMessage : recovered) {
+            if (!wheel.add(delayedMessage.getDispatchAt(), delayedMessage)) {
+                due.add(delayedMessage);
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("RocketMQ 延迟消息从本地日志恢复 {} 条, 其中已到期 {} 条", recovered.size(), due.size());
+        }
+        dispatchAll(due);
+    }
+
+    public String sendDelayed(String producerName, Message message, Duration delay) {
+        return sendAt(producerName, message, clock.getAsLong() + delay.toMillis());
+    }
+
+    /**
+     * 在指定时间投递消息
+     *
+     * @param producerName producer 配置名
+     * @param message      消息
+     * @param deliverAt    期望投递时间戳，单位毫秒
+     * @return 本地消息 ID
+     */
+    public String sendAt(String producerName, Message message, long deliverAt) {
+        long now = clock.getAsLong();
+        int delayLevel = resolveDelayLevel(deliverAt - now);
+        long dispatchAt = delayLevel == 0 ? deliverAt : deliverAt - delayLevelMillis[delayLevel - 1];
+        DelayedMessage delayedMessage = new DelayedMessage(UUID.randomUUID().toString(), producerName,
+                deliverAt, delayLevel, dispatchAt, message);
+        boolean scheduled;
+        synchronized (this) {
+            if (wheel == null) {
+                throw new IllegalStateException("RocketMQDelayedMessageSender 尚未启动");
+            }
+            journal.append(delayedMessage);
+            scheduled = wheel.add(dispatchAt, delayedMessage);
+        }
+        if (!scheduled) {
+            dispatchAll(List.of(delayedMessage));
+        }
+        return delayedMessage.getId();
+    }
+
+    /**
+     * 推进时间轮并发送到期消息
+     */
+    public void tick() {
+        List<DelayedMessage> due;
+        synchronized (this) {
+            due = wheel.advance(clock.getAsLong());
+        }
+        dispatchAll(due);
+    }
+
+    public synchronized int pendingCount() {
+        return wheel == null ? 0 : wheel.size();
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            journal.close();
+        } catch (Exception e) {
+            log.warn("RocketMQ 延迟消息日志关闭异常", e);
+        }
+    }
+
+    int resolveDelayLevel(long delayMillis) {
+        if (delayMillis < properties.getBrokerDelayThresholdMillis()) {
+            return 0;
+        }
+        for (int i = delayLevelMillis.length - 1; i >= 0; i--) {
+            if (delayLevelMillis[i] <= delayMillis) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Exception e) {
+            log.error("RocketMQ 延迟消息 tick 异常", e);
+        }
+    }
+
+    private void dispatchAll(List<DelayedMessage> due) {
+        for (DelayedMessage delayedMessage : due) {
+            Message message = delayedMessage.getMessage();
+            if (delayedMessage.getDelayLevel() > 0) {
+                message.setDelayTimeLevel(delayedMessage.getDelayLevel());
+            }
+            try {
+                dispatcher.dispatch(delayedMessage.getProducerName(), message);
+                journal.complete(delayedMessage.getId());
+            } catch (Exception e) {
+                log.warn("RocketMQ 延迟消息发送失败, {} ms 后重试, id: {}, topic: {}", properties.getRetryIntervalMillis(),
+                        delayedMessage.getId(), message.getTopic(), e);
+                synchronized (this) {
+                    wheel.add(clock.getAsLong() + Math.max(properties.getRetryIntervalMillis(), properties.getTickMillis()),
+                            delayedMessage);
+                }
+            }
+        }
+    }
+
+    private static DefaultMQProducer resolveProducer(RocketMQManager rocketMQManager, String producerName) {
+        DefaultMQProducer producer = rocketMQManager.getProducer(producerName);
+        if (producer == null) {
+            throw new IllegalStateException("未找到 RocketMQ producer 配置: " + producerName);
+        }
+        return producer;
+    }
+
+    static long[] parseDelayLevels(String delayLevels) {
+        if (StringUtils.isBlank(delayLevels)) {
+            return new long[0];
+        }
+        String[] parts = delayLevels.trim().split("\\s+");
+        long[] result = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].toLowerCase(Locale.ROOT);
+            long value = Long.parseLong(part.substring(0, part.length() - 1));
+            result[i] = switch (part.charAt(part.length() - 1)) {
+                case 's' -> TimeUnit.SECONDS.toMillis(value);
+                case 'm' -> TimeUnit.MINUTES.toMillis(value);
+                case 'h' -> TimeUnit.HOURS.toMillis(value);
+                case 'd' -> TimeUnit.DAYS.toMillis(value);
+                default -> throw new IllegalArgumentException("无法识别的延迟级别: " + parts[i]);
+            };
+        }
+        return result;
+    }
+}
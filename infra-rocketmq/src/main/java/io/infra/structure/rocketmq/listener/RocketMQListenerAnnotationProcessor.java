@@ -3,9 +3,15 @@ package io.infra.structure.rocketmq.listener;
 import io.infra.structure.core.tool.BeanTool;
 import io.infra.structure.core.tool.JsonTool;
 import io.infra.structure.rocketmq.annotation.InfraRocketMQConsumer;
+import io.infra.structure.rocketmq.annotation.InfraRocketMQDedup;
 import io.infra.structure.rocketmq.core.RocketMQClientSupport;
 import io.infra.structure.rocketmq.core.RocketMQConsumerFactory;
 import io.infra.structure.rocketmq.core.RocketMQManager;
+import io.infra.structure.rocketmq.core.RocketMQRequestTemplate;
+import io.infra.structure.rocketmq.dedup.InMemoryRocketMQDedupStore;
+import io.infra.structure.rocketmq.dedup.RocketMQDedupGuard;
+import io.infra.structure.rocketmq.dedup.RocketMQDedupStatus;
+import io.infra.structure.rocketmq.dedup.RocketMQDedupStore;
 import io.infra.structure.rocketmq.properties.RocketMQConsumerProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -16,6 +22,11 @@ import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
 import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.utils.MessageUtil;
+import org.apache.rocketmq.common.message.MessageConst;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.ConsumeMode;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
@@ -36,6 +47,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.messaging.Message;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -47,11 +59,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 @Slf4j
 public class RocketMQListenerAnnotationProcessor implements SmartInitializingSingleton, ApplicationContextAware, DisposableBean {
+    private static final long DEFAULT_CONSUME_TIMEOUT_MINUTES = 15L;
+    private static final long IN_FLIGHT_TTL_CONSUME_TIMEOUT_MULTIPLIER = 3L;
+
     private final RocketMQManager rocketMQManager;
     private final ObjectProvider<RocketMQConsumerFactory> primaryConsumerFactoryProvider;
     private final Environment environment;
     private final List<DefaultMQPushConsumer> consumers = new CopyOnWriteArrayList<>();
     private ApplicationContext applicationContext;
+    private volatile RocketMQDedupStore defaultDedupStore;
 
     public RocketMQListenerAnnotationProcessor(RocketMQManager rocketMQManager,
                                                ObjectProvider<RocketMQConsumerFactory> primaryConsumerFactoryProvider,
@@ -75,19 +91,17 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
         if (annotation == null) {
             return;
         }
-        if (!(bean instanceof RocketMQListener)) {
-            throw new IllegalStateException("Bean " + beanName + " 使用了 @RocketMQMessageListener，但未实现 RocketMQListener");
-        }
-        if (bean instanceof RocketMQReplyListener) {
-            throw new IllegalStateException("Bean " + beanName + " 当前暂不支持 RocketMQReplyListener");
+        if (!(bean instanceof RocketMQListener) && !(bean instanceof RocketMQReplyListener)) {
+            throw new IllegalStateException("Bean " + beanName + " 使用了 @RocketMQMessageListener，但未实现 RocketMQListener 或 RocketMQReplyListener");
         }
         RocketMQConsumerFactory factory = resolveConsumerFactory(targetClass);
         RocketMQConsumerProperties properties = mergeProperties(factory, annotation);
         validate(annotation, properties, beanName);
         DefaultMQPushConsumer consumer = RocketMQClientSupport.buildConsumer(properties);
         Class<?> payloadType = resolvePayloadType(targetClass);
+        RocketMQDedupGuard dedupGuard = resolveDedupGuard(targetClass, properties);
         try {
-            subscribeAndRegisterListener(beanName, consumer, annotation, (RocketMQListener<?>) bean, payloadType);
+            subscribeAndRegisterListener(beanName, consumer, annotation, bean, payloadType, dedupGuard);
             consumer.start();
             consumers.add(consumer);
             log.info("RocketMQ 注解监听器 [{}] 注册成功, topic: {}, consumerGroup: {}, config: {}",
@@ -118,6 +132,43 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
         throw new IllegalStateException("未指定 @InfraRocketMQConsumer，且不存在 primary RocketMQConsumerFactory");
     }
 
+    private RocketMQDedupGuard resolveDedupGuard(Class<?> targetClass, RocketMQConsumerProperties properties) {
+        InfraRocketMQDedup dedup = AnnotatedElementUtils.findMergedAnnotation(targetClass, InfraRocketMQDedup.class);
+        if (dedup == null) {
+            return null;
+        }
+        String namespace = properties.getConsumerGroup();
+        return new RocketMQDedupGuard(namespace, resolveDedupStore(resolve(dedup.store())),
+                resolve(dedup.key()), resolveInFlightTtl(dedup, properties), Duration.ofSeconds(dedup.ttlSeconds()));
+    }
+
+    private Duration resolveInFlightTtl(InfraRocketMQDedup dedup, RocketMQConsumerProperties properties) {
+        if (dedup.inFlightTtlSeconds() > 0) {
+            return Duration.ofSeconds(dedup.inFlightTtlSeconds());
+        }
+        long consumeTimeoutMinutes = properties.getConsumeTimeout() == null
+                ? DEFAULT_CONSUME_TIMEOUT_MINUTES : properties.getConsumeTimeout();
+        return Duration.ofMinutes(Math.max(1L, consumeTimeoutMinutes) * IN_FLIGHT_TTL_CONSUME_TIMEOUT_MULTIPLIER);
+    }
+
+    private RocketMQDedupStore resolveDedupStore(String storeName) {
+        if (StringUtils.isNotBlank(storeName)) {
+            return applicationContext.getBean(storeName, RocketMQDedupStore.class);
+        }
+        RocketMQDedupStore store = applicationContext.getBeanProvider(RocketMQDedupStore.class).getIfUnique();
+        if (store != null) {
+            return store;
+        }
+        if (defaultDedupStore == null) {
+            synchronized (this) {
+                if (defaultDedupStore == null) {
+                    defaultDedupStore = new InMemoryRocketMQDedupStore();
+                }
+            }
+        }
+        return defaultDedupStore;
+    }
+
     private RocketMQConsumerProperties mergeProperties(RocketMQConsumerFactory factory, RocketMQMessageListener annotation) {
         RocketMQConsumerProperties properties = BeanTool.copyAs(factory.getProperties(), RocketMQConsumerProperties.class);
         properties.setConsumerGroup(firstNonBlank(resolve(annotation.consumerGroup()), properties.getConsumerGroup()));
@@ -158,7 +209,8 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
 
     private void subscribeAndRegisterListener(String beanName, DefaultMQPushConsumer consumer,
                                               RocketMQMessageListener annotation,
-                                              RocketMQListener<?> listener, Class<?> payloadType) throws MQClientException {
+                                              Object listener, Class<?> payloadType,
+                                              RocketMQDedupGuard dedupGuard) throws MQClientException {
         String topic = resolve(annotation.topic());
         String selectorExpression = firstNonBlank(resolve(annotation.selectorExpression()), "*");
         if (annotation.selectorType() == SelectorType.SQL92) {
@@ -170,10 +222,24 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
         if (annotation.consumeMode() == ConsumeMode.ORDERLY) {
             consumer.registerMessageListener((MessageListenerOrderly) (msgs, context) -> {
                 for (MessageExt messageExt : msgs) {
+                    String dedupKey = null;
                     try {
-                        invokeListener(listener, payloadType, messageExt);
+                        if (dedupGuard != null) {
+                            String key = dedupGuard.key(messageExt);
+                            RocketMQDedupStatus status = acquireDedupKey(beanName, dedupGuard, key, messageExt);
+                            if (status == RocketMQDedupStatus.CONSUMED) {
+                                continue;
+                            }
+                            if (status == RocketMQDedupStatus.CONSUMING) {
+                                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+                            }
+                            dedupKey = key;
+                        }
+                        invokeListener(beanName, consumer, annotation, listener, payloadType, messageExt);
+                        markDedupConsumed(dedupGuard, dedupKey);
                     } catch (Exception e) {
                         log.error("RocketMQ 注解监听器 [{}] 消费失败, msgId: {}", beanName, messageExt.getMsgId(), e);
+                        releaseDedupKey(dedupGuard, dedupKey);
                         return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
                     }
                 }
@@ -184,10 +250,27 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
 
         consumer.registerMessageListener((MessageListenerConcurrently) (msgs, context) -> {
             for (MessageExt messageExt : msgs) {
+                String dedupKey = null;
                 try {
-                    invokeListener(listener, payloadType, messageExt);
+                    if (dedupGuard != null) {
+                        String key = dedupGuard.key(messageExt);
+                        RocketMQDedupStatus status = acquireDedupKey(beanName, dedupGuard, key, messageExt);
+                        if (status == RocketMQDedupStatus.CONSUMED) {
+                            continue;
+                        }
+                        if (status == RocketMQDedupStatus.CONSUMING) {
+                            if (annotation.delayLevelWhenNextConsume() > 0) {
+                                context.setDelayLevelWhenNextConsume(annotation.delayLevelWhenNextConsume());
+                            }
+                            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+                        }
+                        dedupKey = key;
+                    }
+                    invokeListener(beanName, consumer, annotation, listener, payloadType, messageExt);
+                    markDedupConsumed(dedupGuard, dedupKey);
                 } catch (Exception e) {
                     log.error("RocketMQ 注解监听器 [{}] 消费失败, msgId: {}", beanName, messageExt.getMsgId(), e);
+                    releaseDedupKey(dedupGuard, dedupKey);
                     if (annotation.delayLevelWhenNextConsume() > 0) {
                         context.setDelayLevelWhenNextConsume(annotation.delayLevelWhenNextConsume());
                     }
@@ -198,12 +281,96 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
         });
     }
 
+    /**
+     * 已消费的消息直接跳过；仍有消费中标记的消息可能正被其他消费者处理，也可能是上次处理的进程中途退出，
+     * 两者都不能当作重复消息确认，由调用方交给 broker 稍后重投
+     */
+    private RocketMQDedupStatus acquireDedupKey(String beanName, RocketMQDedupGuard dedupGuard, String dedupKey,
+                                                MessageExt messageExt) {
+        RocketMQDedupStatus status = dedupGuard.tryAcquire(dedupKey);
+        if (status == RocketMQDedupStatus.CONSUMED) {
+            log.info("RocketMQ 注解监听器 [{}] 跳过重复消息, msgId: {}", beanName, messageExt.getMsgId());
+        } else if (status == RocketMQDedupStatus.CONSUMING) {
+            log.info("RocketMQ 注解监听器 [{}] 消息正在消费中，稍后重试, msgId: {}", beanName, messageExt.getMsgId());
+        }
+        return status;
+    }
+
+    /**
+     * 业务处理已成功，标记写入失败不影响本次消费确认；消费中标记过期前重投的消息会稍后重试
+     */
+    private void markDedupConsumed(RocketMQDedupGuard dedupGuard, String dedupKey) {
+        if (dedupGuard == null || dedupKey == null) {
+            return;
+        }
+        try {
+            dedupGuard.markConsumed(dedupKey);
+        } catch (Exception e) {
+            log.warn("RocketMQ 去重 key [{}] 标记已消费失败", dedupKey, e);
+        }
+    }
+
+    private void releaseDedupKey(RocketMQDedupGuard dedupGuard, String dedupKey) {
+        if (dedupGuard == null || dedupKey == null) {
+            return;
+        }
+        try {
+            dedupGuard.release(dedupKey);
+        } catch (Exception e) {
+            log.warn("RocketMQ 去重 key [{}] 释放失败", dedupKey, e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
-    private void invokeListener(RocketMQListener<?> listener, Class<?> payloadType, MessageExt messageExt) {
+    private void invokeListener(String beanName, DefaultMQPushConsumer consumer, RocketMQMessageListener annotation,
+                                Object listener, Class<?> payloadType, MessageExt messageExt) throws MQClientException {
         Object payload = convertMessage(payloadType, messageExt);
+        if (listener instanceof RocketMQReplyListener) {
+            Object reply = ((RocketMQReplyListener<Object, Object>) listener).onMessage(payload);
+            sendReply(beanName, consumer, annotation, messageExt, reply);
+            return;
+        }
         ((RocketMQListener<Object>) listener).onMessage(payload);
     }
 
+    private void sendReply(String beanName, DefaultMQPushConsumer consumer, RocketMQMessageListener annotation,
+                           MessageExt messageExt, Object reply) throws MQClientException {
+        // 复用 consumer 所在客户端实例的内部 producer 发送回复，避免为回复额外创建 producer
+        DefaultMQProducer producer = consumer.getDefaultMQPushConsumerImpl().getmQClientFactory().getDefaultMQProducer();
+        sendReply(beanName, producer, messageExt, reply, annotation.replyTimeout());
+    }
+
+    /**
+     * 发送回复消息；超时只作用于本次发送，不修改客户端实例共享的内部 producer 配置
+     *
+     * @return 是否已发起回复，非 request 消息返回 false
+     */
+    static boolean sendReply(String beanName, DefaultMQProducer producer, MessageExt messageExt,
+                             Object reply, long timeoutMillis) throws MQClientException {
+        if (StringUtils.isBlank(messageExt.getProperty(MessageConst.PROPERTY_CORRELATION_ID))) {
+            log.warn("RocketMQ 注解监听器 [{}] 收到的消息不是 request 消息，忽略回复, msgId: {}", beanName, messageExt.getMsgId());
+            return false;
+        }
+        org.apache.rocketmq.common.message.Message replyMessage =
+                MessageUtil.createReplyMessage(messageExt, RocketMQRequestTemplate.toBody(reply));
+        try {
+            producer.send(replyMessage, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    log.debug("RocketMQ 注解监听器 [{}] 回复成功, msgId: {}", beanName, messageExt.getMsgId());
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    log.error("RocketMQ 注解监听器 [{}] 回复失败, msgId: {}", beanName, messageExt.getMsgId(), e);
+                }
+            }, timeoutMillis);
+        } catch (Exception e) {
+            log.error("RocketMQ 注解监听器 [{}] 回复失败, msgId: {}", beanName, messageExt.getMsgId(), e);
+        }
+        return true;
+    }
+
     private Object convertMessage(Class<?> payloadType, MessageExt messageExt) {
         if (payloadType == null || Object.class.equals(payloadType) || String.class.equals(payloadType)) {
             return new String(messageExt.getBody(), StandardCharsets.UTF_8);
@@ -221,7 +388,8 @@ public class RocketMQListenerAnnotationProcessor implements SmartInitializingSin
     }
 
     private Class<?> resolvePayloadType(Class<?> targetClass) {
-        ResolvableType resolvableType = ResolvableType.forClass(targetClass).as(RocketMQListener.class);
+        Class<?> listenerType = RocketMQReplyListener.class.isAssignableFrom(targetClass) ? RocketMQReplyListener.class : RocketMQListener.class;
+        ResolvableType resolvableType = ResolvableType.forClass(targetClass).as(listenerType);
         return resolvableType.getGeneric(0).resolve(Object.class);
     }
 
@@ -39,4 +39,9 @@ public class RocketMQConfig {
      * 多 consumer 配置
      */
     private Map<String, RocketMQConsumerProperties> consumers = new LinkedHashMap<>();
+
+    /**
+     * 任意精度延迟发送配置
+     */
+    private RocketMQDelayProperties delay = new RocketMQDelayProperties();
 }
@@ -0,0 +1,49 @@
+package io.infra.structure.rocketmq.properties;
+
+import lombok.Data;
+
+/**
+ * @author codex
+ */
+@Data
+public class RocketMQDelayProperties {
+    /**
+     * 是否启用任意精度延迟发送
+     */
+    private boolean enabled = false;
+
+    /**
+     * 本地预写日志文件路径
+     */
+    private String journalFile = System.getProperty("user.home") + "/.infra/rocketmq/delayed-messages.log";
+
+    /**
+     * 每次写日志后是否强制刷盘
+     */
+    private boolean journalFsync = true;
+
+    /**
+     * 时间轮 tick，即本地延迟精度，单位毫秒
+     */
+    private long tickMillis = 100L;
+
+    /**
+     * 时间轮每层槽位数
+     */
+    private int wheelSize = 512;
+
+    /**
+     * 延迟时间达到该值时借助 broker 延迟级别，只在本地暂存不足一个级别的部分，单位毫秒
+     */
+    private long brokerDelayThresholdMillis = 60_000L;
+
+    /**
+     * broker 延迟级别，需与 broker 的 messageDelayLevel 保持一致
+     */
+    private String delayLevels = "1s 5s 10s 30s 1m 2m 3m 4m 5m 6m 7m 8m 9m 10m 20m 30m 1h 2h";
+
+    /**
+     * 发送失败后的重试间隔，单位毫秒
+     */
+    private long retryIntervalMillis = 1000L;
+}
@@ -0,0 +1,98 @@
+package io.infra.structure.rocketmq.core;
+
+import org.apache.rocketmq.client.common.ClientErrorCode;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.exception.RequestTimeoutException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.RequestCallback;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RocketMQRequestTemplateTest {
+    private final FakeProducer producer = new FakeProducer();
+    private final RocketMQRequestTemplate template =
+            new RocketMQRequestTemplate(new RocketMQManager(Map.of("order", producer), null));
+
+    @Test
+    void request_shouldCompleteWithCorrelatedReply() throws Exception {
+        CompletableFuture<String> future = template.request("order", "order-topic", "ping", String.class, 1_500);
+
+        assertThat(producer.timeoutMillis).isEqualTo(1_500);
+        assertThat(future).isNotDone();
+        String correlationId = producer.request.getProperty(MessageConst.PROPERTY_CORRELATION_ID);
+        producer.callback.onSuccess(reply(correlationId, "pong"));
+
+        assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo("pong");
+        // 请求超时只作用于本次请求，不修改 producer 的发送超时
+        assertThat(producer.getSendMsgTimeout()).isEqualTo(3_000);
+    }
+
+    @Test
+    void request_shouldFailWhenReplyTimesOut() {
+        CompletableFuture<Message> future = template.request(producer, new Message("order-topic", new byte[0]), 200);
+        producer.callback.onException(new RequestTimeoutException(ClientErrorCode.REQUEST_TIMEOUT_EXCEPTION, "request timeout"));
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RequestTimeoutException.class);
+    }
+
+    @Test
+    void request_shouldFailWhenSendIsRejected() {
+        producer.rejectWith = new MQClientException("producer not started", null);
+
+        CompletableFuture<Message> future = template.request(producer, new Message("order-topic", new byte[0]), 200);
+
+        assertThat(future).isCompletedExceptionally();
+        assertThat(producer.callback).isNull();
+    }
+
+    @Test
+    void request_shouldFailWhenProducerMissing() {
+        CompletableFuture<Message> future = template.request("missing", new Message("order-topic", new byte[0]), 200);
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private Message reply(String correlationId, String body) {
+        Message reply = new Message("cluster_REPLY_TOPIC", body.getBytes(StandardCharsets.UTF_8));
+        MessageAccessor.putProperty(reply, MessageConst.PROPERTY_CORRELATION_ID, correlationId);
+        return reply;
+    }
+
+    /**
+     * 按客户端实例的做法为请求分配 correlationId，回复由测试经 {@link #callback} 送达。
+     */
+    private static class FakeProducer extends DefaultMQProducer {
+        private Message request;
+        private RequestCallback callback;
+        private long timeoutMillis;
+        private MQClientException rejectWith;
+
+        FakeProducer() {
+            super("request-test");
+        }
+
+        @Override
+        public void request(Message msg, RequestCallback requestCallback, long timeout) throws MQClientException {
+            if (rejectWith != null) {
+                throw rejectWith;
+            }
+            MessageAccessor.putProperty(msg, MessageConst.PROPERTY_CORRELATION_ID, "correlation-1");
+            this.request = msg;
+            this.callback = requestCallback;
+            this.timeoutMillis = timeout;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.infra.structure.rocketmq.dedup;
+
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRocketMQDedupStoreTest {
+
+    @Test
+    void tryAcquire_shouldReportInFlightUntilMarkerExpires() {
+        AtomicLong now = new AtomicLong(1_000L);
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(16, now::get);
+        assertThat(store.tryAcquire("a", Duration.ofSeconds(10))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        assertThat(store.tryAcquire("a", Duration.ofSeconds(10))).isEqualTo(RocketMQDedupStatus.CONSUMING);
+        now.addAndGet(10_000L);
+        assertThat(store.tryAcquire("a", Duration.ofSeconds(10))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+    }
+
+    @Test
+    void markConsumed_shouldRejectDuplicateWithinConsumedTtl() {
+        AtomicLong now = new AtomicLong(1_000L);
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(16, now::get);
+        store.tryAcquire("a", Duration.ofSeconds(10));
+        store.markConsumed("a", Duration.ofMinutes(10));
+
+        now.addAndGet(60_000L);
+        assertThat(store.tryAcquire("a", Duration.ofSeconds(10))).isEqualTo(RocketMQDedupStatus.CONSUMED);
+        now.addAndGet(540_000L);
+        assertThat(store.tryAcquire("a", Duration.ofSeconds(10))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+    }
+
+    @Test
+    void release_shouldAllowRedelivery() {
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(16);
+        assertThat(store.tryAcquire("a", Duration.ofMinutes(1))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        store.release("a");
+        assertThat(store.tryAcquire("a", Duration.ofMinutes(1))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+    }
+
+    @Test
+    void tryAcquire_shouldEvictEldestWhenFull() {
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(2);
+        store.tryAcquire("a", Duration.ofMinutes(1));
+        store.tryAcquire("b", Duration.ofMinutes(1));
+        store.tryAcquire("c", Duration.ofMinutes(1));
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.tryAcquire("a", Duration.ofMinutes(1))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        assertThat(store.tryAcquire("c", Duration.ofMinutes(1))).isEqualTo(RocketMQDedupStatus.CONSUMING);
+    }
+
+    @Test
+    void guard_shouldKeyOnMsgIdOrExpression() {
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(16);
+        RocketMQDedupGuard byMsgId = guard(store, "");
+        RocketMQDedupGuard byOrder = guard(store, "getUserProperty('orderId')");
+
+        MessageExt first = message("msg-1", "order-1");
+        MessageExt redelivered = message("msg-1", "order-1");
+        MessageExt resent = message("msg-2", "order-1");
+
+        assertThat(byMsgId.key(first)).isEqualTo("group:msg-1");
+        assertThat(byMsgId.tryAcquire(byMsgId.key(first))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        byMsgId.markConsumed(byMsgId.key(first));
+        assertThat(byMsgId.tryAcquire(byMsgId.key(redelivered))).isEqualTo(RocketMQDedupStatus.CONSUMED);
+        assertThat(byOrder.key(first)).isEqualTo("group:order-1");
+        assertThat(byOrder.tryAcquire(byOrder.key(first))).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        byOrder.markConsumed(byOrder.key(first));
+        assertThat(byOrder.tryAcquire(byOrder.key(resent))).isEqualTo(RocketMQDedupStatus.CONSUMED);
+        assertThat(byOrder.resolveKey(message("msg-3", null))).isEqualTo("msg-3");
+    }
+
+    @Test
+    void guard_shouldRedeliverAfterCrashBetweenAcquireAndCompletion() {
+        AtomicLong now = new AtomicLong(1_000L);
+        InMemoryRocketMQDedupStore store = new InMemoryRocketMQDedupStore(16, now::get);
+        RocketMQDedupGuard crashed = guard(store, "");
+        String key = crashed.key(message("msg-1", null));
+
+        // 占用后进程退出，既没有标记已消费也没有释放
+        assertThat(crashed.tryAcquire(key)).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+
+        // 重启后的消费者收到重投：消费中标记未过期时稍后重试，而不是当作重复消息确认
+        RocketMQDedupGuard restarted = guard(store, "");
+        now.addAndGet(30_000L);
+        assertThat(restarted.tryAcquire(key)).isEqualTo(RocketMQDedupStatus.CONSUMING);
+
+        // 消费中标记过期后重投的消息再次消费，成功后按已消费 TTL 去重
+        now.addAndGet(30_000L);
+        assertThat(restarted.tryAcquire(key)).isEqualTo(RocketMQDedupStatus.ACQUIRED);
+        restarted.markConsumed(key);
+        now.addAndGet(3_600_000L);
+        assertThat(restarted.tryAcquire(key)).isEqualTo(RocketMQDedupStatus.CONSUMED);
+    }
+
+    private RocketMQDedupGuard guard(RocketMQDedupStore store, String keyExpression) {
+        return new RocketMQDedupGuard("group", store, keyExpression, Duration.ofMinutes(1), Duration.ofDays(1));
+    }
+
+    private MessageExt message(String msgId, String orderId) {
+        MessageExt messageExt = new MessageExt();
+        messageExt.setMsgId(msgId);
+        messageExt.setTopic("order-topic");
+        if (orderId != null) {
+            messageExt.putUserProperty("orderId", orderId);
+        }
+        return messageExt;
+    }
+}
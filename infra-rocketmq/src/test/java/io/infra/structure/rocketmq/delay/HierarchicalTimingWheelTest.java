@@ -0,0 +1,55 @@
+package io.infra.structure.rocketmq.delay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_shouldFireAtTickPrecision() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        assertThat(wheel.add(250, "a")).isTrue();
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(299)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void add_shouldRejectExpiredDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 1000);
+        assertThat(wheel.add(1000, "now")).isFalse();
+        assertThat(wheel.add(900, "past")).isFalse();
+    }
+
+    @Test
+    void advance_shouldCascadeFromOverflowLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+        List<Long> deadlines = List.of(15L, 39L, 40L, 41L, 163L, 999L, 37_000L);
+        deadlines.forEach(deadline -> wheel.add(deadline, deadline));
+
+        List<long[]> fired = new ArrayList<>();
+        for (long now = 0; now <= 40_000; now += 10) {
+            for (Long deadline : wheel.advance(now)) {
+                fired.add(new long[]{deadline, now});
+            }
+        }
+
+        assertThat(fired).hasSize(deadlines.size());
+        for (long[] pair : fired) {
+            assertThat(pair[1]).isGreaterThanOrEqualTo(pair[0]).isLessThan(pair[0] + 10);
+        }
+    }
+
+    @Test
+    void advance_shouldCatchUpAfterLongPause() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 16, 0);
+        wheel.add(37_000, "a");
+        wheel.add(5_000, "b");
+        assertThat(wheel.advance(60_000)).containsExactly("b", "a");
+    }
+}
@@ -0,0 +1,117 @@
+package io.infra.structure.rocketmq.delay;
+
+import io.infra.structure.rocketmq.properties.RocketMQDelayProperties;
+import org.apache.rocketmq.common.message.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RocketMQDelayedMessageSenderTest {
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final List<Message> sent = new ArrayList<>();
+    private final List<Long> sentAt = new ArrayList<>();
+
+    @Test
+    void sendDelayed_shouldDeliverAtRequestedTime() {
+        RocketMQDelayedMessageSender sender = newSender((producer, message) -> record(message));
+        sender.sendDelayed("order", message("a"), Duration.ofSeconds(37));
+
+        advance(sender, 36_900);
+        assertThat(sent).isEmpty();
+        advance(sender, 100);
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).getDelayTimeLevel()).isZero();
+        assertThat(sentAt.get(0)).isEqualTo(1_037_000L);
+        sender.shutdown();
+    }
+
+    @Test
+    void sendDelayed_shouldMapLongDelayOntoBrokerLevel() {
+        RocketMQDelayedMessageSender sender = newSender((producer, message) -> record(message));
+        sender.sendDelayed("order", message("a"), Duration.ofSeconds(150));
+
+        advance(sender, 29_900);
+        assertThat(sent).isEmpty();
+        advance(sender, 100);
+        assertThat(sent).hasSize(1);
+        // 2m 为第 6 级，本地只暂存 30s
+        assertThat(sent.get(0).getDelayTimeLevel()).isEqualTo(6);
+        sender.shutdown();
+    }
+
+    @Test
+    void recover_shouldRedeliverPendingMessagesAfterCrash() {
+        RocketMQDelayedMessageSender crashed = newSender((producer, message) -> record(message));
+        crashed.sendDelayed("order", message("a"), Duration.ofSeconds(5));
+        crashed.sendDelayed("order", message("b"), Duration.ofSeconds(20));
+        advance(crashed, 6_000);
+        assertThat(sent).extracting(this::body).containsExactly("a");
+        crashed.shutdown();
+
+        clock.addAndGet(30_000);
+        RocketMQDelayedMessageSender restarted = newSender((producer, message) -> record(message));
+        assertThat(sent).extracting(this::body).containsExactly("a", "b");
+        assertThat(restarted.pendingCount()).isZero();
+        restarted.shutdown();
+    }
+
+    @Test
+    void tick_shouldRetryFailedDispatch() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        RocketMQDelayedMessageSender sender = newSender((producer, message) -> {
+            if (fail.getAndSet(false)) {
+                throw new IllegalStateException("broker unavailable");
+            }
+            record(message);
+        });
+        sender.sendDelayed("order", message("a"), Duration.ofSeconds(1));
+        advance(sender, 1_000);
+        assertThat(sent).isEmpty();
+        assertThat(sender.pendingCount()).isEqualTo(1);
+        advance(sender, 1_000);
+        assertThat(sent).hasSize(1);
+        sender.shutdown();
+    }
+
+    private RocketMQDelayedMessageSender newSender(DelayedMessageDispatcher dispatcher) {
+        RocketMQDelayProperties properties = new RocketMQDelayProperties();
+        properties.setJournalFile(tempDir.resolve("delayed.log").toString());
+        properties.setJournalFsync(false);
+        RocketMQDelayedMessageSender sender = new RocketMQDelayedMessageSender(properties, dispatcher, clock::get);
+        sender.recover();
+        return sender;
+    }
+
+    private void advance(RocketMQDelayedMessageSender sender, long millis) {
+        long target = clock.get() + millis;
+        while (clock.get() < target) {
+            clock.set(Math.min(target, clock.get() + 100));
+            sender.tick();
+        }
+    }
+
+    private void record(Message message) {
+        sent.add(message);
+        sentAt.add(clock.get());
+    }
+
+    private Message message(String body) {
+        return new Message("order-topic", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String body(Message message) {
+        return new String(message.getBody(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package io.infra.structure.rocketmq.listener;
+
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RocketMQListenerReplyTest {
+    private final FakeProducer producer = new FakeProducer();
+
+    @Test
+    void sendReply_shouldUsePerCallTimeoutAndKeepCorrelation() throws Exception {
+        MessageExt request = request("correlation-1");
+
+        boolean replied = RocketMQListenerAnnotationProcessor.sendReply("orderListener", producer, request, "pong", 1_200);
+
+        assertThat(replied).isTrue();
+        assertThat(producer.sent).hasSize(1);
+        Message reply = producer.sent.get(0);
+        assertThat(reply.getProperty(MessageConst.PROPERTY_CORRELATION_ID)).isEqualTo("correlation-1");
+        assertThat(reply.getProperty(MessageConst.PROPERTY_MESSAGE_REPLY_TO_CLIENT)).isEqualTo("client-1");
+        assertThat(new String(reply.getBody(), StandardCharsets.UTF_8)).isEqualTo("pong");
+        assertThat(producer.timeouts).containsExactly(1_200L);
+        // 客户端实例共享的内部 producer 配置保持不变
+        assertThat(producer.getSendMsgTimeout()).isEqualTo(3_000);
+    }
+
+    @Test
+    void sendReply_shouldSkipMessageWithoutCorrelationId() throws Exception {
+        MessageExt plain = new MessageExt();
+        plain.setTopic("order-topic");
+        plain.setBody("ping".getBytes(StandardCharsets.UTF_8));
+
+        boolean replied = RocketMQListenerAnnotationProcessor.sendReply("orderListener", producer, plain, "pong", 1_200);
+
+        assertThat(replied).isFalse();
+        assertThat(producer.sent).isEmpty();
+    }
+
+    private MessageExt request(String correlationId) {
+        MessageExt request = new MessageExt();
+        request.setTopic("order-topic");
+        request.setBody("ping".getBytes(StandardCharsets.UTF_8));
+        MessageAccessor.putProperty(request, MessageConst.PROPERTY_CLUSTER, "DefaultCluster");
+        MessageAccessor.putProperty(request, MessageConst.PROPERTY_CORRELATION_ID, correlationId);
+        MessageAccessor.putProperty(request, MessageConst.PROPERTY_MESSAGE_REPLY_TO_CLIENT, "client-1");
+        MessageAccessor.putProperty(request, MessageConst.PROPERTY_MESSAGE_TTL, "3000");
+        return request;
+    }
+
+    private static class FakeProducer extends DefaultMQProducer {
+        private final List<Message> sent = new ArrayList<>();
+        private final List<Long> timeouts = new ArrayList<>();
+
+        FakeProducer() {
+            super("reply-test");
+        }
+
+        @Override
+        public void send(Message msg, SendCallback sendCallback, long timeout) {
+            sent.add(msg);
+            timeouts.add(timeout);
+        }
+    }
+}
@@ -1,26 +1,35 @@
 package io.infra.structure.schedule.admin.autoconfigure
 
+import io.infra.structure.schedule.admin.core.ExecutorHttpClients
 import io.infra.structure.schedule.admin.core.HttpScheduleCancelClient
 import io.infra.structure.schedule.admin.core.HttpScheduleExecutorClientFactory
 import io.infra.structure.schedule.admin.core.ScheduleDispatcher
+import io.infra.structure.schedule.admin.core.ScheduleRunCompletions
+import io.infra.structure.schedule.admin.core.ScheduleTriggerWheel
 import io.infra.structure.schedule.admin.service.ScheduleService
 import io.infra.structure.schedule.admin.web.ScheduleAdminAccessInterceptor
 import io.infra.structure.schedule.admin.web.ScheduleAdminApiExceptionHandler
 import io.infra.structure.schedule.admin.web.ScheduleAdminController
 import io.infra.structure.schedule.admin.web.ScheduleAdminWebConfigurer
+import io.infra.structure.schedule.admin.web.ScheduleGzipRequestFilter
 import io.infra.structure.schedule.autoconfigure.InfraScheduleAutoConfiguration
 import io.infra.structure.schedule.core.ExecutorRegistry
 import io.infra.structure.schedule.core.ExecutorTaskTracker
+import io.infra.structure.schedule.core.LocalRouteState
 import io.infra.structure.schedule.core.ScheduleExecutorClientFactory
+import io.infra.structure.schedule.core.ScheduleShardBalancer
 import io.infra.structure.schedule.properties.InfraScheduleProperties
 import io.infra.structure.schedule.repository.ExecutorHeartbeatRepository
 import io.infra.structure.schedule.repository.RouteCursorRepository
 import io.infra.structure.schedule.repository.RouteNodeStatRepository
 import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
 import io.infra.structure.schedule.repository.ScheduleJobRepository
+import io.infra.structure.schedule.repository.ScheduleShardLeaseRepository
+import io.infra.structure.schedule.repository.ScheduleShardProgressRepository
 import io.infra.structure.schedule.repository.ScheduleTriggerOutboxRepository
 import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.boot.autoconfigure.AutoConfiguration
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.context.annotation.Bean
@@ -32,6 +41,7 @@ import java.util.concurrent.Executors
 import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ThreadPoolExecutor
+import java.util.UUID
 import java.util.concurrent.TimeUnit
 
 /**
@@ -86,21 +96,41 @@ class InfraScheduleAdminAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    fun httpScheduleCancelClient(properties: InfraScheduleProperties) = HttpScheduleCancelClient(
+    fun executorHttpClients(properties: InfraScheduleProperties) = ExecutorHttpClients(
+        properties.executor.connectTimeoutMillis,
+        properties.executor.maxConnectionsPerAddress
+    )
+
+    @Bean
+    @ConditionalOnMissingBean
+    fun httpScheduleCancelClient(
+        properties: InfraScheduleProperties,
+        httpClients: ExecutorHttpClients
+    ) = HttpScheduleCancelClient(
         properties.executor.accessToken,
         properties.executor.authEnabled,
-        properties.executor.connectTimeoutMillis,
+        httpClients,
         minOf(properties.executor.readTimeoutMillis, 5_000L)
     )
 
     @Bean
     @ConditionalOnMissingBean
-    fun scheduleExecutorClientFactory(properties: InfraScheduleProperties): ScheduleExecutorClientFactory =
+    fun scheduleRunCompletions(logRepository: ScheduleExecutionLogRepository) = ScheduleRunCompletions(logRepository)
+
+    @Bean
+    @ConditionalOnMissingBean
+    fun scheduleExecutorClientFactory(
+        properties: InfraScheduleProperties,
+        runCompletions: ScheduleRunCompletions,
+        httpClients: ExecutorHttpClients
+    ): ScheduleExecutorClientFactory =
         HttpScheduleExecutorClientFactory(
             properties.executor.accessToken,
             properties.executor.authEnabled,
-            properties.executor.connectTimeoutMillis,
-            properties.executor.readTimeoutMillis
+            httpClients,
+            properties.executor.readTimeoutMillis,
+            runCompletions.takeIf { properties.executor.asyncRun },
+            properties.executor.asyncRunBatchMaxSize
         )
 
     @Bean
@@ -112,14 +142,20 @@ class InfraScheduleAdminAutoConfiguration {
         routeStatRepository: RouteNodeStatRepository,
         routeCursorRepository: RouteCursorRepository,
         jobRepository: ScheduleJobRepository
-    ) = ExecutorRegistry(
-        heartbeatRepository,
-        properties.executor.heartbeatTimeoutMillis,
-        clientFactory,
-        routeStatRepository,
-        routeCursorRepository,
-        jobRepository::countByExecutorId
-    )
+    ): ExecutorRegistry {
+        // 本地路由状态仅包装共享仓储，不注册为 Bean，避免与持久化仓储形成同类型候选
+        val localState = if (properties.routeStateLocal) LocalRouteState(routeCursorRepository, routeStatRepository) else null
+        return ExecutorRegistry(
+            heartbeatRepository,
+            properties.executor.heartbeatTimeoutMillis,
+            clientFactory,
+            localState ?: routeStatRepository,
+            localState ?: routeCursorRepository,
+            jobRepository::countByExecutorId,
+            properties.executor.routeCacheRefreshMillis,
+            properties.executor.routeCacheMaxStaleMillis
+        )
+    }
 
     @Bean
     @ConditionalOnMissingBean
@@ -133,20 +169,50 @@ class InfraScheduleAdminAutoConfiguration {
         @Qualifier("infraScheduleOutboxLeaseExecutor") outboxLeaseExecutor: ScheduledExecutorService,
         taskTracker: ExecutorTaskTracker,
         cancelClient: HttpScheduleCancelClient,
-        properties: InfraScheduleProperties
+        runCompletions: ScheduleRunCompletions,
+        properties: InfraScheduleProperties,
+        shardBalancer: ScheduleShardBalancer?,
+        shardProgressRepository: ScheduleShardProgressRepository?
     ) = ScheduleService(
         jobRepository, logRepository, triggerOutboxRepository, executorRegistry, workerExecutor, attemptExecutor,
         taskTracker, cancelClient, properties.claimLeaseMillis, properties.schedulerId,
-        properties.maxExecutionMillis, outboxLeaseExecutor
+        properties.maxExecutionMillis, outboxLeaseExecutor, runCompletions, properties.runningReconcileGraceMillis,
+        { shardBalancer?.currentFilter() }, shardProgressRepository,
+        properties.maxInFlightTriggers.takeIf { it > 0 }
+            ?: (properties.workerThreads.coerceIn(1, 256) + properties.workerQueueCapacity.coerceIn(1, 100_000))
     )
 
+    /** 多调度节点分片；未配置分片数时不创建，各节点照旧扫描全部记录。 */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression($$"${infra.schedule.shard-count:0} > 0")
+    fun scheduleShardBalancer(
+        shardLeaseRepository: ScheduleShardLeaseRepository,
+        properties: InfraScheduleProperties
+    ) = ScheduleShardBalancer(
+        shardLeaseRepository,
+        "${properties.schedulerId.trim().ifBlank { "schedule" }.take(80)}-${UUID.randomUUID()}",
+        properties.shardCount.coerceAtMost(MAX_SHARD_COUNT),
+        properties.shardLeaseMillis.coerceAtLeast(properties.shardRebalanceIntervalMillis * 2)
+    )
+
+    @Bean(initMethod = "start")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "infra.schedule", name = ["trigger-wheel-enabled"], havingValue = "true")
+    fun scheduleTriggerWheel(
+        scheduleService: ScheduleService,
+        properties: InfraScheduleProperties
+    ) = ScheduleTriggerWheel(scheduleService, properties)
+
     @Bean
     @ConditionalOnMissingBean
     fun scheduleDispatcher(
         scheduleService: ScheduleService,
         executorRegistry: ExecutorRegistry,
-        properties: InfraScheduleProperties
-    ) = ScheduleDispatcher(scheduleService, executorRegistry, properties)
+        properties: InfraScheduleProperties,
+        triggerWheel: ScheduleTriggerWheel?,
+        shardBalancer: ScheduleShardBalancer?
+    ) = ScheduleDispatcher(scheduleService, executorRegistry, properties, triggerWheel, shardBalancer)
 
     @Bean
     @ConditionalOnMissingBean
@@ -161,6 +227,11 @@ class InfraScheduleAdminAutoConfiguration {
     @ConditionalOnMissingBean
     fun scheduleAdminApiExceptionHandler() = ScheduleAdminApiExceptionHandler()
 
+    /** 执行器合批上报的业务日志默认 gzip 压缩，需在消息转换前解压。 */
+    @Bean
+    @ConditionalOnMissingBean
+    fun scheduleGzipRequestFilter() = ScheduleGzipRequestFilter()
+
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "infra.schedule.management", name = ["auth-enabled"], havingValue = "true")
@@ -171,4 +242,9 @@ class InfraScheduleAdminAutoConfiguration {
     @ConditionalOnProperty(prefix = "infra.schedule.management", name = ["auth-enabled"], havingValue = "true")
     fun scheduleAdminWebConfigurer(accessInterceptor: ScheduleAdminAccessInterceptor) =
         ScheduleAdminWebConfigurer(accessInterceptor)
+
+    private companion object {
+        /** 分片行与过滤条件的上限；更多分片不会改善均衡，只会放大每轮再平衡与 IN 条件。 */
+        const val MAX_SHARD_COUNT = 1_024
+    }
 }
@@ -6,11 +6,17 @@ import io.infra.structure.schedule.admin.persistence.FlexRouteCursorRepository
 import io.infra.structure.schedule.admin.persistence.FlexRouteNodeStatRepository
 import io.infra.structure.schedule.admin.persistence.FlexScheduleExecutionLogRepository
 import io.infra.structure.schedule.admin.persistence.FlexScheduleJobRepository
+import io.infra.structure.schedule.admin.persistence.FlexScheduleShardLeaseRepository
+import io.infra.structure.schedule.admin.persistence.FlexScheduleShardProgressRepository
 import io.infra.structure.schedule.admin.persistence.FlexScheduleTriggerOutboxRepository
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutionLogChunkMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutionLogMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutorMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutorRegistryMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleJobMapper
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardLeaseMapper
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardMemberMapper
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardProgressMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleTriggerOutboxMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleRouteCursorMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleRouteStatMapper
@@ -20,6 +26,8 @@ import io.infra.structure.schedule.repository.RouteCursorRepository
 import io.infra.structure.schedule.repository.RouteNodeStatRepository
 import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
 import io.infra.structure.schedule.repository.ScheduleJobRepository
+import io.infra.structure.schedule.repository.ScheduleShardLeaseRepository
+import io.infra.structure.schedule.repository.ScheduleShardProgressRepository
 import io.infra.structure.schedule.repository.ScheduleTriggerOutboxRepository
 import org.apache.ibatis.annotations.Mapper
 import org.mybatis.spring.annotation.MapperScan
@@ -52,8 +60,10 @@ class InfraScheduleAdminPersistenceAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(ScheduleExecutionLogRepository::class)
-    fun scheduleExecutionLogRepository(mapper: ScheduleExecutionLogMapper): ScheduleExecutionLogRepository =
-        FlexScheduleExecutionLogRepository(mapper)
+    fun scheduleExecutionLogRepository(
+        mapper: ScheduleExecutionLogMapper,
+        chunkMapper: ScheduleExecutionLogChunkMapper
+    ): ScheduleExecutionLogRepository = FlexScheduleExecutionLogRepository(mapper, chunkMapper)
 
     @Bean
     @ConditionalOnMissingBean(ScheduleTriggerOutboxRepository::class)
@@ -81,4 +91,16 @@ class InfraScheduleAdminPersistenceAutoConfiguration {
     @ConditionalOnMissingBean(RouteCursorRepository::class)
     fun routeCursorRepository(mapper: ScheduleRouteCursorMapper): RouteCursorRepository =
         FlexRouteCursorRepository(mapper)
+
+    @Bean
+    @ConditionalOnMissingBean(ScheduleShardLeaseRepository::class)
+    fun scheduleShardLeaseRepository(
+        leaseMapper: ScheduleShardLeaseMapper,
+        memberMapper: ScheduleShardMemberMapper
+    ): ScheduleShardLeaseRepository = FlexScheduleShardLeaseRepository(leaseMapper, memberMapper)
+
+    @Bean
+    @ConditionalOnMissingBean(ScheduleShardProgressRepository::class)
+    fun scheduleShardProgressRepository(mapper: ScheduleShardProgressMapper): ScheduleShardProgressRepository =
+        FlexScheduleShardProgressRepository(mapper)
 }
@@ -0,0 +1,76 @@
+package io.infra.structure.schedule.admin.core
+
+import org.springframework.beans.factory.DisposableBean
+import org.springframework.http.client.JdkClientHttpRequestFactory
+import org.springframework.web.client.RestClient
+import java.net.http.HttpClient
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+
+/**
+ * 调度中心访问执行器的共享 HTTP 客户端。
+ *
+ * 所有执行器地址共用一个 JDK [HttpClient]（固定 HTTP/1.1，自带 keep-alive 连接池），突发派发时复用已建立的连接，
+ * 不再每次调用新建 RestClient 与 TCP 连接，避免大量 TIME_WAIT 耗尽临时端口。[RestClient] 按执行器地址与读超时缓存。
+ *
+ * [maxConnectionsPerAddress] 大于 0 时以信号量限制单个地址的并发请求数，即该地址最多占用的连接数；
+ * 同步 `/run` 在任务结束前一直占用许可，因此上限应不小于该执行器预期的并发任务数。
+ */
+class ExecutorHttpClients(
+    private val connectTimeoutMillis: Long,
+    private val maxConnectionsPerAddress: Int = 0
+) : DisposableBean {
+    private val httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+        .build()
+    private val clients = ConcurrentHashMap<ClientKey, RestClient>()
+    private val permits = ConcurrentHashMap<String, Semaphore>()
+
+    /** 返回 [baseUrl] 上读超时为 [readTimeoutMillis] 的复用客户端。 */
+    fun client(baseUrl: String, readTimeoutMillis: Long): RestClient {
+        val key = ClientKey(baseUrl.removeSuffix("/"), readTimeoutMillis)
+        clients[key]?.let { return it }
+        // 读超时随任务超时变化，地址也会随注册表漂移；超过上限时整体清空，由后续调用按需重建
+        if (clients.size >= MAX_CACHED_CLIENTS) clients.clear()
+        return clients.computeIfAbsent(key) {
+            RestClient.builder()
+                .baseUrl(it.baseUrl)
+                .requestFactory(JdkClientHttpRequestFactory(httpClient).apply {
+                    setReadTimeout(Duration.ofMillis(it.readTimeoutMillis))
+                })
+                .build()
+        }
+    }
+
+    /**
+     * 在单地址并发上限内执行 [call]。
+     * @throws RejectedExecutionException 等待许可超过连接超时；请求尚未发出，调用方可按确定未送达处理
+     */
+    fun <T> withPermit(baseUrl: String, call: () -> T): T {
+        if (maxConnectionsPerAddress <= 0) return call()
+        val semaphore = permits.computeIfAbsent(baseUrl.removeSuffix("/")) { Semaphore(maxConnectionsPerAddress) }
+        if (!semaphore.tryAcquire(connectTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw RejectedExecutionException("执行器并发连接已达上限 $maxConnectionsPerAddress: $baseUrl")
+        }
+        try {
+            return call()
+        } finally {
+            semaphore.release()
+        }
+    }
+
+    /** 不等待进行中的请求结束，避免长时间同步执行阻塞应用关闭。 */
+    override fun destroy() {
+        httpClient.shutdown()
+    }
+
+    private data class ClientKey(val baseUrl: String, val readTimeoutMillis: Long)
+
+    private companion object {
+        const val MAX_CACHED_CLIENTS = 1_024
+    }
+}
@@ -0,0 +1,123 @@
+package io.infra.structure.schedule.admin.core
+
+import io.infra.structure.schedule.core.ExecutorRunAcceptedResponse
+import io.infra.structure.schedule.core.ExecutorRunBatchRequest
+import io.infra.structure.schedule.core.ExecutorRunBatchResponse
+import io.infra.structure.schedule.core.SCHEDULE_ACCESS_TOKEN_HEADER
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.web.ScheduleWebPaths
+import org.slf4j.LoggerFactory
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.web.client.RestClientResponseException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 按执行器地址合并异步受理请求（组提交）。
+ *
+ * 同一地址没有在途请求时立即发送，不引入额外等待；已有请求在途时新到的触发排队，
+ * 在途请求返回后由发送线程一次发出下一批。突发整点触发时 HTTP 往返次数按批数而非触发数增长。
+ * 执行器不支持批量端点（404）时，该地址在 [UNSUPPORTED_RECHECK_MILLIS] 内回退逐条受理，兼容滚动升级。
+ */
+class ExecutorRunBatcher(
+    private val httpClients: ExecutorHttpClients,
+    private val accessToken: String?,
+    private val readTimeoutMillis: Long,
+    private val maxBatchSize: Int
+) {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val queues = ConcurrentHashMap<String, AddressQueue>()
+
+    /**
+     * 将 [context] 并入 [address] 的下一批受理请求并等待该批返回。
+     * @return 执行器的受理结果；null 表示该地址不支持批量受理，调用方应逐条调用 `/run-async`
+     */
+    fun admit(address: String, context: JobExecutionContext): ExecutorRunAcceptedResponse? {
+        val queue = queues.computeIfAbsent(address, ::AddressQueue)
+        if (System.currentTimeMillis() < queue.unsupportedUntil) return null
+        val pending = PendingRun(context)
+        val startSender = queue.lock.withLock {
+            queue.pending += pending
+            !queue.sending.also { queue.sending = true }
+        }
+        if (startSender) Thread.ofVirtual().name("infra-schedule-run-batch").start { drain(queue) }
+        return try {
+            pending.result.get()
+        } catch (exception: ExecutionException) {
+            throw exception.cause ?: exception
+        }
+    }
+
+    private fun drain(queue: AddressQueue) {
+        while (true) {
+            val batch = queue.lock.withLock {
+                if (queue.pending.isEmpty()) {
+                    queue.sending = false
+                    return
+                }
+                val head = queue.pending.subList(0, minOf(queue.pending.size, maxBatchSize.coerceAtLeast(1)))
+                ArrayList(head).also { head.clear() }
+            }
+            send(queue, batch)
+        }
+    }
+
+    private fun send(queue: AddressQueue, batch: List<PendingRun>) {
+        try {
+            val response = httpClients.withPermit(queue.address) {
+                val request = httpClients.client(queue.address, readTimeoutMillis).post()
+                    .uri(ScheduleWebPaths.EXECUTOR_RUN_ASYNC_BATCH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                if (!accessToken.isNullOrBlank()) request.header(SCHEDULE_ACCESS_TOKEN_HEADER, accessToken)
+                request
+                    .body(ExecutorRunBatchRequest(batch.map { it.context }))
+                    .retrieve()
+                    .body(ExecutorRunBatchResponse::class.java)
+            }
+            val results = response?.results.orEmpty()
+            batch.forEachIndexed { index, pending ->
+                // 缺失的条目无法确认执行器是否已入队，按结果未知交由 Outbox 退避重投
+                pending.result.complete(
+                    results.getOrNull(index) ?: ExecutorRunAcceptedResponse(
+                        accepted = false,
+                        result = JobExecutionResult.failure("执行器未返回批量受理结果: ${queue.address}", uncertain = true)
+                    )
+                )
+            }
+        } catch (exception: RestClientResponseException) {
+            if (exception.statusCode.value() == HttpStatus.NOT_FOUND.value()) {
+                logger.debug("执行器不支持批量受理，回退逐条异步协议: address={}", queue.address)
+                queue.unsupportedUntil = System.currentTimeMillis() + UNSUPPORTED_RECHECK_MILLIS
+                batch.forEach { it.result.complete(null) }
+            } else {
+                batch.forEach { it.result.completeExceptionally(exception) }
+            }
+        } catch (exception: Exception) {
+            batch.forEach { it.result.completeExceptionally(exception) }
+        }
+    }
+
+    private class AddressQueue(val address: String) {
+        val lock = ReentrantLock()
+        val pending = ArrayList<PendingRun>()
+        /** 是否已有发送线程在处理该地址；仅在 [lock] 内读写。 */
+        var sending = false
+        @Volatile
+        var unsupportedUntil = 0L
+    }
+
+    private class PendingRun(val context: JobExecutionContext) {
+        val result = CompletableFuture<ExecutorRunAcceptedResponse?>()
+    }
+
+    private companion object {
+        /** 执行器不支持批量端点后，重新尝试批量受理前的等待时间。 */
+        const val UNSUPPORTED_RECHECK_MILLIS = 300_000L
+    }
+}
@@ -11,23 +11,20 @@ import io.infra.structure.schedule.core.SCHEDULE_ACCESS_TOKEN_HEADER
 import io.infra.structure.schedule.web.ScheduleWebPaths
 import org.slf4j.LoggerFactory
 import org.springframework.http.MediaType
-import org.springframework.http.client.SimpleClientHttpRequestFactory
-import org.springframework.web.client.RestClient
 import org.springframework.web.client.RestClientResponseException
-import java.time.Duration
 
-/** 调度中心向远程执行器发起终止 / 探活 / 空闲检测的 HTTP 客户端。 */
+/**
+ * 调度中心向远程执行器发起终止 / 探活 / 空闲检测的 HTTP 客户端。
+ *
+ * 与任务投递共用 [ExecutorHttpClients] 连接池，FAILOVER / BUSYOVER 路由逐节点探活时复用已建立的连接。
+ */
 class HttpScheduleCancelClient(
     private val accessToken: String?,
     private val authenticationEnabled: Boolean,
-    connectTimeoutMillis: Long,
-    readTimeoutMillis: Long
+    private val httpClients: ExecutorHttpClients,
+    private val readTimeoutMillis: Long
 ) {
     private val logger = LoggerFactory.getLogger(javaClass)
-    private val requestFactory = SimpleClientHttpRequestFactory().apply {
-        setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
-        setReadTimeout(Duration.ofMillis(readTimeoutMillis))
-    }
 
     /**
      * 请求远程执行器终止 [logId] 对应任务。
@@ -92,18 +89,16 @@ class HttpScheduleCancelClient(
                 path
             )
         }
-        val client = RestClient.builder()
-            .baseUrl(baseUrl.removeSuffix("/"))
-            .requestFactory(requestFactory)
-            .build()
-        val request = client.post()
-            .uri(path)
-            .contentType(MediaType.APPLICATION_JSON)
-            .accept(MediaType.APPLICATION_JSON)
-        if (authenticationEnabled && !accessToken.isNullOrBlank()) {
-            request.header(SCHEDULE_ACCESS_TOKEN_HEADER, accessToken)
+        return httpClients.withPermit(baseUrl) {
+            val request = httpClients.client(baseUrl, readTimeoutMillis).post()
+                .uri(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+            if (authenticationEnabled && !accessToken.isNullOrBlank()) {
+                request.header(SCHEDULE_ACCESS_TOKEN_HEADER, accessToken)
+            }
+            request.body(body).retrieve().body(responseType)
         }
-        return request.body(body).retrieve().body(responseType)
     }
 
     private fun logProbeFailure(baseUrl: String, path: String, exception: Exception) {
@@ -1,7 +1,9 @@
 package io.infra.structure.schedule.admin.core
 
+import io.infra.structure.schedule.api.AsyncScheduleExecutor
 import io.infra.structure.schedule.api.ScheduleExecutor
 import io.infra.structure.schedule.core.ExecutorAddresses
+import io.infra.structure.schedule.core.ExecutorRunAcceptedResponse
 import io.infra.structure.schedule.core.ScheduleExecutorClientFactory
 import io.infra.structure.schedule.core.SCHEDULE_ACCESS_TOKEN_HEADER
 import io.infra.structure.schedule.model.ExecutorHeartbeat
@@ -9,47 +11,57 @@ import io.infra.structure.schedule.model.JobExecutionContext
 import io.infra.structure.schedule.model.JobExecutionResult
 import io.infra.structure.schedule.web.ScheduleWebPaths
 import org.slf4j.LoggerFactory
+import org.springframework.http.HttpStatus
 import org.springframework.http.MediaType
-import org.springframework.http.client.SimpleClientHttpRequestFactory
-import org.springframework.web.client.RestClient
 import org.springframework.web.client.RestClientException
 import org.springframework.web.client.RestClientResponseException
-import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
 
-/** 通过执行器 HTTP 协议执行任务的客户端实现。 */
+/**
+ * 通过执行器 HTTP 协议执行任务的客户端实现。
+ *
+ * 提供 [runCompletions] 时使用异步协议：`/run-async` 受理即返回，终态经执行器 finish 回调送达，
+ * 长任务不再占用 HTTP 连接、读超时与调度侧调用线程；未升级的执行器返回 404 时回退同步 `/run`。
+ * 同时提供 [runBatcher] 时，同一地址并发的受理请求经 [ExecutorRunBatcher] 合批发送。
+ */
 class HttpScheduleExecutor(
     override val id: String,
     override val group: String,
     private val address: String,
     private val accessToken: String?,
-    private val connectTimeoutMillis: Long,
-    private val readTimeoutMillis: Long
-) : ScheduleExecutor {
-    override fun execute(context: JobExecutionContext): JobExecutionResult = try {
-        // /run 是同步协议；网络读超时不能早于调度器为本次任务设定的执行上限，
-        // 否则任务仍在执行器运行时会被误判失败并按重试策略重复投递。
-        val effectiveReadTimeout = maxOf(
-            readTimeoutMillis,
-            context.executionTimeoutMillis.coerceAtMost(Long.MAX_VALUE - HTTP_TIMEOUT_BUFFER_MILLIS) + HTTP_TIMEOUT_BUFFER_MILLIS
-        )
-        val client = RestClient.builder()
-            .baseUrl(address.removeSuffix("/"))
-            .requestFactory(SimpleClientHttpRequestFactory().apply {
-                setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
-                setReadTimeout(Duration.ofMillis(effectiveReadTimeout))
-            })
-            .build()
-        val request = client.post()
-            .uri(ScheduleWebPaths.EXECUTOR_RUN)
-            .contentType(MediaType.APPLICATION_JSON)
-            .accept(MediaType.APPLICATION_JSON)
-        if (!accessToken.isNullOrBlank()) request.header(SCHEDULE_ACCESS_TOKEN_HEADER, accessToken)
-        request
-            .body(context)
-            .retrieve()
-            .body(JobExecutionResult::class.java)
-            ?: JobExecutionResult.failure("执行器未返回执行结果: $address")
+    private val httpClients: ExecutorHttpClients,
+    private val readTimeoutMillis: Long,
+    private val runCompletions: ScheduleRunCompletions? = null,
+    private val runBatcher: ExecutorRunBatcher? = null
+) : AsyncScheduleExecutor {
+    private val logger = LoggerFactory.getLogger(javaClass)
+
+    override fun execute(context: JobExecutionContext): JobExecutionResult {
+        val pending = executeAsync(context)
+        return try {
+            pending.get()
+        } catch (_: InterruptedException) {
+            pending.cancel(false)
+            Thread.currentThread().interrupt()
+            JobExecutionResult.cancelled("任务已被终止")
+        }
+    }
+
+    /** 受理完成即返回；异步协议下 future 由 [ScheduleRunCompletions] 在终态送达时完成，其余情况已完成。 */
+    override fun executeAsync(context: JobExecutionContext): CompletableFuture<JobExecutionResult> = try {
+        val completions = runCompletions
+        val logId = context.logId?.takeIf { it > 0 }
+        if (completions == null || logId == null) {
+            CompletableFuture.completedFuture(runSync(context))
+        } else {
+            runAsync(context, logId, completions)
+        }
     } catch (exception: Exception) {
+        CompletableFuture.completedFuture(failureOf(exception))
+    }
+
+    private fun failureOf(exception: Exception): JobExecutionResult {
         if (exception is InterruptedException ||
             exception.cause is InterruptedException ||
             Thread.currentThread().isInterrupted
@@ -59,14 +71,72 @@ class HttpScheduleExecutor(
         }
         // 只有传输中断与服务端 5xx 可能发生在 Handler 已开始之后；4xx 是执行器明确拒绝，
         // 必须按确定失败处理，不能让认证/参数错误伪装成“未知执行”。
-        JobExecutionResult.failure(
+        return JobExecutionResult.failure(
             "调用执行器 $id 失败: ${describeHttpError(exception)}",
             uncertain = isDeliveryUncertain(exception)
         )
     }
 
-    /** 4xx 已明确未受理；连接/读超时、无响应和 5xx 均可能在服务端已开始执行后发生。 */
+    private fun runSync(context: JobExecutionContext): JobExecutionResult {
+        // /run 是同步协议；网络读超时不能早于调度器为本次任务设定的执行上限，
+        // 否则任务仍在执行器运行时会被误判失败并按重试策略重复投递。
+        val effectiveReadTimeout = maxOf(
+            readTimeoutMillis,
+            context.executionTimeoutMillis.coerceAtMost(Long.MAX_VALUE - HTTP_TIMEOUT_BUFFER_MILLIS) + HTTP_TIMEOUT_BUFFER_MILLIS
+        )
+        return post(ScheduleWebPaths.EXECUTOR_RUN, effectiveReadTimeout, context, JobExecutionResult::class.java)
+            ?: JobExecutionResult.failure("执行器未返回执行结果: $address")
+    }
+
+    /** 受理阶段只用常规读超时；受理后不占用线程，等待上限由调度侧 attempt 超时取消 future 控制。 */
+    private fun runAsync(
+        context: JobExecutionContext,
+        logId: Long,
+        completions: ScheduleRunCompletions
+    ): CompletableFuture<JobExecutionResult> {
+        val waiter = completions.register(logId)
+        var accepted = false
+        try {
+            val response = try {
+                runBatcher?.admit(address, context)
+                    ?: post(ScheduleWebPaths.EXECUTOR_RUN_ASYNC, readTimeoutMillis, context, ExecutorRunAcceptedResponse::class.java)
+            } catch (exception: RestClientResponseException) {
+                if (exception.statusCode.value() != HttpStatus.NOT_FOUND.value()) throw exception
+                logger.debug("执行器不支持异步执行，回退同步协议: executor={}, address={}", id, address)
+                return CompletableFuture.completedFuture(runSync(context))
+            } ?: return CompletableFuture.completedFuture(JobExecutionResult.failure("执行器未返回受理结果: $address"))
+            if (!response.accepted) {
+                return CompletableFuture.completedFuture(
+                    response.result ?: JobExecutionResult.failure("执行器未受理本次触发: $address")
+                )
+            }
+            accepted = true
+            return waiter
+        } finally {
+            // 未受理时不会有回调，取消即移除登记
+            if (!accepted) waiter.cancel(false)
+        }
+    }
+
+    private fun <T : Any> post(path: String, readTimeout: Long, body: Any, responseType: Class<T>): T? =
+        httpClients.withPermit(address) {
+            val request = httpClients.client(address, readTimeout).post()
+                .uri(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+            if (!accessToken.isNullOrBlank()) request.header(SCHEDULE_ACCESS_TOKEN_HEADER, accessToken)
+            request
+                .body(body)
+                .retrieve()
+                .body(responseType)
+        }
+
+    /**
+     * 4xx 已明确未受理，连接数达到上限时请求尚未发出；
+     * 连接/读超时、无响应和 5xx 均可能在服务端已开始执行后发生。
+     */
     private fun isDeliveryUncertain(exception: Exception): Boolean {
+        if (exception is RejectedExecutionException) return false
         val response = generateSequence(exception as Throwable) { it.cause }
             .filterIsInstance<RestClientResponseException>()
             .firstOrNull()
@@ -94,14 +164,25 @@ class HttpScheduleExecutor(
     }
 }
 
-/** 创建使用统一共享令牌的 HTTP 执行器。 */
+/**
+ * 创建使用统一共享令牌与共享连接池的 HTTP 执行器；[runCompletions] 非空时启用异步执行协议，
+ * [runBatchMaxSize] 大于 1 时同一地址的异步受理请求合批发送。
+ */
 class HttpScheduleExecutorClientFactory(
     private val accessToken: String?,
     private val authenticationEnabled: Boolean,
-    private val connectTimeoutMillis: Long,
-    private val readTimeoutMillis: Long
+    private val httpClients: ExecutorHttpClients,
+    private val readTimeoutMillis: Long,
+    private val runCompletions: ScheduleRunCompletions? = null,
+    runBatchMaxSize: Int = 0
 ) : ScheduleExecutorClientFactory {
     private val logger = LoggerFactory.getLogger(javaClass)
+    /** 所有执行器共享，按地址各自排队；仅异步协议下合批受理。 */
+    private val runBatcher = if (runCompletions != null && runBatchMaxSize > 1) {
+        ExecutorRunBatcher(httpClients, accessToken?.takeIf { it.isNotBlank() }, readTimeoutMillis, runBatchMaxSize)
+    } else {
+        null
+    }
 
     override fun create(heartbeat: ExecutorHeartbeat): ScheduleExecutor? {
         val address = ExecutorAddresses.normalizeHttpBaseUrl(heartbeat.address)
@@ -128,8 +209,10 @@ class HttpScheduleExecutorClientFactory(
             heartbeat.executorGroup,
             address,
             token,
-            connectTimeoutMillis,
-            readTimeoutMillis
+            httpClients,
+            readTimeoutMillis,
+            runCompletions,
+            runBatcher
         )
     }
 }
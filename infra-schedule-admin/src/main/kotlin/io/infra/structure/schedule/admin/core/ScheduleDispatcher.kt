@@ -1,6 +1,7 @@
 package io.infra.structure.schedule.admin.core
 
 import io.infra.structure.schedule.core.ExecutorRegistry
+import io.infra.structure.schedule.core.ScheduleShardBalancer
 import io.infra.structure.schedule.properties.InfraScheduleProperties
 import io.infra.structure.schedule.admin.service.ScheduleService
 import org.springframework.scheduling.annotation.Scheduled
@@ -9,7 +10,11 @@ import org.springframework.scheduling.annotation.Scheduled
 class ScheduleDispatcher(
     private val scheduleService: ScheduleService,
     private val executorRegistry: ExecutorRegistry,
-    private val properties: InfraScheduleProperties
+    private val properties: InfraScheduleProperties,
+    /** 启用时到期领取改由时间轮按计划触发，扫描只保留心跳与 Outbox 投递。 */
+    private val triggerWheel: ScheduleTriggerWheel? = null,
+    /** 启用分片时周期续约并再平衡本节点持有的分片。 */
+    private val shardBalancer: ScheduleShardBalancer? = null
 ) {
     @Scheduled(fixedDelayString = $$"${infra.schedule.scan-interval-millis:1000}")
     /** 执行到期领取和 Outbox 投递；与慢速探活、清理任务分开调度，避免相互阻塞。 */
@@ -21,10 +26,22 @@ class ScheduleDispatcher(
                 properties.executor.address
             )
         }
-        scheduleService.dispatchDueJobs(properties.dispatchBatchSize, properties.dispatchMaxPages)
+        if (triggerWheel == null) scheduleService.dispatchDueJobs(properties.dispatchBatchSize, properties.dispatchMaxPages)
         scheduleService.dispatchTriggerOutbox(properties.dispatchBatchSize, properties.dispatchMaxPages)
     }
 
+    /** 为时间轮预加载即将到期的任务；同时兜底其他调度节点修改过的计划。 */
+    @Scheduled(fixedDelayString = $$"${infra.schedule.trigger-wheel-preload-interval-millis:5000}")
+    fun preloadTriggerWheel() {
+        triggerWheel?.preload()
+    }
+
+    /** 续约分片租约并按存活调度节点再平衡；失败时沿用已持有分片直到租约到期。 */
+    @Scheduled(fixedDelayString = $$"${infra.schedule.shard-rebalance-interval-millis:5000}")
+    fun rebalanceShards() {
+        shardBalancer?.rebalance()
+    }
+
     /** 探测并修复已确认不存在的僵尸执行日志。 */
     @Scheduled(fixedDelayString = $$"${infra.schedule.scan-interval-millis:1000}")
     fun reapStaleLogs() {
@@ -34,6 +51,12 @@ class ScheduleDispatcher(
         )
     }
 
+    /** 本地 LFU/LRU 统计写回共享表，并吸收其他调度节点的写回。 */
+    @Scheduled(fixedDelayString = $$"${infra.schedule.route-state-flush-millis:5000}")
+    fun flushRouteState() {
+        if (properties.routeStateLocal) executorRegistry.flushRouteState()
+    }
+
     /** 分批删除历史终态日志和已完成 Outbox，避免清理长事务影响调度。 */
     @Scheduled(fixedDelayString = $$"${infra.schedule.scan-interval-millis:1000}")
     fun cleanupHistory() {
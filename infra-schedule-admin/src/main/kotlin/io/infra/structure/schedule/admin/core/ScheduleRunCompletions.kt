@@ -0,0 +1,88 @@
+package io.infra.structure.schedule.admin.core
+
+import io.infra.structure.schedule.model.ExecutionStatus
+import io.infra.structure.schedule.model.JobExecutionLog
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
+import org.slf4j.LoggerFactory
+import org.springframework.scheduling.annotation.Scheduled
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 异步 `/run-async` 的终态等待表。
+ *
+ * 执行器受理后不再占用 HTTP 连接与调用线程，等待方以 future 挂在本表上：
+ * - finish 回调落在本节点时由 [complete] 直接唤醒；
+ * - 回调落在其他调度节点时，由 [pollPending] 周期性地对本节点全部等待中的 logId 做一次批量状态查询兜底；
+ * - 回调丢失由执行器心跳对账识别，确认执行器已不存在该 logId 时经 [completeLost] 按结果未知唤醒，
+ *   由调度侧既有的探活与重试逻辑收口。
+ *
+ * 整体等待上限由调度侧的执行超时控制，超时或终止时取消 future 即释放登记。
+ */
+class ScheduleRunCompletions(private val logRepository: ScheduleExecutionLogRepository) {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val waiters = ConcurrentHashMap<Long, CompletableFuture<JobExecutionResult>>()
+
+    /**
+     * 发起请求前登记，避免执行器极快完成时回调早于受理响应到达而丢失唤醒。
+     * 等待项在完成或取消时只移除自己，重试复用同一 logId 时不误删新一轮的登记。
+     */
+    fun register(logId: Long): CompletableFuture<JobExecutionResult> {
+        val waiter = CompletableFuture<JobExecutionResult>()
+        waiters[logId] = waiter
+        waiter.whenComplete { _, _ -> waiters.remove(logId, waiter) }
+        return waiter
+    }
+
+    /** 执行器 finish 回调落库后唤醒本节点上的等待方；无等待方时忽略。 */
+    fun complete(logId: Long, result: JobExecutionResult) {
+        waiters[logId]?.complete(result)
+    }
+
+    /** 本节点是否仍在等待 [logId] 的终态。 */
+    fun isAwaiting(logId: Long): Boolean = waiters.containsKey(logId)
+
+    /** 心跳对账确认执行器已不存在 [logId] 而库内仍活跃时调用；返回本节点是否有等待方被唤醒。 */
+    fun completeLost(logId: Long): Boolean =
+        waiters[logId]?.complete(
+            JobExecutionResult.failure("执行器已不存在该任务但未收到结束回调: $logId", uncertain = true)
+        ) == true
+
+    /** 批量查询本节点等待中的日志，唤醒终态已由其他调度节点写库的等待方。 */
+    @Scheduled(fixedDelayString = $$"${infra.schedule.executor.async-run-poll-millis:5000}")
+    fun pollPending() {
+        if (waiters.isEmpty()) return
+        waiters.keys.toList().chunked(POLL_BATCH_SIZE).forEach { logIds ->
+            val logs = try {
+                logRepository.findByIds(logIds).associateBy { it.id }
+            } catch (exception: Exception) {
+                logger.warn("批量查询异步执行终态失败，下轮重试: logs={}", logIds.size, exception)
+                return
+            }
+            logIds.forEach { logId ->
+                val log = logs[logId]
+                when {
+                    log == null -> complete(logId, JobExecutionResult.failure("执行日志已不存在: $logId"))
+                    !log.status.isActive() -> complete(logId, resultOf(log))
+                }
+            }
+        }
+    }
+
+    /** 其他调度节点已收口的终态按日志状态还原为执行结果。 */
+    private fun resultOf(log: JobExecutionLog): JobExecutionResult {
+        val message = log.message ?: log.status.name
+        return when (log.status) {
+            ExecutionStatus.SUCCESS -> JobExecutionResult.success(log.message)
+            ExecutionStatus.SKIPPED -> JobExecutionResult.discarded(message)
+            ExecutionStatus.CANCELLED, ExecutionStatus.TIMEOUT -> JobExecutionResult.cancelled(message)
+            else -> JobExecutionResult.failure(message)
+        }
+    }
+
+    private companion object {
+        /** 单次 IN 查询的日志数上限。 */
+        const val POLL_BATCH_SIZE = 500
+    }
+}
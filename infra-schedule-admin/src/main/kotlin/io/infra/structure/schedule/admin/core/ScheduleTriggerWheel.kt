@@ -0,0 +1,138 @@
+package io.infra.structure.schedule.admin.core
+
+import io.infra.structure.schedule.admin.service.ScheduleService
+import io.infra.structure.schedule.core.HierarchicalTimingWheel
+import io.infra.structure.schedule.properties.InfraScheduleProperties
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.DisposableBean
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 内存时间轮触发引擎：把即将到期的任务放入 [HierarchicalTimingWheel]，到期的 tick 才执行数据库领取。
+ *
+ * - 计划来源：[preload] 定期只读加载窗口内到期的任务；本节点新建、修改、启用任务或推进调度进度时经
+ *   [ScheduleService.addTriggerPlanListener] 即时补充。其他节点的修改最迟在下一次预加载时感知。
+ * - 触发：到期后调用 [ScheduleService.dispatchDueJobs] 领取并推进，随即投递 Outbox。数据库领取仍是
+ *   任务归属的唯一依据，多个调度节点同时到期时由 `SKIP LOCKED` 与租约决定归属，时间轮条目丢失或
+ *   过期只会多一次空领取或等到下一次预加载，不会重复或漏发触发。
+ * - 推进：[start] 后由后台线程按 [clock] 逐 tick 调用 [advance]；未启动时完全由调用方驱动，
+ *   测试可注入虚拟时钟直接推进。
+ */
+class ScheduleTriggerWheel(
+    private val scheduleService: ScheduleService,
+    private val properties: InfraScheduleProperties,
+    private val clock: () -> Long = System::currentTimeMillis
+) : DisposableBean {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val tickMillis = properties.triggerWheelTickMillis.coerceIn(MIN_TICK_MILLIS, MAX_TICK_MILLIS)
+    /** 窗口至少覆盖一个预加载间隔，保证相邻两次预加载之间到期的任务都已在时间轮中。 */
+    private val windowMillis = properties.triggerWheelPreloadWindowMillis
+        .coerceAtLeast(properties.triggerWheelPreloadIntervalMillis + tickMillis)
+    private val lock = ReentrantLock()
+    private val wakeUp = lock.newCondition()
+    private val wheel = HierarchicalTimingWheel<PlannedTrigger>(tickMillis, clock())
+    /** jobId -> 当前有效的计划时间；被替换的旧条目到期时按不匹配忽略。 */
+    private val planned = HashMap<Long, Long>()
+    /** 已经到期、未经时间轮直接等待领取的计划。 */
+    private var dueNow = false
+
+    @Volatile
+    private var running = true
+    private var worker: Thread? = null
+
+    init {
+        scheduleService.addTriggerPlanListener(::schedule)
+    }
+
+    /** 启动后台推进线程；重复调用或已关闭时忽略。 */
+    fun start() {
+        lock.withLock {
+            if (!running || worker != null) return
+            worker = Thread.ofPlatform().name("infra-schedule-trigger-wheel").daemon().start(::runLoop)
+        }
+    }
+
+    /** 加入或替换任务的计划；窗口之外的计划交给后续预加载。 */
+    fun schedule(jobId: Long, triggerAt: Long) {
+        lock.withLock {
+            if (triggerAt > clock() + windowMillis || planned[jobId] == triggerAt) return
+            if (wheel.add(triggerAt, PlannedTrigger(jobId, triggerAt))) {
+                planned[jobId] = triggerAt
+            } else {
+                planned.remove(jobId)
+                dueNow = true
+                wakeUp.signal()
+            }
+        }
+    }
+
+    /** 只读加载窗口内到期的任务；仍被其他节点租约占用的任务按租约截止时间计划。 */
+    fun preload() {
+        val now = clock()
+        scheduleService.upcomingTriggers(now + windowMillis, properties.triggerWheelPreloadLimit).forEach { trigger ->
+            schedule(trigger.jobId, maxOf(trigger.nextTriggerAt, trigger.claimUntil ?: 0L))
+        }
+    }
+
+    /** 当前在时间轮中等待的计划数。 */
+    fun plannedCount(): Int = lock.withLock { planned.size }
+
+    /** [jobId] 当前有效的计划时间；不在时间轮中时为 null。 */
+    fun plannedTriggerAt(jobId: Long): Long? = lock.withLock { planned[jobId] }
+
+    /**
+     * 推进到 [now] 并在有计划到期时执行一轮领取与投递。
+     * @return 本次是否有计划到期
+     */
+    fun advance(now: Long): Boolean {
+        val due = lock.withLock {
+            var due = dueNow
+            dueNow = false
+            wheel.advance(now) { trigger -> if (planned.remove(trigger.jobId, trigger.triggerAt)) due = true }
+            due
+        }
+        if (due) {
+            scheduleService.dispatchDueJobs(properties.dispatchBatchSize, properties.dispatchMaxPages)
+            scheduleService.dispatchTriggerOutbox(properties.dispatchBatchSize, properties.dispatchMaxPages)
+        }
+        return due
+    }
+
+    private fun runLoop() {
+        while (running) {
+            var failed = false
+            try {
+                advance(clock())
+            } catch (exception: Exception) {
+                // 领取失败的计划已出轮，由下一次预加载重新放入
+                failed = true
+                logger.warn("时间轮触发失败，等待下一次预加载重新计划", exception)
+            }
+            try {
+                lock.withLock {
+                    val waitMillis = if (failed) tickMillis else wheel.nextTickMillis() - clock()
+                    if (running && (failed || !dueNow) && waitMillis > 0) wakeUp.await(waitMillis, TimeUnit.MILLISECONDS)
+                }
+            } catch (_: InterruptedException) {
+                return
+            }
+        }
+    }
+
+    override fun destroy() {
+        val current = lock.withLock {
+            running = false
+            worker
+        }
+        current?.interrupt()
+    }
+
+    private data class PlannedTrigger(val jobId: Long, val triggerAt: Long)
+
+    private companion object {
+        const val MIN_TICK_MILLIS = 10L
+        const val MAX_TICK_MILLIS = 1_000L
+    }
+}
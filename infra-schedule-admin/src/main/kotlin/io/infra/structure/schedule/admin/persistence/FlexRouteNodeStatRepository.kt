@@ -24,4 +24,9 @@ open class FlexRouteNodeStatRepository(
     override fun recordUse(nodeKey: String, now: Long) {
         mapper.upsertRouteUse(nodeKey, now)
     }
+
+    override fun recordUses(nodeKey: String, count: Int, lastRouteTime: Long) {
+        if (count <= 0) return
+        mapper.addRouteUses(nodeKey, count, lastRouteTime, System.currentTimeMillis())
+    }
 }
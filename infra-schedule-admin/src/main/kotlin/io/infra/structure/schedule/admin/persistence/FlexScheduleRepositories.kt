@@ -20,16 +20,22 @@ import io.infra.structure.schedule.model.ScheduleJob
 import io.infra.structure.schedule.model.ScheduleTriggerOutbox
 import io.infra.structure.schedule.model.ScheduleType
 import io.infra.structure.schedule.model.TriggerOutboxStatus
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutionLogChunkEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutionLogEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleJobEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleTriggerOutboxEntity
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutionLogChunkMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleExecutionLogMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleJobMapper
 import io.infra.structure.schedule.admin.persistence.mapper.ScheduleTriggerOutboxMapper
+import io.infra.structure.schedule.repository.HandleLogChunk
+import io.infra.structure.schedule.repository.ScheduleAdvance
 import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
 import io.infra.structure.schedule.repository.ScheduleJobRepository
 import io.infra.structure.schedule.repository.ScheduleTriggerOutboxRepository
+import io.infra.structure.schedule.repository.ShardFilter
 import io.infra.structure.schedule.repository.StaleRunningLogRef
+import io.infra.structure.schedule.repository.UpcomingTrigger
 import org.springframework.transaction.annotation.Transactional
 import java.util.UUID
 
@@ -74,6 +80,9 @@ open class FlexScheduleJobRepository(
 
     override fun findById(id: Long): ScheduleJob? = jobMapper.selectOneById(id)?.toModel()
 
+    override fun findByIds(ids: Collection<Long>): List<ScheduleJob> =
+        if (ids.isEmpty()) emptyList() else jobMapper.selectListByIds(ids).map(ScheduleJobEntity::toModel)
+
     override fun findAll(): List<ScheduleJob> = jobMapper.query {
         orderBy(ScheduleJobEntity::name.column, true)
     }.map(ScheduleJobEntity::toModel)
@@ -128,23 +137,28 @@ open class FlexScheduleJobRepository(
     }
 
     /**
-     * 在同一事务中使用 MySQL 行锁锁定一页候选记录，并立即写入租约。
+     * 在同一事务中使用 MySQL 行锁锁定一页候选记录，并以一条 UPDATE 写入整页租约。
      * SKIP LOCKED 使并行调度器跳过已锁行；提交后处理器异步执行，不会长期占用数据库锁。
      */
     @Transactional
-    override fun claimDueJobs(now: Long, limit: Int, leaseMillis: Long, owner: String): List<ScheduleJob> {
-        val candidates = jobMapper.lockDuePage(now, limit.coerceAtLeast(1))
-        return candidates.map { candidate ->
-            check(update<ScheduleJobEntity> {
-                ScheduleJobEntity::claimOwner set owner
-                ScheduleJobEntity::claimUntil set now + leaseMillis
-                ScheduleJobEntity::updateTime set now
-                where(ScheduleJobEntity::id eq candidate.id)
-            } == 1) { "任务租约更新失败: ${candidate.id}" }
-            candidate.toModel().copy(claimOwner = owner, claimUntil = now + leaseMillis, updateTime = now)
-        }
+    override fun claimDueJobs(
+        now: Long,
+        limit: Int,
+        leaseMillis: Long,
+        owner: String,
+        shards: ShardFilter?
+    ): List<ScheduleJob> {
+        val candidates = jobMapper.lockDuePage(now, limit.coerceAtLeast(1), shards)
+        if (candidates.isEmpty()) return emptyList()
+        val claimUntil = now + leaseMillis
+        val claimed = jobMapper.claimByIds(candidates.map { requireNotNull(it.id) }, owner, claimUntil, now)
+        check(claimed == candidates.size) { "任务租约更新失败: 期望 ${candidates.size} 条，实际 $claimed 条" }
+        return candidates.map { it.toModel().copy(claimOwner = owner, claimUntil = claimUntil, updateTime = now) }
     }
 
+    override fun findUpcomingTriggers(dueBefore: Long, limit: Int, shards: ShardFilter?): List<UpcomingTrigger> =
+        jobMapper.findUpcomingTriggers(dueBefore, limit.coerceAtLeast(1), shards)
+
     /** 通过 claim_owner 条件限制，只释放调用节点自身持有的租约。 */
     override fun releaseClaim(id: Long, owner: String) {
         update<ScheduleJobEntity> {
@@ -188,6 +202,28 @@ open class FlexScheduleJobRepository(
         return true
     }
 
+    /**
+     * 三条语句完成一页推进：锁定仍持有租约的任务、CASE 批量更新进度、多行插入 Outbox。
+     * 与逐个推进相同，只有租约仍有效的任务才会写 Outbox，且二者在同一事务中提交。
+     */
+    @Transactional
+    override fun completeSchedulesAndEnqueue(owner: String, advances: List<ScheduleAdvance>, now: Long): Set<Long> {
+        if (advances.isEmpty()) return emptySet()
+        val owned = jobMapper.lockOwnedIds(advances.map { it.jobId }, owner, now).toSet()
+        val applicable = advances.filter { it.jobId in owned }
+        if (applicable.isEmpty()) return emptySet()
+        check(jobMapper.completeSchedules(applicable, owner, now) == applicable.size) { "批量推进调度进度失败" }
+        outboxMapper.insertBatch(applicable.map { advance ->
+            ScheduleTriggerOutbox(
+                jobId = advance.jobId,
+                triggerTime = advance.triggerTime,
+                createTime = now,
+                updateTime = now
+            ).toEntity()
+        })
+        return applicable.mapTo(LinkedHashSet()) { it.jobId }
+    }
+
     @Transactional
     override fun enqueueManual(outbox: ScheduleTriggerOutbox): Boolean {
         val job = jobMapper.lockById(outbox.jobId) ?: return false
@@ -197,8 +233,9 @@ open class FlexScheduleJobRepository(
 }
 
 /** 基于 MyBatis-Flex 的执行日志仓储；支持运行中记录的终态回写。 */
-class FlexScheduleExecutionLogRepository(
-    private val logMapper: ScheduleExecutionLogMapper
+open class FlexScheduleExecutionLogRepository(
+    private val logMapper: ScheduleExecutionLogMapper,
+    private val chunkMapper: ScheduleExecutionLogChunkMapper
 ) : ScheduleExecutionLogRepository {
     override fun append(log: JobExecutionLog): JobExecutionLog {
         val entity = log.toEntity()
@@ -220,12 +257,19 @@ class FlexScheduleExecutionLogRepository(
     override fun findById(id: Long): JobExecutionLog? =
         logMapper.selectOneById(id)?.toModel()
 
+    override fun findByIds(ids: Collection<Long>): List<JobExecutionLog> =
+        if (ids.isEmpty()) emptyList() else logMapper.selectListByIds(ids).map { it.toModel() }
+
     override fun update(log: JobExecutionLog) {
         require(log.id > 0) { "更新执行日志需要有效主键" }
         logMapper.update(log.toEntity(), false)
     }
 
-    override fun delete(id: Long): Boolean = logMapper.deleteById(id) > 0
+    @Transactional
+    override fun delete(id: Long): Boolean {
+        chunkMapper.deleteByLogIds(listOf(id), Int.MAX_VALUE)
+        return logMapper.deleteById(id) > 0
+    }
 
     override fun finishIfExecuting(log: JobExecutionLog): Boolean {
         require(log.id > 0) { "更新执行日志需要有效主键" }
@@ -299,18 +343,49 @@ class FlexScheduleExecutionLogRepository(
             )
         } > 0
 
-    /** 追加执行器上报的业务日志。 */
-    override fun appendHandleLog(logId: Long, chunk: String): Boolean = logMapper.appendHandleLog(logId, chunk) > 0
+    /**
+     * 锁定日志行后插入一个分块并累加长度，写入量与本次分块大小成正比。
+     * 累计超过约 1MB 的部分截断，达到上限后静默丢弃，与原整列截断语义一致。
+     */
+    @Transactional
+    override fun appendHandleLog(logId: Long, chunk: String): Boolean {
+        val written = logMapper.lockHandleLogLength(logId) ?: return false
+        var end = (HANDLE_LOG_MAX_LENGTH - written).coerceIn(0, chunk.length)
+        // 不拆开代理对，避免 utf8mb4 写入半个字符
+        if (end in 1 until chunk.length && Character.isHighSurrogate(chunk[end - 1])) end--
+        if (end == 0) return true
+        val content = chunk.substring(0, end)
+        chunkMapper.insert(
+            ScheduleExecutionLogChunkEntity(logId = logId, content = content, createTime = System.currentTimeMillis())
+        )
+        logMapper.addHandleLogLength(logId, content.length)
+        return true
+    }
+
+    override fun findHandleLogChunks(logId: Long, afterChunkId: Long, limit: Int): List<HandleLogChunk> =
+        chunkMapper.selectPage(logId, afterChunkId, limit.coerceIn(1, 1_000))
+            .map { HandleLogChunk(requireNotNull(it.id), it.content) }
 
-    override fun findPendingCancellationCandidates(afterId: Long, limit: Int): List<StaleRunningLogRef> =
-        logMapper.findPendingCancellationCandidates(afterId.coerceAtLeast(0), limit.coerceIn(1, 1_000))
+    override fun findPendingCancellationCandidates(afterId: Long, limit: Int, shards: ShardFilter?): List<StaleRunningLogRef> =
+        logMapper.findPendingCancellationCandidates(afterId.coerceAtLeast(0), limit.coerceIn(1, 1_000), shards)
 
-    override fun findStaleRunningCandidates(staleBeforeTriggerTime: Long, afterId: Long, limit: Int): List<StaleRunningLogRef> =
-        logMapper.findStaleRunningCandidates(staleBeforeTriggerTime, afterId.coerceAtLeast(0), limit.coerceAtLeast(1))
+    override fun findStaleRunningCandidates(
+        staleBeforeTriggerTime: Long,
+        afterId: Long,
+        limit: Int,
+        shards: ShardFilter?
+    ): List<StaleRunningLogRef> =
+        logMapper.findStaleRunningCandidates(staleBeforeTriggerTime, afterId.coerceAtLeast(0), limit.coerceAtLeast(1), shards)
 
     override fun markLostIfActive(id: Long, now: Long, message: String): Boolean =
         logMapper.markLostIfActive(id, now, message) > 0
 
+    override fun markLostIfActive(ids: Collection<Long>, now: Long, message: String): Int =
+        if (ids.isEmpty()) 0 else logMapper.markLostIfActiveByIds(ids, now, message)
+
+    override fun findActiveByTargetAddress(targetAddress: String, createdBefore: Long, limit: Int): List<StaleRunningLogRef> =
+        logMapper.findActiveByTargetAddress(targetAddress, createdBefore, limit.coerceIn(1, 10_000))
+
     override fun findActiveByJobId(jobId: Long, limit: Int): List<JobExecutionLog> =
         logMapper.query {
             where(
@@ -352,8 +427,16 @@ class FlexScheduleExecutionLogRepository(
         })
     }
 
-    override fun deleteFinishedBefore(finishTimeBefore: Long, limit: Int): Int =
-        logMapper.deleteFinishedBefore(finishTimeBefore, limit.coerceIn(1, 10_000))
+    /**
+     * 先分批删除选中日志的分块，再删除日志主记录；不放在一个事务中，避免大批分块形成长事务。
+     * 中途失败时日志主记录仍在，下一轮清理会选中同一批日志继续删除剩余分块。
+     */
+    override fun deleteFinishedBefore(finishTimeBefore: Long, limit: Int): Int {
+        val ids = logMapper.selectFinishedIdsBefore(finishTimeBefore, limit.coerceIn(1, 10_000))
+        if (ids.isEmpty()) return 0
+        while (chunkMapper.deleteByLogIds(ids, CHUNK_DELETE_BATCH_SIZE) >= CHUNK_DELETE_BATCH_SIZE) Unit
+        return logMapper.deleteFinishedByIds(ids)
+    }
 
     private fun buildLogQueryConditions(query: ExecutionLogQuery) = buildList {
         query.jobId?.let { add(ScheduleExecutionLogEntity::jobId eq it) }
@@ -362,6 +445,13 @@ class FlexScheduleExecutionLogRepository(
         query.triggerTimeFrom?.let { add(ScheduleExecutionLogEntity::triggerTime ge it) }
         query.triggerTimeTo?.let { add(ScheduleExecutionLogEntity::triggerTime le it) }
     }
+
+    private companion object {
+        /** 单条执行日志业务过程日志的最大字符数。 */
+        const val HANDLE_LOG_MAX_LENGTH = 1_000_000
+        /** 历史清理时单条 DELETE 删除的分块数。 */
+        const val CHUNK_DELETE_BATCH_SIZE = 5_000
+    }
 }
 
 /**
@@ -379,8 +469,14 @@ open class FlexScheduleTriggerOutboxRepository(
     }
 
     @Transactional
-    override fun claimPending(now: Long, limit: Int, leaseMillis: Long, owner: String): List<ScheduleTriggerOutbox> {
-        val candidates = outboxMapper.lockPendingPage(now, limit.coerceIn(1, 1_000))
+    override fun claimPending(
+        now: Long,
+        limit: Int,
+        leaseMillis: Long,
+        owner: String,
+        shards: ShardFilter?
+    ): List<ScheduleTriggerOutbox> {
+        val candidates = outboxMapper.lockPendingPage(now, limit.coerceIn(1, 1_000), shards)
         return candidates.mapNotNull { candidate ->
             // 每次接管都生成新 token。旧工作线程即使在租约到期后恢复，后续 renew/complete
             // 条件更新也无法匹配新 token，从而不能覆盖新的领取方。
@@ -499,8 +595,9 @@ private fun ScheduleJob.toEntity() = ScheduleJobEntity(
     scheduleType = scheduleType.name, cron = cron, fixedRateMillis = fixedRateMillis, status = status.name,
     routeStrategy = routeStrategy.name, blockStrategy = blockStrategy.name, resident = resident,
     maxRetryCount = maxRetryCount, retryIntervalMillis = retryIntervalMillis, timeoutSeconds = timeoutSeconds,
-    nextTriggerAt = nextTriggerAt, lastTriggerAt = lastTriggerAt, claimOwner = claimOwner, claimUntil = claimUntil,
-    createTime = createTime, updateTime = updateTime
+    logicalShardCount = logicalShardCount, priority = priority, coalesceDuplicates = coalesceDuplicates,
+    resultCacheMillis = resultCacheMillis, nextTriggerAt = nextTriggerAt, lastTriggerAt = lastTriggerAt,
+    claimOwner = claimOwner, claimUntil = claimUntil, createTime = createTime, updateTime = updateTime
 )
 
 private fun ScheduleJobEntity.toModel() = ScheduleJob(
@@ -508,8 +605,8 @@ private fun ScheduleJobEntity.toModel() = ScheduleJob(
     scheduleType = ScheduleType.valueOf(scheduleType), cron = cron, fixedRateMillis = fixedRateMillis,
     status = JobStatus.valueOf(status), routeStrategy = RouteStrategy.parse(routeStrategy),
     blockStrategy = BlockStrategy.valueOf(blockStrategy), resident = resident, maxRetryCount = maxRetryCount,
-    retryIntervalMillis = retryIntervalMillis, timeoutSeconds = timeoutSeconds, nextTriggerAt = nextTriggerAt,
-    lastTriggerAt = lastTriggerAt, claimOwner = claimOwner, claimUntil = claimUntil,
+    retryIntervalMillis = retryIntervalMillis, timeoutSeconds = timeoutSeconds, logicalShardCount = logicalShardCount,
+    priority = priority, coalesceDuplicates = coalesceDuplicates, resultCacheMillis = resultCacheMillis, nextTriggerAt = nextTriggerAt, lastTriggerAt = lastTriggerAt, claimOwner = claimOwner, claimUntil = claimUntil,
     createTime = createTime, updateTime = updateTime
 )
 
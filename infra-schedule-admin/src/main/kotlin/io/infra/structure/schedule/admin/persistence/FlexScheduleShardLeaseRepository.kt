@@ -0,0 +1,37 @@
+package io.infra.structure.schedule.admin.persistence
+
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardLeaseMapper
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardMemberMapper
+import io.infra.structure.schedule.repository.ScheduleShardLeaseRepository
+import io.infra.structure.schedule.repository.ShardLease
+
+/** 基于 MySQL 的调度分片租约仓储；每条租约以单行条件更新变更，不需要跨行事务。 */
+open class FlexScheduleShardLeaseRepository(
+    private val leaseMapper: ScheduleShardLeaseMapper,
+    private val memberMapper: ScheduleShardMemberMapper
+) : ScheduleShardLeaseRepository {
+    override fun ensureShards(shardCount: Int, now: Long) {
+        val existing = leaseMapper.selectLeases().mapTo(HashSet()) { it.shardId }
+        (0 until shardCount).filterNot(existing::contains).forEach { leaseMapper.insertIfAbsent(it, now) }
+    }
+
+    override fun heartbeatMember(owner: String, leaseUntil: Long, now: Long) {
+        memberMapper.upsertMember(owner, leaseUntil, now)
+        memberMapper.deleteExpired(now)
+    }
+
+    override fun liveMembers(now: Long): List<String> = memberMapper.selectLiveOwners(now)
+
+    override fun removeMember(owner: String) {
+        memberMapper.deleteByOwner(owner)
+    }
+
+    override fun findShards(): List<ShardLease> = leaseMapper.selectLeases()
+
+    override fun renew(owner: String, leaseUntil: Long, now: Long): Int = leaseMapper.renew(owner, leaseUntil, now)
+
+    override fun tryAcquire(shardId: Int, owner: String, leaseUntil: Long, now: Long): Boolean =
+        leaseMapper.tryAcquire(shardId, owner, leaseUntil, now) > 0
+
+    override fun release(shardId: Int, owner: String, now: Long): Boolean = leaseMapper.release(shardId, owner, now) > 0
+}
@@ -0,0 +1,67 @@
+package io.infra.structure.schedule.admin.persistence
+
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleShardProgressEntity
+import io.infra.structure.schedule.admin.persistence.mapper.ScheduleShardProgressMapper
+import io.infra.structure.schedule.model.ShardProgress
+import io.infra.structure.schedule.model.ShardProgressStatus
+import io.infra.structure.schedule.repository.ScheduleShardProgressRepository
+import org.springframework.transaction.annotation.Transactional
+
+/** 基于 MySQL 的动态分片进度仓储；领取在同一事务内锁行后改派，其余变更均为单行或单批条件更新。 */
+open class FlexScheduleShardProgressRepository(
+    private val progressMapper: ScheduleShardProgressMapper
+) : ScheduleShardProgressRepository {
+    override fun createShards(runId: Long, jobId: Long, shardTotal: Int, now: Long) {
+        (0 until shardTotal).chunked(INSERT_BATCH_SIZE).forEach { indexes ->
+            progressMapper.insertIfAbsent(runId, jobId, shardTotal, indexes, now)
+        }
+    }
+
+    @Transactional
+    override fun claimNext(runId: Long, logId: Long, now: Long): ShardProgress? {
+        val shardIndex = progressMapper.lockNextPending(runId) ?: return null
+        if (progressMapper.markRunning(runId, shardIndex, logId, now) == 0) return null
+        return progressMapper.selectShard(runId, shardIndex)?.toModel()
+    }
+
+    override fun complete(
+        runId: Long,
+        shardIndex: Int,
+        logId: Long,
+        success: Boolean,
+        message: String?,
+        now: Long
+    ): Boolean {
+        val status = if (success) ShardProgressStatus.SUCCESS else ShardProgressStatus.FAILED
+        return progressMapper.complete(runId, shardIndex, logId, status.name, message?.take(MAX_MESSAGE_LENGTH), now) > 0
+    }
+
+    override fun releaseByLog(runId: Long, logId: Long, now: Long): Int = progressMapper.releaseByLog(runId, logId, now)
+
+    override fun findByRun(runId: Long): List<ShardProgress> = progressMapper.selectByRun(runId).map { it.toModel() }
+
+    override fun findLatestByJob(jobId: Long): List<ShardProgress> {
+        val runId = progressMapper.selectLatestRunId(jobId) ?: return emptyList()
+        return findByRun(runId)
+    }
+
+    override fun deleteUpdatedBefore(updateTimeBefore: Long, limit: Int): Int =
+        progressMapper.deleteUpdatedBefore(updateTimeBefore, limit)
+
+    private fun ScheduleShardProgressEntity.toModel() = ShardProgress(
+        runId = runId,
+        jobId = jobId,
+        shardIndex = shardIndex,
+        shardTotal = shardTotal,
+        status = ShardProgressStatus.valueOf(status),
+        logId = logId,
+        attemptCount = attemptCount,
+        message = message,
+        updateTime = updateTime
+    )
+
+    private companion object {
+        const val INSERT_BATCH_SIZE = 500
+        const val MAX_MESSAGE_LENGTH = 1024
+    }
+}
@@ -37,6 +37,14 @@ open class ScheduleJobEntity(
     open var retryIntervalMillis: Long = 1_000,
     /** 单次执行最长允许秒数，0 表示无限制。 */
     open var timeoutSeconds: Long = 0,
+    /** 分片广播逻辑分片数，0 表示每个执行器固定一片。 */
+    open var logicalShardCount: Int = 0,
+    /** 执行优先级 0..9，越大越优先。 */
+    open var priority: Int = 0,
+    /** 是否合并参数相同的重复触发。 */
+    open var coalesceDuplicates: Boolean = false,
+    /** 合并时成功结果的缓存毫秒数，0 表示不缓存。 */
+    open var resultCacheMillis: Long = 0,
     /** 下一次定时计划应触发的 Unix 毫秒时间戳；停用任务时为空。 */
     open var nextTriggerAt: Long? = null,
     /** 最近一次已推进到 Outbox 的定时计划触发时间（Unix 毫秒）。 */
@@ -71,7 +79,7 @@ open class ScheduleExecutionLogEntity(
     open var retryCount: Int = 0,
     /** 结果、错误或跳过原因。 */
     open var message: String? = null,
-    /** 业务执行过程日志。 */
+    /** 分块表上线前写入的历史业务执行过程日志，只读展示。 */
     open var handleLog: String? = null,
     /** 本次调用的目标地址。 */
     open var targetAddress: String? = null,
@@ -79,6 +87,20 @@ open class ScheduleExecutionLogEntity(
     open var durationMillis: Long? = null
 )
 
+/** 业务过程日志分块：执行器每次上报追加一行，按主键顺序拼接即为完整日志。 */
+@Table("infra_schedule_execution_log_chunk")
+open class ScheduleExecutionLogChunkEntity(
+    /** 数据库自增分块主键，同一执行日志内即追加顺序。 */
+    @Id(keyType = KeyType.Auto)
+    open var id: Long? = null,
+    /** 所属执行日志 ID。 */
+    open var logId: Long = 0,
+    /** 本次追加的日志内容。 */
+    open var content: String = "",
+    /** 追加时的 Unix 毫秒时间戳。 */
+    open var createTime: Long = 0
+)
+
 /** 可靠触发 Outbox：任务推进计划后，由独立投递循环可靠发送给执行器。 */
 @Table("infra_schedule_trigger_outbox")
 open class ScheduleTriggerOutboxEntity(
@@ -176,3 +198,54 @@ open class ScheduleRouteCursorEntity(
     /** 轮询游标最近一次递增的 Unix 毫秒时间戳。 */
     open var updateTime: Long = 0
 )
+
+/** 调度分片租约（多调度节点共享）。 */
+@Table("infra_schedule_shard_lease")
+open class ScheduleShardLeaseEntity(
+    /** 分片编号，`job_id % shardCount`。 */
+    @Id
+    open var shardId: Int = 0,
+    /** 当前持有租约的调度节点 owner；null 表示无人持有。 */
+    open var owner: String? = null,
+    /** 租约截止的 Unix 毫秒时间戳。 */
+    open var leaseUntil: Long = 0,
+    /** 租约最近一次领取、续约或释放的 Unix 毫秒时间戳。 */
+    open var updateTime: Long = 0
+)
+
+/** 参与分片再平衡的调度节点成员。 */
+@Table("infra_schedule_shard_member")
+open class ScheduleShardMemberEntity(
+    /** 调度节点进程级 owner。 */
+    @Id
+    open var owner: String = "",
+    /** 成员资格截止的 Unix 毫秒时间戳。 */
+    open var leaseUntil: Long = 0,
+    /** 成员最近一次续约的 Unix 毫秒时间戳。 */
+    open var updateTime: Long = 0
+)
+
+/** 动态分片广播中单个逻辑分片的进度。 */
+@Table("infra_schedule_shard_progress")
+open class ScheduleShardProgressEntity(
+    /** 触发批次，即 Outbox 主键。 */
+    @Id
+    open var runId: Long = 0,
+    /** 逻辑分片下标。 */
+    @Id
+    open var shardIndex: Int = 0,
+    /** 所属任务主键。 */
+    open var jobId: Long = 0,
+    /** 本次触发的逻辑分片总数。 */
+    open var shardTotal: Int = 0,
+    /** 分片状态枚举名称。 */
+    open var status: String = "PENDING",
+    /** 最近一次领取该分片的执行日志 ID。 */
+    open var logId: Long? = null,
+    /** 被领取次数。 */
+    open var attemptCount: Int = 0,
+    /** 处理结果或失败原因。 */
+    open var message: String? = null,
+    /** 最近一次状态变更的 Unix 毫秒时间戳。 */
+    open var updateTime: Long = 0
+)
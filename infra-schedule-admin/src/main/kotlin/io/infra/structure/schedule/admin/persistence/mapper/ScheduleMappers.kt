@@ -1,14 +1,22 @@
 package io.infra.structure.schedule.admin.persistence.mapper
 
 import com.mybatisflex.core.BaseMapper
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutionLogChunkEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutionLogEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutorEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleExecutorRegistryEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleRouteCursorEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleRouteStatEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleJobEntity
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleShardLeaseEntity
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleShardMemberEntity
+import io.infra.structure.schedule.admin.persistence.entity.ScheduleShardProgressEntity
 import io.infra.structure.schedule.admin.persistence.entity.ScheduleTriggerOutboxEntity
+import io.infra.structure.schedule.repository.ScheduleAdvance
+import io.infra.structure.schedule.repository.ShardFilter
+import io.infra.structure.schedule.repository.ShardLease
 import io.infra.structure.schedule.repository.StaleRunningLogRef
+import io.infra.structure.schedule.repository.UpcomingTrigger
 import org.apache.ibatis.annotations.Mapper
 import org.apache.ibatis.annotations.Param
 import org.apache.ibatis.annotations.Result
@@ -39,6 +47,10 @@ interface ScheduleJobMapper : BaseMapper<ScheduleJobEntity> {
             Result(property = "maxRetryCount", column = "max_retry_count"),
             Result(property = "retryIntervalMillis", column = "retry_interval_millis"),
             Result(property = "timeoutSeconds", column = "timeout_seconds"),
+            Result(property = "logicalShardCount", column = "logical_shard_count"),
+            Result(property = "priority", column = "priority"),
+            Result(property = "coalesceDuplicates", column = "coalesce_duplicates"),
+            Result(property = "resultCacheMillis", column = "result_cache_millis"),
             Result(property = "nextTriggerAt", column = "next_trigger_at"),
             Result(property = "lastTriggerAt", column = "last_trigger_at"),
             Result(property = "claimOwner", column = "claim_owner"),
@@ -53,18 +65,25 @@ interface ScheduleJobMapper : BaseMapper<ScheduleJobEntity> {
      *
      * MySQL 8 的 SKIP LOCKED 会跳过其他调度节点已锁定的记录，避免等待锁而降低调度吞吐。
      * 调用方必须在同一事务内立即写入 claim_owner 与 claim_until 后提交事务。
+     * [shards] 非空时只锁定所列分片（`id % shardCount`）内的任务。
      */
     @Select(
         """
+        <script>
         SELECT *
         FROM infra_schedule_job
         WHERE status = 'ENABLED'
           AND next_trigger_at IS NOT NULL
-          AND next_trigger_at <= #{now}
-          AND (claim_until IS NULL OR claim_until <= #{now})
+          AND next_trigger_at &lt;= #{now}
+          AND (claim_until IS NULL OR claim_until &lt;= #{now})
+          <if test="shards != null">
+            AND MOD(id, #{shards.shardCount}) IN
+            <foreach collection="shards.shards" item="shard" open="(" separator="," close=")">#{shard}</foreach>
+          </if>
         ORDER BY next_trigger_at ASC, id ASC
         LIMIT #{pageSize}
         FOR UPDATE SKIP LOCKED
+        </script>
         """
     )
     @Results(
@@ -78,6 +97,10 @@ interface ScheduleJobMapper : BaseMapper<ScheduleJobEntity> {
             Result(property = "maxRetryCount", column = "max_retry_count"),
             Result(property = "retryIntervalMillis", column = "retry_interval_millis"),
             Result(property = "timeoutSeconds", column = "timeout_seconds"),
+            Result(property = "logicalShardCount", column = "logical_shard_count"),
+            Result(property = "priority", column = "priority"),
+            Result(property = "coalesceDuplicates", column = "coalesce_duplicates"),
+            Result(property = "resultCacheMillis", column = "result_cache_millis"),
             Result(property = "nextTriggerAt", column = "next_trigger_at"),
             Result(property = "lastTriggerAt", column = "last_trigger_at"),
             Result(property = "claimOwner", column = "claim_owner"),
@@ -88,8 +111,103 @@ interface ScheduleJobMapper : BaseMapper<ScheduleJobEntity> {
     )
     fun lockDuePage(
         @Param("now") now: Long,
-        @Param("pageSize") pageSize: Int
+        @Param("pageSize") pageSize: Int,
+        @Param("shards") shards: ShardFilter?
     ): List<ScheduleJobEntity>
+
+    /** 对同一事务中已锁定的一页任务一次性写入租约。 */
+    @Update(
+        """
+        <script>
+        UPDATE infra_schedule_job
+        SET claim_owner = #{owner},
+            claim_until = #{claimUntil},
+            update_time = #{now}
+        WHERE id IN <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+        </script>
+        """
+    )
+    fun claimByIds(
+        @Param("ids") ids: Collection<Long>,
+        @Param("owner") owner: String,
+        @Param("claimUntil") claimUntil: Long,
+        @Param("now") now: Long
+    ): Int
+
+    /** 锁定一页中租约仍由 [owner] 持有的任务，返回其 ID；已被停用、编辑或租约过期的任务不在结果中。 */
+    @Select(
+        """
+        <script>
+        SELECT id
+        FROM infra_schedule_job
+        WHERE id IN <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+          AND claim_owner = #{owner}
+          AND claim_until > #{now}
+        FOR UPDATE
+        </script>
+        """
+    )
+    fun lockOwnedIds(
+        @Param("ids") ids: Collection<Long>,
+        @Param("owner") owner: String,
+        @Param("now") now: Long
+    ): List<Long>
+
+    /** 以单条 CASE 更新推进一页任务的调度进度并释放租约；调用方须先经 [lockOwnedIds] 确认归属。 */
+    @Update(
+        """
+        <script>
+        UPDATE infra_schedule_job
+        SET last_trigger_at = CASE id
+                <foreach collection="advances" item="advance">WHEN #{advance.jobId} THEN #{advance.triggerTime} </foreach>
+            END,
+            next_trigger_at = CASE id
+                <foreach collection="advances" item="advance">WHEN #{advance.jobId} THEN #{advance.nextTriggerAt} </foreach>
+            END,
+            claim_owner = NULL,
+            claim_until = NULL,
+            update_time = #{now}
+        WHERE id IN <foreach collection="advances" item="advance" open="(" separator="," close=")">#{advance.jobId}</foreach>
+          AND claim_owner = #{owner}
+        </script>
+        """
+    )
+    fun completeSchedules(
+        @Param("advances") advances: List<ScheduleAdvance>,
+        @Param("owner") owner: String,
+        @Param("now") now: Long
+    ): Int
+
+    /** 只读查询即将到期的任务计划，走 idx_infra_schedule_job_due 索引范围扫描。 */
+    @Select(
+        """
+        <script>
+        SELECT id, next_trigger_at, claim_until
+        FROM infra_schedule_job
+        WHERE status = 'ENABLED'
+          AND next_trigger_at IS NOT NULL
+          AND next_trigger_at &lt;= #{dueBefore}
+          <if test="shards != null">
+            AND MOD(id, #{shards.shardCount}) IN
+            <foreach collection="shards.shards" item="shard" open="(" separator="," close=")">#{shard}</foreach>
+          </if>
+        ORDER BY next_trigger_at ASC
+        LIMIT #{limit}
+        </script>
+        """
+    )
+    @Results(
+        value = [
+            Result(property = "jobId", column = "id"),
+            Result(property = "nextTriggerAt", column = "next_trigger_at"),
+            Result(property = "claimUntil", column = "claim_until")
+        ]
+    )
+    fun findUpcomingTriggers(
+        @Param("dueBefore") dueBefore: Long,
+        @Param("limit") limit: Int,
+        @Param("shards") shards: ShardFilter?
+    ): List<UpcomingTrigger>
 }
 
 /** 调度执行日志的 MyBatis-Flex Mapper。 */
@@ -153,28 +271,39 @@ interface ScheduleExecutionLogMapper : BaseMapper<ScheduleExecutionLogEntity> {
     ): Int
 
     /**
-     * 原子追加业务执行日志；超过约 1MB 时截断，避免撑爆行。
-     * MySQL 5.x 兼容 CONCAT / IFNULL / LEFT。
+     * 锁定仍接受追加的执行日志并返回已写入分块表的业务日志长度；已终态或不存在时返回 null。
+     * 同一日志的并发追加在此串行，保证分块主键顺序与长度上限一致。
      */
-    @Update(
+    @Select(
         """
-        UPDATE infra_schedule_execution_log
-        SET handle_log = LEFT(CONCAT(IFNULL(handle_log, ''), #{chunk}), 1000000)
+        SELECT handle_log_length
+        FROM infra_schedule_execution_log
         WHERE id = #{id}
           AND status IN ('QUEUED', 'RUNNING', 'CANCELLING', 'TIMING_OUT')
+        FOR UPDATE
         """
     )
-    fun appendHandleLog(@Param("id") id: Long, @Param("chunk") chunk: String): Int
+    fun lockHandleLogLength(@Param("id") id: Long): Int?
+
+    /** 累加已写入分块表的业务日志长度，只改一个定长列。 */
+    @Update("UPDATE infra_schedule_execution_log SET handle_log_length = handle_log_length + #{length} WHERE id = #{id}")
+    fun addHandleLogLength(@Param("id") id: Long, @Param("length") length: Int): Int
 
     /** 取消或超时确认中的记录需立即参与探活，而非等待普通僵尸阈值到期。 */
     @Select(
         """
+        <script>
         SELECT id, job_id, target_address, status, trigger_time
         FROM infra_schedule_execution_log
         WHERE status IN ('CANCELLING', 'TIMING_OUT')
-          AND id > #{afterId}
+          AND id &gt; #{afterId}
+          <if test="shards != null">
+            AND MOD(job_id, #{shards.shardCount}) IN
+            <foreach collection="shards.shards" item="shard" open="(" separator="," close=")">#{shard}</foreach>
+          </if>
         ORDER BY id ASC
         LIMIT #{limit}
+        </script>
         """
     )
     @Results(
@@ -188,19 +317,26 @@ interface ScheduleExecutionLogMapper : BaseMapper<ScheduleExecutionLogEntity> {
     )
     fun findPendingCancellationCandidates(
         @Param("afterId") afterId: Long,
-        @Param("limit") limit: Int
+        @Param("limit") limit: Int,
+        @Param("shards") shards: ShardFilter?
     ): List<StaleRunningLogRef>
 
     /** 查询待回收的排队、运行或取消确认中日志（按触发时间升序）。 */
     @Select(
         """
+        <script>
         SELECT id, job_id, target_address, status, trigger_time
         FROM infra_schedule_execution_log
         WHERE status IN ('QUEUED', 'RUNNING')
-          AND trigger_time <= #{staleBeforeTriggerTime}
-          AND id > #{afterId}
+          AND trigger_time &lt;= #{staleBeforeTriggerTime}
+          AND id &gt; #{afterId}
+          <if test="shards != null">
+            AND MOD(job_id, #{shards.shardCount}) IN
+            <foreach collection="shards.shards" item="shard" open="(" separator="," close=")">#{shard}</foreach>
+          </if>
         ORDER BY id ASC
         LIMIT #{limit}
+        </script>
         """
     )
     @Results(
@@ -215,7 +351,8 @@ interface ScheduleExecutionLogMapper : BaseMapper<ScheduleExecutionLogEntity> {
     fun findStaleRunningCandidates(
         @Param("staleBeforeTriggerTime") staleBeforeTriggerTime: Long,
         @Param("afterId") afterId: Long,
-        @Param("limit") limit: Int
+        @Param("limit") limit: Int,
+        @Param("shards") shards: ShardFilter?
     ): List<StaleRunningLogRef>
 
     /**
@@ -241,10 +378,58 @@ interface ScheduleExecutionLogMapper : BaseMapper<ScheduleExecutionLogEntity> {
         @Param("message") message: String
     ): Int
 
-    /** 按批删除已终态的历史日志，避免一次性删除造成长事务和锁等待。 */
-    @Delete(
+    /** 一条语句回收心跳对账确认已不存在的一批日志；状态条件与 [markLostIfActive] 相同。 */
+    @Update(
         """
-        DELETE FROM infra_schedule_execution_log
+        <script>
+        UPDATE infra_schedule_execution_log
+        SET status = 'LOST',
+            finish_time = #{now},
+            message = #{message},
+            duration_millis = #{now} - trigger_time
+        WHERE id IN <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+          AND status IN ('QUEUED', 'RUNNING')
+        </script>
+        """
+    )
+    fun markLostIfActiveByIds(
+        @Param("ids") ids: Collection<Long>,
+        @Param("now") now: Long,
+        @Param("message") message: String
+    ): Int
+
+    /** 按目标地址查询活跃及取消确认中的日志，供执行器心跳对账。 */
+    @Select(
+        """
+        SELECT id, job_id, target_address, status, trigger_time
+        FROM infra_schedule_execution_log
+        WHERE target_address = #{targetAddress}
+          AND status IN ('QUEUED', 'RUNNING', 'CANCELLING', 'TIMING_OUT')
+          AND trigger_time <= #{createdBefore}
+        ORDER BY id ASC
+        LIMIT #{limit}
+        """
+    )
+    @Results(
+        value = [
+            Result(property = "id", column = "id"),
+            Result(property = "jobId", column = "job_id"),
+            Result(property = "targetAddress", column = "target_address"),
+            Result(property = "status", column = "status"),
+            Result(property = "triggerTime", column = "trigger_time")
+        ]
+    )
+    fun findActiveByTargetAddress(
+        @Param("targetAddress") targetAddress: String,
+        @Param("createdBefore") createdBefore: Long,
+        @Param("limit") limit: Int
+    ): List<StaleRunningLogRef>
+
+    /** 按主键顺序选取一批超过保留期的终态日志，供先删分块再删主记录。 */
+    @Select(
+        """
+        SELECT id
+        FROM infra_schedule_execution_log
         WHERE finish_time IS NOT NULL
           AND finish_time < #{finishTimeBefore}
           AND status NOT IN ('QUEUED', 'RUNNING', 'CANCELLING', 'TIMING_OUT')
@@ -252,25 +437,85 @@ interface ScheduleExecutionLogMapper : BaseMapper<ScheduleExecutionLogEntity> {
         LIMIT #{limit}
         """
     )
-    fun deleteFinishedBefore(
+    fun selectFinishedIdsBefore(
         @Param("finishTimeBefore") finishTimeBefore: Long,
         @Param("limit") limit: Int
-    ): Int
+    ): List<Long>
+
+    /** 删除选中的历史日志；保留终态条件，避免误删任何仍在执行的记录。 */
+    @Delete(
+        """
+        <script>
+        DELETE FROM infra_schedule_execution_log
+        WHERE id IN <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+          AND finish_time IS NOT NULL
+          AND status NOT IN ('QUEUED', 'RUNNING', 'CANCELLING', 'TIMING_OUT')
+        </script>
+        """
+    )
+    fun deleteFinishedByIds(@Param("ids") ids: Collection<Long>): Int
+}
+
+/** 业务过程日志分块 Mapper；只插入与按游标读取，不做整行重写。 */
+@Mapper
+interface ScheduleExecutionLogChunkMapper : BaseMapper<ScheduleExecutionLogChunkEntity> {
+    /** 按 (log_id, id) 索引读取 [afterId] 之后的一页分块。 */
+    @Select(
+        """
+        SELECT id, log_id, content, create_time
+        FROM infra_schedule_execution_log_chunk
+        WHERE log_id = #{logId}
+          AND id > #{afterId}
+        ORDER BY id ASC
+        LIMIT #{limit}
+        """
+    )
+    @Results(
+        value = [
+            Result(property = "id", column = "id"),
+            Result(property = "logId", column = "log_id"),
+            Result(property = "content", column = "content"),
+            Result(property = "createTime", column = "create_time")
+        ]
+    )
+    fun selectPage(
+        @Param("logId") logId: Long,
+        @Param("afterId") afterId: Long,
+        @Param("limit") limit: Int
+    ): List<ScheduleExecutionLogChunkEntity>
+
+    /** 按批删除指定日志的分块；单条日志可能有上千分块，分批避免长事务。 */
+    @Delete(
+        """
+        <script>
+        DELETE FROM infra_schedule_execution_log_chunk
+        WHERE log_id IN <foreach collection="logIds" item="logId" open="(" separator="," close=")">#{logId}</foreach>
+        LIMIT #{limit}
+        </script>
+        """
+    )
+    fun deleteByLogIds(@Param("logIds") logIds: Collection<Long>, @Param("limit") limit: Int): Int
 }
 
 /** 可靠触发 Outbox Mapper。 */
 @Mapper
 interface ScheduleTriggerOutboxMapper : BaseMapper<ScheduleTriggerOutboxEntity> {
-    /** 锁定一页待投递或租约过期的触发记录，调用方必须处于事务中。 */
+    /** 锁定一页待投递或租约过期的触发记录，调用方必须处于事务中；[shards] 非空时按 `job_id % shardCount` 过滤。 */
     @Select(
         """
+        <script>
         SELECT *
         FROM infra_schedule_trigger_outbox
-        WHERE (status = 'PENDING' AND (claim_until IS NULL OR claim_until <= #{now}))
-           OR (status = 'PROCESSING' AND claim_until IS NOT NULL AND claim_until <= #{now})
+        WHERE ((status = 'PENDING' AND (claim_until IS NULL OR claim_until &lt;= #{now}))
+           OR (status = 'PROCESSING' AND claim_until IS NOT NULL AND claim_until &lt;= #{now}))
+          <if test="shards != null">
+            AND MOD(job_id, #{shards.shardCount}) IN
+            <foreach collection="shards.shards" item="shard" open="(" separator="," close=")">#{shard}</foreach>
+          </if>
         ORDER BY id ASC
         LIMIT #{pageSize}
         FOR UPDATE SKIP LOCKED
+        </script>
         """
     )
     @Results(
@@ -287,7 +532,11 @@ interface ScheduleTriggerOutboxMapper : BaseMapper<ScheduleTriggerOutboxEntity>
             Result(property = "updateTime", column = "update_time")
         ]
     )
-    fun lockPendingPage(@Param("now") now: Long, @Param("pageSize") pageSize: Int): List<ScheduleTriggerOutboxEntity>
+    fun lockPendingPage(
+        @Param("now") now: Long,
+        @Param("pageSize") pageSize: Int,
+        @Param("shards") shards: ShardFilter?
+    ): List<ScheduleTriggerOutboxEntity>
 
     /** 分批删除已确认投递或已取消的历史记录，活跃租约不在清理范围内。 */
     @Delete(
@@ -382,6 +631,24 @@ interface ScheduleRouteStatMapper : BaseMapper<ScheduleRouteStatEntity> {
         """
     )
     fun upsertRouteUse(@Param("nodeKey") nodeKey: String, @Param("now") now: Long): Int
+
+    /** 写回调度节点本地累积的选用次数；多个节点写回时间乱序，最近选用时间取较大值。 */
+    @Update(
+        """
+        INSERT INTO infra_schedule_route_stat (node_key, use_count, last_route_time, update_time)
+        VALUES (#{nodeKey}, #{count}, #{lastRouteTime}, #{now})
+        ON DUPLICATE KEY UPDATE
+            use_count = use_count + VALUES(use_count),
+            last_route_time = GREATEST(last_route_time, VALUES(last_route_time)),
+            update_time = VALUES(update_time)
+        """
+    )
+    fun addRouteUses(
+        @Param("nodeKey") nodeKey: String,
+        @Param("count") count: Int,
+        @Param("lastRouteTime") lastRouteTime: Long,
+        @Param("now") now: Long
+    ): Int
 }
 
 /** 路由 ROUND 游标 Mapper。 */
@@ -402,3 +669,213 @@ interface ScheduleRouteCursorMapper : BaseMapper<ScheduleRouteCursorEntity> {
     @Select("SELECT cursor_value FROM infra_schedule_route_cursor WHERE cursor_key = #{cursorKey} FOR UPDATE")
     fun selectCursorValue(@Param("cursorKey") cursorKey: String): Long?
 }
+
+/** 调度分片租约 Mapper。 */
+@Mapper
+interface ScheduleShardLeaseMapper : BaseMapper<ScheduleShardLeaseEntity> {
+    /** 补齐分片行；多个调度节点同时启动时依赖主键去重。 */
+    @Insert("INSERT IGNORE INTO infra_schedule_shard_lease (shard_id, owner, lease_until, update_time) VALUES (#{shardId}, NULL, 0, #{now})")
+    fun insertIfAbsent(@Param("shardId") shardId: Int, @Param("now") now: Long): Int
+
+    @Select("SELECT shard_id, owner, lease_until FROM infra_schedule_shard_lease ORDER BY shard_id ASC")
+    @Results(
+        value = [
+            Result(property = "shardId", column = "shard_id"),
+            Result(property = "owner", column = "owner"),
+            Result(property = "leaseUntil", column = "lease_until")
+        ]
+    )
+    fun selectLeases(): List<ShardLease>
+
+    /** 只续约仍然有效的租约；已过期的分片可能已被其他节点接管，需重新领取。 */
+    @Update(
+        """
+        UPDATE infra_schedule_shard_lease
+        SET lease_until = #{leaseUntil}, update_time = #{now}
+        WHERE owner = #{owner}
+          AND lease_until > #{now}
+        """
+    )
+    fun renew(@Param("owner") owner: String, @Param("leaseUntil") leaseUntil: Long, @Param("now") now: Long): Int
+
+    /** 条件更新保证同一分片同一时刻只有一个有效持有者。 */
+    @Update(
+        """
+        UPDATE infra_schedule_shard_lease
+        SET owner = #{owner}, lease_until = #{leaseUntil}, update_time = #{now}
+        WHERE shard_id = #{shardId}
+          AND (owner IS NULL OR owner = #{owner} OR lease_until <= #{now})
+        """
+    )
+    fun tryAcquire(
+        @Param("shardId") shardId: Int,
+        @Param("owner") owner: String,
+        @Param("leaseUntil") leaseUntil: Long,
+        @Param("now") now: Long
+    ): Int
+
+    /** 释放时把截止时间写为当前时刻，其他节点据此区分刚释放与长期无人持有的分片。 */
+    @Update(
+        """
+        UPDATE infra_schedule_shard_lease
+        SET owner = NULL, lease_until = #{now}, update_time = #{now}
+        WHERE shard_id = #{shardId}
+          AND owner = #{owner}
+        """
+    )
+    fun release(@Param("shardId") shardId: Int, @Param("owner") owner: String, @Param("now") now: Long): Int
+}
+
+/** 调度分片成员 Mapper。 */
+@Mapper
+interface ScheduleShardMemberMapper : BaseMapper<ScheduleShardMemberEntity> {
+    @Insert(
+        """
+        INSERT INTO infra_schedule_shard_member (owner, lease_until, update_time)
+        VALUES (#{owner}, #{leaseUntil}, #{now})
+        ON DUPLICATE KEY UPDATE
+            lease_until = VALUES(lease_until),
+            update_time = VALUES(update_time)
+        """
+    )
+    fun upsertMember(@Param("owner") owner: String, @Param("leaseUntil") leaseUntil: Long, @Param("now") now: Long): Int
+
+    @Select("SELECT owner FROM infra_schedule_shard_member WHERE lease_until > #{now} ORDER BY owner ASC")
+    fun selectLiveOwners(@Param("now") now: Long): List<String>
+
+    @Delete("DELETE FROM infra_schedule_shard_member WHERE lease_until <= #{now}")
+    fun deleteExpired(@Param("now") now: Long): Int
+
+    @Delete("DELETE FROM infra_schedule_shard_member WHERE owner = #{owner}")
+    fun deleteByOwner(@Param("owner") owner: String): Int
+}
+
+/** 动态分片广播进度 Mapper。 */
+@Mapper
+interface ScheduleShardProgressMapper : BaseMapper<ScheduleShardProgressEntity> {
+    /** 批量补齐分片行；Outbox 重投时依赖主键去重，保留已有进度。 */
+    @Insert(
+        """
+        <script>
+        INSERT IGNORE INTO infra_schedule_shard_progress
+            (run_id, shard_index, job_id, shard_total, status, attempt_count, update_time)
+        VALUES
+        <foreach collection="shardIndexes" item="shardIndex" separator=",">
+            (#{runId}, #{shardIndex}, #{jobId}, #{shardTotal}, 'PENDING', 0, #{now})
+        </foreach>
+        </script>
+        """
+    )
+    fun insertIfAbsent(
+        @Param("runId") runId: Long,
+        @Param("jobId") jobId: Long,
+        @Param("shardTotal") shardTotal: Int,
+        @Param("shardIndexes") shardIndexes: List<Int>,
+        @Param("now") now: Long
+    ): Int
+
+    /**
+     * 在当前事务中锁定下标最小的待领取分片。
+     * 多个执行器同时领取时 SKIP LOCKED 直接跳到下一个分片，不排队等待同一行锁。
+     */
+    @Select(
+        """
+        SELECT shard_index
+        FROM infra_schedule_shard_progress
+        WHERE run_id = #{runId}
+          AND status = 'PENDING'
+        ORDER BY shard_index ASC
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """
+    )
+    fun lockNextPending(@Param("runId") runId: Long): Int?
+
+    @Update(
+        """
+        UPDATE infra_schedule_shard_progress
+        SET status = 'RUNNING', log_id = #{logId}, attempt_count = attempt_count + 1, update_time = #{now}
+        WHERE run_id = #{runId}
+          AND shard_index = #{shardIndex}
+          AND status = 'PENDING'
+        """
+    )
+    fun markRunning(
+        @Param("runId") runId: Long,
+        @Param("shardIndex") shardIndex: Int,
+        @Param("logId") logId: Long,
+        @Param("now") now: Long
+    ): Int
+
+    /** 只接受当前持有者的结果；分片已退回并改派后，旧执行的迟到回报不会覆盖新进度。 */
+    @Update(
+        """
+        UPDATE infra_schedule_shard_progress
+        SET status = #{status}, message = #{message}, update_time = #{now}
+        WHERE run_id = #{runId}
+          AND shard_index = #{shardIndex}
+          AND log_id = #{logId}
+          AND status = 'RUNNING'
+        """
+    )
+    fun complete(
+        @Param("runId") runId: Long,
+        @Param("shardIndex") shardIndex: Int,
+        @Param("logId") logId: Long,
+        @Param("status") status: String,
+        @Param("message") message: String?,
+        @Param("now") now: Long
+    ): Int
+
+    @Update(
+        """
+        UPDATE infra_schedule_shard_progress
+        SET status = 'PENDING', update_time = #{now}
+        WHERE run_id = #{runId}
+          AND log_id = #{logId}
+          AND status = 'RUNNING'
+        """
+    )
+    fun releaseByLog(@Param("runId") runId: Long, @Param("logId") logId: Long, @Param("now") now: Long): Int
+
+    @Select("SELECT * FROM infra_schedule_shard_progress WHERE run_id = #{runId} AND shard_index = #{shardIndex}")
+    @Results(
+        value = [
+            Result(property = "runId", column = "run_id"),
+            Result(property = "shardIndex", column = "shard_index"),
+            Result(property = "jobId", column = "job_id"),
+            Result(property = "shardTotal", column = "shard_total"),
+            Result(property = "logId", column = "log_id"),
+            Result(property = "attemptCount", column = "attempt_count"),
+            Result(property = "updateTime", column = "update_time")
+        ]
+    )
+    fun selectShard(@Param("runId") runId: Long, @Param("shardIndex") shardIndex: Int): ScheduleShardProgressEntity?
+
+    @Select("SELECT * FROM infra_schedule_shard_progress WHERE run_id = #{runId} ORDER BY shard_index ASC")
+    @Results(
+        value = [
+            Result(property = "runId", column = "run_id"),
+            Result(property = "shardIndex", column = "shard_index"),
+            Result(property = "jobId", column = "job_id"),
+            Result(property = "shardTotal", column = "shard_total"),
+            Result(property = "logId", column = "log_id"),
+            Result(property = "attemptCount", column = "attempt_count"),
+            Result(property = "updateTime", column = "update_time")
+        ]
+    )
+    fun selectByRun(@Param("runId") runId: Long): List<ScheduleShardProgressEntity>
+
+    @Select("SELECT MAX(run_id) FROM infra_schedule_shard_progress WHERE job_id = #{jobId}")
+    fun selectLatestRunId(@Param("jobId") jobId: Long): Long?
+
+    @Delete(
+        """
+        DELETE FROM infra_schedule_shard_progress
+        WHERE update_time < #{updateTimeBefore}
+        ORDER BY update_time ASC
+        LIMIT #{limit}
+        """
+    )
+    fun deleteUpdatedBefore(@Param("updateTimeBefore") updateTimeBefore: Long, @Param("limit") limit: Int): Int
+}
@@ -4,27 +4,40 @@ import io.infra.structure.schedule.core.ExecutorAddresses
 import io.infra.structure.schedule.core.ExecutorRegistry
 import io.infra.structure.schedule.core.ExecutorTaskTracker
 import io.infra.structure.schedule.admin.core.HttpScheduleCancelClient
+import io.infra.structure.schedule.admin.core.ScheduleRunCompletions
 import io.infra.structure.schedule.core.LogFinishRequest
+import io.infra.structure.schedule.core.AttemptFuture
 import io.infra.structure.schedule.core.RoutedExecutor
+import io.infra.structure.schedule.core.ScheduleAttemptRunner
 import io.infra.structure.schedule.core.ScheduleCalculator
 import io.infra.structure.schedule.core.ScheduleLogReporter
 import io.infra.structure.schedule.model.ExecutionLogPage
 import io.infra.structure.schedule.model.ExecutionLogQuery
 import io.infra.structure.schedule.model.ExecutionStatus
+import io.infra.structure.schedule.model.HandleLogPage
 import io.infra.structure.schedule.model.JobExecutionContext
 import io.infra.structure.schedule.model.JobExecutionLog
+import io.infra.structure.schedule.model.JobExecutionResult
 import io.infra.structure.schedule.model.JobStatus
 import io.infra.structure.schedule.model.RouteStrategy
 import io.infra.structure.schedule.model.ScheduleJob
 import io.infra.structure.schedule.model.ScheduleJobDraft
 import io.infra.structure.schedule.model.ScheduleTriggerOutbox
+import io.infra.structure.schedule.model.ShardProgress
+import io.infra.structure.schedule.model.ShardProgressStatus
+import io.infra.structure.schedule.repository.ScheduleAdvance
 import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
 import io.infra.structure.schedule.repository.ScheduleJobRepository
+import io.infra.structure.schedule.repository.ScheduleShardProgressRepository
 import io.infra.structure.schedule.repository.ScheduleTriggerOutboxRepository
+import io.infra.structure.schedule.repository.ShardFilter
 import io.infra.structure.schedule.repository.StaleRunningLogRef
+import io.infra.structure.schedule.repository.UpcomingTrigger
 import org.slf4j.LoggerFactory
 import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletionException
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Future
 import java.util.concurrent.TimeUnit
@@ -33,6 +46,7 @@ import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ScheduledFuture
 import java.util.UUID
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.Semaphore
 import java.util.concurrent.atomic.AtomicLong
 
@@ -49,7 +63,15 @@ class ScheduleService(
     private val claimLeaseMillis: Long,
     private val schedulerId: String,
     private val maxExecutionMillis: Long,
-    private val outboxLeaseExecutor: ScheduledExecutorService
+    private val outboxLeaseExecutor: ScheduledExecutorService,
+    private val runCompletions: ScheduleRunCompletions? = null,
+    private val runningReconcileGraceMillis: Long = 60_000,
+    /** 多调度节点分片时本节点当前持有的分片；返回 null 表示不分片，每个节点扫描全部记录。 */
+    private val shardFilter: () -> ShardFilter? = { null },
+    /** 动态分片广播的分片进度；为 null 时配置了逻辑分片数的任务退化为按执行器固定分片。 */
+    private val shardProgressRepository: ScheduleShardProgressRepository? = null,
+    /** 本节点同时在途的 Outbox 触发上限；0 表示不限制。 */
+    maxInFlightTriggers: Int = 0
 ) {
     private val logger = LoggerFactory.getLogger(javaClass)
     /** 进程生命周期唯一的租约 owner；避免同一 scheduler-id 重启后发生 ABA 误续租。 */
@@ -58,18 +80,29 @@ class ScheduleService(
     private val attemptFutures = ConcurrentHashMap<Long, Future<*>>()
     /** 僵尸探活的并发上限，避免大量失联节点把回收线程池和网络连接打满。 */
     private val staleProbePermits = Semaphore(16)
+    /**
+     * 在途触发名额：领取后、提交工作线程前占用，整个触发收口（含异步等待与重试）后归还。
+     * 等待执行器返回不再占用工作线程，线程池队列无法再约束在途数量，由该名额限制内存中的租约续期与等待链。
+     */
+    private val inFlightPermits = maxInFlightTriggers.takeIf { it > 0 }?.let(::Semaphore)
     /** 取消确认与普通僵尸日志各自按主键推进的查询游标，避免总是扫描最老的一页。 */
     private val cancellationProbeCursor = AtomicLong()
     private val staleProbeCursor = AtomicLong()
     /** 取消确认中的远程补偿最早重试时刻，避免每轮扫描都重复发送 cancel。 */
     private val cancellationRetryAt = ConcurrentHashMap<Long, Long>()
+    /** 本节点产生新触发计划时的订阅方（如内存时间轮）；通知只用于加速，错过的计划由预加载兜底。 */
+    private val triggerPlanListeners = CopyOnWriteArrayList<(Long, Long) -> Unit>()
+    /** 执行器地址 -> 上一次心跳对账中缺失的日志 ID；连续两次缺失才回收。 */
+    private val reconcileSuspects = ConcurrentHashMap<String, Set<Long>>()
+    /** 发起执行器调用；超时与重试间隔复用 Outbox 续租的定时线程，不占用工作线程等待。 */
+    private val attemptRunner = ScheduleAttemptRunner(attemptExecutor, outboxLeaseExecutor)
 
     /** 校验并创建任务，同时计算首次定时触发时间。 */
     fun create(draft: ScheduleJobDraft): ScheduleJob {
         val now = System.currentTimeMillis()
         val job = buildJob(0, draft, now)
         ScheduleCalculator.validate(job)
-        return jobRepository.save(job.copy(nextTriggerAt = initialTriggerAt(job, now)))
+        return jobRepository.save(job.copy(nextTriggerAt = initialTriggerAt(job, now))).also(::publishTriggerPlan)
     }
 
     /** 覆盖更新任务可编辑字段，并撤销旧配置可能遗留的租约；不改变当前启停状态。 */
@@ -83,7 +116,7 @@ class ScheduleService(
             )
             ScheduleCalculator.validate(updated)
             updated.copy(nextTriggerAt = initialTriggerAt(updated, now), claimOwner = null, claimUntil = null)
-        }
+        }.also(::publishTriggerPlan)
     }
 
     /** 启用或停用任务；停用后不再触发新的定时执行。 */
@@ -111,7 +144,7 @@ class ScheduleService(
                 claimUntil = null,
                 updateTime = now
             )
-        }
+        }.also(::publishTriggerPlan)
     }
 
     /** 删除任务前取消未投递触发与活跃执行，避免删除后仍继续运行。 */
@@ -176,6 +209,21 @@ class ScheduleService(
     fun executionLog(logId: Long): JobExecutionLog =
         logRepository.findById(logId) ?: error("执行日志不存在: $logId")
 
+    /**
+     * 按游标分页读取业务过程日志分块。
+     * @param afterChunkId 上一页返回的 [HandleLogPage.nextCursor]，首页为 0
+     */
+    fun handleLogPage(logId: Long, afterChunkId: Long, limit: Int): HandleLogPage {
+        val size = limit.coerceIn(1, 200)
+        val chunks = logRepository.findHandleLogChunks(logId, afterChunkId.coerceAtLeast(0), size)
+        if (chunks.isEmpty() && logRepository.findById(logId) == null) error("执行日志不存在: $logId")
+        return HandleLogPage(
+            content = chunks.joinToString(separator = "") { it.content },
+            nextCursor = chunks.lastOrNull()?.id ?: afterChunkId.coerceAtLeast(0),
+            hasMore = chunks.size == size
+        )
+    }
+
     /** 追加业务执行过程日志（执行器异步上报）。 */
     fun appendHandleLog(logId: Long, lines: List<String>): Boolean {
         if (lines.isEmpty()) return logRepository.findById(logId) != null
@@ -185,6 +233,13 @@ class ScheduleService(
         return logRepository.appendHandleLog(logId, chunk)
     }
 
+    /**
+     * 追加执行器合批上报的多条日志；单条失败不影响同批其他日志。
+     * @return 不存在或不再接受追加的日志 ID
+     */
+    fun appendHandleLogBatch(entries: Map<Long, List<String>>): List<Long> =
+        entries.filter { (logId, lines) -> !appendHandleLog(logId, lines) }.keys.toList()
+
     /** 预览任务接下来若干次调度时间，供管理端展示。 */
     fun nextTriggerTimes(id: Long, count: Int = 10): List<Long> {
         val job = requireJob(id)
@@ -281,6 +336,8 @@ class ScheduleService(
             timeoutMessage = "任务执行超时，执行器已确认终止"
         )
         if (completed) cancellationRetryAt.remove(logId)
+        // 异步执行的调度侧等待方若在本节点，直接唤醒；否则由其轮询日志状态兜底
+        runCompletions?.complete(logId, JobExecutionResult(success, message, discarded, cancelled))
         return completed
     }
 
@@ -312,46 +369,81 @@ class ScheduleService(
      *
      * 对齐 xxl-job：领取后**立即推进**下次触发时间，执行中仍可产生重叠触发，
      * 由执行器侧阻塞策略（SERIAL / DISCARD_LATER / COVER_EARLY）处理。
+     * 启用分片时只领取本节点持有分片内的任务，Outbox 投递与僵尸回收同理。
      */
     fun dispatchDueJobs(pageSize: Int, maxPages: Int) {
+        val shards = shardFilter()
+        if (shards != null && shards.shards.isEmpty()) return
         val now = System.currentTimeMillis()
         repeat(maxPages.coerceAtLeast(1)) {
-            val claimed = jobRepository.claimDueJobs(now, pageSize.coerceAtLeast(1), claimLeaseMillis, ownerToken)
-            claimed.forEach { job ->
-                val triggerTime = job.nextTriggerAt ?: now
-                if (!completeScheduleAndEnqueue(job, triggerTime)) {
-                    logger.warn("推进调度进度失败（租约可能已丢失）: jobId={}", job.id)
-                    return@forEach
-                }
-            }
+            val claimed = jobRepository.claimDueJobs(now, pageSize.coerceAtLeast(1), claimLeaseMillis, ownerToken, shards)
+            completeSchedulesAndEnqueue(claimed)
             if (claimed.size < pageSize) return
         }
     }
 
+    /** 只读查询 [dueBefore] 之前到期的任务计划，供内存时间轮预加载。 */
+    fun upcomingTriggers(dueBefore: Long, limit: Int): List<UpcomingTrigger> {
+        val shards = shardFilter()
+        if (shards != null && shards.shards.isEmpty()) return emptyList()
+        return jobRepository.findUpcomingTriggers(dueBefore, limit.coerceIn(1, 100_000), shards)
+    }
+
+    /** 订阅本节点新建、修改、启用任务及推进调度进度后产生的下一次触发时间。 */
+    fun addTriggerPlanListener(listener: (jobId: Long, triggerAt: Long) -> Unit) {
+        triggerPlanListeners += listener
+    }
+
     /** 从可靠 Outbox 领取已提交触发并交给本节点工作线程。 */
     fun dispatchTriggerOutbox(pageSize: Int, maxPages: Int) {
+        val shards = shardFilter()
+        if (shards != null && shards.shards.isEmpty()) return
         val now = System.currentTimeMillis()
         repeat(maxPages.coerceAtLeast(1)) {
-            val claimed = triggerOutboxRepository.claimPending(now, pageSize.coerceIn(1, 1_000), claimLeaseMillis, ownerToken)
-            claimed.forEach { outbox ->
-                val job = jobRepository.findById(outbox.jobId)
+            // 在途名额已满时本轮不再领取，按剩余名额收窄单页，减少领取后又释放的记录
+            val limit = pageSize.coerceIn(1, 1_000).coerceAtMost(inFlightPermits?.availablePermits() ?: Int.MAX_VALUE)
+            if (limit <= 0) return
+            val claimed = triggerOutboxRepository.claimPending(
+                now, limit, claimLeaseMillis, ownerToken, shards
+            )
+            // 整页一次查询任务定义；同一任务的多条触发只撤销一次
+            val jobs = jobRepository.findByIds(claimed.mapTo(LinkedHashSet()) { it.jobId }).associateBy { it.id }
+            val cancelledJobIds = HashSet<Long>()
+            claimed.forEachIndexed { index, outbox ->
+                val job = jobs[outbox.jobId]
                 if (job == null || (job.status != JobStatus.ENABLED && !outbox.manualTrigger)) {
-                    triggerOutboxRepository.cancelPendingByJobId(
-                        outbox.jobId,
-                        System.currentTimeMillis(),
-                        includeManual = job == null
-                    )
-                    return@forEach
+                    if (cancelledJobIds.add(outbox.jobId)) {
+                        triggerOutboxRepository.cancelPendingByJobId(
+                            outbox.jobId,
+                            System.currentTimeMillis(),
+                            includeManual = job == null
+                        )
+                    }
+                    return@forEachIndexed
                 }
-                if (submit(job, outbox)) {
-                    Unit
-                } else {
+                if (inFlightPermits?.tryAcquire() == false) {
+                    // 其他调用方（如时间轮）并发占满名额：剩余记录立即释放回待投递，停止本轮领取
+                    releaseUnsubmitted(claimed.subList(index, claimed.size))
+                    return
+                }
+                if (!submit(job, outbox)) {
+                    inFlightPermits?.release()
                     triggerOutboxRepository.releaseForRetry(
                         outbox.id, ownerToken, requireNotNull(outbox.claimToken), "调度工作线程拒绝执行", retryAt(outbox.attemptCount)
                     )
                 }
             }
-            if (claimed.size < pageSize) return
+            if (claimed.size < limit) return
+        }
+    }
+
+    /** 在途名额不足而未提交的记录不计为投递失败，释放后下一轮即可重新领取。 */
+    private fun releaseUnsubmitted(outboxes: List<ScheduleTriggerOutbox>) {
+        val now = System.currentTimeMillis()
+        outboxes.forEach { outbox ->
+            triggerOutboxRepository.releaseForRetry(
+                outbox.id, ownerToken, requireNotNull(outbox.claimToken), "本节点在途触发已达上限，释放待重新领取", now
+            )
         }
     }
 
@@ -364,13 +456,34 @@ class ScheduleService(
         )
     }
 
-    /** 分批清理已投递或已取消的历史 Outbox，避免可靠投递表无限增长。 */
+    /** 分批清理已投递或已取消的历史 Outbox 及同一保留期外的动态分片进度，避免可靠投递表无限增长。 */
     fun cleanupCompletedOutbox(retentionMillis: Long, batchSize: Int): Int {
         if (retentionMillis <= 0) return 0
-        return triggerOutboxRepository.deleteCompletedBefore(
-            System.currentTimeMillis() - retentionMillis,
-            batchSize.coerceIn(1, 10_000)
-        )
+        val before = System.currentTimeMillis() - retentionMillis
+        val limit = batchSize.coerceIn(1, 10_000)
+        shardProgressRepository?.deleteUpdatedBefore(before, limit)
+        return triggerOutboxRepository.deleteCompletedBefore(before, limit)
+    }
+
+    /**
+     * 执行器回调：为执行日志 [logId] 领取触发批次 [runId] 中下一个待处理分片。
+     * 日志已结束或正在取消、超时确认时不再分配，返回 null 让 Handler 尽快退出。
+     */
+    fun claimShard(logId: Long, runId: Long): ShardProgress? {
+        val repository = shardProgressRepository ?: return null
+        val status = logRepository.findById(logId)?.status ?: return null
+        if (status != ExecutionStatus.QUEUED && status != ExecutionStatus.RUNNING) return null
+        return repository.claimNext(runId, logId, System.currentTimeMillis())
+    }
+
+    /** 执行器回调：记录已领取分片的处理结果；分片已被退回改派时忽略迟到的结果。 */
+    fun completeShard(logId: Long, runId: Long, shardIndex: Int, success: Boolean, message: String?): Boolean =
+        shardProgressRepository?.complete(runId, shardIndex, logId, success, message, System.currentTimeMillis()) == true
+
+    /** 任务最近一次动态分片触发的进度，供控制台查看各分片由哪次执行处理。 */
+    fun shardProgress(jobId: Long): List<ShardProgress> {
+        requireJob(jobId)
+        return shardProgressRepository?.findLatestByJob(jobId).orEmpty()
     }
 
     /**
@@ -381,9 +494,12 @@ class ScheduleService(
      * - 明确不在跑：标记 LOST
      * - 节点不可达或协议未知：保留记录，等待后续探活确认
      *
-     * 回收只改日志状态，不会 kill 执行进程。
+     * 回收只改日志状态，不会 kill 执行进程。上报活跃集合的执行器由 [reconcileReportedRunningLogs]
+     * 随心跳批量对账，本方法兜底旧版本执行器与取消确认中的补偿。
      */
     fun reapStaleRunningLogs(staleAfterMillis: Long, batchSize: Int): Int {
+        val shards = shardFilter()
+        if (shards != null && shards.shards.isEmpty()) return 0
         val now = System.currentTimeMillis()
         val threshold = staleAfterMillis.coerceAtLeast(claimLeaseMillis).coerceAtLeast(60_000L)
         val staleBefore = now - threshold
@@ -391,13 +507,11 @@ class ScheduleService(
         // 取消确认中的任务必须立即探活并补偿 cancel，不能等待默认十分钟的僵尸阈值。
         // 给普通僵尸回收保留至少一半额度，避免大量取消确认记录长期挤占 LOST 识别。
         val cancellationLimit = (limit + 1) / 2
-        val cancellationCandidates = scanWithIdCursor(
-            cancellationProbeCursor,
-            cancellationLimit,
-            logRepository::findPendingCancellationCandidates
-        )
+        val cancellationCandidates = scanWithIdCursor(cancellationProbeCursor, cancellationLimit) { afterId, pageSize ->
+            logRepository.findPendingCancellationCandidates(afterId, pageSize, shards)
+        }
         val staleCandidates = scanWithIdCursor(staleProbeCursor, limit - cancellationCandidates.size) { afterId, pageSize ->
-            logRepository.findStaleRunningCandidates(staleBefore, afterId, pageSize)
+            logRepository.findStaleRunningCandidates(staleBefore, afterId, pageSize, shards)
         }
         val candidates = cancellationCandidates + staleCandidates
         if (candidates.isEmpty()) return 0
@@ -419,21 +533,27 @@ class ScheduleService(
         // 不将整批候选一次性提交后再抢信号量；只维持有限在途请求，完成一个再补一个。
         repeat(minOf(STALE_PROBE_CONCURRENCY, candidates.size)) { startNextProbe() }
         var reaped = 0
-        while (pending.isNotEmpty() && System.nanoTime() < deadline) {
-            val completed = pending.firstOrNull { it.second.isDone }
-            if (completed == null) {
-                Thread.sleep(10L)
-                continue
+        while (pending.isNotEmpty()) {
+            val remainingNanos = deadline - System.nanoTime()
+            if (remainingNanos <= 0) break
+            // 任一探活完成即唤醒，不再按固定间隔轮询
+            try {
+                CompletableFuture.anyOf(*pending.map { it.second }.toTypedArray()).get(remainingNanos, TimeUnit.NANOSECONDS)
+            } catch (_: TimeoutException) {
+                break
+            } catch (_: ExecutionException) {
+                // 单个探活异常按状态未知处理
             }
-            pending.remove(completed)
-            val candidate = completed.first
-            val state = runCatching { completed.second.get() }.getOrNull()
-            when (state) {
-                false -> if (closeMissingExecutorLog(candidate, now, message)) reaped++
-                true -> retryPendingCancellation(candidate)
-                null -> Unit
+            val completed = pending.filter { it.second.isDone }
+            pending.removeAll(completed)
+            completed.forEach { (candidate, probe) ->
+                when (runCatching { probe.get() }.getOrNull()) {
+                    false -> if (closeMissingExecutorLog(candidate, now, message)) reaped++
+                    true -> retryPendingCancellation(candidate)
+                    null -> Unit
+                }
+                startNextProbe()
             }
-            startNextProbe()
         }
         pending.forEach { it.second.cancel(true) }
         if (reaped > 0) {
@@ -442,6 +562,46 @@ class ScheduleService(
         return reaped
     }
 
+    /**
+     * 按执行器心跳上报的活跃日志集合，对账发往该实例地址的日志。
+     *
+     * 每次心跳只查询一次该地址上创建已超过 [runningReconcileGraceMillis] 的活跃日志；不在上报集合中、
+     * 且本节点也不在等待其同步调用返回的记为疑似丢失，连续两次对账仍缺失才收口，以跨过终态回调在途等
+     * 瞬时窗口。本节点仍在等待异步终态的按结果未知唤醒，由该次尝试按任务重试配置收口；其余排队/运行中的
+     * 一条语句批量回收为 LOST，取消确认中的按执行器已确认终止收口。
+     * @return 本次收口的日志条数
+     */
+    fun reconcileReportedRunningLogs(address: String?, runningLogIds: Collection<Long>): Int {
+        if (runningReconcileGraceMillis <= 0) return 0
+        val target = address?.trim()?.takeIf { it.isNotBlank() }?.let(ExecutorAddresses::normalizeHttpBaseUrl) ?: return 0
+        val now = System.currentTimeMillis()
+        val reported = runningLogIds as? Set<Long> ?: runningLogIds.toHashSet()
+        val missing = logRepository.findActiveByTargetAddress(target, now - runningReconcileGraceMillis, RECONCILE_LIMIT)
+            .filter { it.id !in reported && (attemptFutures[it.id]?.isDone != false || isAwaitingCallback(it.id)) }
+        val suspected = if (missing.isEmpty()) {
+            reconcileSuspects.remove(target)
+        } else {
+            reconcileSuspects.put(target, missing.mapTo(HashSet()) { it.id })
+        }.orEmpty()
+        val confirmed = missing.filter { it.id in suspected }
+        if (confirmed.isEmpty()) return 0
+        val message = "执行日志心跳对账回收（执行器连续两次心跳未上报该日志）"
+        val (pendingCancellation, active) = confirmed.partition {
+            it.status == ExecutionStatus.CANCELLING || it.status == ExecutionStatus.TIMING_OUT
+        }
+        // 异步执行的回调丢失：唤醒本节点等待方，不在此回收日志，以免绕过任务重试
+        val (awaited, unawaited) = active.partition { runCompletions?.completeLost(it.id) == true }
+        var reaped = awaited.size + logRepository.markLostIfActive(unawaited.map { it.id }, now, message)
+        pendingCancellation.forEach { if (closeMissingExecutorLog(it, now, message)) reaped++ }
+        if (reaped > 0) {
+            logger.warn("心跳对账回收执行器已不存在的活跃日志 {} 条: target={}", reaped, target)
+        }
+        return reaped
+    }
+
+    /** 异步执行受理后 attempt 仍未完成，但只是在等待终态回调，执行器缺失时同样需要对账。 */
+    private fun isAwaitingCallback(logId: Long): Boolean = runCompletions?.isAwaiting(logId) == true
+
     /** 只有执行器明确不存在时，才能收口取消确认或回收真正的僵尸日志。 */
     private fun closeMissingExecutorLog(candidate: StaleRunningLogRef, now: Long, lostMessage: String): Boolean = when (candidate.status) {
         ExecutionStatus.CANCELLING -> logRepository.finishPendingCancellation(
@@ -517,50 +677,50 @@ class ScheduleService(
         return ExecutorAddresses.normalizeHttpBaseUrl(target)
     }
 
-    /** 异步提交一次触发；阻塞策略由执行器 JobThread 解释。 */
+    /**
+     * 异步提交一次触发；阻塞策略由执行器 JobThread 解释。
+     *
+     * 工作线程只负责路由与发起首次调用，等待执行器返回、超时与重试间隔均异步完成，
+     * 慢任务不再占住固定大小的工作线程池。Outbox 租约续期持续到整个触发收口为止。
+     * 调用方已占用一个在途名额；返回 true 后由本方法在收口时归还，返回 false 时由调用方归还。
+     */
     private fun submit(job: ScheduleJob, outbox: ScheduleTriggerOutbox): Boolean = try {
         workerExecutor.execute worker@{
             val lease = OutboxLease(outbox)
             // 领取后排队期间可能接近租约边界；工作线程实际开始前先续租，失败则不再发起远程调用。
-            if (!lease.renewNow()) {
-                logger.warn("Outbox 投递租约已丢失，跳过执行: outboxId={}, jobId={}", outbox.id, outbox.jobId)
-                return@worker
-            }
-            val renewal = renewOutboxClaim(lease)
-            try {
-                if (lease.lost) return@worker
-                when (execute(job, outbox.id, lease.token, outbox.triggerTime, outbox.manualTrigger, lease::renewNow)) {
-                    DispatchOutcome.RETRY -> if (!lease.lost) {
-                        triggerOutboxRepository.releaseForRetry(
-                            outbox.id, ownerToken, lease.token, "执行器调用结果仍未知，等待退避后重投", retryAt(outbox.attemptCount)
-                        )
-                    }
-
-                    DispatchOutcome.COMPLETE -> if (!lease.lost && !triggerOutboxRepository.markDispatched(
-                            outbox.id, ownerToken, lease.token, System.currentTimeMillis()
-                        )
-                    ) {
-                        logger.warn("Outbox 投递完成但确认租约已丢失: outboxId={}, jobId={}", outbox.id, outbox.jobId)
-                    }
+            val renewal = try {
+                if (!lease.renewNow()) {
+                    logger.warn("Outbox 投递租约已丢失，跳过执行: outboxId={}, jobId={}", outbox.id, outbox.jobId)
+                    inFlightPermits?.release()
+                    return@worker
                 }
+                renewOutboxClaim(lease)
             } catch (exception: Exception) {
-                val message = exception.cause?.message ?: exception.message ?: exception.javaClass.simpleName
-                // 不按 jobId + triggerTime 批量收口：广播分片或租约接管时，同一触发时间可能对应多条
-                // 独立日志，批量更新会误伤仍由其他节点持有的执行。异常兜底只在当前 Outbox
-                // 租约仍有效时追加一条说明；已有日志由自身 finally/僵尸回收负责收口。
-                if (!lease.lost) {
-                    appendFailed(
-                        job, null, outbox.triggerTime, "任务执行异常: $message",
-                        outboxId = outbox.id, owner = ownerToken, claimToken = lease.token
-                    )
+                inFlightPermits?.release()
+                throw exception
+            }
+            val dispatch: CompletableFuture<DispatchOutcome> = try {
+                if (lease.lost) {
+                    CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
+                } else {
+                    execute(job, outbox.id, lease.token, outbox.triggerTime, outbox.manualTrigger, lease::renewNow)
                 }
-                if (!lease.lost) {
-                    triggerOutboxRepository.releaseForRetry(
-                        outbox.id, ownerToken, lease.token, "调度执行异常: $message", retryAt(outbox.attemptCount)
-                    )
+            } catch (exception: Exception) {
+                CompletableFuture.failedFuture(exception)
+            }
+            dispatch.whenComplete { outcome, error ->
+                try {
+                    if (error == null) {
+                        completeDispatch(outbox, lease, outcome)
+                    } else {
+                        failDispatch(job, outbox, lease, unwrapCompletion(error))
+                    }
+                } catch (exception: Exception) {
+                    logger.error("Outbox 投递收口失败，等待租约过期后恢复: outboxId={}, jobId={}", outbox.id, outbox.jobId, exception)
+                } finally {
+                    renewal.cancel(false)
+                    inFlightPermits?.release()
                 }
-            } finally {
-                renewal.cancel(false)
             }
         }
         true
@@ -569,6 +729,45 @@ class ScheduleService(
         false
     }
 
+    private fun completeDispatch(outbox: ScheduleTriggerOutbox, lease: OutboxLease, outcome: DispatchOutcome) {
+        when (outcome) {
+            DispatchOutcome.RETRY -> if (!lease.lost) {
+                triggerOutboxRepository.releaseForRetry(
+                    outbox.id, ownerToken, lease.token, "执行器调用结果仍未知，等待退避后重投", retryAt(outbox.attemptCount)
+                )
+            }
+
+            DispatchOutcome.COMPLETE -> if (!lease.lost && !triggerOutboxRepository.markDispatched(
+                    outbox.id, ownerToken, lease.token, System.currentTimeMillis()
+                )
+            ) {
+                logger.warn("Outbox 投递完成但确认租约已丢失: outboxId={}, jobId={}", outbox.id, outbox.jobId)
+            }
+        }
+    }
+
+    private fun failDispatch(job: ScheduleJob, outbox: ScheduleTriggerOutbox, lease: OutboxLease, exception: Throwable) {
+        val message = exception.cause?.message ?: exception.message ?: exception.javaClass.simpleName
+        // 不按 jobId + triggerTime 批量收口：广播分片或租约接管时，同一触发时间可能对应多条
+        // 独立日志，批量更新会误伤仍由其他节点持有的执行。异常兜底只在当前 Outbox
+        // 租约仍有效时追加一条说明；已有日志由自身 finally/僵尸回收负责收口。
+        if (!lease.lost) {
+            appendFailed(
+                job, null, outbox.triggerTime, "任务执行异常: $message",
+                outboxId = outbox.id, owner = ownerToken, claimToken = lease.token
+            )
+        }
+        if (!lease.lost) {
+            triggerOutboxRepository.releaseForRetry(
+                outbox.id, ownerToken, lease.token, "调度执行异常: $message", retryAt(outbox.attemptCount)
+            )
+        }
+    }
+
+    /** 异步阶段抛出的异常会被包装为 [CompletionException]，收口时以原始异常为准。 */
+    private fun unwrapCompletion(error: Throwable): Throwable =
+        if (error is CompletionException) error.cause ?: error else error
+
     /** 在本节点处理触发期间续租；节点在真正开始前崩溃时，原租约自然过期并可被其他节点恢复。 */
     private inner class OutboxLease(private val outbox: ScheduleTriggerOutbox) {
         val token: String = requireNotNull(outbox.claimToken) { "Outbox 缺少领取令牌: ${outbox.id}" }
@@ -609,7 +808,10 @@ class ScheduleService(
         return System.currentTimeMillis() + delayMillis
     }
 
-    /** 选择执行器并构造对应的执行上下文。 */
+    /**
+     * 选择执行器并构造对应的执行上下文；多个执行器（分片广播）按顺序逐个投递。
+     * 配置了逻辑分片数的分片广播改为同时投递全部执行器，由各执行器按进度表领取分片。
+     */
     private fun execute(
         job: ScheduleJob,
         outboxId: Long,
@@ -617,40 +819,90 @@ class ScheduleService(
         triggerTime: Long,
         manualTrigger: Boolean,
         isLeaseHeld: () -> Boolean
-    ): DispatchOutcome {
+    ): CompletableFuture<DispatchOutcome> {
         // Outbox 领取和工作线程实际开始之间，任务可能已停用、删除或被编辑。
         // 以数据库中的当前定义为准，避免撤销后仍产生业务副作用。
         val currentJob = jobRepository.findById(job.id)
         if (currentJob == null || (currentJob.status != JobStatus.ENABLED && !manualTrigger)) {
             logger.info("跳过已删除或已停用任务的待投递触发: jobId={}, triggerTime={}", job.id, triggerTime)
-            return DispatchOutcome.COMPLETE
+            return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
         }
-        if (!isLeaseHeld()) return DispatchOutcome.COMPLETE
+        if (!isLeaseHeld()) return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
         val route = resolveExecutors(currentJob, isLeaseHeld)
         if (route.executors.isEmpty()) {
             // 路由查询/探活期间租约可能刚好失效；失效后禁止再写失败日志等新副作用。
-            if (!isLeaseHeld()) return DispatchOutcome.COMPLETE
-            if (route.retryable) return DispatchOutcome.RETRY
+            if (!isLeaseHeld()) return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
+            if (route.retryable) return CompletableFuture.completedFuture(DispatchOutcome.RETRY)
             val target = currentJob.executorId?.let { "执行器: $it" } ?: "分组: ${currentJob.executorGroup}"
             appendFailed(
                 currentJob, null, triggerTime, route.failureReason ?: "没有可用执行器，$target",
                 outboxId = outboxId, owner = ownerToken, claimToken = claimToken
             )
-            return DispatchOutcome.COMPLETE
+            return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
         }
-        var shouldRetry = false
-        route.executors.forEachIndexed { index, routed ->
-            if (!isLeaseHeld()) {
-                logger.warn("Outbox 租约已丢失，停止后续执行器投递: jobId={}, triggerTime={}", job.id, triggerTime)
-                return DispatchOutcome.COMPLETE
-            }
-            val outcome = executeWithRetry(
-                currentJob, outboxId, claimToken, routed, triggerTime, manualTrigger, shardIndex = index, shardTotal = route.executors.size,
-                isLeaseHeld = isLeaseHeld
+        val logicalShardTotal = logicalShardTotal(currentJob)
+        val plans = route.executors.mapIndexed { index, routed ->
+            AttemptPlan(
+                currentJob, outboxId, claimToken, routed, triggerTime, manualTrigger,
+                shardIndex = index, shardTotal = route.executors.size, isLeaseHeld = isLeaseHeld,
+                logicalShardTotal = logicalShardTotal
             )
-            if (outcome == AttemptOutcome.Uncertain) shouldRetry = true
         }
-        return if (shouldRetry) DispatchOutcome.RETRY else DispatchOutcome.COMPLETE
+        if (logicalShardTotal > 0) {
+            // Outbox 重投时按主键补齐，已完成的分片保持原状态，不会被再次领取
+            requireNotNull(shardProgressRepository)
+                .createShards(outboxId, currentJob.id, logicalShardTotal, System.currentTimeMillis())
+            return executeDynamicShards(plans)
+        }
+        return executeShards(plans, 0, shouldRetry = false)
+    }
+
+    private fun logicalShardTotal(job: ScheduleJob): Int =
+        if (shardProgressRepository != null && job.routeStrategy == RouteStrategy.SHARDING_BROADCAST) {
+            job.logicalShardCount.coerceAtLeast(0)
+        } else {
+            0
+        }
+
+    /**
+     * 同时投递全部执行器；先处理完的执行器继续领取剩余分片，整体耗时接近分片总量 / 执行器数。
+     * 全部执行结束后仍有分片未成功时追加一条失败日志，说明本次触发未覆盖的分片。
+     */
+    private fun executeDynamicShards(plans: List<AttemptPlan>): CompletableFuture<DispatchOutcome> {
+        val first = plans.first()
+        if (!first.isLeaseHeld()) return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
+        val attempts = plans.map { executeWithRetry(it) }
+        return CompletableFuture.allOf(*attempts.toTypedArray()).thenApplyAsync({
+            val outcomes = attempts.map { it.join() }
+            if (outcomes.contains(AttemptOutcome.Uncertain)) return@thenApplyAsync DispatchOutcome.RETRY
+            val unfinished = requireNotNull(shardProgressRepository).findByRun(first.outboxId)
+                .filter { it.status != ShardProgressStatus.SUCCESS }
+            if (unfinished.isNotEmpty() && first.isLeaseHeld()) {
+                val failed = unfinished.count { it.status == ShardProgressStatus.FAILED }
+                appendFailed(
+                    first.job, null, first.triggerTime,
+                    "动态分片未全部完成：共 ${first.logicalShardTotal} 片，失败 $failed 片，未处理 ${unfinished.size - failed} 片，" +
+                        "首个未完成分片 ${unfinished.first().shardIndex}",
+                    outboxId = first.outboxId, owner = ownerToken, claimToken = first.claimToken
+                )
+            }
+            DispatchOutcome.COMPLETE
+        }, attemptExecutor)
+    }
+
+    /** 依次投递第 [index] 个及之后的执行器；任一分片结果未知时整体恢复待投递。 */
+    private fun executeShards(plans: List<AttemptPlan>, index: Int, shouldRetry: Boolean): CompletableFuture<DispatchOutcome> {
+        if (index == plans.size) {
+            return CompletableFuture.completedFuture(if (shouldRetry) DispatchOutcome.RETRY else DispatchOutcome.COMPLETE)
+        }
+        val plan = plans[index]
+        if (!plan.isLeaseHeld()) {
+            logger.warn("Outbox 租约已丢失，停止后续执行器投递: jobId={}, triggerTime={}", plan.job.id, plan.triggerTime)
+            return CompletableFuture.completedFuture(DispatchOutcome.COMPLETE)
+        }
+        return executeWithRetry(plan).thenCompose { outcome ->
+            executeShards(plans, index + 1, shouldRetry || outcome == AttemptOutcome.Uncertain)
+        }
     }
 
     private data class ExecutorRouteResult(
@@ -739,99 +991,150 @@ class ScheduleService(
         return cancelClient.idleBeat(probeUrl, jobId)
     }
 
-    /** 在同一执行器上完成一次任务调用及其配置的重试次数；开始即记运行中，结束回写终态。 */
-    private fun executeWithRetry(
-        job: ScheduleJob,
-        outboxId: Long,
-        claimToken: String,
-        routed: RoutedExecutor,
-        triggerTime: Long,
-        manualTrigger: Boolean,
-        shardIndex: Int = 0,
-        shardTotal: Int = 1,
-        isLeaseHeld: () -> Boolean = { true }
-    ): AttemptOutcome {
-        val storageTarget = routed.address?.takeIf { it.isNotBlank() } ?: "本地"
-        var lastMessage = ""
-        var lastTarget: String? = storageTarget
-        var lastDurationMs: Long? = null
-        for (attempt in 0..job.maxRetryCount) {
-            if (!isLeaseHeld()) {
-                return AttemptOutcome.Cancelled
-            }
-            // 每个远程调用独占日志 ID。网络响应丢失并重试时，旧执行器实例仍可能完成，
-            // 因而不能让新旧尝试共用 logId，否则 finish/cancel/running 探测会互相串台。
-            val runningLog = newAttemptLog(job, outboxId, claimToken, routed.dbId, triggerTime, storageTarget, attempt)
-                ?: return AttemptOutcome.Cancelled
-            var future: Future<io.infra.structure.schedule.model.JobExecutionResult>? = null
-            val startedAt = System.currentTimeMillis()
-            try {
-                future = attemptExecutor.submit<io.infra.structure.schedule.model.JobExecutionResult> {
-                    routed.executor.execute(
-                        JobExecutionContext(
-                            jobId = job.id,
-                            jobName = job.name,
-                            handler = job.handler,
-                            parameters = job.parameters,
-                            triggerTime = triggerTime,
-                            shardIndex = shardIndex,
-                            shardTotal = shardTotal,
-                            logId = runningLog.id,
-                            blockStrategy = job.blockStrategy,
-                            executionTimeoutMillis = effectiveExecutionTimeoutMillis(job)
-                        )
-                    )
+    /** 在同一执行器上的一次投递：任务定义、Outbox 租约与分片位置。 */
+    private class AttemptPlan(
+        val job: ScheduleJob,
+        val outboxId: Long,
+        val claimToken: String,
+        val routed: RoutedExecutor,
+        val triggerTime: Long,
+        val manualTrigger: Boolean,
+        val shardIndex: Int,
+        val shardTotal: Int,
+        val isLeaseHeld: () -> Boolean,
+        /** 动态分片广播的逻辑分片数；0 表示按执行器位置固定分片。 */
+        val logicalShardTotal: Int = 0
+    ) {
+        val storageTarget: String = routed.address?.takeIf { it.isNotBlank() } ?: "本地"
+    }
+
+    /**
+     * 在同一执行器上完成一次任务调用及其配置的重试次数；开始即记运行中，结束回写终态。
+     *
+     * 调用结果、超时与重试间隔均异步完成：结果处理在 [attemptExecutor] 上进行，重试间隔由
+     * [outboxLeaseExecutor] 定时唤醒，等待期间不占用任何工作线程。
+     */
+    private fun executeWithRetry(plan: AttemptPlan, attempt: Int = 0): CompletableFuture<AttemptOutcome> {
+        val job = plan.job
+        if (!plan.isLeaseHeld()) {
+            return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+        }
+        // 每个远程调用独占日志 ID。网络响应丢失并重试时，旧执行器实例仍可能完成，
+        // 因而不能让新旧尝试共用 logId，否则 finish/cancel/running 探测会互相串台。
+        val runningLog = newAttemptLog(
+            job, plan.outboxId, plan.claimToken, plan.routed.dbId, plan.triggerTime, plan.storageTarget, attempt
+        ) ?: return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+        val startedAt = System.currentTimeMillis()
+        val timeoutMillis = effectiveExecutionTimeoutMillis(job)
+        val future = attemptRunner.start(
+            plan.routed.executor,
+            JobExecutionContext(
+                jobId = job.id,
+                jobName = job.name,
+                handler = job.handler,
+                parameters = job.parameters,
+                triggerTime = plan.triggerTime,
+                shardIndex = plan.shardIndex,
+                shardTotal = plan.shardTotal,
+                logId = runningLog.id,
+                blockStrategy = job.blockStrategy,
+                executionTimeoutMillis = timeoutMillis,
+                logicalShardTotal = plan.logicalShardTotal,
+                shardRunId = if (plan.logicalShardTotal > 0) plan.outboxId else 0,
+                priority = job.priority,
+                coalesceDuplicates = job.coalesceDuplicates,
+                resultCacheMillis = job.resultCacheMillis
+            ),
+            timeoutMillis
+        )
+        attemptFutures[runningLog.id] = future
+        return future.handleAsync({ result, error ->
+            attemptFutures.remove(runningLog.id, future)
+            if (plan.logicalShardTotal > 0) releaseShards(plan, runningLog.id)
+            completeAttempt(plan, attempt, runningLog, future, startedAt, result, error?.let(::unwrapCompletion))
+        }, attemptExecutor).thenCompose { it }
+    }
+
+    /** 按一次调用的结果收口日志，并决定结束、保留待确认还是在重试间隔后发起下一次尝试。 */
+    private fun completeAttempt(
+        plan: AttemptPlan,
+        attempt: Int,
+        runningLog: JobExecutionLog,
+        future: AttemptFuture,
+        startedAt: Long,
+        result: JobExecutionResult?,
+        error: Throwable?
+    ): CompletableFuture<AttemptOutcome> {
+        val job = plan.job
+        val storageTarget = plan.storageTarget
+        val lastMessage: String
+        val durationMs = System.currentTimeMillis() - startedAt
+        when {
+            error is TimeoutException -> {
+                val message = "任务执行超时（${effectiveExecutionTimeoutMillis(job)} 毫秒）"
+                val cancellationRequested = logRepository.requestCancellation(
+                    runningLog.copy(message = "$message，等待执行器确认终止"), timeout = true
+                )
+                if (cancellationRequested) {
+                    future.cancel(true)
+                    killExecutorTask(runningLog)
                 }
-                attemptFutures[runningLog.id] = future
-                val result = try {
-                    val timeoutMillis = effectiveExecutionTimeoutMillis(job)
-                    if (timeoutMillis > 0) {
-                        future.get(timeoutMillis, TimeUnit.MILLISECONDS)
-                    } else {
-                        future.get()
-                    }
-                } finally {
-                    attemptFutures.remove(runningLog.id, future)
+                return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+            }
+
+            error is CancellationException -> {
+                requestExecutionCancellation(runningLog, future, "任务执行被取消")
+                return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+            }
+
+            error != null -> {
+                if (error is InterruptedException || isLogNoLongerExecuting(runningLog.id)) {
+                    requestExecutionCancellation(runningLog, future, "任务执行被取消")
+                    return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
                 }
-                val durationMs = System.currentTimeMillis() - startedAt
-                if (result.success) {
+                lastMessage = error.cause?.message ?: error.message ?: error.javaClass.simpleName
+            }
+
+            else -> {
+                val executed = requireNotNull(result)
+                if (executed.success) {
                     finishLog(
                         runningLog,
                         status = ExecutionStatus.SUCCESS,
                         retryCount = attempt,
-                        message = formatSuccessMessage(job.handler, result.message),
+                        message = formatSuccessMessage(job.handler, executed.message),
                         targetAddress = storageTarget,
                         durationMillis = durationMs
                     )
-                    return AttemptOutcome.Success
+                    return CompletableFuture.completedFuture(AttemptOutcome.Success)
                 }
-                if (result.discarded) {
+                if (executed.discarded) {
                     if (job.resident) {
                         logRepository.delete(runningLog.id)
-                        return AttemptOutcome.Cancelled
+                        return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
                     }
                     finishLog(
                         runningLog,
                         status = ExecutionStatus.SKIPPED,
                         retryCount = attempt,
-                        message = result.message ?: if (job.resident) "常驻任务丢弃后续触发" else "丢弃后续调度",
+                        message = executed.message ?: "丢弃后续调度",
                         targetAddress = storageTarget,
                         durationMillis = durationMs
                     )
-                    return AttemptOutcome.Cancelled
+                    return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
                 }
-                if (result.cancelled || isAbortMessage(result.message)) {
+                if (executed.cancelled || isAbortMessage(executed.message)) {
                     finishLog(
                         runningLog,
                         status = ExecutionStatus.CANCELLED,
                         retryCount = attempt,
-                        message = result.message ?: "任务执行被取消",
+                        message = executed.message ?: "任务执行被取消",
                         targetAddress = storageTarget,
                         durationMillis = durationMs
                     )
-                    return AttemptOutcome.Cancelled
+                    return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
                 }
-                if (result.uncertain) {
+                if (executed.uncertain) {
                     // 传输层结果未知时，执行器可能已接收并继续运行。日志必须保持活跃，
                     // 使管理员取消、删除和僵尸探活都能按该次尝试的独立 logId 精确处理。
                     logger.warn(
@@ -839,87 +1142,67 @@ class ScheduleService(
                         job.id, runningLog.id, attempt
                     )
                     when (probeLogState(runningLog.id, runningLog.targetAddress)) {
-                        true -> return AttemptOutcome.Success
-                        false -> {
-                            // 执行器明确不存在该 logId，当前调用可确定失败；落入下方统一
-                            // 收口与重试逻辑，仍遵循任务配置的 maxRetryCount。
-                            lastMessage = "执行器未找到该次尝试：${result.message}"
-                            lastTarget = storageTarget
-                            lastDurationMs = System.currentTimeMillis() - startedAt
-                        }
-                        null -> return AttemptOutcome.Uncertain
+                        true -> return CompletableFuture.completedFuture(AttemptOutcome.Success)
+                        // 执行器明确不存在该 logId，当前调用可确定失败；落入下方统一
+                        // 收口与重试逻辑，仍遵循任务配置的 maxRetryCount。
+                        false -> Unit
+                        null -> return CompletableFuture.completedFuture(AttemptOutcome.Uncertain)
                     }
                 }
                 // 管理员终止等已进入取消确认状态时，禁止本次调用再发起重试。
                 if (isLogNoLongerExecuting(runningLog.id)) {
-                    return AttemptOutcome.Cancelled
-                }
-                if (!result.uncertain) {
-                    lastMessage = result.message ?: "任务处理器返回失败"
-                    lastTarget = storageTarget
-                    lastDurationMs = durationMs
-                }
-            } catch (_: TimeoutException) {
-                lastMessage = "任务执行超时（${effectiveExecutionTimeoutMillis(job)} 毫秒）"
-                lastTarget = storageTarget
-                lastDurationMs = System.currentTimeMillis() - startedAt
-                val cancellationRequested = logRepository.requestCancellation(
-                    runningLog.copy(message = "$lastMessage，等待执行器确认终止"), timeout = true
-                )
-                if (cancellationRequested) {
-                    future?.cancel(true)
-                    killExecutorTask(runningLog)
+                    return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
                 }
-                return AttemptOutcome.Cancelled
-            } catch (_: InterruptedException) {
-                Thread.currentThread().interrupt()
-                requestExecutionCancellation(runningLog, future, "任务执行被取消")
-                return AttemptOutcome.Cancelled
-            } catch (_: CancellationException) {
-                requestExecutionCancellation(runningLog, future, "任务执行被取消")
-                return AttemptOutcome.Cancelled
-            } catch (exception: Exception) {
-                if (Thread.currentThread().isInterrupted || isLogNoLongerExecuting(runningLog.id)) {
-                    Thread.interrupted()
-                    requestExecutionCancellation(runningLog, future, "任务执行被取消")
-                    return AttemptOutcome.Cancelled
+                lastMessage = if (executed.uncertain) {
+                    "执行器未找到该次尝试：${executed.message}"
+                } else {
+                    executed.message ?: "任务处理器返回失败"
                 }
-                lastMessage = exception.cause?.message ?: exception.message ?: exception.javaClass.simpleName
-                lastTarget = storageTarget
-                lastDurationMs = System.currentTimeMillis() - startedAt
             }
-            // 本次尝试失败但允许重试时，也必须先独立收口。旧节点即使稍后回调，条件更新
-            // 也不会覆盖新尝试的日志；业务重复执行仍由处理器幂等键承担。
-            finishLog(
-                runningLog,
-                status = ExecutionStatus.FAILED,
-                retryCount = attempt,
-                message = lastMessage.ifBlank { "任务处理器返回失败" },
-                targetAddress = lastTarget,
-                durationMillis = lastDurationMs
-            )
-            if (attempt < job.maxRetryCount) {
-                if (!isLeaseHeld()) {
-                    return AttemptOutcome.Cancelled
-                }
-                // 当前尝试已经被收口为 FAILED，不能再用它的活跃状态判断是否允许下一次尝试。
-                // 只以当前任务定义、Outbox 租约和线程中断状态决定是否继续投递。
-                if (jobRepository.findById(job.id)?.let { it.status == JobStatus.ENABLED || manualTrigger } != true) {
-                    return AttemptOutcome.Cancelled
-                }
-                if (job.retryIntervalMillis > 0) Thread.sleep(job.retryIntervalMillis)
-                if (!isLeaseHeld() ||
-                    jobRepository.findById(job.id)?.let { it.status == JobStatus.ENABLED || manualTrigger } != true ||
-                    Thread.currentThread().isInterrupted
-                ) {
-                    Thread.interrupted()
-                    return AttemptOutcome.Cancelled
-                }
+        }
+        // 本次尝试失败但允许重试时，也必须先独立收口。旧节点即使稍后回调，条件更新
+        // 也不会覆盖新尝试的日志；业务重复执行仍由处理器幂等键承担。
+        finishLog(
+            runningLog,
+            status = ExecutionStatus.FAILED,
+            retryCount = attempt,
+            message = lastMessage.ifBlank { "任务处理器返回失败" },
+            targetAddress = storageTarget,
+            durationMillis = durationMs
+        )
+        if (attempt >= job.maxRetryCount) {
+            return CompletableFuture.completedFuture(AttemptOutcome.Failed(lastMessage))
+        }
+        // 当前尝试已经被收口为 FAILED，不能再用它的活跃状态判断是否允许下一次尝试。
+        // 只以当前任务定义与 Outbox 租约决定是否继续投递；间隔前后各确认一次。
+        if (!canRetry(plan)) {
+            return CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+        }
+        return attemptRunner.delay(job.retryIntervalMillis, attemptExecutor).thenCompose {
+            if (job.retryIntervalMillis > 0 && !canRetry(plan)) {
+                CompletableFuture.completedFuture(AttemptOutcome.Cancelled)
+            } else {
+                executeWithRetry(plan, attempt + 1)
+            }
+        }
+    }
+
+    /** 本次调用结束后退回其仍持有的分片，供同批次仍在执行的节点或本次尝试的重试继续领取。 */
+    private fun releaseShards(plan: AttemptPlan, logId: Long) {
+        try {
+            val released = requireNotNull(shardProgressRepository).releaseByLog(plan.outboxId, logId, System.currentTimeMillis())
+            if (released > 0) {
+                logger.info("退回执行结束时未回报的动态分片: jobId={}, logId={}, released={}", plan.job.id, logId, released)
             }
+        } catch (exception: Exception) {
+            logger.warn("退回动态分片失败: jobId={}, logId={}", plan.job.id, logId, exception)
         }
-        return AttemptOutcome.Failed(lastMessage)
     }
 
+    private fun canRetry(plan: AttemptPlan): Boolean =
+        plan.isLeaseHeld() &&
+            jobRepository.findById(plan.job.id)?.let { it.status == JobStatus.ENABLED || plan.manualTrigger } == true
+
     /** 创建一次投递尝试的独立日志；该日志 ID 是执行器取消、探活与回调的唯一关联键。 */
     private fun newAttemptLog(
         job: ScheduleJob,
@@ -1014,6 +1297,8 @@ class ScheduleService(
     private enum class DispatchOutcome { COMPLETE, RETRY }
 
     private companion object {
+        /** 单次心跳对账最多核对的活跃日志条数。 */
+        const val RECONCILE_LIMIT = 5_000
         /** 单轮同时在途的僵尸探活数量。 */
         const val STALE_PROBE_CONCURRENCY = 16
         /** 取消确认中已确认仍活跃时的最短重发间隔。 */
@@ -1022,35 +1307,43 @@ class ScheduleService(
 
     /**
      * 仅由持有租约的节点推进下一次计划，防止租约过期的旧节点覆盖新节点状态。
-     * 只更新调度进度字段，避免全量 save 把并发修改的 cron 等定义写回旧值。
+     * 领取快照与行锁处于同一事务，领取后被停用或编辑的任务会清空租约，仓储按归属过滤即可，
+     * 无需逐个回读；推进与写入 Outbox 在同一事务中按页批量完成，消除进程崩溃导致的触发丢失窗口。
      */
-    /** 在推进任务下次触发时间的同一事务中写入 Outbox，消除进程崩溃导致的触发丢失窗口。 */
-    private fun completeScheduleAndEnqueue(job: ScheduleJob, triggerTime: Long): Boolean {
-        val current = jobRepository.findById(job.id) ?: return false
-        if (current.status == JobStatus.DISABLED) {
-            jobRepository.releaseClaim(job.id, ownerToken)
-            return false
-        }
-        if (current.claimOwner != ownerToken) return false
+    private fun completeSchedulesAndEnqueue(claimed: List<ScheduleJob>) {
+        if (claimed.isEmpty()) return
         val now = System.currentTimeMillis()
-        val base = current.nextTriggerAt ?: triggerTime
-        val next = ScheduleCalculator.nextFutureTriggerAt(current, base, now)
-        return jobRepository.completeScheduleAndEnqueue(
-            id = job.id,
-            owner = ownerToken,
-            lastTriggerAt = triggerTime,
-            nextTriggerAt = next,
-            outbox = ScheduleTriggerOutbox(
-                jobId = job.id,
-                triggerTime = triggerTime,
-                createTime = now,
-                updateTime = now
-            ),
-            updateTime = now
-        )
+        val advances = claimed.map { job ->
+            val triggerTime = job.nextTriggerAt ?: now
+            ScheduleAdvance(job.id, triggerTime, ScheduleCalculator.nextFutureTriggerAt(job, triggerTime, now))
+        }
+        val advanced = jobRepository.completeSchedulesAndEnqueue(ownerToken, advances, now)
+        advances.forEach { advance ->
+            if (advance.jobId in advanced) {
+                notifyTriggerPlan(advance.jobId, advance.nextTriggerAt)
+            } else {
+                logger.warn("推进调度进度失败（租约可能已丢失）: jobId={}", advance.jobId)
+            }
+        }
+    }
+
+    private fun publishTriggerPlan(job: ScheduleJob) {
+        val triggerAt = job.nextTriggerAt ?: return
+        if (job.status == JobStatus.ENABLED) notifyTriggerPlan(job.id, triggerAt)
+    }
+
+    /** 订阅方异常不影响调度主流程。 */
+    private fun notifyTriggerPlan(jobId: Long, triggerAt: Long) {
+        triggerPlanListeners.forEach { listener ->
+            try {
+                listener(jobId, triggerAt)
+            } catch (exception: Exception) {
+                logger.warn("通知触发计划失败: jobId={}, triggerAt={}", jobId, triggerAt, exception)
+            }
+        }
     }
 
-    /** 显式任务超时优先；未设置时使用系统上限，避免 Future 无期限阻塞。 */
+    /** 显式任务超时优先；未设置时使用系统上限，避免调用无期限等待。 */
     private fun effectiveExecutionTimeoutMillis(job: ScheduleJob): Long = when {
         job.timeoutSeconds > 0 -> job.timeoutSeconds.coerceAtMost(Long.MAX_VALUE / 1_000) * 1_000
         maxExecutionMillis > 0 -> maxExecutionMillis
@@ -1083,6 +1376,8 @@ class ScheduleService(
         fixedRateMillis = draft.fixedRateMillis, status = draft.status, routeStrategy = draft.routeStrategy,
         blockStrategy = draft.blockStrategy, resident = draft.resident, maxRetryCount = draft.maxRetryCount,
         retryIntervalMillis = draft.retryIntervalMillis, timeoutSeconds = draft.timeoutSeconds,
+        logicalShardCount = draft.logicalShardCount, priority = draft.priority,
+        coalesceDuplicates = draft.coalesceDuplicates, resultCacheMillis = draft.resultCacheMillis,
         createTime = now, updateTime = now
     )
 
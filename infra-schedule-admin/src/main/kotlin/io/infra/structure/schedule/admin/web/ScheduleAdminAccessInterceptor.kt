@@ -39,8 +39,11 @@ class ScheduleAdminWebConfigurer(
                 ScheduleWebPaths.EXECUTOR_HEARTBEAT,
                 ScheduleWebPaths.EXECUTOR_OFFLINE,
                 ScheduleWebPaths.EXECUTOR_LOG_HANDLE_APPEND_PATTERN,
+                ScheduleWebPaths.EXECUTOR_LOG_HANDLE_APPEND_BATCH,
                 ScheduleWebPaths.EXECUTOR_LOG_STARTED_PATTERN,
-                ScheduleWebPaths.EXECUTOR_LOG_FINISH_PATTERN
+                ScheduleWebPaths.EXECUTOR_LOG_FINISH_PATTERN,
+                ScheduleWebPaths.EXECUTOR_LOG_SHARD_CLAIM_PATTERN,
+                ScheduleWebPaths.EXECUTOR_LOG_SHARD_COMPLETE_PATTERN
             )
     }
 }
@@ -2,9 +2,14 @@ package io.infra.structure.schedule.admin.web
 
 import io.infra.structure.schedule.core.ExecutorRegistry
 import io.infra.structure.schedule.core.HandleLogAppendRequest
+import io.infra.structure.schedule.core.HandleLogBatchRequest
+import io.infra.structure.schedule.core.HandleLogBatchResponse
 import io.infra.structure.schedule.core.LogFinishRequest
 import io.infra.structure.schedule.core.LogStartedRequest
 import io.infra.structure.schedule.core.SCHEDULE_ACCESS_TOKEN_HEADER
+import io.infra.structure.schedule.core.ShardClaimRequest
+import io.infra.structure.schedule.core.ShardClaimResponse
+import io.infra.structure.schedule.core.ShardCompleteRequest
 import io.infra.structure.schedule.model.BlockStrategy
 import io.infra.structure.schedule.model.ExecutionLogQuery
 import io.infra.structure.schedule.model.ExecutionStatus
@@ -20,6 +25,7 @@ import io.infra.structure.schedule.properties.InfraScheduleProperties
 import io.infra.structure.schedule.admin.service.ScheduleService
 import io.infra.structure.schedule.web.ScheduleWebPaths
 import jakarta.validation.Valid
+import jakarta.validation.constraints.Max
 import jakarta.validation.constraints.Min
 import jakarta.validation.constraints.NotBlank
 import jakarta.validation.constraints.NotNull
@@ -100,6 +106,13 @@ class ScheduleAdminController(
         @RequestParam(defaultValue = "20") @Min(1) pageSize: Int
     ) = scheduleService.executionLogs(id, page, pageSize)
 
+    @GetMapping(ScheduleWebPaths.JOB_SHARDS)
+    fun shardProgress(@PathVariable id: Long) = try {
+        scheduleService.shardProgress(id)
+    } catch (exception: IllegalStateException) {
+        throw ResponseStatusException(HttpStatus.NOT_FOUND, exception.message)
+    }
+
     @GetMapping(ScheduleWebPaths.LOGS)
     fun queryLogs(
         @RequestParam(required = false) jobId: Long?,
@@ -128,6 +141,17 @@ class ScheduleAdminController(
         throw ResponseStatusException(HttpStatus.NOT_FOUND, exception.message)
     }
 
+    @GetMapping(ScheduleWebPaths.LOG_HANDLE_CHUNKS)
+    fun handleLogChunks(
+        @PathVariable id: Long,
+        @RequestParam(defaultValue = "0") after: Long,
+        @RequestParam(defaultValue = "50") @Min(1) limit: Int
+    ) = try {
+        scheduleService.handleLogPage(id, after, limit)
+    } catch (exception: IllegalStateException) {
+        throw ResponseStatusException(HttpStatus.NOT_FOUND, exception.message)
+    }
+
     @PostMapping(ScheduleWebPaths.LOG_CANCEL)
     fun cancelLog(@PathVariable id: Long): CancelExecutionResponse {
         val cancelled = try {
@@ -170,6 +194,28 @@ class ScheduleAdminController(
         return ResponseEntity.noContent().build()
     }
 
+    @PostMapping(ScheduleWebPaths.LOG_SHARD_CLAIM)
+    fun claimShard(
+        @PathVariable id: Long,
+        @RequestHeader(value = SCHEDULE_ACCESS_TOKEN_HEADER, required = false) accessToken: String?,
+        @RequestBody request: ShardClaimRequest
+    ): ShardClaimResponse {
+        requireExecutorToken(accessToken)
+        val shard = scheduleService.claimShard(id, request.runId) ?: return ShardClaimResponse()
+        return ShardClaimResponse(shardIndex = shard.shardIndex, shardTotal = shard.shardTotal)
+    }
+
+    @PostMapping(ScheduleWebPaths.LOG_SHARD_COMPLETE)
+    fun completeShard(
+        @PathVariable id: Long,
+        @RequestHeader(value = SCHEDULE_ACCESS_TOKEN_HEADER, required = false) accessToken: String?,
+        @RequestBody request: ShardCompleteRequest
+    ): ResponseEntity<Unit> {
+        requireExecutorToken(accessToken)
+        scheduleService.completeShard(id, request.runId, request.shardIndex, request.success, request.message)
+        return ResponseEntity.noContent().build()
+    }
+
     @PostMapping(ScheduleWebPaths.LOG_HANDLE_APPEND)
     fun appendHandleLog(
         @PathVariable id: Long,
@@ -184,6 +230,17 @@ class ScheduleAdminController(
         return ResponseEntity.noContent().build()
     }
 
+    @PostMapping(ScheduleWebPaths.LOG_HANDLE_APPEND_BATCH)
+    fun appendHandleLogBatch(
+        @RequestHeader(value = SCHEDULE_ACCESS_TOKEN_HEADER, required = false) accessToken: String?,
+        @RequestBody request: HandleLogBatchRequest
+    ): HandleLogBatchResponse {
+        requireExecutorToken(accessToken)
+        val entries = LinkedHashMap<Long, List<String>>()
+        request.entries.forEach { entry -> entries.merge(entry.logId, entry.lines) { old, new -> old + new } }
+        return HandleLogBatchResponse(rejected = scheduleService.appendHandleLogBatch(entries))
+    }
+
     @GetMapping(ScheduleWebPaths.JOB_NEXT_TRIGGERS)
     fun nextTriggers(
         @PathVariable id: Long,
@@ -204,6 +261,7 @@ class ScheduleAdminController(
     ): ResponseEntity<Unit> {
         requireExecutorToken(accessToken)
         executorRegistry.heartbeat(request.executorGroup, request.executorName, request.address)
+        request.runningLogIds?.let { scheduleService.reconcileReportedRunningLogs(request.address, it) }
         return ResponseEntity.noContent().build()
     }
 
@@ -292,14 +350,24 @@ data class ScheduleJobRequest(
     /** 同一次触发的两次明确失败调用之间等待的毫秒数。 */
     @field:Min(0) val retryIntervalMillis: Long = 1_000,
     /** 单次 Handler 调用最长秒数；0 交由系统级默认上限控制。 */
-    @field:Min(0) val timeoutSeconds: Long = 0
+    @field:Min(0) val timeoutSeconds: Long = 0,
+    /** 分片广播的逻辑分片数；0 表示每个执行器固定处理一个分片。 */
+    @field:Min(0) val logicalShardCount: Int = 0,
+    /** 执行优先级 0..9；执行器限制全局并发时，越大分得的执行名额越多。 */
+    @field:Min(0) @field:Max(9) val priority: Int = 0,
+    /** 是否合并参数相同、仍在排队的重复触发。 */
+    val coalesceDuplicates: Boolean = false,
+    /** 合并时成功结果的缓存毫秒数；0 表示不缓存。 */
+    @field:Min(0) @field:Max(3_600_000) val resultCacheMillis: Long = 0
 ) {
     /** 转换为不含 ID、时间和租约字段的领域草稿。 */
     fun toDraft() = ScheduleJobDraft(
         name = name, executorGroup = "default", executorId = executorId, handler = handler, parameters = parameters,
         scheduleType = scheduleType, cron = cron, fixedRateMillis = fixedRateMillis, status = status,
         routeStrategy = routeStrategy, blockStrategy = blockStrategy, resident = resident,
-        maxRetryCount = maxRetryCount, retryIntervalMillis = retryIntervalMillis, timeoutSeconds = timeoutSeconds
+        maxRetryCount = maxRetryCount, retryIntervalMillis = retryIntervalMillis, timeoutSeconds = timeoutSeconds,
+        logicalShardCount = logicalShardCount, priority = priority,
+        coalesceDuplicates = coalesceDuplicates, resultCacheMillis = resultCacheMillis
     )
 }
 
@@ -316,7 +384,9 @@ data class ExecutorHeartbeatRequest(
     /** 仅用于页面展示的执行器名称。 */
     @field:NotBlank val executorName: String,
     /** 当前实例对 Admin 可访问的地址；可为空以支持本地执行器。 */
-    val address: String? = null
+    val address: String? = null,
+    /** 实例仍在排队、执行或待上报终态的日志 ID；旧版本执行器不上报，为空时不对账。 */
+    val runningLogIds: List<Long>? = null
 )
 
 /** 执行器优雅下线时的通知载荷。 */
@@ -0,0 +1,100 @@
+package io.infra.structure.schedule.admin.web
+
+import io.infra.structure.schedule.web.ScheduleWebPaths
+import jakarta.servlet.FilterChain
+import jakarta.servlet.ReadListener
+import jakarta.servlet.ServletInputStream
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletRequestWrapper
+import jakarta.servlet.http.HttpServletResponse
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.web.filter.OncePerRequestFilter
+import java.io.IOException
+import java.io.InputStream
+import java.util.Collections
+import java.util.Enumeration
+import java.util.zip.GZIPInputStream
+
+/**
+ * 解压执行器以 `Content-Encoding: gzip` 上报的调度协议请求体。
+ *
+ * 只处理 [ScheduleWebPaths.API_ROOT] 下的请求；解压后的字节数设上限，防止压缩炸弹耗尽内存。
+ */
+class ScheduleGzipRequestFilter : OncePerRequestFilter() {
+
+    override fun shouldNotFilter(request: HttpServletRequest): Boolean =
+        !request.requestURI.startsWith(request.contextPath + ScheduleWebPaths.API_ROOT) ||
+            !GZIP.equals(request.getHeader(HttpHeaders.CONTENT_ENCODING), ignoreCase = true)
+
+    override fun doFilterInternal(request: HttpServletRequest, response: HttpServletResponse, chain: FilterChain) {
+        val decompressed = try {
+            GzipRequest(request)
+        } catch (_: IOException) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "请求体不是有效的 gzip 数据")
+            return
+        }
+        chain.doFilter(decompressed, response)
+    }
+
+    /** 对下游隐藏压缩相关 Header，使消息转换器按普通 JSON 读取。 */
+    private class GzipRequest(request: HttpServletRequest) : HttpServletRequestWrapper(request) {
+        private val input = BoundedGzipInputStream(GZIPInputStream(request.inputStream))
+
+        override fun getInputStream(): ServletInputStream = input
+
+        override fun getContentLength(): Int = -1
+
+        override fun getContentLengthLong(): Long = -1
+
+        override fun getHeader(name: String): String? = if (hidden(name)) null else super.getHeader(name)
+
+        override fun getHeaders(name: String): Enumeration<String> =
+            if (hidden(name)) Collections.emptyEnumeration() else super.getHeaders(name)
+
+        override fun getHeaderNames(): Enumeration<String> =
+            Collections.enumeration(Collections.list(super.getHeaderNames()).filterNot(::hidden))
+
+        private fun hidden(name: String) =
+            name.equals(HttpHeaders.CONTENT_ENCODING, ignoreCase = true) ||
+                name.equals(HttpHeaders.CONTENT_LENGTH, ignoreCase = true)
+    }
+
+    /** 解压后超过 [MAX_DECOMPRESSED_BYTES] 即中止读取。 */
+    private class BoundedGzipInputStream(private val source: InputStream) : ServletInputStream() {
+        private var total = 0L
+        private var finished = false
+
+        override fun read(): Int {
+            val value = source.read()
+            if (value < 0) finished = true else count(1)
+            return value
+        }
+
+        override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
+            val read = source.read(buffer, offset, length)
+            if (read < 0) finished = true else count(read)
+            return read
+        }
+
+        override fun isFinished(): Boolean = finished
+
+        override fun isReady(): Boolean = true
+
+        override fun setReadListener(listener: ReadListener) {
+            throw UnsupportedOperationException("gzip 请求体不支持异步读取")
+        }
+
+        override fun close() = source.close()
+
+        private fun count(bytes: Int) {
+            total += bytes
+            if (total > MAX_DECOMPRESSED_BYTES) throw IOException("解压后的请求体超过上限: $MAX_DECOMPRESSED_BYTES")
+        }
+    }
+
+    private companion object {
+        const val GZIP = "gzip"
+        const val MAX_DECOMPRESSED_BYTES = 32L * 1024 * 1024
+    }
+}
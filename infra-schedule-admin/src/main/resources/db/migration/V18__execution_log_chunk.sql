@@ -0,0 +1,13 @@
+-- 业务过程日志改为只追加的分块表：每次上报插入一行，不再整列重写 MEDIUMTEXT 并产生成倍的 redo/binlog。
+-- 历史日志仍保留在 handle_log 列中只读展示；新日志只累计长度用于约 1MB 的截断上限。
+ALTER TABLE infra_schedule_execution_log
+    ADD COLUMN handle_log_length INT NOT NULL DEFAULT 0 COMMENT '已写入分块表的业务日志字符数' AFTER handle_log;
+
+CREATE TABLE IF NOT EXISTS infra_schedule_execution_log_chunk (
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '日志分块主键，同一执行日志内按主键表示追加顺序',
+    log_id BIGINT NOT NULL COMMENT '所属执行日志主键',
+    content MEDIUMTEXT NOT NULL COMMENT '本次追加的业务日志内容',
+    create_time BIGINT NOT NULL COMMENT '追加时间戳毫秒',
+    PRIMARY KEY (id),
+    KEY idx_infra_schedule_log_chunk_log (log_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='执行日志业务过程日志分块表';
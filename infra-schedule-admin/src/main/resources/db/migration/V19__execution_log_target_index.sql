@@ -0,0 +1,3 @@
+-- 执行器心跳对账按实例地址查询活跃日志，每次心跳一次索引范围扫描。
+ALTER TABLE infra_schedule_execution_log
+    ADD KEY idx_infra_schedule_log_target_status (target_address, status, trigger_time);
@@ -0,0 +1,15 @@
+-- 多调度节点按 job_id 分片分摊到期领取、Outbox 投递与僵尸回收；行数等于分片数，由调度节点启动时补齐。
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_lease (
+    shard_id INT NOT NULL COMMENT '分片编号：job_id % 分片数',
+    owner VARCHAR(128) NULL COMMENT '当前持有租约的调度节点',
+    lease_until BIGINT NOT NULL DEFAULT 0 COMMENT '租约截止时间戳毫秒',
+    update_time BIGINT NOT NULL DEFAULT 0 COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (shard_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='调度分片租约';
+
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_member (
+    owner VARCHAR(128) NOT NULL COMMENT '调度节点进程级 owner',
+    lease_until BIGINT NOT NULL COMMENT '成员资格截止时间戳毫秒',
+    update_time BIGINT NOT NULL COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (owner)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='参与分片再平衡的调度节点';
@@ -0,0 +1,19 @@
+-- 分片广播支持逻辑分片数大于执行器数：各执行器同时启动并按进度表动态领取分片，先完成的节点继续领取剩余分片。
+ALTER TABLE infra_schedule_job
+    ADD COLUMN logical_shard_count INT NOT NULL DEFAULT 0 COMMENT '分片广播逻辑分片数，0 表示每个执行器固定一片' AFTER timeout_seconds;
+
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_progress (
+    run_id BIGINT NOT NULL COMMENT '触发批次：Outbox 主键',
+    shard_index INT NOT NULL COMMENT '逻辑分片下标，从 0 开始',
+    job_id BIGINT NOT NULL COMMENT '所属任务主键',
+    shard_total INT NOT NULL COMMENT '本次触发的逻辑分片总数',
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING' COMMENT '分片状态：PENDING/RUNNING/SUCCESS/FAILED',
+    log_id BIGINT NULL COMMENT '最近一次领取该分片的执行日志主键',
+    attempt_count INT NOT NULL DEFAULT 0 COMMENT '被领取次数',
+    message VARCHAR(1024) NULL COMMENT '处理结果或失败原因',
+    update_time BIGINT NOT NULL COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (run_id, shard_index),
+    KEY idx_infra_schedule_shard_progress_job (job_id, run_id),
+    KEY idx_infra_schedule_shard_progress_log (log_id),
+    KEY idx_infra_schedule_shard_progress_cleanup (update_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='动态分片广播的分片进度';
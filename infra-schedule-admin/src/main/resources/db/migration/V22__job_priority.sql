@@ -0,0 +1,3 @@
+-- 任务执行优先级：执行器限制全局并发时按 priority + 1 加权公平分配执行名额，越大越优先。
+ALTER TABLE infra_schedule_job
+    ADD COLUMN priority INT NOT NULL DEFAULT 0 COMMENT '执行优先级 0..9，越大越优先' AFTER logical_shard_count;
@@ -0,0 +1,4 @@
+-- 重复触发合并：执行器合并参数相同且仍在排队的触发，并可在窗口内复用成功结果。
+ALTER TABLE infra_schedule_job
+    ADD COLUMN coalesce_duplicates TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否合并参数相同的重复触发' AFTER priority,
+    ADD COLUMN result_cache_millis BIGINT NOT NULL DEFAULT 0 COMMENT '合并时成功结果的缓存毫秒数，0 表示不缓存' AFTER coalesce_duplicates;
@@ -16,6 +16,10 @@ CREATE TABLE IF NOT EXISTS infra_schedule_job (
     max_retry_count INT NOT NULL DEFAULT 0 COMMENT '最大额外重试次数',
     retry_interval_millis BIGINT NOT NULL DEFAULT 1000 COMMENT '重试间隔毫秒',
     timeout_seconds BIGINT NOT NULL DEFAULT 0 COMMENT '单次执行超时秒数，0 表示不限制',
+    logical_shard_count INT NOT NULL DEFAULT 0 COMMENT '分片广播逻辑分片数，0 表示每个执行器固定一片',
+    priority INT NOT NULL DEFAULT 0 COMMENT '执行优先级 0..9，越大越优先',
+    coalesce_duplicates TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否合并参数相同的重复触发',
+    result_cache_millis BIGINT NOT NULL DEFAULT 0 COMMENT '合并时成功结果的缓存毫秒数，0 表示不缓存',
     next_trigger_at BIGINT NULL COMMENT '下次触发时间戳毫秒',
     last_trigger_at BIGINT NULL COMMENT '最近一次定时触发时间戳毫秒',
     claim_owner VARCHAR(128) NULL COMMENT '当前调度租约持有节点',
@@ -37,15 +41,26 @@ CREATE TABLE IF NOT EXISTS infra_schedule_execution_log (
     retry_count INT NOT NULL DEFAULT 0 COMMENT '已执行重试次数',
     message TEXT NULL COMMENT '结果、错误或跳过原因',
     handle_log MEDIUMTEXT NULL COMMENT '业务执行过程日志（执行器异步上报）',
+    handle_log_length INT NOT NULL DEFAULT 0 COMMENT '已写入分块表的业务日志字符数',
     target_address VARCHAR(512) NULL COMMENT '本次调用目标地址',
     duration_millis BIGINT NULL COMMENT '实际执行耗时毫秒',
     PRIMARY KEY (id),
     KEY idx_infra_schedule_log_job (job_id, trigger_time),
     KEY idx_infra_schedule_log_trigger (trigger_time),
     KEY idx_infra_schedule_log_status_trigger (status, trigger_time),
-    KEY idx_infra_schedule_log_cleanup (finish_time, id)
+    KEY idx_infra_schedule_log_cleanup (finish_time, id),
+    KEY idx_infra_schedule_log_target_status (target_address, status, trigger_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='任务执行审计日志表';
 
+CREATE TABLE IF NOT EXISTS infra_schedule_execution_log_chunk (
+    id BIGINT NOT NULL AUTO_INCREMENT COMMENT '日志分块主键，同一执行日志内按主键表示追加顺序',
+    log_id BIGINT NOT NULL COMMENT '所属执行日志主键',
+    content MEDIUMTEXT NOT NULL COMMENT '本次追加的业务日志内容',
+    create_time BIGINT NOT NULL COMMENT '追加时间戳毫秒',
+    PRIMARY KEY (id),
+    KEY idx_infra_schedule_log_chunk_log (log_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='执行日志业务过程日志分块表';
+
 CREATE TABLE IF NOT EXISTS infra_schedule_trigger_outbox (
     id BIGINT NOT NULL AUTO_INCREMENT COMMENT '可靠触发记录主键',
     job_id BIGINT NOT NULL COMMENT '所属任务主键',
@@ -111,3 +126,34 @@ CREATE TABLE IF NOT EXISTS infra_schedule_route_cursor (
     update_time BIGINT NOT NULL DEFAULT 0 COMMENT '更新时间毫秒',
     PRIMARY KEY (cursor_key)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='路由 ROUND 轮询游标';
+
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_lease (
+    shard_id INT NOT NULL COMMENT '分片编号：job_id % 分片数',
+    owner VARCHAR(128) NULL COMMENT '当前持有租约的调度节点',
+    lease_until BIGINT NOT NULL DEFAULT 0 COMMENT '租约截止时间戳毫秒',
+    update_time BIGINT NOT NULL DEFAULT 0 COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (shard_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='调度分片租约';
+
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_member (
+    owner VARCHAR(128) NOT NULL COMMENT '调度节点进程级 owner',
+    lease_until BIGINT NOT NULL COMMENT '成员资格截止时间戳毫秒',
+    update_time BIGINT NOT NULL COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (owner)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='参与分片再平衡的调度节点';
+
+CREATE TABLE IF NOT EXISTS infra_schedule_shard_progress (
+    run_id BIGINT NOT NULL COMMENT '触发批次：Outbox 主键',
+    shard_index INT NOT NULL COMMENT '逻辑分片下标，从 0 开始',
+    job_id BIGINT NOT NULL COMMENT '所属任务主键',
+    shard_total INT NOT NULL COMMENT '本次触发的逻辑分片总数',
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING' COMMENT '分片状态：PENDING/RUNNING/SUCCESS/FAILED',
+    log_id BIGINT NULL COMMENT '最近一次领取该分片的执行日志主键',
+    attempt_count INT NOT NULL DEFAULT 0 COMMENT '被领取次数',
+    message VARCHAR(1024) NULL COMMENT '处理结果或失败原因',
+    update_time BIGINT NOT NULL COMMENT '更新时间戳毫秒',
+    PRIMARY KEY (run_id, shard_index),
+    KEY idx_infra_schedule_shard_progress_job (job_id, run_id),
+    KEY idx_infra_schedule_shard_progress_log (log_id),
+    KEY idx_infra_schedule_shard_progress_cleanup (update_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='动态分片广播的分片进度';
@@ -9,6 +9,7 @@
         logs: id => `/jobs/${encodeURIComponent(id)}/logs`,
         queryLogs: "/logs",
         log: id => `/logs/${encodeURIComponent(id)}`,
+        handleLogChunks: id => `/logs/${encodeURIComponent(id)}/handle-log/chunks`,
         cancelLog: id => `/logs/${encodeURIComponent(id)}/cancel`,
         nextTriggers: id => `/jobs/${encodeURIComponent(id)}/next-triggers`,
         nextTriggersPreview: "/jobs/next-triggers/preview",
@@ -21,7 +22,11 @@
     const confirmDialog = document.querySelector("#confirm-dialog");
     /** 与调度中心 heartbeatTimeoutMillis 默认值对齐。 */
     const HEARTBEAT_TIMEOUT_MS = 30_000;
+    /** 业务过程日志每次请求的分块数。 */
+    const HANDLE_LOG_PAGE_SIZE = 50;
     let toastTimer;
+    /** 递增的详情加载序号；弹窗切换到其他日志后，旧的分页加载自行停止。 */
+    let handleLogLoadSeq = 0;
     let confirmResolver = null;
 
     /** 执行器是否仍在心跳有效期内（且未手动禁用）。 */
@@ -140,24 +145,39 @@
             </article>`;
     }
 
-    /** 打开业务过程日志详情弹窗。 */
+    /** 打开业务过程日志详情弹窗；历史整段日志先展示，分块日志按游标逐页追加，避免一次加载整段文本。 */
     async function openHandleLogDetail(logId) {
         const dialog = document.querySelector("#handle-log-dialog");
         if (!dialog) return;
+        const loadSeq = ++handleLogLoadSeq;
+        const content = document.querySelector("#handle-log-content");
         document.querySelector("#handle-log-title").textContent = `日志 #${logId}`;
         document.querySelector("#handle-log-subtitle").textContent = "正在加载…";
-        document.querySelector("#handle-log-content").textContent = "";
+        content.textContent = "";
         dialog.showModal();
         try {
             const log = await request(SchedulePaths.log(logId));
+            if (loadSeq !== handleLogLoadSeq) return;
             const statusLabel = executionStatusLabels[log.status] || log.status;
             document.querySelector("#handle-log-subtitle").textContent =
                 `${statusLabel} · 触发 ${formatTime(log.triggerTime)} · 目标 ${formatTargetAddress(log.targetAddress) || "—"}`;
-            document.querySelector("#handle-log-content").textContent =
-                log.handleLog?.trim() ? log.handleLog : "暂无业务过程日志";
+            if (log.handleLog) content.textContent = log.handleLog;
+            let cursor = 0;
+            let hasMore = true;
+            while (hasMore && dialog.open) {
+                const page = await request(
+                    `${SchedulePaths.handleLogChunks(logId)}?after=${cursor}&limit=${HANDLE_LOG_PAGE_SIZE}`
+                );
+                if (loadSeq !== handleLogLoadSeq) return;
+                if (page.content) content.append(page.content);
+                cursor = page.nextCursor;
+                hasMore = page.hasMore;
+            }
+            if (!content.textContent.trim()) content.textContent = "暂无业务过程日志";
         } catch (error) {
+            if (loadSeq !== handleLogLoadSeq) return;
             document.querySelector("#handle-log-subtitle").textContent = "加载失败";
-            document.querySelector("#handle-log-content").textContent = error.message;
+            content.textContent = error.message;
         }
     }
 
@@ -399,11 +419,12 @@
             document.querySelector("#submit-job-button").textContent = job ? "保存修改" : "创建任务";
             document.querySelector("#form-error").textContent = "";
             if (job) {
-                ["name", "handler", "scheduleType", "cron", "fixedRateMillis", "routeStrategy", "blockStrategy", "maxRetryCount", "timeoutSeconds", "parameters"].forEach(key => {
+                ["name", "handler", "scheduleType", "cron", "fixedRateMillis", "routeStrategy", "blockStrategy", "maxRetryCount", "timeoutSeconds", "logicalShardCount", "priority", "resultCacheMillis", "parameters"].forEach(key => {
                     const input = jobForm.elements.namedItem(key);
                     if (input && job[key] != null) input.value = job[key];
                 });
                 jobForm.elements.namedItem("resident").value = job.resident ? "true" : "false";
+                jobForm.elements.namedItem("coalesceDuplicates").value = job.coalesceDuplicates ? "true" : "false";
             }
             populateExecutorSelect(job?.executorId);
             toggleScheduleFields();
@@ -442,7 +463,11 @@
                 resident: form.get("resident") === "true",
                 maxRetryCount: Number(form.get("maxRetryCount")),
                 retryIntervalMillis: 1000,
-                timeoutSeconds: Number(form.get("timeoutSeconds"))
+                timeoutSeconds: Number(form.get("timeoutSeconds")),
+                logicalShardCount: Number(form.get("logicalShardCount")),
+                priority: Number(form.get("priority")),
+                coalesceDuplicates: form.get("coalesceDuplicates") === "true",
+                resultCacheMillis: Number(form.get("resultCacheMillis"))
             };
         }
 
@@ -0,0 +1,204 @@
+package io.infra.structure.schedule.admin.core
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import io.infra.structure.schedule.core.ExecutorRunAcceptedResponse
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
+import io.infra.structure.schedule.web.ScheduleWebPaths
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito
+import org.springframework.web.client.HttpServerErrorException
+import java.net.InetSocketAddress
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ExecutorRunBatcherTest {
+
+    private val executor = FakeExecutor()
+    private val httpClients = ExecutorHttpClients(connectTimeoutMillis = 2_000)
+    private val batcher = ExecutorRunBatcher(httpClients, accessToken = null, readTimeoutMillis = 5_000, maxBatchSize = 8)
+    private val admitThreads = ConcurrentHashMap<CompletableFuture<*>, Thread>()
+
+    @AfterEach
+    fun close() {
+        executor.release.countDown()
+        executor.server.stop(0)
+        httpClients.destroy()
+    }
+
+    @Test
+    fun admitsArrivingWhileRequestInFlightShipAsOneBatch() {
+        executor.holdFirstBatch = true
+        val first = admitAsync(1)
+        assertThat(executor.firstBatchArrived.await(2, TimeUnit.SECONDS)).isTrue()
+
+        val queued = (2L..4L).map(::admitAsync)
+        awaitWaiting(queued)
+        executor.release.countDown()
+
+        assertThat(first.get(2, TimeUnit.SECONDS)?.accepted).isTrue()
+        queued.forEach { assertThat(it.get(2, TimeUnit.SECONDS)?.accepted).isTrue() }
+        assertThat(executor.batchSizes).containsExactly(1, 3)
+        assertThat(executor.batchLogIds.flatten()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L)
+        assertThat(executor.singleRequests.get()).isZero()
+    }
+
+    @Test
+    fun missingEntriesAndRejectionsResolvePerItem() {
+        executor.batchResults = { logIds ->
+            // 只回一条拒绝，其余条目缺失
+            listOf("""{"accepted":false,"result":{"success":false,"message":"队列已满 #${logIds.first()}"}}""")
+        }
+        executor.holdFirstBatch = true
+        val first = admitAsync(1)
+        assertThat(executor.firstBatchArrived.await(2, TimeUnit.SECONDS)).isTrue()
+        val queued = (2L..3L).map(::admitAsync)
+        awaitWaiting(queued)
+        executor.release.countDown()
+
+        val rejected = first.get(2, TimeUnit.SECONDS)!!
+        assertThat(rejected.accepted).isFalse()
+        assertThat(rejected.result?.message).isEqualTo("队列已满 #1")
+        assertThat(rejected.result?.uncertain).isFalse()
+        val responses = queued.map { it.get(2, TimeUnit.SECONDS)!! }
+        assertThat(responses.filter { it.accepted }).isEmpty()
+        // 第二批第一条收到拒绝，缺失的第二条无法确认是否入队
+        assertThat(responses.map { it.result?.uncertain }).containsExactlyInAnyOrder(false, true)
+    }
+
+    @Test
+    fun serverErrorFailsWholeBatchWithoutDisablingBatching() {
+        executor.batchStatus = 503
+        assertThatThrownBy { batcher.admit(executor.address, context(1)) }
+            .isInstanceOf(HttpServerErrorException::class.java)
+
+        executor.batchStatus = 200
+        assertThat(batcher.admit(executor.address, context(2))?.accepted).isTrue()
+        assertThat(executor.batchSizes).containsExactly(1, 1)
+    }
+
+    @Test
+    fun unsupportedBatchEndpointFallsBackToSingleRunAsync() {
+        executor.batchStatus = 404
+        val completions = ScheduleRunCompletions(Mockito.mock(ScheduleExecutionLogRepository::class.java))
+        val client = HttpScheduleExecutor(
+            id = "executor-1",
+            group = "default",
+            address = executor.address,
+            accessToken = null,
+            httpClients = httpClients,
+            readTimeoutMillis = 5_000,
+            runCompletions = completions,
+            runBatcher = batcher
+        )
+
+        val first = client.executeAsync(context(1))
+        assertThat(first).isNotDone()
+        assertThat(executor.batchSizes).containsExactly(1)
+        assertThat(executor.singleRequests.get()).isEqualTo(1)
+        completions.complete(1, JobExecutionResult.success("done"))
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+
+        // 404 后该地址在重试窗口内直接逐条受理，不再探测批量端点
+        val second = client.executeAsync(context(2))
+        assertThat(executor.batchSizes).containsExactly(1)
+        assertThat(executor.singleRequests.get()).isEqualTo(2)
+        second.cancel(false)
+    }
+
+    private fun admitAsync(logId: Long): CompletableFuture<ExecutorRunAcceptedResponse?> {
+        val result = CompletableFuture<ExecutorRunAcceptedResponse?>()
+        val thread = Thread.ofPlatform().name("admit-$logId").start {
+            try {
+                result.complete(batcher.admit(executor.address, context(logId)))
+            } catch (exception: Throwable) {
+                result.completeExceptionally(exception)
+            }
+        }
+        admitThreads[result] = thread
+        return result
+    }
+
+    /** 调用线程进入等待即已把触发放入队列，此时放行在途请求，下一批必然包含它们。 */
+    private fun awaitWaiting(pending: List<CompletableFuture<*>>) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (pending.any { admitThreads[it]!!.state != Thread.State.WAITING }) {
+            check(System.nanoTime() < deadline) { "受理请求未进入排队" }
+            Thread.sleep(5)
+        }
+    }
+
+    private fun context(logId: Long) = JobExecutionContext(
+        jobId = logId,
+        jobName = "batched-job",
+        handler = "batched",
+        parameters = "",
+        triggerTime = System.currentTimeMillis(),
+        logId = logId
+    )
+
+    private class FakeExecutor {
+        val server: HttpServer = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        val address = "http://127.0.0.1:${server.address.port}"
+        val batchSizes = CopyOnWriteArrayList<Int>()
+        val batchLogIds = CopyOnWriteArrayList<List<Long>>()
+        val singleRequests = AtomicInteger()
+        val firstBatchArrived = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        @Volatile
+        var holdFirstBatch = false
+        @Volatile
+        var batchStatus = 200
+        @Volatile
+        var batchResults: (List<Long>) -> List<String> = { logIds -> logIds.map { """{"accepted":true}""" } }
+
+        init {
+            server.executor = Executors.newVirtualThreadPerTaskExecutor()
+            server.createContext(ScheduleWebPaths.EXECUTOR_ROOT) { exchange -> exchange.use(::handle) }
+            server.start()
+        }
+
+        private fun handle(exchange: HttpExchange) {
+            val body = exchange.requestBody.readAllBytes().decodeToString()
+            val logIds = LOG_ID.findAll(body).map { it.groupValues[1].toLong() }.toList()
+            when (exchange.requestURI.path) {
+                ScheduleWebPaths.EXECUTOR_RUN_ASYNC_BATCH -> {
+                    batchSizes += logIds.size
+                    batchLogIds += logIds
+                    if (batchSizes.size == 1 && holdFirstBatch) {
+                        firstBatchArrived.countDown()
+                        release.await(5, TimeUnit.SECONDS)
+                    }
+                    if (batchStatus != 200) return respond(exchange, batchStatus, "")
+                    respond(exchange, 200, """{"results":[${batchResults(logIds).joinToString(",")}]}""")
+                }
+                ScheduleWebPaths.EXECUTOR_RUN_ASYNC -> {
+                    singleRequests.incrementAndGet()
+                    respond(exchange, 200, """{"accepted":true}""")
+                }
+                else -> respond(exchange, 404, "")
+            }
+        }
+
+        private fun respond(exchange: HttpExchange, status: Int, body: String) {
+            val bytes = body.toByteArray()
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(status, if (bytes.isEmpty()) -1 else bytes.size.toLong())
+            if (bytes.isNotEmpty()) exchange.responseBody.write(bytes)
+        }
+
+        private companion object {
+            val LOG_ID = Regex(""""logId"\s*:\s*(\d+)""")
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.infra.structure.schedule.admin.core
+
+import io.infra.structure.schedule.admin.service.ScheduleService
+import io.infra.structure.schedule.properties.InfraScheduleProperties
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito
+
+class ScheduleTriggerWheelTest {
+
+    private var clock = START
+    private val scheduleService: ScheduleService = Mockito.mock(ScheduleService::class.java)
+    private val properties = InfraScheduleProperties().apply {
+        triggerWheelTickMillis = TICK
+        triggerWheelPreloadWindowMillis = 3_600_000
+    }
+    private val wheel = ScheduleTriggerWheel(scheduleService, properties) { clock }
+    /** 每次有计划到期的虚拟时间。 */
+    private val dispatchedAt = ArrayList<Long>()
+
+    @AfterEach
+    fun close() {
+        wheel.destroy()
+    }
+
+    @Test
+    fun workerStartsOnlyOnExplicitStart() {
+        assertThat(workerThreads()).isEmpty()
+        wheel.schedule(1, START + 500)
+
+        runUntil(START + 1_000)
+
+        assertThat(dispatchedAt).containsExactly(START + 500)
+        Mockito.verify(scheduleService).dispatchDueJobs(properties.dispatchBatchSize, properties.dispatchMaxPages)
+
+        wheel.start()
+        wheel.start()
+        val workers = workerThreads()
+        assertThat(workers).hasSize(1)
+        wheel.destroy()
+        workers.single().join(2_000)
+        assertThat(workers.single().isAlive).isFalse()
+    }
+
+    @Test
+    fun plansFireInDeadlineOrderOnFirstTickAtOrAfterDeadline() {
+        wheel.schedule(1, START + 350)
+        wheel.schedule(2, START + 120)
+        wheel.schedule(3, START + 200)
+        wheel.schedule(4, START + 250)
+
+        runUntil(START + 100)
+        assertThat(dispatchedAt).isEmpty()
+        runUntil(START + 200)
+        assertThat(planned(1, 2, 3, 4)).containsExactly(START + 350, null, null, START + 250)
+        runUntil(START + 300)
+        assertThat(planned(1, 2, 3, 4)).containsExactly(START + 350, null, null, null)
+        runUntil(START + 1_000)
+
+        // 同一 tick 内到期的计划合并为一次领取
+        assertThat(dispatchedAt).containsExactly(START + 200, START + 300, START + 400)
+        assertThat(wheel.plannedCount()).isZero()
+    }
+
+    @Test
+    fun replacedPlanIsCancelledAndOnlyLatestFires() {
+        wheel.schedule(1, START + 300)
+        wheel.schedule(1, START + 800)
+        wheel.schedule(2, START + 900)
+        wheel.schedule(2, START + 200)
+
+        assertThat(wheel.plannedCount()).isEqualTo(2)
+        runUntil(START + 1_000)
+
+        // 被替换的旧条目到期时不触发领取
+        assertThat(dispatchedAt).containsExactly(START + 200, START + 800)
+        assertThat(wheel.plannedCount()).isZero()
+    }
+
+    @Test
+    fun duePlanDispatchesOnNextAdvanceAndOutOfWindowPlanIsLeftToPreload() {
+        wheel.schedule(1, START - 1_000)
+        wheel.schedule(2, START + properties.triggerWheelPreloadWindowMillis + 1)
+
+        assertThat(wheel.plannedCount()).isZero()
+        assertThat(wheel.advance(START)).isTrue()
+        assertThat(wheel.advance(START)).isFalse()
+    }
+
+    @Test
+    fun farPlansCascadeThroughHigherLevelsWithoutFiringEarly() {
+        // 默认每层 64 格、tick 100 毫秒：第 0 层覆盖 6.4 秒，第 1 层覆盖 409.6 秒，更远的计划落在第 2 层
+        val deadlines = listOf(START + 5_000, START + 60_050, START + 409_700, START + 1_800_001)
+        deadlines.forEachIndexed { index, deadline -> wheel.schedule(index + 1L, deadline) }
+
+        runUntil(START + 1_900_000)
+
+        assertThat(dispatchedAt).hasSize(deadlines.size)
+        dispatchedAt.zip(deadlines).forEach { (firedAt, deadline) ->
+            assertThat(firedAt).isBetween(deadline, deadline + TICK - 1)
+        }
+        assertThat(wheel.plannedCount()).isZero()
+    }
+
+    private fun planned(vararg jobIds: Long): List<Long?> = jobIds.map(wheel::plannedTriggerAt)
+
+    private fun runUntil(end: Long) {
+        while (clock < end) {
+            clock += TICK
+            if (wheel.advance(clock)) dispatchedAt += clock
+        }
+    }
+
+    private fun workerThreads() = Thread.getAllStackTraces().keys.filter { it.name == "infra-schedule-trigger-wheel" }
+
+    private companion object {
+        const val TICK = 100L
+        /** 与 tick 对齐的虚拟起点。 */
+        const val START = 1_700_000_000_000L
+    }
+}
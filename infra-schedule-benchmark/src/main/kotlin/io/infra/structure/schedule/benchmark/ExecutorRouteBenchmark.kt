@@ -0,0 +1,90 @@
+package io.infra.structure.schedule.benchmark
+
+import io.infra.structure.schedule.api.ScheduleExecutor
+import io.infra.structure.schedule.benchmark.memory.InMemoryExecutorHeartbeatRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryRouteCursorRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryRouteNodeStatRepository
+import io.infra.structure.schedule.core.ExecutorRegistry
+import io.infra.structure.schedule.core.LocalRouteState
+import io.infra.structure.schedule.core.RoutedExecutor
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.model.RouteStrategy
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+
+/**
+ * [ExecutorRegistry.applyRoute] 各路由策略的单次选择开销。
+ *
+ * [localState] 为 true 时对应 `route-state-local=true`，ROUND 游标与 LFU/LRU 统计先在本地累计。
+ *
+ * 运行：`mvn -pl infra-schedule-benchmark -am compile` 后，
+ * `java -cp "infra-schedule-benchmark/target/classes:<runtime classpath>" org.openjdk.jmh.Main ExecutorRouteBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ExecutorRouteBenchmark {
+
+    @Param
+    @JvmField
+    var strategy = RouteStrategy.FIRST
+
+    @Param("10")
+    @JvmField
+    var executorCount = 0
+
+    @Param("false", "true")
+    @JvmField
+    var localState = false
+
+    private lateinit var registry: ExecutorRegistry
+    private lateinit var candidates: List<RoutedExecutor>
+    private var sequence = 0L
+
+    @Setup
+    fun setUp() {
+        val cursorRepository = InMemoryRouteCursorRepository()
+        val statRepository = InMemoryRouteNodeStatRepository()
+        val local = if (localState) LocalRouteState(cursorRepository, statRepository) else null
+        registry = ExecutorRegistry(
+            InMemoryExecutorHeartbeatRepository(HEARTBEAT_TIMEOUT_MILLIS),
+            HEARTBEAT_TIMEOUT_MILLIS,
+            routeStatRepository = local ?: statRepository,
+            routeCursorRepository = local ?: cursorRepository
+        )
+        candidates = (1..executorCount).map { index ->
+            RoutedExecutor(1, NoopExecutor, "http://10.0.1.$index:9999")
+        }
+    }
+
+    @Benchmark
+    fun applyRoute(): List<RoutedExecutor> = registry.applyRoute(candidates, strategy, nextKey(), CURSOR_KEY)
+
+    private fun nextKey(): String = "job-${sequence++ and 1023}"
+
+    /** 路由只读取候选节点，不会真正调用执行器。 */
+    private object NoopExecutor : ScheduleExecutor {
+        override val id: String = "benchmark-executor"
+        override val group: String = CURSOR_KEY
+        override fun execute(context: JobExecutionContext): JobExecutionResult = JobExecutionResult.success()
+    }
+
+    private companion object {
+        const val CURSOR_KEY = "benchmark"
+        const val HEARTBEAT_TIMEOUT_MILLIS = 90_000L
+    }
+}
@@ -0,0 +1,95 @@
+package io.infra.structure.schedule.benchmark
+
+import io.infra.structure.schedule.api.ScheduleHandler
+import io.infra.structure.schedule.api.ScheduleJobHandler
+import io.infra.structure.schedule.core.ExecutorTaskTracker
+import io.infra.structure.schedule.core.HandlerRegistry
+import io.infra.structure.schedule.model.BlockStrategy
+import io.infra.structure.schedule.model.ExecutorThreadMode
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Threads
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 执行器侧 [ExecutorTaskTracker.run] 的入队协调与同步等待开销，按阻塞策略分别测量。
+ *
+ * - [sameJob]：多个线程同时触发同一 jobId，覆盖 SERIAL 排队、DISCARD_LATER 丢弃与 COVER_EARLY 覆盖旧线程的竞争路径；
+ * - [distinctJobs]：各次触发轮流落在 [jobCount] 个 jobId 上，JobThread 常驻，只测协调锁与队列交接。
+ *
+ * 运行：`mvn -pl infra-schedule-benchmark -am compile` 后，
+ * `java -cp "infra-schedule-benchmark/target/classes:<runtime classpath>" org.openjdk.jmh.Main ExecutorTaskTrackerBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+open class ExecutorTaskTrackerBenchmark {
+
+    @Param
+    @JvmField
+    var blockStrategy = BlockStrategy.SERIAL
+
+    @Param
+    @JvmField
+    var threadMode = ExecutorThreadMode.PLATFORM
+
+    @Param("64")
+    @JvmField
+    var jobCount = 0
+
+    private lateinit var tracker: ExecutorTaskTracker
+    private val logIds = AtomicLong()
+
+    @Setup
+    fun setUp() {
+        tracker = ExecutorTaskTracker(
+            HandlerRegistry(listOf(NoopHandler())),
+            threadMode = threadMode,
+            jobThreadIdleTimeoutMillis = IDLE_TIMEOUT_MILLIS
+        )
+    }
+
+    @Benchmark
+    fun sameJob(): JobExecutionResult = tracker.run(context(1))
+
+    @Benchmark
+    fun distinctJobs(): JobExecutionResult = tracker.run(context(logIds.get() % jobCount + 1))
+
+    private fun context(jobId: Long) = JobExecutionContext(
+        jobId = jobId,
+        jobName = "benchmark-$jobId",
+        handler = HANDLER,
+        parameters = "",
+        triggerTime = 0,
+        logId = logIds.incrementAndGet(),
+        blockStrategy = blockStrategy
+    )
+
+    /** 立即返回成功，测量结果只含入队、交接与唤醒等待方的开销。 */
+    @ScheduleHandler(HANDLER)
+    class NoopHandler : ScheduleJobHandler {
+        override fun execute(context: JobExecutionContext): JobExecutionResult = JobExecutionResult.success()
+    }
+
+    private companion object {
+        const val HANDLER = "benchmarkNoop"
+        /** 长于单轮测量，测量期间 JobThread 不因空闲退出重建。 */
+        const val IDLE_TIMEOUT_MILLIS = 10_000L
+    }
+}
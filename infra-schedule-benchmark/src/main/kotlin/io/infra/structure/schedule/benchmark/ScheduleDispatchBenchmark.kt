@@ -0,0 +1,211 @@
+package io.infra.structure.schedule.benchmark
+
+import io.infra.structure.schedule.admin.core.ExecutorHttpClients
+import io.infra.structure.schedule.admin.core.HttpScheduleCancelClient
+import io.infra.structure.schedule.admin.service.ScheduleService
+import io.infra.structure.schedule.api.ScheduleExecutor
+import io.infra.structure.schedule.benchmark.memory.InMemoryExecutorHeartbeatRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryRouteCursorRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryRouteNodeStatRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryScheduleExecutionLogRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryScheduleJobRepository
+import io.infra.structure.schedule.benchmark.memory.InMemoryScheduleTriggerOutboxRepository
+import io.infra.structure.schedule.core.ExecutorRegistry
+import io.infra.structure.schedule.core.ExecutorTaskTracker
+import io.infra.structure.schedule.core.HandlerRegistry
+import io.infra.structure.schedule.model.ExecutionStatus
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionLog
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.model.JobStatus
+import io.infra.structure.schedule.model.RouteStrategy
+import io.infra.structure.schedule.model.ScheduleJob
+import io.infra.structure.schedule.model.ScheduleTriggerOutbox
+import io.infra.structure.schedule.model.ScheduleType
+import io.infra.structure.schedule.model.TriggerOutboxStatus
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+/**
+ * 调度中心分发热路径：到期任务领取、Outbox 投递到本地假执行器、执行器日志合批追加。
+ *
+ * 仓储均为内存实现，结果只反映调度中心自身的 CPU 与协调开销，不含 MySQL 往返，适合对比前后版本的回归。
+ * 领取与投递在每次调用前由 [DueJobs] / [PendingOutbox] 重置数据，单次调用在毫秒级，重置成本不计入测量。
+ *
+ * 运行：`mvn -pl infra-schedule-benchmark -am compile` 后，
+ * `java -cp "infra-schedule-benchmark/target/classes:<runtime classpath>" org.openjdk.jmh.Main ScheduleDispatchBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ScheduleDispatchBenchmark {
+
+    @Param("500", "5000")
+    @JvmField
+    var jobCount = 0
+
+    internal lateinit var outboxRepository: InMemoryScheduleTriggerOutboxRepository
+    internal lateinit var jobRepository: InMemoryScheduleJobRepository
+    private lateinit var logRepository: InMemoryScheduleExecutionLogRepository
+    private lateinit var workerExecutor: ExecutorService
+    private lateinit var attemptExecutor: ExecutorService
+    private lateinit var leaseExecutor: ScheduledExecutorService
+    private lateinit var service: ScheduleService
+    internal lateinit var jobIds: List<Long>
+    private lateinit var handleLogBatch: Map<Long, List<String>>
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        outboxRepository = InMemoryScheduleTriggerOutboxRepository()
+        jobRepository = InMemoryScheduleJobRepository(outboxRepository)
+        logRepository = InMemoryScheduleExecutionLogRepository(jobRepository, outboxRepository)
+        val heartbeatRepository = InMemoryExecutorHeartbeatRepository(HEARTBEAT_TIMEOUT_MILLIS)
+        val registry = ExecutorRegistry(
+            heartbeatRepository,
+            HEARTBEAT_TIMEOUT_MILLIS,
+            routeStatRepository = InMemoryRouteNodeStatRepository(),
+            routeCursorRepository = InMemoryRouteCursorRepository()
+        )
+        registry.register(SuccessExecutor)
+        // 本地执行器不上报地址，按执行器 ID 路由时直接回落到进程内实现
+        val executorId = requireNotNull(heartbeatRepository.findByGroup(GROUP)).id
+        workerExecutor = Executors.newFixedThreadPool(WORKER_THREADS)
+        attemptExecutor = Executors.newVirtualThreadPerTaskExecutor()
+        leaseExecutor = Executors.newScheduledThreadPool(2)
+        service = ScheduleService(
+            jobRepository, logRepository, outboxRepository, registry, workerExecutor, attemptExecutor,
+            ExecutorTaskTracker(HandlerRegistry(emptyList())),
+            HttpScheduleCancelClient(null, false, ExecutorHttpClients(1_000), 1_000),
+            claimLeaseMillis = 30_000,
+            schedulerId = "benchmark",
+            maxExecutionMillis = 60_000,
+            outboxLeaseExecutor = leaseExecutor
+        )
+        val now = System.currentTimeMillis()
+        jobIds = (1..jobCount).map { index ->
+            jobRepository.save(
+                ScheduleJob(
+                    name = "benchmark-$index",
+                    executorGroup = GROUP,
+                    executorId = executorId,
+                    handler = "noop",
+                    scheduleType = ScheduleType.FIXED_RATE,
+                    fixedRateMillis = 60_000,
+                    status = JobStatus.ENABLED,
+                    routeStrategy = RouteStrategy.FIRST,
+                    createTime = now,
+                    updateTime = now
+                )
+            ).id
+        }
+    }
+
+    /** 按页领取全部到期任务、推进下一次计划并写入 Outbox。 */
+    @Benchmark
+    fun claimDueJobs(due: DueJobs): Int {
+        service.dispatchDueJobs(PAGE_SIZE, jobCount / PAGE_SIZE + 1)
+        return outboxRepository.countByStatus(TriggerOutboxStatus.PENDING)
+    }
+
+    /** 领取全部 Outbox 并等待每条触发经路由、写日志、调用假执行器后确认投递。 */
+    @Benchmark
+    fun dispatchOutbox(pending: PendingOutbox): Int {
+        service.dispatchTriggerOutbox(PAGE_SIZE, jobCount / PAGE_SIZE + 1)
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30)
+        while (outboxRepository.countByStatus(TriggerOutboxStatus.DISPATCHED) < jobCount) {
+            check(System.nanoTime() < deadline) { "Outbox 投递未在 30 秒内全部确认" }
+            Thread.onSpinWait()
+        }
+        return jobCount
+    }
+
+    /** 执行器合批上报：每条运行中日志追加若干行业务日志。 */
+    @Benchmark
+    fun appendHandleLogBatch(): List<Long> = service.appendHandleLogBatch(handleLogBatch)
+
+    /** 每轮重建运行中日志，避免业务日志累计达到单条上限后只测到截断分支。 */
+    @Setup(Level.Iteration)
+    fun resetHandleLogs() {
+        logRepository.clear()
+        handleLogBatch = runningLogs()
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        workerExecutor.shutdownNow()
+        attemptExecutor.shutdownNow()
+        leaseExecutor.shutdownNow()
+    }
+
+    /** 为每个任务写一条 RUNNING 日志，组装一次合批上报的内容。 */
+    private fun runningLogs(): Map<Long, List<String>> {
+        val now = System.currentTimeMillis()
+        val lines = (1..LINES_PER_LOG).map { "2026-10-19 10:00:00.000 [benchmark] INFO handle progress $it" }
+        return jobIds.take(LOGS_PER_BATCH).associate { jobId ->
+            val log = logRepository.append(
+                JobExecutionLog(jobId = jobId, executorId = null, triggerTime = now, status = ExecutionStatus.RUNNING)
+            )
+            log.id to lines
+        }
+    }
+
+    /** 每次调用前让全部任务重新到期，并清空上一轮写入的 Outbox。 */
+    @State(Scope.Benchmark)
+    open class DueJobs {
+        @Setup(Level.Invocation)
+        fun reset(benchmark: ScheduleDispatchBenchmark) {
+            val due = System.currentTimeMillis() - 1
+            benchmark.jobIds.forEach { id ->
+                benchmark.jobRepository.updateLocked(id) { it.copy(nextTriggerAt = due, claimOwner = null, claimUntil = null) }
+            }
+            benchmark.outboxRepository.clear()
+        }
+    }
+
+    /** 每次调用前为每个任务写入一条待投递 Outbox。 */
+    @State(Scope.Benchmark)
+    open class PendingOutbox {
+        @Setup(Level.Invocation)
+        fun reset(benchmark: ScheduleDispatchBenchmark) {
+            val now = System.currentTimeMillis()
+            benchmark.outboxRepository.clear()
+            benchmark.jobIds.forEach { id ->
+                benchmark.outboxRepository.enqueue(ScheduleTriggerOutbox(jobId = id, triggerTime = now, createTime = now, updateTime = now))
+            }
+        }
+    }
+
+    /** 立即返回成功的本地执行器，隔离执行器侧开销。 */
+    private object SuccessExecutor : ScheduleExecutor {
+        override val id: String = "benchmark-executor"
+        override val group: String = GROUP
+        override fun execute(context: JobExecutionContext): JobExecutionResult = JobExecutionResult.success()
+    }
+
+    private companion object {
+        const val GROUP = "benchmark"
+        const val HEARTBEAT_TIMEOUT_MILLIS = 90_000L
+        const val WORKER_THREADS = 16
+        const val PAGE_SIZE = 200
+        const val LOGS_PER_BATCH = 100
+        const val LINES_PER_LOG = 20
+    }
+}
@@ -0,0 +1,126 @@
+package io.infra.structure.schedule.benchmark.memory
+
+import io.infra.structure.schedule.core.ExecutorAddresses
+import io.infra.structure.schedule.model.ExecutorAddressMode
+import io.infra.structure.schedule.model.ExecutorHeartbeat
+import io.infra.structure.schedule.model.ExecutorStatus
+import io.infra.structure.schedule.repository.ExecutorHeartbeatRepository
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 内存执行器注册仓储；分组唯一、心跳自动建档与多地址注册表的语义与 MyBatis-Flex 实现一致。
+ *
+ * 自动注册地址按 [heartbeatTimeoutMillis] 过期；[jobReferenceCounter] 用于 [deleteIfUnreferenced] 的引用校验。
+ */
+class InMemoryExecutorHeartbeatRepository(
+    private val heartbeatTimeoutMillis: Long,
+    private val jobReferenceCounter: (Long) -> Long = { 0L }
+) : ExecutorHeartbeatRepository {
+    private val executors = ConcurrentHashMap<Long, ExecutorHeartbeat>()
+    /** 执行器 ID -> 自动注册地址 -> 最近心跳时间。 */
+    private val registries = ConcurrentHashMap<Long, ConcurrentHashMap<String, Long>>()
+    private val sequence = AtomicLong()
+
+    @Synchronized
+    override fun heartbeat(heartbeat: ExecutorHeartbeat) {
+        val now = heartbeat.lastHeartbeatTime.takeIf { it > 0 } ?: System.currentTimeMillis()
+        val existing = findByGroup(heartbeat.executorGroup)
+        val executor = existing?.copy(
+            executorName = existing.executorName.ifEmpty { heartbeat.executorName },
+            lastHeartbeatTime = now
+        ) ?: ExecutorHeartbeat(
+            id = sequence.incrementAndGet(),
+            executorGroup = heartbeat.executorGroup,
+            executorName = heartbeat.executorName,
+            lastHeartbeatTime = now
+        )
+        executors[executor.id] = executor
+        if (executor.addressMode == ExecutorAddressMode.AUTO_REGISTER) {
+            heartbeat.address?.trim()?.takeIf { it.isNotBlank() }?.let { address ->
+                registries.computeIfAbsent(executor.id) { ConcurrentHashMap() }[address] = now
+            }
+            refreshAutoAddresses(executor.id, now, heartbeatTimeoutMillis)
+        }
+    }
+
+    @Synchronized
+    override fun save(executor: ExecutorHeartbeat): ExecutorHeartbeat {
+        val existing = executor.id.takeIf { it > 0 }?.let(executors::get) ?: findByGroup(executor.executorGroup)
+        val now = System.currentTimeMillis()
+        val saved = executor.copy(
+            id = existing?.id ?: sequence.incrementAndGet(),
+            address = when (executor.addressMode) {
+                ExecutorAddressMode.MANUAL -> ExecutorAddresses.format(ExecutorAddresses.parse(executor.address))
+                ExecutorAddressMode.AUTO_REGISTER -> existing?.address?.takeIf { existing.addressMode == ExecutorAddressMode.AUTO_REGISTER }
+            },
+            lastHeartbeatTime = executor.lastHeartbeatTime.takeIf { it > 0 } ?: existing?.lastHeartbeatTime ?: now
+        )
+        executors[saved.id] = saved
+        if (saved.addressMode == ExecutorAddressMode.MANUAL) registries.remove(saved.id)
+        return saved
+    }
+
+    override fun findById(id: Long): ExecutorHeartbeat? = executors[id]
+
+    override fun findByGroup(executorGroup: String): ExecutorHeartbeat? =
+        executors.values.firstOrNull { it.executorGroup == executorGroup }
+
+    override fun list(executorGroup: String, now: Long, timeoutMillis: Long): List<ExecutorHeartbeat> =
+        executors.values.filter {
+            it.executorGroup == executorGroup &&
+                it.status == ExecutorStatus.ENABLED &&
+                (it.addressMode == ExecutorAddressMode.MANUAL || it.lastHeartbeatTime >= now - timeoutMillis)
+        }
+
+    override fun listRegistered(executorGroup: String): List<ExecutorHeartbeat> =
+        executors.values.filter { it.executorGroup == executorGroup }.sortedBy { it.id }
+
+    override fun listRegistered(): List<ExecutorHeartbeat> = executors.values.sortedBy { it.id }
+
+    override fun updateStatus(id: Long, status: ExecutorStatus): Boolean =
+        executors.computeIfPresent(id) { _, current -> current.copy(status = status) } != null
+
+    @Synchronized
+    override fun markOffline(executorGroup: String, address: String?): Boolean {
+        val existing = findByGroup(executorGroup) ?: return false
+        val normalized = address?.trim()?.takeIf { it.isNotBlank() }
+        if (existing.addressMode == ExecutorAddressMode.AUTO_REGISTER && normalized != null) {
+            registries[existing.id]?.remove(normalized)
+            refreshAutoAddresses(existing.id, System.currentTimeMillis(), heartbeatTimeoutMillis)
+            return true
+        }
+        registries.remove(existing.id)
+        executors[existing.id] = existing.copy(
+            lastHeartbeatTime = 0,
+            address = existing.address.takeIf { existing.addressMode == ExecutorAddressMode.MANUAL }
+        )
+        return true
+    }
+
+    override fun listRoutableAddresses(executorId: Long, now: Long, timeoutMillis: Long): List<String> {
+        val executor = executors[executorId] ?: return emptyList()
+        if (executor.addressMode == ExecutorAddressMode.MANUAL) return ExecutorAddresses.parse(executor.address)
+        return aliveAddresses(executorId, now, timeoutMillis)
+    }
+
+    @Synchronized
+    override fun deleteIfUnreferenced(id: Long): Boolean {
+        if (jobReferenceCounter(id) > 0 || executors.remove(id) == null) return false
+        registries.remove(id)
+        return true
+    }
+
+    /** 剔除过期地址，并把存活地址与最近心跳回写到执行器展示字段。 */
+    private fun refreshAutoAddresses(executorId: Long, now: Long, timeoutMillis: Long) {
+        val registry = registries[executorId]
+        registry?.values?.removeIf { it < now - timeoutMillis }
+        val latest = registry?.values?.maxOrNull() ?: 0L
+        executors.computeIfPresent(executorId) { _, current ->
+            current.copy(address = ExecutorAddresses.format(aliveAddresses(executorId, now, timeoutMillis)), lastHeartbeatTime = latest)
+        }
+    }
+
+    private fun aliveAddresses(executorId: Long, now: Long, timeoutMillis: Long): List<String> =
+        registries[executorId].orEmpty().filterValues { it >= now - timeoutMillis }.keys.sorted()
+}
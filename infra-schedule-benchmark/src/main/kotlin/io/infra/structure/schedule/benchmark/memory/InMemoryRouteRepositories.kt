@@ -0,0 +1,40 @@
+package io.infra.structure.schedule.benchmark.memory
+
+import io.infra.structure.schedule.repository.RouteCursorRepository
+import io.infra.structure.schedule.repository.RouteNodeStat
+import io.infra.structure.schedule.repository.RouteNodeStatRepository
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/** 内存 ROUND 轮询游标，与 MySQL 实现相同：游标从 1 开始递增，下标为 `(value - 1) % candidateSize`。 */
+class InMemoryRouteCursorRepository : RouteCursorRepository {
+    private val cursors = ConcurrentHashMap<String, AtomicLong>()
+
+    override fun nextRoundIndex(cursorKey: String, candidateSize: Int): Int {
+        require(candidateSize > 0) { "候选节点数必须大于 0" }
+        val value = cursors.computeIfAbsent(cursorKey) { AtomicLong() }.incrementAndGet()
+        return ((value - 1) % candidateSize).toInt()
+    }
+}
+
+/** 内存路由 LFU/LRU 统计。 */
+class InMemoryRouteNodeStatRepository : RouteNodeStatRepository {
+    private val stats = ConcurrentHashMap<String, RouteNodeStat>()
+
+    override fun stats(nodeKeys: Collection<String>): Map<String, RouteNodeStat> =
+        nodeKeys.mapNotNull { key -> stats[key]?.let { key to it } }.toMap()
+
+    override fun recordUse(nodeKey: String, now: Long) {
+        recordUses(nodeKey, 1, now)
+    }
+
+    override fun recordUses(nodeKey: String, count: Int, lastRouteTime: Long) {
+        if (count <= 0) return
+        stats.merge(nodeKey, RouteNodeStat(nodeKey, count, lastRouteTime)) { current, added ->
+            current.copy(
+                useCount = current.useCount + added.useCount,
+                lastRouteTime = maxOf(current.lastRouteTime, added.lastRouteTime)
+            )
+        }
+    }
+}
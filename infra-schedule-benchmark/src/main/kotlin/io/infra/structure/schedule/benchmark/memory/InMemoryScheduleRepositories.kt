@@ -0,0 +1,537 @@
+package io.infra.structure.schedule.benchmark.memory
+
+import io.infra.structure.schedule.model.ExecutionLogQuery
+import io.infra.structure.schedule.model.ExecutionStatus
+import io.infra.structure.schedule.model.JobExecutionLog
+import io.infra.structure.schedule.model.JobStatus
+import io.infra.structure.schedule.model.ScheduleJob
+import io.infra.structure.schedule.model.ScheduleTriggerOutbox
+import io.infra.structure.schedule.model.TriggerOutboxStatus
+import io.infra.structure.schedule.repository.HandleLogChunk
+import io.infra.structure.schedule.repository.ScheduleExecutionLogRepository
+import io.infra.structure.schedule.repository.ScheduleJobRepository
+import io.infra.structure.schedule.repository.ScheduleTriggerOutboxRepository
+import io.infra.structure.schedule.repository.ShardFilter
+import io.infra.structure.schedule.repository.StaleRunningLogRef
+import io.infra.structure.schedule.repository.UpcomingTrigger
+import java.util.Collections
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 内存任务仓储，条件与 MyBatis-Flex 实现一致：领取与推进以 claim_owner / claim_until 条件互斥。
+ *
+ * 单行条件更新以 [ConcurrentHashMap.compute] 代替 MySQL 行锁；供基准与测试使用，不提供跨进程互斥。
+ */
+class InMemoryScheduleJobRepository(
+    private val outboxRepository: InMemoryScheduleTriggerOutboxRepository
+) : ScheduleJobRepository {
+    private val jobs = ConcurrentHashMap<Long, ScheduleJob>()
+    private val sequence = AtomicLong()
+
+    override fun save(job: ScheduleJob): ScheduleJob {
+        val saved = if (job.id == 0L) job.copy(id = sequence.incrementAndGet()) else job
+        jobs[saved.id] = saved
+        return saved
+    }
+
+    override fun updateAndCancelPendingOutbox(id: Long, now: Long, updater: (ScheduleJob) -> ScheduleJob): ScheduleJob {
+        val updated = updateLocked(id, updater)
+        outboxRepository.cancelPendingByJobId(id, now)
+        return updated
+    }
+
+    override fun updateLocked(id: Long, updater: (ScheduleJob) -> ScheduleJob): ScheduleJob =
+        requireNotNull(jobs.compute(id) { _, current ->
+            val updated = updater(current ?: error("任务不存在: $id"))
+            require(updated.id == id) { "任务更新主键不匹配: $id" }
+            updated
+        })
+
+    override fun findById(id: Long): ScheduleJob? = jobs[id]
+
+    override fun findByIds(ids: Collection<Long>): List<ScheduleJob> = ids.mapNotNull(jobs::get)
+
+    override fun findAll(): List<ScheduleJob> = jobs.values.sortedBy { it.name }
+
+    override fun countByExecutorId(executorId: Long): Long = jobs.values.count { it.executorId == executorId }.toLong()
+
+    override fun delete(id: Long): Boolean = jobs.remove(id) != null
+
+    override fun disableAndCancelPendingOutbox(id: Long, now: Long): Boolean {
+        jobs.computeIfPresent(id) { _, current ->
+            current.copy(status = JobStatus.DISABLED, nextTriggerAt = null, claimOwner = null, claimUntil = null, updateTime = now)
+        } ?: return false
+        outboxRepository.cancelPendingByJobId(id, now)
+        return true
+    }
+
+    override fun deleteAndCancelPendingOutbox(id: Long, now: Long): Boolean {
+        if (!jobs.containsKey(id)) return false
+        outboxRepository.cancelPendingByJobId(id, now, includeManual = true)
+        return jobs.remove(id) != null
+    }
+
+    /** 先按计划时间挑选候选，再逐行复核条件后写入租约，被其他领取方抢先的行直接跳过（对应 SKIP LOCKED）。 */
+    override fun claimDueJobs(now: Long, limit: Int, leaseMillis: Long, owner: String, shards: ShardFilter?): List<ScheduleJob> {
+        val candidates = jobs.values
+            .filter { it.isDue(now) && shards.accepts(it.id) }
+            .sortedWith(compareBy<ScheduleJob>({ it.nextTriggerAt }, { it.id }))
+            .take(limit.coerceAtLeast(1))
+        return candidates.mapNotNull { candidate ->
+            var claimed: ScheduleJob? = null
+            jobs.computeIfPresent(candidate.id) { _, current ->
+                if (!current.isDue(now)) return@computeIfPresent current
+                current.copy(claimOwner = owner, claimUntil = now + leaseMillis, updateTime = now).also { claimed = it }
+            }
+            claimed
+        }
+    }
+
+    override fun findUpcomingTriggers(dueBefore: Long, limit: Int, shards: ShardFilter?): List<UpcomingTrigger> =
+        jobs.values
+            .filter { job ->
+                job.status == JobStatus.ENABLED && (job.nextTriggerAt ?: Long.MAX_VALUE) <= dueBefore && shards.accepts(job.id)
+            }
+            .sortedBy { it.nextTriggerAt }
+            .take(limit.coerceAtLeast(1))
+            .map { UpcomingTrigger(it.id, requireNotNull(it.nextTriggerAt), it.claimUntil) }
+
+    override fun releaseClaim(id: Long, owner: String) {
+        jobs.computeIfPresent(id) { _, current ->
+            if (current.claimOwner == owner) current.copy(claimOwner = null, claimUntil = null) else current
+        }
+    }
+
+    override fun completeSchedule(id: Long, owner: String, lastTriggerAt: Long, nextTriggerAt: Long, updateTime: Long): Boolean {
+        var advanced = false
+        jobs.computeIfPresent(id) { _, current ->
+            if (current.claimOwner != owner || (current.claimUntil ?: 0) <= updateTime) return@computeIfPresent current
+            advanced = true
+            current.copy(
+                lastTriggerAt = lastTriggerAt,
+                nextTriggerAt = nextTriggerAt,
+                claimOwner = null,
+                claimUntil = null,
+                updateTime = updateTime
+            )
+        }
+        return advanced
+    }
+
+    /** 推进与写入 Outbox 在同一行的 compute 内完成，推进失败时不写 Outbox。 */
+    override fun completeScheduleAndEnqueue(
+        id: Long,
+        owner: String,
+        lastTriggerAt: Long,
+        nextTriggerAt: Long,
+        outbox: ScheduleTriggerOutbox,
+        updateTime: Long
+    ): Boolean {
+        var advanced = false
+        jobs.computeIfPresent(id) { _, current ->
+            if (current.claimOwner != owner || (current.claimUntil ?: 0) <= updateTime) return@computeIfPresent current
+            advanced = true
+            outboxRepository.enqueue(outbox)
+            current.copy(
+                lastTriggerAt = lastTriggerAt,
+                nextTriggerAt = nextTriggerAt,
+                claimOwner = null,
+                claimUntil = null,
+                updateTime = updateTime
+            )
+        }
+        return advanced
+    }
+
+    override fun enqueueManual(outbox: ScheduleTriggerOutbox): Boolean {
+        var enqueued = false
+        jobs.computeIfPresent(outbox.jobId) { _, current ->
+            outboxRepository.enqueue(outbox)
+            enqueued = true
+            current
+        }
+        return enqueued
+    }
+
+    /** 清空全部任务，供基准在轮次之间重建数据。 */
+    fun clear() {
+        jobs.clear()
+    }
+
+    private fun ScheduleJob.isDue(now: Long): Boolean =
+        status == JobStatus.ENABLED &&
+            (nextTriggerAt ?: Long.MAX_VALUE) <= now &&
+            (claimUntil == null || claimUntil <= now)
+}
+
+/**
+ * 内存执行日志仓储，状态条件与 MyBatis-Flex 实现一致。
+ *
+ * 业务日志分块与累计长度随日志行在同一次 compute 内更新，同一日志的并发追加在此串行；
+ * [appendIfJobEnabled] 读取任务与 Outbox 时不加锁，足以覆盖单进程内的基准与测试。
+ */
+class InMemoryScheduleExecutionLogRepository(
+    private val jobRepository: ScheduleJobRepository,
+    private val outboxRepository: InMemoryScheduleTriggerOutboxRepository
+) : ScheduleExecutionLogRepository {
+    private val logs = ConcurrentHashMap<Long, LogRow>()
+    private val sequence = AtomicLong()
+    private val chunkSequence = AtomicLong()
+
+    override fun append(log: JobExecutionLog): JobExecutionLog {
+        val saved = log.copy(id = sequence.incrementAndGet())
+        logs[saved.id] = LogRow(saved)
+        return saved
+    }
+
+    override fun appendIfJobEnabled(
+        log: JobExecutionLog,
+        outboxId: Long?,
+        owner: String?,
+        claimToken: String?,
+        now: Long?
+    ): JobExecutionLog? {
+        val job = jobRepository.findById(log.jobId) ?: return null
+        val outbox = outboxId?.let(outboxRepository::findById)?.takeIf {
+            it.status == TriggerOutboxStatus.PROCESSING && it.claimOwner == owner && it.claimToken == claimToken
+        }
+        if (job.status != JobStatus.ENABLED && outbox?.manualTrigger != true) return null
+        if (outboxId != null && (outbox == null || (outbox.claimUntil ?: 0) <= (now ?: 0))) return null
+        return append(log)
+    }
+
+    override fun findById(id: Long): JobExecutionLog? = logs[id]?.log
+
+    override fun update(log: JobExecutionLog) {
+        require(log.id > 0) { "更新执行日志需要有效主键" }
+        logs.computeIfPresent(log.id) { _, row -> row.copy(log = log) }
+    }
+
+    override fun delete(id: Long): Boolean = logs.remove(id) != null
+
+    override fun finishIfExecuting(log: JobExecutionLog): Boolean {
+        require(log.id > 0) { "更新执行日志需要有效主键" }
+        return updateIf(log.id, { it.status in EXECUTING }) { current ->
+            current.copy(
+                executorId = log.executorId,
+                finishTime = log.finishTime,
+                status = log.status,
+                retryCount = log.retryCount,
+                message = log.message,
+                targetAddress = log.targetAddress,
+                durationMillis = log.durationMillis
+            )
+        }
+    }
+
+    override fun requestCancellation(log: JobExecutionLog, timeout: Boolean): Boolean {
+        require(log.id > 0) { "中止执行日志需要有效主键" }
+        return updateIf(log.id, { it.status in EXECUTING }) { current ->
+            current.copy(
+                status = if (timeout) ExecutionStatus.TIMING_OUT else ExecutionStatus.CANCELLING,
+                message = log.message
+            )
+        }
+    }
+
+    override fun finishPendingCancellation(
+        id: Long,
+        pendingStatus: ExecutionStatus,
+        finalStatus: ExecutionStatus,
+        finishTime: Long,
+        durationMillis: Long,
+        message: String
+    ): Boolean = updateIf(id, { it.status == pendingStatus }) { current ->
+        current.copy(status = finalStatus, finishTime = finishTime, durationMillis = durationMillis, message = message)
+    }
+
+    override fun finishFromExecutor(log: JobExecutionLog, timeoutMessage: String): Boolean {
+        require(log.id > 0) { "更新执行日志需要有效主键" }
+        return updateIf(log.id, { it.status.isActive() }) { current ->
+            val timingOut = current.status == ExecutionStatus.TIMING_OUT
+            current.copy(
+                finishTime = log.finishTime,
+                status = if (timingOut) ExecutionStatus.TIMEOUT else log.status,
+                message = if (timingOut) timeoutMessage else log.message,
+                durationMillis = log.durationMillis
+            )
+        }
+    }
+
+    override fun markRunningIfQueued(logId: Long, message: String): Boolean =
+        updateIf(logId, { it.status == ExecutionStatus.QUEUED }) { current ->
+            current.copy(status = ExecutionStatus.RUNNING, message = message)
+        }
+
+    override fun appendHandleLog(logId: Long, chunk: String): Boolean {
+        var accepted = false
+        logs.computeIfPresent(logId) { _, row ->
+            if (!row.log.status.isActive()) return@computeIfPresent row
+            accepted = true
+            var end = (HANDLE_LOG_MAX_LENGTH - row.handleLogLength).coerceIn(0, chunk.length)
+            if (end in 1 until chunk.length && Character.isHighSurrogate(chunk[end - 1])) end--
+            if (end == 0) return@computeIfPresent row
+            val content = chunk.substring(0, end)
+            row.chunks.add(HandleLogChunk(chunkSequence.incrementAndGet(), content))
+            row.copy(handleLogLength = row.handleLogLength + content.length)
+        }
+        return accepted
+    }
+
+    override fun findHandleLogChunks(logId: Long, afterChunkId: Long, limit: Int): List<HandleLogChunk> {
+        val row = logs[logId] ?: return emptyList()
+        return synchronized(row.chunks) { row.chunks.filter { it.id > afterChunkId }.take(limit.coerceIn(1, 1_000)) }
+    }
+
+    override fun findPendingCancellationCandidates(afterId: Long, limit: Int, shards: ShardFilter?): List<StaleRunningLogRef> =
+        refs(limit.coerceIn(1, 1_000)) { log ->
+            log.status in PENDING_CANCELLATION && log.id > afterId && shards.accepts(log.jobId)
+        }
+
+    override fun findStaleRunningCandidates(
+        staleBeforeTriggerTime: Long,
+        afterId: Long,
+        limit: Int,
+        shards: ShardFilter?
+    ): List<StaleRunningLogRef> = refs(limit.coerceAtLeast(1)) { log ->
+        log.status in EXECUTING && log.triggerTime <= staleBeforeTriggerTime && log.id > afterId && shards.accepts(log.jobId)
+    }
+
+    override fun markLostIfActive(id: Long, now: Long, message: String): Boolean =
+        updateIf(id, { it.status in EXECUTING }) { current ->
+            current.copy(
+                status = ExecutionStatus.LOST,
+                finishTime = now,
+                message = message,
+                durationMillis = now - current.triggerTime
+            )
+        }
+
+    override fun findActiveByTargetAddress(targetAddress: String, createdBefore: Long, limit: Int): List<StaleRunningLogRef> =
+        refs(limit.coerceIn(1, 10_000)) { log ->
+            log.targetAddress == targetAddress && log.status.isActive() && log.triggerTime <= createdBefore
+        }
+
+    override fun findActiveByJobId(jobId: Long, limit: Int): List<JobExecutionLog> =
+        logs.values.asSequence()
+            .map { it.log }
+            .filter { it.jobId == jobId && it.status in EXECUTING }
+            .sortedByDescending { it.triggerTime }
+            .take(limit.coerceIn(1, 1_000))
+            .toList()
+
+    override fun findByJobId(jobId: Long, limit: Int): List<JobExecutionLog> =
+        query(ExecutionLogQuery(jobId = jobId, limit = limit))
+
+    override fun query(query: ExecutionLogQuery): List<JobExecutionLog> =
+        logs.values.asSequence()
+            .map { it.log }
+            .filter { it.matches(query) }
+            .sortedByDescending { it.triggerTime }
+            .drop(query.offset.coerceAtLeast(0))
+            .take(query.limit.coerceIn(1, 1_000))
+            .toList()
+
+    override fun count(query: ExecutionLogQuery): Long = logs.values.count { it.log.matches(query) }.toLong()
+
+    override fun deleteFinishedBefore(finishTimeBefore: Long, limit: Int): Int {
+        val ids = logs.values.asSequence()
+            .map { it.log }
+            .filter { (it.finishTime ?: Long.MAX_VALUE) < finishTimeBefore && !it.status.isActive() }
+            .map { it.id }
+            .sorted()
+            .take(limit.coerceIn(1, 10_000))
+            .toList()
+        return ids.count { logs.remove(it) != null }
+    }
+
+    /** 清空全部日志，供基准在轮次之间重建数据。 */
+    fun clear() {
+        logs.clear()
+    }
+
+    private fun updateIf(id: Long, condition: (JobExecutionLog) -> Boolean, updater: (JobExecutionLog) -> JobExecutionLog): Boolean {
+        var updated = false
+        logs.computeIfPresent(id) { _, row ->
+            if (!condition(row.log)) return@computeIfPresent row
+            updated = true
+            row.copy(log = updater(row.log))
+        }
+        return updated
+    }
+
+    private fun refs(limit: Int, predicate: (JobExecutionLog) -> Boolean): List<StaleRunningLogRef> =
+        logs.values.asSequence()
+            .map { it.log }
+            .filter(predicate)
+            .sortedBy { it.id }
+            .take(limit)
+            .map { StaleRunningLogRef(it.id, it.jobId, it.targetAddress, it.status, it.triggerTime) }
+            .toList()
+
+    private fun JobExecutionLog.matches(query: ExecutionLogQuery): Boolean =
+        (query.jobId == null || jobId == query.jobId) &&
+            (query.executorId == null || executorId == query.executorId) &&
+            (query.status == null || status == query.status) &&
+            (query.triggerTimeFrom == null || triggerTime >= query.triggerTimeFrom) &&
+            (query.triggerTimeTo == null || triggerTime <= query.triggerTimeTo)
+
+    /** 日志行与其业务日志分块；分块列表只在所属行的 compute 内追加。 */
+    private data class LogRow(
+        val log: JobExecutionLog,
+        val chunks: MutableList<HandleLogChunk> = Collections.synchronizedList(ArrayList()),
+        val handleLogLength: Int = 0
+    )
+
+    private companion object {
+        /** 单条执行日志业务过程日志的最大字符数，与 MySQL 实现一致。 */
+        const val HANDLE_LOG_MAX_LENGTH = 1_000_000
+        val EXECUTING = setOf(ExecutionStatus.QUEUED, ExecutionStatus.RUNNING)
+        val PENDING_CANCELLATION = setOf(ExecutionStatus.CANCELLING, ExecutionStatus.TIMING_OUT)
+    }
+}
+
+/** 内存 Outbox 仓储；领取、续租与确认的 owner / token / 租约条件与 MyBatis-Flex 实现一致。 */
+class InMemoryScheduleTriggerOutboxRepository : ScheduleTriggerOutboxRepository {
+    private val outboxes = ConcurrentHashMap<Long, ScheduleTriggerOutbox>()
+    private val sequence = AtomicLong()
+
+    override fun enqueue(outbox: ScheduleTriggerOutbox): ScheduleTriggerOutbox {
+        val saved = outbox.copy(id = sequence.incrementAndGet())
+        outboxes[saved.id] = saved
+        return saved
+    }
+
+    override fun claimPending(
+        now: Long,
+        limit: Int,
+        leaseMillis: Long,
+        owner: String,
+        shards: ShardFilter?
+    ): List<ScheduleTriggerOutbox> {
+        val candidates = outboxes.values
+            .filter { it.isClaimable(now) && shards.accepts(it.jobId) }
+            .sortedBy { it.id }
+            .take(limit.coerceIn(1, 1_000))
+        return candidates.mapNotNull { candidate ->
+            var claimed: ScheduleTriggerOutbox? = null
+            outboxes.computeIfPresent(candidate.id) { _, current ->
+                if (!current.isClaimable(now)) return@computeIfPresent current
+                current.copy(
+                    status = TriggerOutboxStatus.PROCESSING,
+                    claimOwner = owner,
+                    claimToken = UUID.randomUUID().toString(),
+                    claimUntil = now + leaseMillis,
+                    attemptCount = current.attemptCount + 1,
+                    updateTime = now
+                ).also { claimed = it }
+            }
+            claimed
+        }
+    }
+
+    override fun markDispatched(id: Long, owner: String, claimToken: String, now: Long): Boolean =
+        updateIfHeld(id, owner, claimToken, now) { current ->
+            current.copy(
+                status = TriggerOutboxStatus.DISPATCHED,
+                claimOwner = null,
+                claimToken = null,
+                claimUntil = null,
+                lastError = null,
+                updateTime = now
+            )
+        }
+
+    override fun renewClaim(id: Long, owner: String, claimToken: String, claimUntil: Long, now: Long): Boolean =
+        updateIfHeld(id, owner, claimToken, now) { current -> current.copy(claimUntil = claimUntil, updateTime = now) }
+
+    override fun releaseForRetry(id: Long, owner: String, claimToken: String, error: String, retryAt: Long): Boolean {
+        val now = System.currentTimeMillis()
+        return updateIfHeld(id, owner, claimToken, now) { current ->
+            current.copy(
+                status = TriggerOutboxStatus.PENDING,
+                claimOwner = null,
+                claimToken = null,
+                claimUntil = retryAt,
+                lastError = error.take(1_000),
+                updateTime = now
+            )
+        }
+    }
+
+    override fun cancelPendingByJobId(jobId: Long, now: Long, includeManual: Boolean): Int {
+        var cancelled = 0
+        outboxes.values.filter { it.jobId == jobId }.forEach { candidate ->
+            outboxes.computeIfPresent(candidate.id) { _, current ->
+                val pending = current.status == TriggerOutboxStatus.PENDING || current.status == TriggerOutboxStatus.PROCESSING
+                if (!pending || (current.manualTrigger && !includeManual)) return@computeIfPresent current
+                cancelled++
+                current.copy(
+                    status = TriggerOutboxStatus.CANCELLED,
+                    claimOwner = null,
+                    claimToken = null,
+                    claimUntil = null,
+                    updateTime = now
+                )
+            }
+        }
+        return cancelled
+    }
+
+    override fun deleteCompletedBefore(updateTimeBefore: Long, limit: Int): Int {
+        val ids = outboxes.values
+            .filter { it.updateTime < updateTimeBefore && it.status in COMPLETED }
+            .map { it.id }
+            .sorted()
+            .take(limit.coerceIn(1, 10_000))
+        return ids.count { outboxes.remove(it) != null }
+    }
+
+    /** 按主键查询，供内存日志仓储校验投递租约。 */
+    fun findById(id: Long): ScheduleTriggerOutbox? = outboxes[id]
+
+    /** 统计指定状态的记录数，供基准等待本轮投递全部收口。 */
+    fun countByStatus(status: TriggerOutboxStatus): Int = outboxes.values.count { it.status == status }
+
+    /** 清空全部记录，供基准在轮次之间重建数据。 */
+    fun clear() {
+        outboxes.clear()
+    }
+
+    private fun updateIfHeld(
+        id: Long,
+        owner: String,
+        claimToken: String,
+        now: Long,
+        updater: (ScheduleTriggerOutbox) -> ScheduleTriggerOutbox
+    ): Boolean {
+        var updated = false
+        outboxes.computeIfPresent(id) { _, current ->
+            val held = current.status == TriggerOutboxStatus.PROCESSING &&
+                current.claimOwner == owner &&
+                current.claimToken == claimToken &&
+                (current.claimUntil ?: 0) > now
+            if (!held) return@computeIfPresent current
+            updated = true
+            updater(current)
+        }
+        return updated
+    }
+
+    /** PENDING 的 claimUntil 是退避截止时间，PROCESSING 的 claimUntil 是租约截止时间，二者到期后均可领取。 */
+    private fun ScheduleTriggerOutbox.isClaimable(now: Long): Boolean = when (status) {
+        TriggerOutboxStatus.PENDING -> claimUntil == null || claimUntil <= now
+        TriggerOutboxStatus.PROCESSING -> claimUntil != null && claimUntil <= now
+        else -> false
+    }
+
+    private companion object {
+        val COMPLETED = setOf(TriggerOutboxStatus.DISPATCHED, TriggerOutboxStatus.CANCELLED)
+    }
+}
+
+/** 与 SQL 中 `MOD(id, shardCount) IN (...)` 相同的分片过滤；为 null 时不过滤。 */
+internal fun ShardFilter?.accepts(id: Long): Boolean =
+    this == null || Math.floorMod(id, shardCount) in shards
@@ -2,6 +2,7 @@ package io.infra.structure.schedule.api
 
 import io.infra.structure.schedule.model.JobExecutionContext
 import io.infra.structure.schedule.model.JobExecutionResult
+import java.util.concurrent.CompletableFuture
 
 /**
  * 任务执行器实现此接口，并使用 [ScheduleHandler] 声明后台可配置的处理器名称。
@@ -30,3 +31,14 @@ interface ScheduleExecutor {
     /** 执行一次任务上下文并返回处理结果。 */
     fun execute(context: JobExecutionContext): JobExecutionResult
 }
+
+/**
+ * 受理后异步交付终态的执行器；调度中心据此在受理完成后释放调用线程，不为等待终态占用线程。
+ */
+interface AsyncScheduleExecutor : ScheduleExecutor {
+    /**
+     * 发起一次调用，受理后立即返回；future 在终态送达时完成。
+     * 调度侧放弃等待（超时或终止）时取消该 future，实现应据此释放等待登记。
+     */
+    fun executeAsync(context: JobExecutionContext): CompletableFuture<JobExecutionResult>
+}
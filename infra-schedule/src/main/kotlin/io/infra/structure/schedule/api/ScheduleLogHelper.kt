@@ -33,8 +33,7 @@ interface ScheduleLogAppender {
 object ScheduleLogHelper {
     private val contextHolder = InheritableThreadLocal<JobExecutionContext>()
     private val appenderRef = AtomicReference<ScheduleLogAppender?>()
-    private val timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
-        .withZone(ZoneId.systemDefault())
+    private val timestamp = ScheduleLogTimestamp(ZoneId.systemDefault())
 
     /** 安装异步上报器；由自动配置调用。 */
     @JvmStatic
@@ -95,7 +94,11 @@ object ScheduleLogHelper {
     }
 
     private fun formatLine(message: String): String =
-        "${timeFormatter.format(Instant.now())} $message\n"
+        timestamp.appendTo(StringBuilder(message.length + 25), System.currentTimeMillis())
+            .append(' ')
+            .append(message)
+            .append('\n')
+            .toString()
 
     private fun format(pattern: String, args: Array<out Any?>): String {
         if (args.isEmpty()) return pattern
@@ -114,3 +117,32 @@ object ScheduleLogHelper {
         return builder.toString()
     }
 }
+
+/**
+ * 日志行时间戳 `yyyy-MM-dd HH:mm:ss.SSS`：按秒缓存格式化后的前缀，同一秒内只追加三位毫秒，
+ * 高频日志不再逐行经 [DateTimeFormatter] 格式化。时区偏移只在整秒边界变化，按秒缓存不影响结果。
+ */
+internal class ScheduleLogTimestamp(zone: ZoneId) {
+    private val secondFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.").withZone(zone)
+
+    /** 不可变的一秒前缀，整体替换发布，读线程不会看到秒数与前缀不一致的组合。 */
+    @Volatile
+    private var cached = CachedSecond(Long.MIN_VALUE, "")
+
+    /** 把 [epochMillis] 对应的时间戳追加到 [builder]。 */
+    fun appendTo(builder: StringBuilder, epochMillis: Long): StringBuilder {
+        val epochSecond = Math.floorDiv(epochMillis, 1_000L)
+        var current = cached
+        if (current.epochSecond != epochSecond) {
+            current = CachedSecond(epochSecond, secondFormatter.format(Instant.ofEpochSecond(epochSecond)))
+            cached = current
+        }
+        val millis = Math.floorMod(epochMillis, 1_000L).toInt()
+        builder.append(current.prefix)
+        if (millis < 100) builder.append('0')
+        if (millis < 10) builder.append('0')
+        return builder.append(millis)
+    }
+
+    private class CachedSecond(val epochSecond: Long, val prefix: String)
+}
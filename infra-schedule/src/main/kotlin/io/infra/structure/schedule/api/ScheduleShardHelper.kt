@@ -0,0 +1,92 @@
+package io.infra.structure.schedule.api
+
+import io.infra.structure.schedule.model.JobExecutionContext
+import java.util.concurrent.atomic.AtomicReference
+
+/** 向调度中心领取与回报动态分片的抽象；由框架安装 [io.infra.structure.schedule.core.ScheduleLogReporter] 实现。 */
+interface ScheduleShardClaimer {
+    /** 为 [logId] 领取触发批次 [runId] 中下一个待处理分片；已无剩余分片或执行已结束时返回 null。 */
+    fun claim(logId: Long, runId: Long): ShardClaim?
+
+    /** 回报 [shardIndex] 的处理结果。 */
+    fun complete(logId: Long, runId: Long, shardIndex: Int, success: Boolean, message: String?)
+}
+
+/** 本次执行领取到的一个逻辑分片。 */
+data class ShardClaim(
+    /** 逻辑分片下标，从 0 开始。 */
+    val shardIndex: Int,
+    /** 本次触发的逻辑分片总数。 */
+    val shardTotal: Int
+)
+
+/**
+ * 分片广播任务的分片领取助手。
+ *
+ * 任务配置了逻辑分片数（大于执行器数量）时，调度中心同时调用全部执行器，各执行器在 Handler 内循环领取分片，
+ * 先处理完的执行器继续领取剩余分片，整体耗时不再由最慢的固定分片决定：
+ * ```
+ * ScheduleShardHelper.forEachShard { shard -> process(shard.shardIndex, shard.shardTotal) }
+ * ```
+ * 执行中断或超时后未回报的分片会退回待领取状态，由仍在执行的节点或本次触发的重试接手，
+ * 因此单个分片可能被处理不止一次，处理逻辑需要幂等。
+ */
+object ScheduleShardHelper {
+    private val claimerRef = AtomicReference<ScheduleShardClaimer?>()
+
+    /** 安装分片领取客户端；由自动配置调用。 */
+    @JvmStatic
+    fun install(claimer: ScheduleShardClaimer) {
+        claimerRef.set(claimer)
+    }
+
+    /**
+     * 领取下一个逻辑分片；未绑定上下文、非动态分片任务或已无剩余分片时返回 null。
+     * 调度中心不可达时抛出异常，Handler 不应把它当作分片已处理完。
+     */
+    @JvmStatic
+    fun claimNext(): ShardClaim? {
+        val context = dynamicContext() ?: return null
+        val claimer = claimerRef.get() ?: return null
+        return claimer.claim(context.logId ?: return null, context.shardRunId)
+    }
+
+    /** 回报已领取分片的处理结果；失败的分片不再分配给其他执行器。 */
+    @JvmStatic
+    @JvmOverloads
+    fun complete(shard: ShardClaim, success: Boolean = true, message: String? = null) {
+        val context = dynamicContext() ?: return
+        val claimer = claimerRef.get() ?: return
+        claimer.complete(context.logId ?: return, context.shardRunId, shard.shardIndex, success, message)
+    }
+
+    /**
+     * 逐个领取并处理分片，直到没有剩余分片，返回本次执行处理的分片数。
+     *
+     * [action] 正常返回即回报成功；抛出异常时回报失败并原样抛出，本次执行随之结束。
+     * 非动态分片任务按上下文中的固定 `shardIndex` / `shardTotal` 调用一次，同一 Handler 两种配置下均可使用。
+     */
+    @JvmStatic
+    fun forEachShard(action: (ShardClaim) -> Unit): Int {
+        val context = ScheduleLogHelper.getContext() ?: return 0
+        if (context.logicalShardTotal <= 0) {
+            action(ShardClaim(context.shardIndex, context.shardTotal))
+            return 1
+        }
+        var processed = 0
+        while (true) {
+            val shard = claimNext() ?: return processed
+            try {
+                action(shard)
+            } catch (exception: Exception) {
+                complete(shard, success = false, message = exception.message ?: exception.javaClass.simpleName)
+                throw exception
+            }
+            complete(shard)
+            processed++
+        }
+    }
+
+    private fun dynamicContext(): JobExecutionContext? =
+        ScheduleLogHelper.getContext()?.takeIf { it.logicalShardTotal > 0 && it.shardRunId > 0 && (it.logId ?: 0) > 0 }
+}
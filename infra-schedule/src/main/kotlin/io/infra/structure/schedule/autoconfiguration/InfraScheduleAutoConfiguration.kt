@@ -2,6 +2,7 @@ package io.infra.structure.schedule.autoconfigure
 
 import io.infra.structure.schedule.api.ScheduleJobHandler
 import io.infra.structure.schedule.api.ScheduleLogHelper
+import io.infra.structure.schedule.api.ScheduleShardHelper
 import io.infra.structure.schedule.core.ExecutorHeartbeatReporter
 import io.infra.structure.schedule.core.ExecutorTaskTracker
 import io.infra.structure.schedule.core.HandlerRegistry
@@ -32,6 +33,7 @@ class InfraScheduleAutoConfiguration {
     fun scheduleLogReporter(properties: InfraScheduleProperties): ScheduleLogReporter {
         val reporter = ScheduleLogReporter(properties)
         ScheduleLogHelper.install(reporter)
+        ScheduleShardHelper.install(reporter)
         return reporter
     }
 
@@ -52,7 +54,10 @@ class InfraScheduleAutoConfiguration {
         onExecutionFinished = { context, result, durationMillis ->
             val logId = context.logId ?: return@ExecutorTaskTracker
             scheduleLogReporter.markFinished(logId, result, durationMillis)
-        }
+        },
+        threadMode = properties.executor.jobThreadMode,
+        jobThreadIdleTimeoutMillis = properties.executor.jobThreadIdleTimeoutMillis,
+        maxConcurrentExecutions = properties.executor.maxConcurrentExecutions
     )
 
     /**
@@ -91,6 +96,11 @@ class InfraScheduleAutoConfiguration {
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "infra.schedule.executor", name = ["enabled"], havingValue = "true", matchIfMissing = true)
     fun executorHeartbeatReporter(
-        properties: InfraScheduleProperties
-    ) = ExecutorHeartbeatReporter(properties)
+        properties: InfraScheduleProperties,
+        executorTaskTracker: ExecutorTaskTracker,
+        scheduleLogReporter: ScheduleLogReporter
+    ) = ExecutorHeartbeatReporter(properties) {
+        // 先取执行中集合再取待上报终态：终态回调在票据移出前登记，顺序读取不会漏掉刚结束的日志
+        executorTaskTracker.activeLogIds() + scheduleLogReporter.pendingFinishLogIds()
+    }
 }
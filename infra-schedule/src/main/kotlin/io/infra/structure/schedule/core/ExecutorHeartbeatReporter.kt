@@ -12,9 +12,13 @@ import java.time.Duration
 /**
  * 将当前执行器存活状态定时上报给调度中心，并在进程关闭时主动上报离线。
  * 心跳和离线状态只通过 HTTP 上报 MySQL 调度中心，不在执行器进程内保存调度状态。
+ *
+ * 配置 [activeLogIds] 时，心跳同时携带本实例仍在排队、执行或等待上报终态的日志 ID，
+ * 调度中心据此按实例地址一次对账，及时回收进程已不存在的运行日志。
  */
 class ExecutorHeartbeatReporter(
-    private val properties: InfraScheduleProperties
+    private val properties: InfraScheduleProperties,
+    private val activeLogIds: (() -> Collection<Long>)? = null
 ) : DisposableBean {
     private val logger = LoggerFactory.getLogger(javaClass)
     private val adminBaseUrl = requireNotNull(properties.executor.adminAddress?.takeIf { it.isNotBlank() }) {
@@ -39,7 +43,8 @@ class ExecutorHeartbeatReporter(
                     ExecutorPresenceReport(
                         executorGroup = properties.executor.group,
                         executorName = properties.executor.name ?: properties.executor.group,
-                        address = properties.executor.address
+                        address = properties.executor.address,
+                        runningLogIds = activeLogIds?.invoke()?.sorted()
                     )
                 )
             if (properties.executor.authEnabled) request.header(SCHEDULE_ACCESS_TOKEN_HEADER, token ?: "")
@@ -73,7 +78,9 @@ private data class ExecutorPresenceReport(
     /** 仅供管理页面展示的执行器名称。 */
     val executorName: String,
     /** 当前进程可被 Admin 回调的服务地址。 */
-    val address: String?
+    val address: String?,
+    /** 本实例仍活跃的日志 ID（升序）；为空表示不参与对账，调度中心只能逐条探活。 */
+    val runningLogIds: List<Long>? = null
 )
 
 /** 执行器主动离线上报载荷。 */
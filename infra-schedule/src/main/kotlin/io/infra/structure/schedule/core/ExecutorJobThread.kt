@@ -1,6 +1,7 @@
 package io.infra.structure.schedule.core
 
 import io.infra.structure.schedule.api.ScheduleLogHelper
+import io.infra.structure.schedule.model.ExecutorThreadMode
 import io.infra.structure.schedule.model.JobExecutionContext
 import io.infra.structure.schedule.model.JobExecutionResult
 import org.slf4j.LoggerFactory
@@ -8,15 +9,43 @@ import java.util.concurrent.CompletableFuture
 import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 触发去重键：同一任务、相同参数且处于同一静态分片位置的触发视为重复。
+ * 动态分片每次触发对应独立的分片批次，不参与去重。
+ */
+internal data class TriggerDedupKey(
+    val jobId: Long,
+    val parameters: String,
+    val shardIndex: Int,
+    val shardTotal: Int
+) {
+    companion object {
+        /** 任务未开启重复触发合并时返回 null。 */
+        fun of(context: JobExecutionContext): TriggerDedupKey? =
+            if (context.coalesceDuplicates && context.logicalShardTotal == 0) {
+                TriggerDedupKey(context.jobId, context.parameters, context.shardIndex, context.shardTotal)
+            } else {
+                null
+            }
+    }
+}
 
 /** 单次触发在 JobThread 队列中的票据，供同步 /run 等待执行结果。 */
 internal class TriggerTicket(
     val context: JobExecutionContext
 ) {
     private val future = CompletableFuture<JobExecutionResult>()
+    val dedupKey: TriggerDedupKey? = TriggerDedupKey.of(context)
     /** 以下状态仅由 [ExecutorJobThread] 的 ticketStateLock 访问。 */
     private var cancelled = false
     private var started = false
+    /** 排队期间合并到本票据、共享本次执行结果的重复触发。 */
+    private var followers: MutableList<TriggerTicket>? = null
+    /** 结果对等待方可见之前的回调；须在票据入队前设置，入队锁保证执行线程可见。 */
+    private var beforeComplete: ((JobExecutionResult) -> Unit)? = null
 
     /** 标记取消；返回值表示 Handler 尚未开始，可直接跳过业务调用。 */
     fun cancel(): Boolean {
@@ -32,9 +61,33 @@ internal class TriggerTicket(
     }
 
     fun complete(result: JobExecutionResult) {
+        beforeComplete?.invoke(result)
         future.complete(result)
     }
 
+    /** 在等待方拿到结果之前回调 [action]，保证拿到结果后的重复触发能看到其副作用。 */
+    fun beforeComplete(action: (JobExecutionResult) -> Unit) {
+        beforeComplete = action
+    }
+
+    fun addFollower(follower: TriggerTicket) {
+        (followers ?: ArrayList<TriggerTicket>(2).also { followers = it }).add(follower)
+    }
+
+    fun removeFollower(logId: Long): TriggerTicket? {
+        val index = followers?.indexOfFirst { it.context.logId == logId } ?: return null
+        return if (index >= 0) followers?.removeAt(index) else null
+    }
+
+    /** 取出全部合并票据；票据离开队列后才调用，此后不会再有新的合并。 */
+    fun takeFollowers(): List<TriggerTicket> = followers.orEmpty().also { followers = null }
+
+    fun collectFollowerLogIds(into: MutableCollection<Long>) {
+        followers?.forEach { follower -> follower.context.logId?.let(into::add) }
+    }
+
+    fun hasFollower(logId: Long): Boolean = followers?.any { it.context.logId == logId } == true
+
     fun await(): JobExecutionResult = try {
         future.get()
     } catch (exception: Exception) {
@@ -48,14 +101,27 @@ internal class TriggerTicket(
  *
  * 串行时在 [ticket.complete] 前先 [onExecutionFinished] 回写终态，
  * 避免调度侧 finishLog 落后于下一票 markStarted 而出现多条 RUNNING。
+ *
+ * 空闲时在队列条件上挂起，直到入队、停止或空闲超时才唤醒；连续空闲 [idleTimeoutMillis]
+ * 后线程自行退出，由管理器在下一次触发时重建。[ExecutorThreadMode.VIRTUAL] 下执行载体为虚拟线程，
+ * 等待与 Handler 内的阻塞调用只占用 JDK 虚拟线程调度器的有限载体线程。
+ *
+ * 配置 [executionSlots] 时，出队后先按任务优先级公平等待全局执行名额，再进入 Handler；等待期间日志保持排队，
+ * 取消与覆盖仍可中断等待，等待时长不计入本次执行耗时。
+ *
+ * 开启重复触发合并的任务，相同去重键的新触发经 [coalesce] 挂到仍在排队的票据名下，不再单独入队；
+ * 合并票据与首个票据共享执行结果（含终止），也可按日志 ID 单独取消。
  */
 internal class ExecutorJobThread(
     private val jobId: Long,
     private val handlerRegistry: HandlerRegistry,
     private val onExecutionStarted: (JobExecutionContext) -> Unit,
     private val onExecutionFinished: (JobExecutionContext, JobExecutionResult, Long) -> Unit,
+    threadMode: ExecutorThreadMode = ExecutorThreadMode.PLATFORM,
+    private val idleTimeoutMillis: Long = 0,
+    private val executionSlots: FairExecutionSlots? = null,
     private val onExit: (ExecutorJobThread) -> Unit
-) : Thread("infra-schedule-job-$jobId") {
+) {
     private val logger = LoggerFactory.getLogger(javaClass)
     private val queue = LinkedBlockingQueue<TriggerTicket>(20_000)
     private val toStop = AtomicBoolean(false)
@@ -63,20 +129,49 @@ internal class ExecutorJobThread(
      * 串行化队列出队、运行标记和按日志 ID 取消。
      *
      * 取消方要么在此锁内从队列移除票据，要么看到已标记的当前票据并中断；两者之间不存在
-     * “已出队但尚未可取消”的窗口。
+     * “已出队但尚未可取消”的窗口。使用 [ReentrantLock] 而非对象监视器，空闲等待时释放锁，
+     * 虚拟线程挂起时也不会钉住载体线程。
      */
-    private val ticketStateLock = Any()
+    private val ticketStateLock = ReentrantLock()
+    /** 队列非空或请求停止时唤醒空闲线程。 */
+    private val ticketAvailable = ticketStateLock.newCondition()
+    private val worker: Thread = when (threadMode) {
+        ExecutorThreadMode.PLATFORM -> Thread.ofPlatform()
+        ExecutorThreadMode.VIRTUAL -> Thread.ofVirtual()
+    }.name("infra-schedule-job-$jobId").unstarted(::run)
     @Volatile private var runningHandler = false
     @Volatile private var currentLogId: Long? = null
     /** 已从队列取出、但可能尚未进入 Handler 的当前票据。 */
     private var currentTicket: TriggerTicket? = null
 
-    fun isRunningOrHasQueue(): Boolean = synchronized(ticketStateLock) {
+    /** 执行线程是否仍存活。 */
+    val isAlive: Boolean
+        get() = worker.isAlive
+
+    /** 线程已停止或正在退出，不再接受新票据；管理器应重建线程。 */
+    val isStopped: Boolean
+        get() = toStop.get()
+
+    fun start() {
+        worker.start()
+    }
+
+    fun isRunningOrHasQueue(): Boolean = ticketStateLock.withLock {
         runningHandler || queue.isNotEmpty()
     }
 
-    fun offer(ticket: TriggerTicket): Boolean = synchronized(ticketStateLock) {
-        !toStop.get() && queue.offer(ticket)
+    fun offer(ticket: TriggerTicket): Boolean = ticketStateLock.withLock {
+        (!toStop.get() && queue.offer(ticket)).also { if (it) ticketAvailable.signal() }
+    }
+
+    /** 队列中已有相同去重键且尚未开始的票据时，把 [ticket] 合并到其名下共享执行结果。 */
+    fun coalesce(ticket: TriggerTicket): Boolean {
+        val key = ticket.dedupKey ?: return false
+        return ticketStateLock.withLock {
+            val leader = if (toStop.get()) null else queue.firstOrNull { it.dedupKey == key }
+            leader?.addFollower(ticket)
+            leader != null
+        }
     }
 
     /** 停止线程：清空队列并中断当前 handler。 */
@@ -84,7 +179,8 @@ internal class ExecutorJobThread(
     fun stopForCover(reason: String, waitMillis: Long): Boolean {
         toStop.set(true)
         val cancelled = JobExecutionResult.cancelled(reason)
-        val drained = synchronized(ticketStateLock) {
+        val drained = ticketStateLock.withLock {
+            ticketAvailable.signal()
             // 当前票据可能已经出队、但尚未通过 startIfNotCancelled 进入 Handler。
             // 覆盖请求必须在同一状态锁内标记它，防止旧票据在 drainQueue 之后仍启动业务代码。
             currentTicket?.cancel()
@@ -93,10 +189,10 @@ internal class ExecutorJobThread(
             }
         }
         completeCancelledTickets(drained, cancelled)
-        interrupt()
+        worker.interrupt()
         return try {
-            join(waitMillis.coerceAtLeast(1))
-            !isAlive
+            worker.join(waitMillis.coerceAtLeast(1))
+            !worker.isAlive
         } catch (_: InterruptedException) {
             Thread.currentThread().interrupt()
             false
@@ -106,90 +202,97 @@ internal class ExecutorJobThread(
     /**
      * 按 logId 取消单次触发：
      * - 在队列中则只移除该票并 complete，**不** drain 整队（避免空窗导致乱序/丢序）；
+     * - 合并到其他票据名下的只解除合并，被合并的票据照常执行；
      * - 若正在执行则中断当前 handler，队列其余项保持原顺序继续。
      */
     fun cancel(logId: Long): Boolean {
-        val cancellation = synchronized(ticketStateLock) {
+        val cancellation = ticketStateLock.withLock {
             var removed: TriggerTicket? = null
             val iterator = queue.iterator()
-            while (iterator.hasNext()) {
+            while (removed == null && iterator.hasNext()) {
                 val ticket = iterator.next()
                 if (ticket.context.logId == logId) {
                     iterator.remove()
                     ticket.cancel()
                     removed = ticket
-                    break
+                } else {
+                    removed = ticket.removeFollower(logId)
                 }
             }
+            if (removed == null) removed = currentTicket?.removeFollower(logId)
             val running = removed == null && currentLogId == logId && currentTicket != null
             if (running) currentTicket?.cancel()
-            if (running) interrupt()
+            if (running) worker.interrupt()
             removed to running
         }
         val queued = cancellation.first
         if (queued != null) {
-            val result = JobExecutionResult.cancelled("任务已被终止")
-            onExecutionFinished(queued.context, result, 0L)
-            queued.complete(result)
+            finish(queued, JobExecutionResult.cancelled("任务已被终止"), 0L)
             return true
         }
         return cancellation.second
     }
 
-    fun isRunning(logId: Long): Boolean = synchronized(ticketStateLock) {
-        (currentLogId == logId && runningHandler) || queue.any { it.context.logId == logId }
+    fun isRunning(logId: Long): Boolean = ticketStateLock.withLock {
+        (currentLogId == logId && runningHandler) || currentTicket?.hasFollower(logId) == true ||
+            queue.any { it.context.logId == logId || it.hasFollower(logId) }
     }
 
-    override fun run() {
+    /** 将当前票据（含已出队尚未进入 Handler 的）、排队票据及其合并票据的日志 ID 加入 [into]。 */
+    fun collectActiveLogIds(into: MutableCollection<Long>) = ticketStateLock.withLock {
+        currentTicket?.let { ticket ->
+            ticket.context.logId?.let(into::add)
+            ticket.collectFollowerLogIds(into)
+        }
+        queue.forEach { ticket ->
+            ticket.context.logId?.let(into::add)
+            ticket.collectFollowerLogIds(into)
+        }
+    }
+
+    private fun run() {
         try {
             while (!toStop.get()) {
                 val ticket = try {
-                    // 在短超时内持有状态锁，保证 poll 与 RUNNING 标记对 cancel 原子可见。
-                    // 空闲线程最多每 100ms 醒一次，不会造成繁忙轮询。
-                    synchronized(ticketStateLock) {
-                        if (toStop.get()) null else queue.poll(100, TimeUnit.MILLISECONDS)?.also {
-                            runningHandler = true
-                            currentLogId = it.context.logId
-                            currentTicket = it
-                        }
-                    }
+                    takeTicket()
                 } catch (_: InterruptedException) {
                     if (toStop.get()) break
                     continue
                 } ?: continue
-                val startedAt = System.currentTimeMillis()
+                var startedAt = System.currentTimeMillis()
+                var slot: ExecutionSlot? = null
                 try {
-                    val result = if (synchronized(ticketStateLock) { ticket.startIfNotCancelled() }) {
+                    if (executionSlots != null) {
+                        slot = executionSlots.acquire(jobId, ticket.context.priority)
+                        startedAt = System.currentTimeMillis()
+                    }
+                    val result = if (ticketStateLock.withLock { ticket.startIfNotCancelled() }) {
                         executeBound(ticket.context)
                     } else {
                         JobExecutionResult.cancelled("任务已被终止")
                     }
                     val durationMs = System.currentTimeMillis() - startedAt
                     // 先落终态再 complete，保证下一票 markStarted 时上一条已非 RUNNING。
-                    onExecutionFinished(ticket.context, result, durationMs)
-                    ticket.complete(result)
+                    finish(ticket, result, durationMs)
                 } catch (_: InterruptedException) {
-                    val cancelled = JobExecutionResult.cancelled("任务已被终止")
-                    onExecutionFinished(ticket.context, cancelled, System.currentTimeMillis() - startedAt)
-                    ticket.complete(cancelled)
+                    finish(ticket, JobExecutionResult.cancelled("任务已被终止"), System.currentTimeMillis() - startedAt)
                     if (toStop.get()) break
                 } catch (exception: Throwable) {
                     val message = exception.cause?.message ?: exception.message ?: exception.javaClass.simpleName
-                    val failed = JobExecutionResult.failure(message)
-                    onExecutionFinished(ticket.context, failed, System.currentTimeMillis() - startedAt)
-                    ticket.complete(failed)
+                    finish(ticket, JobExecutionResult.failure(message), System.currentTimeMillis() - startedAt)
                     // AssertionError 等业务 Error 也必须收口当前票据，避免 /run 永久等待。
                     // VM 已无法可靠继续运行时仍交由运行时终止进程，不能掩盖致命故障。
                     if (exception is VirtualMachineError || exception is ThreadDeath || exception is LinkageError) {
                         throw exception
                     }
                 } finally {
-                    synchronized(ticketStateLock) {
+                    slot?.let { executionSlots?.release(it, System.currentTimeMillis() - startedAt) }
+                    ticketStateLock.withLock {
                         runningHandler = false
                         currentLogId = null
                         currentTicket = null
                     }
-                    interrupted()
+                    Thread.interrupted()
                 }
             }
         } finally {
@@ -199,6 +302,31 @@ internal class ExecutorJobThread(
         }
     }
 
+    /**
+     * 在状态锁内等待并取出下一张票据，同时标记为当前票据，保证出队与 RUNNING 标记对 cancel 原子可见。
+     * 等待期间释放锁；空闲超过 [idleTimeoutMillis] 时标记停止并返回 null，由循环退出线程。
+     */
+    private fun takeTicket(): TriggerTicket? = ticketStateLock.withLock {
+        var idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis)
+        while (queue.isEmpty() && !toStop.get()) {
+            if (idleTimeoutMillis <= 0) {
+                ticketAvailable.await()
+            } else {
+                if (idleNanos <= 0) {
+                    toStop.set(true)
+                    logger.debug("JobThread 空闲超时回收: jobId={}", jobId)
+                    return@withLock null
+                }
+                idleNanos = ticketAvailable.awaitNanos(idleNanos)
+            }
+        }
+        if (toStop.get()) null else queue.poll()?.also {
+            runningHandler = true
+            currentLogId = it.context.logId
+            currentTicket = it
+        }
+    }
+
     private fun executeBound(context: JobExecutionContext): JobExecutionResult {
         onExecutionStarted(context)
         ScheduleLogHelper.bind(context)
@@ -211,7 +339,7 @@ internal class ExecutorJobThread(
     }
 
     private fun drainQueue(result: JobExecutionResult) {
-        val drained = synchronized(ticketStateLock) {
+        val drained = ticketStateLock.withLock {
             buildList {
                 while (true) add(queue.poll() ?: break)
             }
@@ -223,8 +351,22 @@ internal class ExecutorJobThread(
     private fun completeCancelledTickets(drained: List<TriggerTicket>, result: JobExecutionResult) {
         drained.forEach { ticket ->
             // 被 COVER_EARLY 或线程退出清空的票据也必须回写终态，避免 Admin 日志永久停留在 QUEUED。
-            onExecutionFinished(ticket.context, result, 0L)
-            ticket.complete(result)
+            finish(ticket, result, 0L)
+        }
+    }
+
+    /** 回写票据及其合并票据的终态；合并票据的结果注明实际执行的日志。 */
+    private fun finish(ticket: TriggerTicket, result: JobExecutionResult, durationMs: Long) {
+        onExecutionFinished(ticket.context, result, durationMs)
+        ticket.complete(result)
+        val followers = ticketStateLock.withLock { ticket.takeFollowers() }
+        if (followers.isEmpty()) return
+        val merged = result.copy(
+            message = "与日志 #${ticket.context.logId} 合并执行" + (result.message?.let { "：$it" } ?: "")
+        )
+        followers.forEach { follower ->
+            onExecutionFinished(follower.context, merged, durationMs)
+            follower.complete(merged)
         }
     }
 }
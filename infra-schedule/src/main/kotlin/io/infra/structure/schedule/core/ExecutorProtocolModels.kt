@@ -1,5 +1,28 @@
 package io.infra.structure.schedule.core
 
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+
+/** 异步执行请求的受理响应。 */
+data class ExecutorRunAcceptedResponse(
+    /** true 表示已进入 JobThread 队列，终态经执行器 finish 回调上报。 */
+    val accepted: Boolean,
+    /** 未受理时的确定结果（丢弃、覆盖超时、队列已满等）；受理时为空。 */
+    val result: JobExecutionResult? = null
+)
+
+/** 合批异步执行请求体，同一执行器地址的多条触发一次送达。 */
+data class ExecutorRunBatchRequest(
+    /** 各条触发的执行上下文，均须携带 logId。 */
+    val contexts: List<JobExecutionContext> = emptyList()
+)
+
+/** 合批异步执行的受理响应。 */
+data class ExecutorRunBatchResponse(
+    /** 与请求 [ExecutorRunBatchRequest.contexts] 顺序一一对应的受理结果。 */
+    val results: List<ExecutorRunAcceptedResponse> = emptyList()
+)
+
 /** 执行器终止请求体。 */
 data class ExecutorCancelRequest(
     /** 要精确终止的单次执行日志 ID，不按 jobId 批量中断。 */
@@ -10,7 +10,10 @@ import io.infra.structure.schedule.repository.ExecutorHeartbeatRepository
 import io.infra.structure.schedule.repository.RouteCursorRepository
 import io.infra.structure.schedule.repository.RouteNodeStatRepository
 import org.slf4j.LoggerFactory
+import java.io.Flushable
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
 import kotlin.random.Random
 
 /** 带数据库主键的可调度执行器，供执行日志关联执行器 ID 与目标地址。 */
@@ -28,7 +31,14 @@ data class RoutedExecutor(
     val routeNodeKey: String = RouteHash.addressKey(this)
 }
 
-/** 管理执行器实例、自动心跳注册、多地址路由和后台 CRUD 配置。 */
+/**
+ * 管理执行器实例、自动心跳注册、多地址路由和后台 CRUD 配置。
+ *
+ * 路由候选按分组（或指定执行器 ID）缓存为内存快照：快照年龄超过 [routeCacheRefreshMillis] 时由一个调用方重新加载，
+ * 其余调用方继续使用旧快照；超过 [routeCacheMaxStaleMillis] 后所有调用方同步加载。本节点收到的新地址心跳、
+ * 下线与后台配置变更会立即失效相关快照；其他调度节点上的变更最迟在上述时限内可见。
+ * [routeCacheRefreshMillis] 为 0 时不缓存，每次路由直接查库。
+ */
 class ExecutorRegistry(
     private val heartbeatRepository: ExecutorHeartbeatRepository,
     private val heartbeatTimeoutMillis: Long,
@@ -36,10 +46,19 @@ class ExecutorRegistry(
     private val routeStatRepository: RouteNodeStatRepository,
     private val routeCursorRepository: RouteCursorRepository,
     /** 查询执行器是否仍被任务引用，防止管理端删除后留下不可路由任务。 */
-    private val jobReferenceCounter: (Long) -> Long = { 0L }
+    private val jobReferenceCounter: (Long) -> Long = { 0L },
+    private val routeCacheRefreshMillis: Long = 0,
+    routeCacheMaxStaleMillis: Long = 0
 ) {
     private val logger = LoggerFactory.getLogger(javaClass)
     private val executors = ConcurrentHashMap<String, ScheduleExecutor>()
+    private val routeCacheMaxStaleMillis = maxOf(routeCacheMaxStaleMillis, routeCacheRefreshMillis)
+    /** 路由候选快照，键为分组名或 `executor:<id>`。 */
+    private val routeSnapshots = ConcurrentHashMap<String, RouteSnapshot>()
+    /** 每次失效递增；加载期间发生失效时不写回快照，避免以失效前读到的数据覆盖。 */
+    private val routeGeneration = AtomicLong()
+    /** 远程执行器客户端，键为 `分组|原始地址`；快照重载时清理已不可路由的地址。 */
+    private val remoteClients = ConcurrentHashMap<String, ScheduleExecutor>()
 
     /** 注册本地执行器并刷新以分组为唯一标识的心跳。 */
     fun register(executor: ScheduleExecutor) {
@@ -58,6 +77,10 @@ class ExecutorRegistry(
             address = address,
             lastHeartbeatTime = System.currentTimeMillis()
         ))
+        // 已在快照中的地址续约不改变路由结果；只有新上线地址需要让快照立即重载
+        val trimmed = address?.trim()?.takeIf { it.isNotBlank() } ?: return
+        val snapshot = routeSnapshots[executorGroup] ?: return
+        if (snapshot.nodes.none { it.hashRingKey == trimmed }) invalidateRoutes(executorGroup)
     }
 
     /**
@@ -66,22 +89,24 @@ class ExecutorRegistry(
      */
     fun markOffline(executorGroup: String, address: String? = null): Boolean {
         if (address.isNullOrBlank()) unregister(executorGroup)
-        return heartbeatRepository.markOffline(executorGroup, address)
+        return heartbeatRepository.markOffline(executorGroup, address).also { invalidateRoutes(executorGroup) }
     }
 
     /** 返回给定分组的健康、已启用执行器地址节点。 */
     fun activeExecutors(executorGroup: String): List<ScheduleExecutor> =
         activeRouted(executorGroup).map { it.executor }
 
-    /** 返回给定分组下全部可路由地址节点。 */
-    fun activeRouted(executorGroup: String): List<RoutedExecutor> {
-        val now = System.currentTimeMillis()
-        return heartbeatRepository.list(executorGroup, now, heartbeatTimeoutMillis)
+    /** 返回给定分组下全部可路由地址节点；命中快照时不查库。 */
+    fun activeRouted(executorGroup: String): List<RoutedExecutor> =
+        cachedRoutes(executorGroup) { now -> loadActiveRouted(executorGroup, now) }
+
+    private fun loadActiveRouted(executorGroup: String, now: Long): List<RoutedExecutor> =
+        heartbeatRepository.list(executorGroup, now, heartbeatTimeoutMillis)
             // 数据库查询负责过滤超时自动注册实例；这里再次排除人工禁用的执行器分组。
             .filter { it.status == ExecutorStatus.ENABLED }
             .flatMap { expandAddresses(it, now) }
             .sortedWith(compareBy({ it.dbId }, { it.address ?: "" }))
-    }
+            .also { retainRoutableClients(executorGroup, it) }
 
     /** 按数据库自增 ID 获取健康节点（多地址时返回首个）。 */
     fun activeExecutor(id: Long): ScheduleExecutor? = activeNodes(id).firstOrNull()?.executor
@@ -105,12 +130,11 @@ class ExecutorRegistry(
      */
     fun runnableExecutor(id: Long): ScheduleExecutor? = runnableNodes(id).firstOrNull()?.executor
 
-    /** 按数据库自增 ID 获取可调用的全部地址节点。 */
-    fun runnableNodes(id: Long): List<RoutedExecutor> {
-        val heartbeat = heartbeatRepository.findById(id) ?: return emptyList()
-        if (heartbeat.status != ExecutorStatus.ENABLED) return emptyList()
+    /** 按数据库自增 ID 获取可调用的全部地址节点；命中快照时不查库。 */
+    fun runnableNodes(id: Long): List<RoutedExecutor> = cachedRoutes("$EXECUTOR_SNAPSHOT_PREFIX$id") { now ->
+        val heartbeat = heartbeatRepository.findById(id)
         // 手动地址即使没有心跳也可调用；自动注册地址的过期过滤在 expandAddresses 中执行。
-        return expandAddresses(heartbeat, System.currentTimeMillis())
+        if (heartbeat == null || heartbeat.status != ExecutorStatus.ENABLED) emptyList() else expandAddresses(heartbeat, now)
     }
 
     /** 兼容旧调用：返回单个路由节点。 */
@@ -139,7 +163,7 @@ class ExecutorRegistry(
             addressMode = draft.addressMode,
             status = draft.status,
             lastHeartbeatTime = System.currentTimeMillis()
-        ))
+        )).also { invalidateRoutes(it.executorGroup) }
     }
 
     /** 编辑执行器配置；分组不可修改，以保持心跳关联稳定。 */
@@ -153,7 +177,7 @@ class ExecutorRegistry(
                 addressMode = draft.addressMode,
                 status = draft.status
             )
-        )
+        ).also { invalidateRoutes(it.executorGroup) }
     }
 
     /** 删除执行器登记配置。 */
@@ -165,11 +189,51 @@ class ExecutorRegistry(
             throw IllegalStateException("执行器仍被任务引用，不能删除: $id")
         }
         executors.remove(executor.executorGroup)
+        invalidateRoutes(executor.executorGroup)
         return true
     }
 
     /** 设置执行器启停状态。 */
-    fun setStatus(id: Long, status: ExecutorStatus): Boolean = heartbeatRepository.updateStatus(id, status)
+    fun setStatus(id: Long, status: ExecutorStatus): Boolean {
+        val updated = heartbeatRepository.updateStatus(id, status)
+        if (updated) heartbeatRepository.findById(id)?.let { invalidateRoutes(it.executorGroup) }
+        return updated
+    }
+
+    /** 将本地累积的路由统计写回共享存储；统计仓储不做本地缓冲时为空操作。 */
+    fun flushRouteState() {
+        (routeStatRepository as? Flushable)?.flush()
+    }
+
+    /** 使分组快照与全部按执行器 ID 缓存的快照失效；后者数量少且变更罕见，不逐一比对分组。 */
+    fun invalidateRoutes(executorGroup: String) {
+        routeGeneration.incrementAndGet()
+        routeSnapshots.remove(executorGroup)
+        routeSnapshots.keys.removeIf { it.startsWith(EXECUTOR_SNAPSHOT_PREFIX) }
+    }
+
+    private fun cachedRoutes(key: String, loader: (Long) -> List<RoutedExecutor>): List<RoutedExecutor> {
+        val now = System.currentTimeMillis()
+        if (routeCacheRefreshMillis <= 0) return loader(now)
+        val current = routeSnapshots[key]
+        if (current != null) {
+            val age = now - current.loadedAt
+            if (age < routeCacheRefreshMillis) return current.nodes
+            // 软过期：仅一个调用方负责重载，其余调用方在硬上限内继续使用旧快照
+            if (age < routeCacheMaxStaleMillis && !current.refreshing.compareAndSet(false, true)) return current.nodes
+        }
+        val generation = routeGeneration.get()
+        val nodes = try {
+            loader(now)
+        } catch (exception: Exception) {
+            current?.refreshing?.set(false)
+            throw exception
+        }
+        if (routeGeneration.get() == generation) {
+            routeSnapshots[key] = RouteSnapshot(nodes, now)
+        }
+        return nodes
+    }
 
     /** 按策略选择执行器；任务已指定自增 ID 时由调用方使用 [runnableNodes] + [applyRoute]。 */
     fun select(executorGroup: String, strategy: RouteStrategy, routeKey: String): List<ScheduleExecutor> =
@@ -205,7 +269,7 @@ class ExecutorRegistry(
                 candidates[index]
             }
             RouteStrategy.RANDOM -> candidates[Random.nextInt(candidates.size)]
-            RouteStrategy.CONSISTENT_HASH -> selectConsistentHash(candidates, routeKey)
+            RouteStrategy.CONSISTENT_HASH -> selectConsistentHash(candidates, routeKey, cursorKey)
             RouteStrategy.LEAST_FREQUENTLY_USED -> selectLfu(candidates)
             RouteStrategy.LEAST_RECENTLY_USED -> selectLru(candidates)
             RouteStrategy.FAILOVER,
@@ -216,9 +280,9 @@ class ExecutorRegistry(
         return listOf(selected)
     }
 
-    private fun selectConsistentHash(candidates: List<RoutedExecutor>, routeKey: String): RoutedExecutor {
+    private fun selectConsistentHash(candidates: List<RoutedExecutor>, routeKey: String, ringKey: String): RoutedExecutor {
         val byAddress = candidates.groupBy { RouteHash.hashRingKey(it) }
-        val selectedAddress = RouteHash.selectConsistentAddress(routeKey, byAddress.keys.sorted())
+        val selectedAddress = RouteHash.selectConsistentAddress(routeKey, byAddress.keys.sorted(), ringKey)
             ?: return candidates.first()
         return byAddress[selectedAddress]?.firstOrNull() ?: candidates.first()
     }
@@ -275,7 +339,7 @@ class ExecutorRegistry(
         }
         val normalized = ExecutorAddresses.normalizeHttpBaseUrl(trimmed)
         if (normalized != null) {
-            val remote = clientFactory?.create(heartbeat.copy(address = trimmed))
+            val remote = remoteClient(heartbeat, trimmed)
                 ?: run {
                     logger.warn(
                         "无法创建远程执行器客户端，节点已跳过: executorId={}, group={}, address={}",
@@ -295,4 +359,30 @@ class ExecutorRegistry(
         )
         return null
     }
+
+    /** HTTP 客户端只依赖分组与地址，按二者复用；创建失败不缓存，下次路由重试。 */
+    private fun remoteClient(heartbeat: ExecutorHeartbeat, address: String): ScheduleExecutor? {
+        val factory = clientFactory ?: return null
+        return remoteClients["${heartbeat.executorGroup}|$address"]
+            ?: factory.create(heartbeat.copy(address = address))?.let {
+                remoteClients.putIfAbsent("${heartbeat.executorGroup}|$address", it) ?: it
+            }
+    }
+
+    /** 分组全量加载后清理已不可路由地址的客户端，避免滚动发布后旧地址客户端累积。 */
+    private fun retainRoutableClients(executorGroup: String, nodes: List<RoutedExecutor>) {
+        val live = nodes.mapNotNullTo(HashSet()) { it.hashRingKey }
+        remoteClients.keys.removeIf { key ->
+            key.startsWith("$executorGroup|") && key.substringAfter('|') !in live
+        }
+    }
+
+    /** 某一时刻加载的不可变路由候选。 */
+    private class RouteSnapshot(val nodes: List<RoutedExecutor>, val loadedAt: Long) {
+        val refreshing = AtomicBoolean(false)
+    }
+
+    private companion object {
+        const val EXECUTOR_SNAPSHOT_PREFIX = "executor:"
+    }
 }
@@ -1,21 +1,40 @@
 package io.infra.structure.schedule.core
 
 import io.infra.structure.schedule.model.BlockStrategy
+import io.infra.structure.schedule.model.ExecutorThreadMode
 import io.infra.structure.schedule.model.JobExecutionContext
 import io.infra.structure.schedule.model.JobExecutionResult
 import org.slf4j.LoggerFactory
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
 
 /**
  * 执行器侧任务协调器：按 jobId 维护 JobThread，解释阻塞策略（对齐 xxl-job ExecutorBizImpl.run）。
  * HTTP `/run` 与本地执行器共用。
+ *
+ * [threadMode] 决定 JobThread 使用平台线程还是虚拟线程；[jobThreadIdleTimeoutMillis] 大于 0 时
+ * 空闲 JobThread 超时后自行退出，下一次触发再重建。
+ *
+ * [maxConcurrentExecutions] 大于 0 时限制整个执行器同时运行的 Handler 数，超出的触发在各自 JobThread 中
+ * 按 [JobExecutionContext.priority] 加权公平等待名额（见 [FairExecutionSlots]）；0 表示不限制。
+ *
+ * 任务开启 [JobExecutionContext.coalesceDuplicates] 时，按 jobId、参数与分片位置生成去重键：
+ * SERIAL 下与仍在排队的相同触发合并，共享一次执行结果；[JobExecutionContext.resultCacheMillis] 大于 0 时
+ * 成功结果在该窗口内缓存，手动与定时重叠、故障转移重发等重复触发直接返回缓存结果，不再执行 Handler。
  */
 class ExecutorTaskTracker(
     private val handlerRegistry: HandlerRegistry,
     private val coverEarlyWaitMillis: Long = 5_000L,
     private val onExecutionStarted: (JobExecutionContext) -> Unit = {},
-    private val onExecutionFinished: (JobExecutionContext, JobExecutionResult, Long) -> Unit = { _, _, _ -> }
+    private val onExecutionFinished: (JobExecutionContext, JobExecutionResult, Long) -> Unit = { _, _, _ -> },
+    private val threadMode: ExecutorThreadMode = ExecutorThreadMode.PLATFORM,
+    private val jobThreadIdleTimeoutMillis: Long = 0,
+    maxConcurrentExecutions: Int = 0
 ) {
     private val logger = LoggerFactory.getLogger(javaClass)
     private val jobThreads = ConcurrentHashMap<Long, ExecutorJobThread>()
@@ -24,23 +43,78 @@ class ExecutorTaskTracker(
      * 线程退出与新请求交错时不能提前移除锁，否则两个请求可能各自创建一把锁并同时协调同一个 jobId。
      */
     private val admissionLocks = ConcurrentHashMap<Long, AdmissionLock>()
+    private val executionSlots = maxConcurrentExecutions.takeIf { it > 0 }?.let(::FairExecutionSlots)
+    /** 去重键 -> 最近一次成功结果；过期条目在读取或写入时清理。 */
+    private val resultCache = ConcurrentHashMap<TriggerDedupKey, CachedResult>()
 
     /**
      * 按阻塞策略入队或丢弃/覆盖，并同步等待本次触发的执行结果。
      */
     fun run(context: JobExecutionContext): JobExecutionResult {
+        val ticket = TriggerTicket(context)
+        return admit(ticket) ?: ticket.await()
+    }
+
+    /**
+     * 按阻塞策略入队后立即返回，不等待执行结果；供异步 `/run-async` 使用。
+     *
+     * 返回 null 表示已入队，终态经 [onExecutionFinished] 回调上报；非 null 表示未受理
+     * （丢弃、覆盖超时、队列已满等），调用方应直接以该结果收口。
+     */
+    fun submit(context: JobExecutionContext): JobExecutionResult? = admit(TriggerTicket(context))
+
+    /**
+     * 批量版 [submit]，结果与 [contexts] 顺序一一对应；供合批 `/run-async/batch` 使用。
+     *
+     * 按 jobId 分组，各组在独立虚拟线程上依次受理：同一任务的触发保持先后顺序，
+     * 某个任务的 COVER_EARLY 等待旧线程退出时不会拖住同批其他任务。整批最多等待 [timeoutMillis]，
+     * 届时仍未受理完的触发按结果未知返回，受理在后台继续，由调度侧探活收口。
+     */
+    fun submitAll(
+        contexts: List<JobExecutionContext>,
+        timeoutMillis: Long = coverEarlyWaitMillis + BATCH_ADMISSION_GRACE_MILLIS
+    ): List<JobExecutionResult?> {
+        if (contexts.size <= 1) return contexts.map(::submit)
+        val admissions = contexts.map { CompletableFuture<JobExecutionResult?>() }
+        contexts.indices.groupBy { contexts[it].jobId }.values.forEach { indices ->
+            Thread.ofVirtual().name("infra-schedule-admit-${contexts[indices.first()].jobId}").start {
+                for (index in indices) {
+                    admissions[index].complete(
+                        try {
+                            submit(contexts[index])
+                        } catch (exception: Exception) {
+                            val context = contexts[index]
+                            logger.warn("批量受理触发失败: jobId={}, logId={}", context.jobId, context.logId, exception)
+                            JobExecutionResult.failure("受理触发失败: ${exception.message}", uncertain = true)
+                        }
+                    )
+                }
+            }
+        }
+        val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)
+        return admissions.map { admission ->
+            try {
+                admission.get((deadline - System.nanoTime()).coerceAtLeast(0), TimeUnit.NANOSECONDS)
+            } catch (_: TimeoutException) {
+                JobExecutionResult.failure("批量受理超过 $timeoutMillis 毫秒仍未完成，结果未知", uncertain = true)
+            }
+        }
+    }
+
+    private fun admit(ticket: TriggerTicket): JobExecutionResult? {
+        val context = ticket.context
         val jobId = context.jobId
         if (jobId <= 0) {
             return JobExecutionResult.failure("无效的 jobId")
         }
+        cachedResult(ticket)?.let { return it }
         val admission = admissionLocks.compute(jobId) { _, current ->
             (current ?: AdmissionLock()).also { it.users.incrementAndGet() }
         } ?: error("无法取得任务协调锁: $jobId")
-        val ticket = TriggerTicket(context)
         try {
-            synchronized(admission.monitor) {
+            admission.lock.withLock {
                 var jobThread = jobThreads[jobId]
-                if (jobThread != null && !jobThread.isAlive) {
+                if (jobThread != null && (!jobThread.isAlive || jobThread.isStopped)) {
                     jobThreads.remove(jobId, jobThread)
                     jobThread = null
                 }
@@ -68,33 +142,27 @@ class ExecutorTaskTracker(
                             jobThread = null
                         }
                         BlockStrategy.SERIAL -> {
-                            // 入队串行
+                            // 入队串行；相同触发仍在排队时合并到其名下
+                            if (jobThread.coalesce(ticket)) {
+                                logger.debug("合并重复触发: jobId={}, logId={}", jobId, context.logId)
+                                return null
+                            }
                         }
                     }
                 }
                 if (jobThread == null) {
-                    jobThread = ExecutorJobThread(
-                        jobId,
-                        handlerRegistry,
-                        onExecutionStarted,
-                        onExecutionFinished
-                    ) { exited ->
-                        // COVER_EARLY 会持有 admission monitor 等待旧线程退出；退出回调不能再争用
-                        // 该 monitor，否则 join 会互相等待。Map.compute 保证回收与新请求取锁原子串行。
-                        jobThreads.remove(jobId, exited)
-                        admissionLocks.computeIfPresent(jobId) { _, current ->
-                            if (current === admission && current.users.get() == 0) null else current
-                        }
-                    }
-                    jobThreads[jobId] = jobThread
-                    jobThread.start()
+                    jobThread = startJobThread(jobId, admission)
                 }
+                cacheResultOnSuccess(ticket)
                 if (!jobThread.offer(ticket)) {
-                    return JobExecutionResult.failure("触发队列已满")
+                    // 空闲回收与本次入队交错：旧线程已拒收，重建后再投递一次
+                    if (!jobThread.isStopped || !startJobThread(jobId, admission).offer(ticket)) {
+                        return JobExecutionResult.failure("触发队列已满")
+                    }
                 }
             }
         } finally {
-            synchronized(admission.monitor) {
+            admission.lock.withLock {
                 if (admission.users.decrementAndGet() == 0 && !jobThreads.containsKey(jobId)) {
                     admissionLocks.computeIfPresent(jobId) { _, current ->
                         if (current === admission && current.users.get() == 0) null else current
@@ -102,7 +170,61 @@ class ExecutorTaskTracker(
                 }
             }
         }
-        return ticket.await()
+        return null
+    }
+
+    /** 命中未过期的成功结果时返回其副本，窗口以本次触发携带的 [JobExecutionContext.resultCacheMillis] 为准。 */
+    private fun cachedResult(ticket: TriggerTicket): JobExecutionResult? {
+        val ttl = ticket.context.resultCacheMillis
+        val key = ticket.dedupKey?.takeIf { ttl > 0 } ?: return null
+        val cached = resultCache[key] ?: return null
+        if (System.currentTimeMillis() - cached.finishTime >= ttl) {
+            resultCache.remove(key, cached)
+            return null
+        }
+        logger.debug("复用缓存结果: jobId={}, logId={}, sourceLogId={}", key.jobId, ticket.context.logId, cached.logId)
+        return cached.result.copy(
+            message = "复用日志 #${cached.logId} 的执行结果" + (cached.result.message?.let { "：$it" } ?: "")
+        )
+    }
+
+    /**
+     * 票据成功完成时写入结果缓存，写入先于等待方拿到结果。
+     * 只缓存真正执行过的首个票据，合并票据共享同一结果无需重复写入。
+     */
+    private fun cacheResultOnSuccess(ticket: TriggerTicket) {
+        val ttl = ticket.context.resultCacheMillis
+        val key = ticket.dedupKey?.takeIf { ttl > 0 } ?: return
+        ticket.beforeComplete { result ->
+            if (!result.success) return@beforeComplete
+            val now = System.currentTimeMillis()
+            if (resultCache.size >= MAX_CACHED_RESULTS) {
+                resultCache.values.removeIf { now >= it.expireTime }
+            }
+            resultCache[key] = CachedResult(result, ticket.context.logId, now, now + ttl)
+        }
+    }
+
+    private fun startJobThread(jobId: Long, admission: AdmissionLock): ExecutorJobThread {
+        val jobThread = ExecutorJobThread(
+            jobId,
+            handlerRegistry,
+            onExecutionStarted,
+            onExecutionFinished,
+            threadMode,
+            jobThreadIdleTimeoutMillis,
+            executionSlots
+        ) { exited ->
+            // COVER_EARLY 会持有 admission 锁等待旧线程退出；退出回调不能再争用
+            // 该锁，否则 join 会互相等待。Map.compute 保证回收与新请求取锁原子串行。
+            jobThreads.remove(jobId, exited)
+            admissionLocks.computeIfPresent(jobId) { _, current ->
+                if (current === admission && current.users.get() == 0) null else current
+            }
+        }
+        jobThreads[jobId] = jobThread
+        jobThread.start()
+        return jobThread
     }
 
     /** 中断指定日志对应的 handler 或队列项。 */
@@ -120,6 +242,14 @@ class ExecutorTaskTracker(
     /** 指定日志 ID 是否仍在执行或排队。 */
     fun isRunning(logId: Long): Boolean = jobThreads.values.any { it.isRunning(logId) }
 
+    /**
+     * 当前排队或执行中的全部日志 ID，随心跳上报供调度中心批量对账。
+     * 终态回调在票据移出前触发，调用方应先取本集合再取待上报终态，二者之间不会漏掉同一日志。
+     */
+    fun activeLogIds(): Set<Long> = HashSet<Long>().also { ids ->
+        jobThreads.values.forEach { it.collectActiveLogIds(ids) }
+    }
+
     /** 指定 job 是否空闲（无运行中 handler 且队列为空），供 BUSYOVER idleBeat。 */
     fun isJobIdle(jobId: Long): Boolean {
         val thread = jobThreads[jobId] ?: return true
@@ -127,9 +257,25 @@ class ExecutorTaskTracker(
         return !thread.isRunningOrHasQueue()
     }
 
+    /** 缓存的成功结果；[expireTime] 只用于容量清理，命中判断以触发携带的窗口为准。 */
+    private class CachedResult(
+        val result: JobExecutionResult,
+        val logId: Long?,
+        val finishTime: Long,
+        val expireTime: Long
+    )
+
     /** 同一 jobId 的入队协调锁与当前等待请求数。 */
     private class AdmissionLock {
-        val monitor = Any()
+        /** 使用 [ReentrantLock]：COVER_EARLY 持锁等待旧线程退出时，虚拟线程调用方不会钉住载体线程。 */
+        val lock = ReentrantLock()
         val users = AtomicInteger()
     }
+
+    private companion object {
+        /** 结果缓存条目数达到该值时先清理过期条目。 */
+        const val MAX_CACHED_RESULTS = 10_000
+        /** 批量受理在 COVER_EARLY 等待上限之外预留的入队耗时。 */
+        const val BATCH_ADMISSION_GRACE_MILLIS = 1_000L
+    }
 }
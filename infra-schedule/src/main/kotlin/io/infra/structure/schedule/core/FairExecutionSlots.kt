@@ -0,0 +1,126 @@
+package io.infra.structure.schedule.core
+
+import java.util.PriorityQueue
+import java.util.concurrent.locks.Condition
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/** [FairExecutionSlots.acquire] 发放的执行名额，执行结束后按实际耗时交还。 */
+internal class ExecutionSlot(
+    val jobId: Long,
+    val priority: Int,
+    /** 获得名额时的虚拟开始标签。 */
+    val startTag: Double
+)
+
+/**
+ * 执行器全局并发名额，按任务加权公平分配（Start-time Fair Queueing）。
+ *
+ * 每个 jobId 记录上次执行结束后的虚拟完成标签 `开始标签 + 实际耗时 / 权重`，权重为 `priority + 1`。
+ * 名额不足时等待方按开始标签 `max(上次完成标签, 当前虚拟时间)` 从小到大获得名额，标签相同时优先级高者先行。
+ * 长耗时批任务的完成标签推进得快，短小或高优先级任务即使后到也能排在前面，不会被持续饿死；
+ * 空闲后重新到来的任务从当前虚拟时间起算，不会积累历史额度。
+ *
+ * 同一 jobId 由单条 JobThread 串行执行，同时最多持有一个名额，因此释放时按实际耗时记账即可。
+ * 等待可被中断：JobThread 的按日志取消与 COVER_EARLY 通过中断撤销尚未获得名额的票据。
+ */
+internal class FairExecutionSlots(
+    private val maxConcurrent: Int
+) {
+    private val lock = ReentrantLock()
+    private val waiters = PriorityQueue(
+        compareBy<Waiter>({ it.startTag }, { -it.priority }, { it.sequence })
+    )
+    /** jobId -> 上次执行的虚拟完成标签；不大于 [virtualTime] 的条目与缺省等价，可随时清理。 */
+    private val finishTags = HashMap<Long, Double>()
+    private var running = 0
+    private var virtualTime = 0.0
+    private var sequence = 0L
+
+    init {
+        require(maxConcurrent > 0) { "最大并发执行数必须大于 0" }
+    }
+
+    /** 当前占用的名额数。 */
+    val runningCount: Int
+        get() = lock.withLock { running }
+
+    /** 当前等待名额的执行数。 */
+    val waitingCount: Int
+        get() = lock.withLock { waiters.size }
+
+    /** 获取一个名额；名额不足时按公平顺序阻塞等待，等待期间被中断则放弃排队并抛出 [InterruptedException]。 */
+    @Throws(InterruptedException::class)
+    fun acquire(jobId: Long, priority: Int): ExecutionSlot {
+        lock.lockInterruptibly()
+        try {
+            val startTag = maxOf(finishTags[jobId] ?: 0.0, virtualTime)
+            if (running < maxConcurrent && waiters.isEmpty()) {
+                return grant(jobId, priority, startTag)
+            }
+            val waiter = Waiter(jobId, priority, startTag, sequence++, lock.newCondition())
+            waiters.add(waiter)
+            try {
+                while (waiter.slot == null) {
+                    waiter.condition.await()
+                }
+            } catch (exception: InterruptedException) {
+                // 中断与发放交错时名额已记在本等待方名下，必须原样交还给下一位
+                if (waiter.slot != null) {
+                    running--
+                    dispatch()
+                } else {
+                    waiters.remove(waiter)
+                }
+                throw exception
+            }
+            return requireNotNull(waiter.slot)
+        } finally {
+            lock.unlock()
+        }
+    }
+
+    /** 交还名额，并按 [elapsedMillis] 推进该任务的完成标签后唤醒下一位等待方。 */
+    fun release(slot: ExecutionSlot, elapsedMillis: Long) {
+        lock.withLock {
+            running--
+            finishTags[slot.jobId] = slot.startTag + elapsedMillis.coerceAtLeast(1).toDouble() / weight(slot.priority)
+            dispatch()
+            if (finishTags.size > MAX_TRACKED_JOBS) {
+                finishTags.values.removeIf { it <= virtualTime }
+            }
+        }
+    }
+
+    private fun dispatch() {
+        while (running < maxConcurrent) {
+            val next = waiters.poll() ?: return
+            next.slot = grant(next.jobId, next.priority, next.startTag)
+            next.condition.signal()
+        }
+    }
+
+    private fun grant(jobId: Long, priority: Int, startTag: Double): ExecutionSlot {
+        running++
+        virtualTime = maxOf(virtualTime, startTag)
+        return ExecutionSlot(jobId, priority, startTag)
+    }
+
+    private fun weight(priority: Int): Int = priority.coerceAtLeast(0) + 1
+
+    private class Waiter(
+        val jobId: Long,
+        val priority: Int,
+        val startTag: Double,
+        val sequence: Long,
+        val condition: Condition
+    ) {
+        /** 由发放方在锁内写入，等待方在锁内读取。 */
+        var slot: ExecutionSlot? = null
+    }
+
+    private companion object {
+        /** 完成标签表超过该条目数时清理已落后于虚拟时间的任务。 */
+        const val MAX_TRACKED_JOBS = 4_096
+    }
+}
@@ -0,0 +1,112 @@
+package io.infra.structure.schedule.core
+
+/**
+ * 分层时间轮：第 L 层每格跨 `wheelSize^L` 个 tick，插入与每 tick 推进均为 O(1)（层级进位时摊还）。
+ *
+ * 到期判定按 tick 向上取整，条目只会在 `now >= deadline` 之后的首个 tick 到期，绝不提前。
+ * 超出最高层范围的条目进入溢出表，随最高层进位重新放置。
+ * 时间由调用方通过 [advance] 传入，便于在测试中使用虚拟时钟；非线程安全，由调用方加锁。
+ */
+class HierarchicalTimingWheel<T>(
+    private val tickMillis: Long,
+    startMillis: Long,
+    private val wheelSize: Int = DEFAULT_WHEEL_SIZE,
+    private val levels: Int = DEFAULT_LEVELS
+) {
+    private val slots = Array(levels) { Array(wheelSize) { ArrayList<Entry<T>>() } }
+    private val overflow = ArrayList<Entry<T>>()
+    private var currentTick = Math.floorDiv(startMillis, tickMillis)
+    private var size = 0
+
+    init {
+        require(tickMillis > 0) { "时间轮 tick 必须大于 0" }
+        require(wheelSize >= 2 && levels >= 1) { "时间轮每层格数至少为 2，层数至少为 1" }
+    }
+
+    /** 尚未到期的条目数。 */
+    fun size(): Int = size
+
+    /** 当前已推进到的时间（tick 对齐）。 */
+    fun currentMillis(): Long = currentTick * tickMillis
+
+    /** 下一个 tick 的起始时间，调用方据此休眠。 */
+    fun nextTickMillis(): Long = (currentTick + 1) * tickMillis
+
+    /**
+     * 加入一个在 [deadlineMillis] 到期的条目。
+     * @return false 表示已经到期，未加入时间轮，调用方应立即处理
+     */
+    fun add(deadlineMillis: Long, item: T): Boolean {
+        val entry = Entry(Math.ceilDiv(deadlineMillis, tickMillis), item)
+        if (!place(entry)) return false
+        size++
+        return true
+    }
+
+    /** 推进到 [nowMillis]，按到期顺序把到期条目交给 [expired]。 */
+    fun advance(nowMillis: Long, expired: (T) -> Unit) {
+        val target = Math.floorDiv(nowMillis, tickMillis)
+        if (size == 0) {
+            if (target > currentTick) currentTick = target
+            return
+        }
+        while (currentTick < target) {
+            currentTick++
+            cascade(expired)
+            drain(slots[0][slotIndex(currentTick)], expired)
+            if (size == 0) {
+                currentTick = target
+                return
+            }
+        }
+    }
+
+    /** 进位：先处理高层，使逐层下放的条目能在同一 tick 继续下放到第 0 层。 */
+    private fun cascade(expired: (T) -> Unit) {
+        var span = 1L
+        repeat(levels) { span *= wheelSize }
+        if (currentTick % span == 0L) drain(overflow, expired)
+        for (level in levels - 1 downTo 1) {
+            span /= wheelSize
+            if (currentTick % span == 0L) drain(slots[level][slotIndex(currentTick / span)], expired)
+        }
+    }
+
+    /** 取出一格全部条目重新放置；已到期的交给 [expired]。 */
+    private fun drain(bucket: MutableList<Entry<T>>, expired: (T) -> Unit) {
+        if (bucket.isEmpty()) return
+        val entries = ArrayList(bucket)
+        bucket.clear()
+        entries.sortBy { it.tick }
+        entries.forEach { entry ->
+            if (!place(entry)) {
+                size--
+                expired(entry.item)
+            }
+        }
+    }
+
+    private fun place(entry: Entry<T>): Boolean {
+        val delta = entry.tick - currentTick
+        if (delta <= 0) return false
+        var span = 1L
+        for (level in 0 until levels) {
+            if (delta < span * wheelSize) {
+                slots[level][slotIndex(entry.tick / span)].add(entry)
+                return true
+            }
+            span *= wheelSize
+        }
+        overflow.add(entry)
+        return true
+    }
+
+    private fun slotIndex(value: Long): Int = Math.floorMod(value, wheelSize.toLong()).toInt()
+
+    private class Entry<T>(val tick: Long, val item: T)
+
+    private companion object {
+        const val DEFAULT_WHEEL_SIZE = 64
+        const val DEFAULT_LEVELS = 4
+    }
+}
@@ -0,0 +1,151 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.repository.RouteCursorRepository
+import io.infra.structure.schedule.repository.RouteNodeStat
+import io.infra.structure.schedule.repository.RouteNodeStatRepository
+import org.slf4j.LoggerFactory
+import java.io.Flushable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 调度节点本地的 ROUND 游标与 LFU/LRU 统计，包装共享仓储以避免每次路由都读写数据库。
+ *
+ * - ROUND：每个游标键在首次使用时从共享游标取一次起点，之后在内存中递增；多个调度节点起点错开，
+ *   整体仍近似均匀轮询，但不保证全局严格顺序。
+ * - LFU/LRU：统计值 = 最近一次从共享仓储读到的基线 + 本地未写回的增量。[flush] 把增量批量写回，
+ *   并重新读取基线以吸收其他调度节点写回的选用次数，每次写回即一个对齐周期。
+ */
+class LocalRouteState(
+    private val cursorDelegate: RouteCursorRepository,
+    private val statDelegate: RouteNodeStatRepository
+) : RouteCursorRepository, RouteNodeStatRepository, Flushable {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val cursors = ConcurrentHashMap<String, AtomicLong>()
+    private val usages = ConcurrentHashMap<String, NodeUsage>()
+
+    override fun nextRoundIndex(cursorKey: String, candidateSize: Int): Int {
+        require(candidateSize > 0) { "候选节点数必须大于 0" }
+        val cursor = cursors[cursorKey] ?: cursors.computeIfAbsent(cursorKey) { AtomicLong(seedCursor(it)) }
+        return Math.floorMod(cursor.getAndIncrement(), candidateSize)
+    }
+
+    override fun stats(nodeKeys: Collection<String>): Map<String, RouteNodeStat> {
+        if (nodeKeys.isEmpty()) return emptyMap()
+        val missing = nodeKeys.filterNot { usages.containsKey(it) }
+        if (missing.isNotEmpty()) {
+            val loaded = loadStats(missing)
+            missing.forEach { key -> usages.putIfAbsent(key, NodeUsage(loaded[key])) }
+        }
+        val now = System.currentTimeMillis()
+        return nodeKeys.associateWith { key -> usage(key, now).snapshot(key) }
+    }
+
+    override fun recordUse(nodeKey: String, now: Long) {
+        // 取到的实例恰被 flush 淘汰时重新取一次，淘汰与计数以 pending 上的 CAS 互斥，增量不会落在已移除的实例上
+        while (!usage(nodeKey, now).record(now)) {
+            Thread.onSpinWait()
+        }
+    }
+
+    /** 把本地增量写回共享仓储并刷新基线；写回失败的增量保留到下一周期。 */
+    override fun flush() {
+        val now = System.currentTimeMillis()
+        for ((key, usage) in usages) {
+            val count = usage.pending.getAndSet(0)
+            if (count == 0) {
+                if (now - usage.lastAccess > IDLE_EVICT_MILLIS) evictIfIdle(key, usage)
+                continue
+            }
+            try {
+                statDelegate.recordUses(key, count, usage.lastRouteTime.get())
+                usage.flushed(count)
+            } catch (exception: Exception) {
+                usage.pending.addAndGet(count)
+                logger.warn("路由统计写回失败，保留至下次写回: nodeKey={}, count={}", key, count, exception)
+            }
+        }
+        if (usages.isEmpty()) return
+        loadStats(usages.keys.toList()).forEach { (key, stat) -> usages[key]?.rebase(stat) }
+    }
+
+    /** 在映射的原子更新内确认没有新增量后才移除；之后仍持有该实例的 [recordUse] 会重新取新实例。 */
+    private fun evictIfIdle(key: String, usage: NodeUsage) {
+        usages.computeIfPresent(key) { _, current ->
+            if (current === usage && current.markEvicted()) null else current
+        }
+    }
+
+    private fun usage(key: String, now: Long): NodeUsage =
+        (usages[key] ?: usages.computeIfAbsent(key) { NodeUsage(null) }).also { it.lastAccess = now }
+
+    /** 共享游标每取一次递增 1，各调度节点因此获得错开的起点；共享存储不可用时随机起点。 */
+    private fun seedCursor(cursorKey: String): Long = try {
+        cursorDelegate.nextRoundIndex(cursorKey, SEED_RANGE).toLong()
+    } catch (exception: Exception) {
+        logger.warn("读取共享轮询游标失败，使用随机起点: cursorKey={}", cursorKey, exception)
+        ThreadLocalRandom.current().nextInt(SEED_RANGE).toLong()
+    }
+
+    private fun loadStats(keys: Collection<String>): Map<String, RouteNodeStat> = try {
+        statDelegate.stats(keys)
+    } catch (exception: Exception) {
+        logger.warn("读取共享路由统计失败，沿用本地统计: keys={}", keys.size, exception)
+        emptyMap()
+    }
+
+    /** 单个路由节点的基线与本地增量。 */
+    private class NodeUsage(base: RouteNodeStat?) {
+        @Volatile
+        private var baseCount: Int = base?.useCount ?: 0
+        @Volatile
+        private var baseLastRouteTime: Long = base?.lastRouteTime ?: 0
+        /** 尚未写回共享仓储的选用次数；[EVICTED] 表示已被淘汰，不再接受计数。 */
+        val pending = AtomicInteger()
+        /** 本节点最近一次选用时间。 */
+        val lastRouteTime = AtomicLong()
+        @Volatile
+        var lastAccess: Long = System.currentTimeMillis()
+
+        /** 计入一次选用；实例已被淘汰时返回 false，由调用方改用新实例。 */
+        fun record(now: Long): Boolean {
+            while (true) {
+                val current = pending.get()
+                if (current == EVICTED) return false
+                if (pending.compareAndSet(current, current + 1)) break
+            }
+            lastRouteTime.accumulateAndGet(now, ::maxOf)
+            return true
+        }
+
+        /** 仍无待写回增量时标记淘汰；与 [record] 的 CAS 互斥，二者只有一方成功。 */
+        fun markEvicted(): Boolean = pending.compareAndSet(0, EVICTED)
+
+        /** 增量已写回，在下次 [rebase] 前先计入基线，避免统计值短暂回落。 */
+        fun flushed(count: Int) {
+            baseCount += count
+        }
+
+        fun rebase(stat: RouteNodeStat) {
+            baseCount = stat.useCount
+            baseLastRouteTime = stat.lastRouteTime
+        }
+
+        fun snapshot(key: String) = RouteNodeStat(
+            nodeKey = key,
+            useCount = baseCount + pending.get().coerceAtLeast(0),
+            lastRouteTime = maxOf(baseLastRouteTime, lastRouteTime.get())
+        )
+    }
+
+    private companion object {
+        /** 起点取值范围，足以让不同调度节点在常见候选数下错开。 */
+        const val SEED_RANGE = 1 shl 20
+        /** 超过该时长未被路由访问且无待写回增量的节点统计从内存移除。 */
+        const val IDLE_EVICT_MILLIS = 600_000L
+        /** 已淘汰实例的 pending 哨兵值。 */
+        const val EVICTED = Int.MIN_VALUE
+    }
+}
@@ -1,44 +1,78 @@
 package io.infra.structure.schedule.core
 
-import java.nio.charset.StandardCharsets
-import java.security.MessageDigest
-import java.util.TreeMap
+import java.util.Arrays
+import java.util.concurrent.ConcurrentHashMap
 
-/** 路由用哈希与一致性 HASH（对齐 xxl-job `ExecutorRouteConsistentHash`）。 */
+/**
+ * 路由用哈希与一致性 HASH（虚拟节点 + 环上顺时针查找，语义对齐 xxl-job `ExecutorRouteConsistentHash`）。
+ *
+ * 哈希环按 ringKey（执行器分组或指定执行器）缓存为不可变的有序数组，仅在地址集合变化时重建；
+ * 节点位置使用 64 位非加密哈希，路由只需一次字符串哈希与一次二分查找。
+ */
 object RouteHash {
     private const val VIRTUAL_NODE_NUM = 100
+    /** FNV-1a 64 位参数，偏移基数即 0xcbf29ce484222325。 */
+    private const val FNV_OFFSET_BASIS = -0x340d631b7bdddcdbL
+    private const val FNV_PRIME = 0x100000001b3L
+    /** MurmurHash3 fmix64 乘数，即 0xff51afd7ed558ccd 与 0xc4ceb9fe1a85ec53。 */
+    private const val FMIX_C1 = -0xae502812aa7333L
+    private const val FMIX_C2 = -0x3b314601e57a13adL
+
+    /** ringKey -> 最近一次使用的哈希环；键数量以执行器分组与指定执行器数量为上限。 */
+    private val rings = ConcurrentHashMap<String, HashRing>()
 
     /**
-     * 对齐 xxl-job：MD5 取 digest 前 4 字节组成 32 位无符号整数。
+     * 64 位非加密哈希：FNV-1a 逐字符累积后经 MurmurHash3 fmix64 末端混合，
+     * 弥补 FNV 对短键、尾部相近键（如 `NODE-1` / `NODE-2`）雪崩不足的问题。
      */
-    fun md5Hash32(key: String): Long {
-        val digest = MessageDigest.getInstance("MD5").digest(key.toByteArray(StandardCharsets.UTF_8))
-        val hashCode = ((digest[3].toLong() and 0xFF) shl 24) or
-            ((digest[2].toLong() and 0xFF) shl 16) or
-            ((digest[1].toLong() and 0xFF) shl 8) or
-            (digest[0].toLong() and 0xFF)
-        return hashCode and 0xffffffffL
+    fun hash64(key: String): Long {
+        var hash = FNV_OFFSET_BASIS
+        for (index in key.indices) {
+            hash = (hash xor key[index].code.toLong()) * FNV_PRIME
+        }
+        hash = (hash xor (hash ushr 33)) * FMIX_C1
+        hash = (hash xor (hash ushr 33)) * FMIX_C2
+        return hash xor (hash ushr 33)
     }
 
     /**
      * 在候选地址中选一个（虚拟节点 + 环上顺时针查找）。
-     * [routeKey] 通常为 jobId 字符串。
+     * [routeKey] 通常为 jobId 字符串；[ringKey] 非空时按其缓存哈希环，地址集合不变即复用。
      */
-    fun selectConsistentAddress(routeKey: String, addresses: List<String>): String? {
+    fun selectConsistentAddress(routeKey: String, addresses: List<String>, ringKey: String? = null): String? {
         if (addresses.isEmpty()) return null
         if (addresses.size == 1) return addresses.first()
-        val ring = TreeMap<Long, String>()
-        for (address in addresses) {
-            for (index in 0 until VIRTUAL_NODE_NUM) {
-                ring[md5Hash32("SHARD-$address-NODE-$index")] = address
+        val ring = if (ringKey == null) {
+            HashRing(addresses.toList())
+        } else {
+            rings[ringKey]?.takeIf { it.addresses == addresses }
+                ?: HashRing(addresses.toList()).also { rings[ringKey] = it }
+        }
+        return ring.locate(hash64(routeKey))
+    }
+
+    /** 不可变哈希环：虚拟节点位置升序排列，[owners] 与 [positions] 下标一一对应。 */
+    private class HashRing(val addresses: List<String>) {
+        private val positions: LongArray
+        private val owners: Array<String>
+
+        init {
+            val nodes = ArrayList<Pair<Long, String>>(addresses.size * VIRTUAL_NODE_NUM)
+            for (address in addresses) {
+                for (index in 0 until VIRTUAL_NODE_NUM) {
+                    nodes += hash64("SHARD-$address-NODE-$index") to address
+                }
             }
+            nodes.sortWith(compareBy<Pair<Long, String>> { it.first }.thenBy { it.second })
+            positions = LongArray(nodes.size) { nodes[it].first }
+            owners = Array(nodes.size) { nodes[it].second }
         }
-        val jobHash = md5Hash32(routeKey)
-        val tail = ring.tailMap(jobHash)
-        return if (tail.isNotEmpty()) {
-            tail[tail.firstKey()]
-        } else {
-            ring.firstEntry().value
+
+        /** 顺时针找到第一个位置不小于 [hash] 的虚拟节点，越过环尾则回到起点。 */
+        fun locate(hash: Long): String {
+            val found = Arrays.binarySearch(positions, hash)
+            val index = if (found >= 0) found else -(found + 1)
+            return owners[if (index == positions.size) 0 else index]
         }
     }
 
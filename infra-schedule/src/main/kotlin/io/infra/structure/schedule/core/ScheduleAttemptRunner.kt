@@ -0,0 +1,86 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.AsyncScheduleExecutor
+import io.infra.structure.schedule.api.ScheduleExecutor
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+/**
+ * 非阻塞地发起执行器调用与重试间隔。
+ *
+ * 调用在 [attemptExecutor] 上运行，结果经 [AttemptFuture] 异步交付；执行超时与重试间隔都由 [timer]
+ * 定时完成，调度工作线程不再阻塞在 `Future.get(timeout)` 或 `Thread.sleep` 上。
+ */
+class ScheduleAttemptRunner(
+    private val attemptExecutor: ExecutorService,
+    private val timer: ScheduledExecutorService
+) {
+    /**
+     * 在 [executor] 上发起一次调用。
+     *
+     * [timeoutMillis] 大于 0 时，到期仍未返回则以 [TimeoutException] 完成；此时调用可能仍在执行，
+     * 由调用方决定是否 [AttemptFuture.cancel] 中断并通知执行器终止。
+     * [AsyncScheduleExecutor] 只在受理阶段占用调用线程，终态由其 future 交付；本次调用收口后放弃该等待。
+     */
+    fun start(executor: ScheduleExecutor, context: JobExecutionContext, timeoutMillis: Long): AttemptFuture {
+        val attempt = AttemptFuture()
+        // 先登记超时再提交调用：定时器已关闭时直接抛出，不会留下无人等待的远程调用
+        if (timeoutMillis > 0) {
+            val timeout = timer.schedule({
+                attempt.completeExceptionally(TimeoutException("任务执行超时（$timeoutMillis 毫秒）"))
+            }, timeoutMillis, TimeUnit.MILLISECONDS)
+            attempt.whenComplete { _, _ -> timeout.cancel(false) }
+        }
+        attempt.task = attemptExecutor.submit {
+            try {
+                if (executor is AsyncScheduleExecutor) {
+                    val pending = executor.executeAsync(context)
+                    attempt.whenComplete { _, _ -> pending.cancel(false) }
+                    pending.whenComplete { result, error ->
+                        if (error == null) attempt.complete(result) else attempt.completeExceptionally(error)
+                    }
+                } else {
+                    attempt.complete(executor.execute(context))
+                }
+            } catch (exception: Throwable) {
+                attempt.completeExceptionally(exception)
+            }
+        }
+        return attempt
+    }
+
+    /** [delayMillis] 后在 [executor] 上完成的 future，用于重试间隔；不大于 0 时立即完成。 */
+    fun delay(delayMillis: Long, executor: Executor): CompletableFuture<Unit> {
+        if (delayMillis <= 0) return CompletableFuture.completedFuture(Unit)
+        val delayed = CompletableFuture<Unit>()
+        timer.schedule({
+            try {
+                executor.execute { delayed.complete(Unit) }
+            } catch (exception: RejectedExecutionException) {
+                delayed.completeExceptionally(exception)
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS)
+        return delayed
+    }
+}
+
+/** 一次执行器调用的结果；取消时同时中断执行调用的线程，使 HTTP 客户端与本地处理器及时退出。 */
+class AttemptFuture internal constructor() : CompletableFuture<JobExecutionResult>() {
+    @Volatile
+    internal var task: Future<*>? = null
+
+    /** 超时完成后结果已确定，仍需中断底层调用，因此无论是否已完成都转发给执行线程。 */
+    override fun cancel(mayInterruptIfRunning: Boolean): Boolean {
+        val cancelled = super.cancel(mayInterruptIfRunning)
+        task?.cancel(mayInterruptIfRunning)
+        return cancelled
+    }
+}
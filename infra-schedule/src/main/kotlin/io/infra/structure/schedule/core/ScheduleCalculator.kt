@@ -1,13 +1,30 @@
 package io.infra.structure.schedule.core
 
+import io.infra.structure.schedule.model.RouteStrategy
 import io.infra.structure.schedule.model.ScheduleJob
 import io.infra.structure.schedule.model.ScheduleType
 import org.springframework.scheduling.support.CronExpression
 import java.time.Instant
 import java.time.ZoneId
 import java.time.ZonedDateTime
+import java.util.concurrent.ConcurrentHashMap
 
+/**
+ * 触发时间计算。
+ *
+ * 解析后的 [CronExpression] 不可变且与时区无关，按表达式文本缓存复用；时区只作用于计算时的 [ZonedDateTime]。
+ * 缓存条目数有上限，超过后整体清空重建，表达式种类远少于任务数，正常情况下不会触发。
+ */
 object ScheduleCalculator {
+    private const val MAX_CACHED_EXPRESSIONS = 10_000
+    /** 每次触发都会写入同等数量的分片进度行，上限防止误配置产生海量记录。 */
+    private const val MAX_LOGICAL_SHARDS = 10_000
+    /** 执行优先级上限，对应执行器公平调度的最大权重 10。 */
+    private const val MAX_PRIORITY = 9
+    /** 结果缓存窗口上限，过长的窗口会掩盖数据变化。 */
+    private const val MAX_RESULT_CACHE_MILLIS = 3_600_000L
+    private val cronCache = ConcurrentHashMap<String, CronExpression>()
+
     /** 校验触发配置和执行策略中的所有范围约束。 */
     fun validate(job: ScheduleJob) {
         require(job.name.isNotBlank()) { "任务名称不能为空" }
@@ -15,28 +32,64 @@ object ScheduleCalculator {
         require(job.maxRetryCount >= 0) { "最大重试次数不能小于 0" }
         require(job.retryIntervalMillis >= 0) { "重试间隔不能小于 0" }
         require(job.timeoutSeconds >= 0) { "超时时间不能小于 0" }
+        require(job.logicalShardCount in 0..MAX_LOGICAL_SHARDS) { "逻辑分片数必须在 0..$MAX_LOGICAL_SHARDS 之间" }
+        require(job.logicalShardCount == 0 || job.routeStrategy == RouteStrategy.SHARDING_BROADCAST) {
+            "仅分片广播路由支持配置逻辑分片数"
+        }
+        require(job.priority in 0..MAX_PRIORITY) { "执行优先级必须在 0..$MAX_PRIORITY 之间" }
+        require(job.resultCacheMillis in 0..MAX_RESULT_CACHE_MILLIS) { "结果缓存窗口必须在 0..$MAX_RESULT_CACHE_MILLIS 毫秒之间" }
+        require(job.resultCacheMillis == 0L || job.coalesceDuplicates) { "结果缓存需要先开启重复触发合并" }
+        require(!job.coalesceDuplicates || job.logicalShardCount == 0) { "动态分片任务不支持合并重复触发" }
         when (job.scheduleType) {
-            ScheduleType.CRON -> CronExpression.parse(requireNotNull(job.cron) { "Cron 任务缺少表达式" })
+            ScheduleType.CRON -> cron(requireNotNull(job.cron) { "Cron 任务缺少表达式" })
             ScheduleType.FIXED_RATE -> require((job.fixedRateMillis ?: 0) > 0) { "固定间隔必须大于 0" }
         }
     }
 
     /** 从 [from] 时间点之后计算首次触发时间。 */
-    fun nextTriggerAt(job: ScheduleJob, from: Long): Long = when (job.scheduleType) {
-        ScheduleType.CRON -> CronExpression.parse(requireNotNull(job.cron)).next(
-            ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), ZoneId.systemDefault())
-        )?.toInstant()?.toEpochMilli() ?: error("Cron 表达式没有下一次执行时间")
+    fun nextTriggerAt(job: ScheduleJob, from: Long, zone: ZoneId = ZoneId.systemDefault()): Long = when (job.scheduleType) {
+        ScheduleType.CRON -> nextCron(cron(requireNotNull(job.cron)), ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone))
+            .toInstant().toEpochMilli()
         ScheduleType.FIXED_RATE -> from + requireNotNull(job.fixedRateMillis)
     }
 
     /**
      * 计算严格晚于 [now] 的下一次触发时间。
      * 固定间隔任务会跳过停机期间错过的周期，防止恢复后集中补偿执行。
+     * 停机较久时不逐个周期推算：Cron 直接从 [now] 求下一次，固定间隔按周期数一次跳过。
+     */
+    fun nextFutureTriggerAt(job: ScheduleJob, from: Long, now: Long, zone: ZoneId = ZoneId.systemDefault()): Long =
+        when (job.scheduleType) {
+            ScheduleType.CRON -> nextTriggerAt(job, maxOf(from, now), zone)
+            ScheduleType.FIXED_RATE -> {
+                val rate = requireNotNull(job.fixedRateMillis)
+                val candidate = from + rate
+                if (candidate > now) candidate else candidate + ((now - candidate) / rate + 1) * rate
+            }
+        }
+
+    /**
+     * 一次性计算 [from] 之后的 [count] 次触发时间，只解析一次表达式、复用同一时区的计算游标，
+     * 供调度器预先规划即将到期的触发。
      */
-    fun nextFutureTriggerAt(job: ScheduleJob, from: Long, now: Long): Long {
-        var candidate = nextTriggerAt(job, from)
-        while (candidate <= now) candidate = nextTriggerAt(job, candidate)
-        return candidate
+    fun nextFireTimes(job: ScheduleJob, from: Long, count: Int, zone: ZoneId = ZoneId.systemDefault()): LongArray {
+        require(count > 0) { "计算次数必须大于 0" }
+        val times = LongArray(count)
+        when (job.scheduleType) {
+            ScheduleType.CRON -> {
+                val expression = cron(requireNotNull(job.cron))
+                var cursor = ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone)
+                for (index in 0 until count) {
+                    cursor = nextCron(expression, cursor)
+                    times[index] = cursor.toInstant().toEpochMilli()
+                }
+            }
+            ScheduleType.FIXED_RATE -> {
+                val rate = requireNotNull(job.fixedRateMillis)
+                for (index in 0 until count) times[index] = from + rate * (index + 1)
+            }
+        }
+        return times
     }
 
     /**
@@ -45,18 +98,20 @@ object ScheduleCalculator {
      */
     fun nextTriggerTimes(job: ScheduleJob, now: Long, count: Int): List<Long> {
         require(count > 0) { "预览次数必须大于 0" }
-        val times = ArrayList<Long>(count)
-        var cursor = now
         val scheduled = job.nextTriggerAt
-        if (scheduled != null && scheduled > now) {
-            times += scheduled
-            cursor = scheduled
-        }
-        while (times.size < count) {
-            val next = nextTriggerAt(job, cursor)
-            times += next
-            cursor = next
-        }
-        return times
+        if (scheduled == null || scheduled <= now) return nextFireTimes(job, now, count).asList()
+        if (count == 1) return listOf(scheduled)
+        return listOf(scheduled) + nextFireTimes(job, scheduled, count - 1).asList()
+    }
+
+    /** 取缓存的解析结果；非法表达式抛出异常且不会进入缓存。 */
+    private fun cron(expression: String): CronExpression {
+        cronCache[expression]?.let { return it }
+        val parsed = CronExpression.parse(expression)
+        if (cronCache.size >= MAX_CACHED_EXPRESSIONS) cronCache.clear()
+        return cronCache.putIfAbsent(expression, parsed) ?: parsed
     }
+
+    private fun nextCron(expression: CronExpression, from: ZonedDateTime): ZonedDateTime =
+        expression.next(from) ?: error("Cron 表达式没有下一次执行时间")
 }
@@ -0,0 +1,62 @@
+package io.infra.structure.schedule.core
+
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 单个执行日志的待上报行缓冲：多个 Handler 线程无锁追加，唯一的上报线程取出。
+ *
+ * 行数计数同时承担容量上限与回收协议：追加方先以 CAS 预占计数再入队，上报线程只在计数为 0 时
+ * 将其置为 [RETIRED] 并从映射中移除。此后追加必然失败并改用新缓冲，因此回收空缓冲不会吞掉并发写入的行，
+ * 也不需要对象锁；Handler 运行在虚拟线程上时同样不会钉住载体线程。
+ */
+internal class ScheduleLogBuffer(private val capacity: Int) {
+    private val queue = ConcurrentLinkedDeque<String>()
+    /** 已预占的行数；[RETIRED] 表示已回收。入队晚于预占，队列实际长度可能短暂小于计数。 */
+    private val size = AtomicInteger()
+
+    /** 追加一行；超过 [capacity] 返回 [OfferResult.FULL]，已回收返回 [OfferResult.RETIRED]，调用方需改用新缓冲。 */
+    fun offer(line: String): OfferResult {
+        while (true) {
+            val current = size.get()
+            if (current == RETIRED) return OfferResult.RETIRED
+            if (current >= capacity) return OfferResult.FULL
+            if (size.compareAndSet(current, current + 1)) break
+        }
+        queue.addLast(line)
+        return OfferResult.ACCEPTED
+    }
+
+    /** 仅上报线程调用：取出最早的一行。 */
+    fun poll(): String? = queue.pollFirst()?.also { size.decrementAndGet() }
+
+    /** 仅上报线程调用：已无预占行时回收缓冲，返回是否回收成功。 */
+    fun tryRetire(): Boolean = size.compareAndSet(0, RETIRED)
+
+    /** 仅上报线程调用：发送失败的行放回队首并保持行序；不受容量限制。缓冲已回收时返回 false。 */
+    fun restore(lines: List<String>): Boolean {
+        while (true) {
+            val current = size.get()
+            if (current == RETIRED) return false
+            if (size.compareAndSet(current, current + lines.size)) break
+        }
+        lines.asReversed().forEach(queue::addFirst)
+        return true
+    }
+
+    /** 仅上报线程调用：回收并清空缓冲，返回被丢弃的行数。 */
+    fun discard(): Int {
+        val remaining = size.getAndSet(RETIRED)
+        queue.clear()
+        return if (remaining == RETIRED) 0 else remaining
+    }
+
+    /** 当前预占的行数，已回收时为 0。 */
+    fun size(): Int = size.get().coerceAtLeast(0)
+
+    enum class OfferResult { ACCEPTED, FULL, RETIRED }
+
+    private companion object {
+        const val RETIRED = -1
+    }
+}
@@ -1,42 +1,57 @@
 package io.infra.structure.schedule.core
 
 import io.infra.structure.schedule.api.ScheduleLogAppender
+import io.infra.structure.schedule.api.ScheduleShardClaimer
+import io.infra.structure.schedule.api.ShardClaim
 import io.infra.structure.schedule.model.ExecutionStatus
 import io.infra.structure.schedule.model.JobExecutionResult
 import io.infra.structure.schedule.properties.InfraScheduleProperties
 import io.infra.structure.schedule.web.ScheduleWebPaths
 import org.slf4j.LoggerFactory
 import org.springframework.beans.factory.DisposableBean
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpRequest
 import org.springframework.http.MediaType
-import org.springframework.http.client.SimpleClientHttpRequestFactory
+import org.springframework.http.client.ClientHttpRequestExecution
+import org.springframework.http.client.ClientHttpResponse
+import org.springframework.http.client.JdkClientHttpRequestFactory
 import org.springframework.scheduling.annotation.Scheduled
 import org.springframework.web.client.RestClient
 import org.springframework.web.client.RestClientResponseException
+import java.io.ByteArrayOutputStream
+import java.net.http.HttpClient
 import java.time.Duration
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ConcurrentLinkedDeque
 import java.util.concurrent.ConcurrentHashMap.newKeySet
 import java.util.concurrent.Executors
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
 
 /**
  * 缓冲 [io.infra.structure.schedule.api.ScheduleLogHelper] 写出的业务日志，并异步上报。
  *
  * 所有执行状态和业务日志均通过 HTTP 上报调度中心，由调度中心 MySQL 统一持久化。
+ * 业务日志跨 logId 合批，按行数 / 字节数上限或定时刷写触发，一次请求 gzip 压缩上报；
+ * 内存缓冲写满（或单个日志超过其内存份额）后溢出到本地磁盘文件，而不是直接丢弃；
+ * 溢出文件也写满时才丢弃，并在该日志中写入一行丢弃行数提示。
+ * 动态分片的领取与结果回报同样经此通道，见 [io.infra.structure.schedule.api.ScheduleShardHelper]。
  */
 class ScheduleLogReporter(
     private val properties: InfraScheduleProperties
-) : ScheduleLogAppender, DisposableBean {
+) : ScheduleLogAppender, ScheduleShardClaimer, DisposableBean {
     private val logger = LoggerFactory.getLogger(javaClass)
     private val callbackExecutor: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
         Thread(runnable, "infra-schedule-log-callback").apply { isDaemon = true }
     }
-    /** 每个日志 ID 独占一个队列锁；空队列会连同锁一起移除，避免长期执行后泄漏。 */
-    private val buffers = ConcurrentHashMap<Long, LogBuffer>()
-    /** 已提交到回调线程的日志刷写任务，避免高频业务日志重复排队。 */
-    private val scheduledFlushes = newKeySet<Long>()
+    /** 每个日志 ID 独占一个无锁缓冲；空缓冲由上报线程回收并移除，避免长期执行后泄漏。 */
+    private val buffers = ConcurrentHashMap<Long, ScheduleLogBuffer>()
+    /** 缓冲与溢出文件均已满时各日志被丢弃的行数；该日志下一行入队前补一行提示，标出缺口位置。 */
+    private val droppedLines = ConcurrentHashMap<Long, Long>()
+    /** 已提交到回调线程的合批上报任务，避免高频业务日志重复排队。 */
+    private val shipScheduled = AtomicBoolean()
     /** 回调及其重试任务的上限，防止 Admin 长时间不可用导致无界内存堆积。 */
     private val pendingCallbacks = AtomicInteger()
     private val maxPendingCallbacks = 10_000
@@ -52,92 +67,177 @@ class ScheduleLogReporter(
     private val maxPendingFinishes = 1_000
     private val bufferedLines = AtomicInteger()
     private val maxBufferedLines = properties.executor.handleLogMaxBufferedLines.coerceIn(1_000, 1_000_000)
+    private val batchMaxLines = properties.executor.handleLogBatchMaxLines.coerceIn(BATCH_SIZE, 10_000)
+    private val batchMaxBytes = properties.executor.handleLogBatchMaxBytes.coerceIn(4_096, 8 * 1024 * 1024)
+    /** 单个 logId 在一批中最多占用的行数，避免个别高频日志长期挤占其他日志的上报。 */
+    private val perLogBatchLines = maxOf(BATCH_SIZE, batchMaxLines / 4)
+    /** 单个 logId 在内存中最多缓冲的行数；高频日志超出后溢出到磁盘，不独占全部内存缓冲。 */
+    private val perLogBufferedLines = maxOf(batchMaxLines, maxBufferedLines / 2)
+    private val spill = ScheduleLogSpill(properties.executor.handleLogSpillDir, properties.executor.handleLogSpillMaxBytes)
+    /** 旧版调度中心没有合批接口（404）时回退逐日志上报，兼容滚动升级。 */
+    @Volatile
+    private var batchUnsupported = false
     private val adminBaseUrl = requireNotNull(properties.executor.adminAddress?.takeIf { it.isNotBlank() }) {
         "执行器必须配置 infra.schedule.executor.admin-address，调度状态统一由 MySQL 调度中心维护"
     }.removeSuffix("/")
+    /** JDK HttpClient 自带连接池并复用 keep-alive 连接；固定 HTTP/1.1，避免明文 h2c 升级协商。 */
+    private val httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(properties.executor.connectTimeoutMillis))
+        .build()
     private val client = RestClient.builder()
             .baseUrl(adminBaseUrl)
-            .requestFactory(SimpleClientHttpRequestFactory().apply {
-                setConnectTimeout(Duration.ofMillis(properties.executor.connectTimeoutMillis))
+            .requestFactory(JdkClientHttpRequestFactory(httpClient).apply {
                 setReadTimeout(Duration.ofMillis(minOf(properties.executor.readTimeoutMillis, 5_000L)))
             })
+            .requestInterceptor(::compressRequestBody)
             .build()
 
     override fun offer(logId: Long, line: String) {
-        if (!reserveLine()) {
-            logger.warn("执行过程日志缓冲已达上限，丢弃新日志行: logId={}, max={}", logId, maxBufferedLines)
-            return
+        if (droppedLines.isNotEmpty()) {
+            val dropped = droppedLines.remove(logId)
+            if (dropped != null && !append(logId, droppedNotice(dropped))) {
+                recordDropped(logId, dropped + 1)
+                return
+            }
         }
-        // 追加与 flush 共用同一对象锁：flush 删除空缓冲期间，追加方会检测映射是否仍有效并重试，
-        // 不会把新批次写进已从 Map 移除的旧队列。
+        if (!append(logId, line)) recordDropped(logId, 1)
+    }
+
+    /** 写入内存缓冲或溢出文件；两者均已满时返回 false。 */
+    private fun append(logId: Long, line: String): Boolean {
+        // 溢出文件非空期间新行继续写入文件，保证同一日志先溢出的行先上报
+        if (!spill.isEmpty() || !reserveLine()) return spill.append(logId, line)
         while (true) {
-            val buffer = buffers.computeIfAbsent(logId) { LogBuffer() }
-            var accepted = false
-            synchronized(buffer) {
-                if (buffers[logId] === buffer) {
-                    buffer.queue.addLast(LogBatch(lines = listOf(line)))
-                    accepted = true
+            val buffer = buffers.computeIfAbsent(logId) { ScheduleLogBuffer(perLogBufferedLines) }
+            when (buffer.offer(line)) {
+                ScheduleLogBuffer.OfferResult.ACCEPTED -> break
+                // 上报线程已回收该缓冲、尚未从映射移除；代为移除后改用新缓冲
+                ScheduleLogBuffer.OfferResult.RETIRED -> buffers.remove(logId, buffer)
+                ScheduleLogBuffer.OfferResult.FULL -> {
+                    bufferedLines.decrementAndGet()
+                    return spill.append(logId, line)
                 }
             }
-            if (accepted) break
         }
-        if (bufferedLines.get() >= BATCH_SIZE) {
-            requestFlush(logId)
+        if (bufferedLines.get() >= batchMaxLines) {
+            requestShip()
+        }
+        return true
+    }
+
+    /** 累计丢弃行数；每个日志只在首次丢弃时告警，避免高频日志把告警本身变成瓶颈。 */
+    private fun recordDropped(logId: Long, count: Long) {
+        if (droppedLines.merge(logId, count, Long::plus) == count) {
+            logger.warn("执行过程日志缓冲与溢出文件均已满，开始丢弃新日志行: logId={}, max={}", logId, maxBufferedLines)
         }
     }
 
+    private fun droppedNotice(count: Long): String = "[执行器日志缓冲已满，此处丢弃 $count 行业务日志]\n"
+
     /**
-     * 请求异步刷出一个日志批次。Handler 线程只负责入队，不能因 Admin 网络超时阻塞。
+     * 请求异步合批上报。Handler 线程只负责入队，不能因 Admin 网络超时阻塞。
      * 同一个单线程回调器同时保证 started、过程日志和 finish 的提交顺序。
      */
-    override fun flush(logId: Long) = requestFlush(logId)
+    override fun flush(logId: Long) = requestShip()
 
-    private fun requestFlush(logId: Long) {
-        if (!scheduledFlushes.add(logId)) return
+    private fun requestShip() {
+        // 先读后写：上报已排队时高频追加只做一次读，不在同一缓存行上反复 CAS
+        if (shipScheduled.get() || !shipScheduled.compareAndSet(false, true)) return
         if (!enqueueCallbackTask("过程日志") {
-                try {
-                    flushSynchronously(logId)
-                } finally {
-                    scheduledFlushes.remove(logId)
-                }
+                // 先复位再上报：上报期间新到的日志可以排入下一轮，而不是等到下一次定时刷写
+                shipScheduled.set(false)
+                shipLogs()
             }) {
-            scheduledFlushes.remove(logId)
+            shipScheduled.set(false)
         }
     }
 
-    /** 仅由 [callbackExecutor] 或关闭钩子调用，允许执行 HTTP 上报。 */
-    private fun flushSynchronously(logId: Long): Boolean {
-        val buffer = buffers[logId] ?: return true
-        while (true) {
-            val batch = synchronized(buffer) {
-                if (buffers[logId] !== buffer) return true
-                buffer.queue.pollFirst()
-            } ?: run {
-                synchronized(buffer) {
-                    if (buffers[logId] === buffer && buffer.queue.isEmpty()) buffers.remove(logId, buffer)
-                }
-                return true
-            }
-            bufferedLines.addAndGet(-batch.lines.size)
-            when (publish(logId, batch)) {
-                PublishResult.SUCCESS, PublishResult.DROP -> Unit
-                PublishResult.RETRY -> {
-                    synchronized(buffer) {
-                        if (buffers[logId] === buffer) {
-                            buffer.queue.addFirst(batch)
-                            bufferedLines.addAndGet(batch.lines.size)
-                        }
-                    }
+    /** 仅由 [callbackExecutor] 或关闭钩子调用：上报 [logId] 之前产生的全部日志，返回是否已全部送达。 */
+    private fun flushSynchronously(logId: Long): Boolean =
+        shipLogs() && !buffers.containsKey(logId) && spill.isEmpty()
+
+    /**
+     * 仅由 [callbackExecutor] 或关闭钩子调用：先按批上报内存缓冲，再上报溢出文件。
+     * 内存中的行总早于溢出文件中的行，因此这一顺序不会打乱同一日志的行序。
+     * @return false 表示遇到可重试错误或本轮上限内未能清空
+     */
+    private fun shipLogs(maxRounds: Int = MAX_SHIP_ROUNDS): Boolean {
+        repeat(maxRounds) {
+            val batch = drainMemoryBatch()
+            if (batch.isNotEmpty()) {
+                val unsent = publishBatch(batch)
+                if (unsent.isNotEmpty()) {
+                    restore(unsent)
                     return false
                 }
+                return@repeat
+            }
+            val chunk = spill.read(batchMaxLines, batchMaxBytes) ?: return true
+            val grouped = LinkedHashMap<Long, MutableList<String>>()
+            chunk.records.forEach { (logId, line) -> grouped.getOrPut(logId) { mutableListOf() } += line }
+            val unsent = publishBatch(grouped)
+            // 整批未送达时原样留在溢出文件；部分送达时提交本批，未送达的行放回内存队首，
+            // 内存先于溢出文件上报，因此既不重复已送达的行，也不打乱同一日志的行序
+            if (unsent.values.sumOf { it.size } == chunk.records.size) return false
+            spill.commit(chunk)
+            if (unsent.isNotEmpty()) {
+                restore(unsent)
+                return false
+            }
+            if (spill.size() > 0 && spill.size() % SPILL_PROGRESS_LOG_LINES < chunk.records.size) {
+                logger.info("业务日志溢出文件上报中，剩余 {} 行", spill.size())
             }
         }
+        return buffers.isEmpty() && spill.isEmpty()
+    }
+
+    /** 跨 logId 取出一批日志，受行数、字节数和单日志份额上限约束。 */
+    private fun drainMemoryBatch(): Map<Long, List<String>> {
+        val batch = LinkedHashMap<Long, List<String>>()
+        var lines = 0
+        var bytes = 0
+        for ((logId, buffer) in buffers) {
+            val taken = ArrayList<String>()
+            while (lines < batchMaxLines && bytes < batchMaxBytes && taken.size < perLogBatchLines) {
+                val line = buffer.poll() ?: break
+                taken += line
+                lines++
+                bytes += line.length
+            }
+            if (taken.isNotEmpty()) {
+                batch[logId] = taken
+                bufferedLines.addAndGet(-taken.size)
+            }
+            if (buffer.tryRetire()) buffers.remove(logId, buffer)
+            if (lines >= batchMaxLines || bytes >= batchMaxBytes) break
+        }
+        return batch
+    }
+
+    /** 可重试失败的日志放回各自队首，保持行序；放回不再占用预留额度，短暂越过上限可接受。 */
+    private fun restore(unsent: Map<Long, List<String>>) {
+        unsent.forEach { (logId, lines) ->
+            while (true) {
+                val buffer = buffers.computeIfAbsent(logId) { ScheduleLogBuffer(perLogBufferedLines) }
+                if (buffer.restore(lines)) break
+                buffers.remove(logId, buffer)
+            }
+            bufferedLines.addAndGet(lines.size)
+        }
+    }
+
+    /** 调度中心确认已不接受追加的日志（已收口或已清理），丢弃其剩余缓冲。 */
+    private fun discardBuffer(logId: Long) {
+        val buffer = buffers.remove(logId) ?: return
+        bufferedLines.addAndGet(-buffer.discard())
+        droppedLines.remove(logId)
     }
 
     /** 定时刷出缓冲，降低对调度中心的请求频率。 */
     @Scheduled(fixedDelayString = $$"${infra.schedule.executor.handle-log-flush-millis:500}")
     fun flushAll() {
-        buffers.keys.toList().forEach(::requestFlush)
+        if (buffers.isNotEmpty() || !spill.isEmpty()) requestShip()
         drainPendingFinishes()
     }
 
@@ -162,10 +262,57 @@ class ScheduleLogReporter(
             cancelled = result.cancelled,
             durationMillis = durationMillis
         )
+        // 结束后不会再有新行触发缺口提示，在终态前补写，同时释放计数
+        droppedLines.remove(logId)?.let { dropped ->
+            if (!append(logId, droppedNotice(dropped))) {
+                logger.warn("执行过程日志缓冲仍已满，丢弃行数提示未能写入: logId={}, dropped={}", logId, dropped)
+            }
+        }
         enqueueFinishCallback(logId, request)
     }
 
+    /**
+     * 在 Handler 线程上同步领取分片：领取结果决定 Handler 是否继续，不能像日志一样异步排队。
+     * 可恢复错误有限重试后抛出，避免把调度中心暂时不可用误当作分片已领完；4xx 表示执行已收口，返回 null。
+     */
+    override fun claim(logId: Long, runId: Long): ShardClaim? {
+        val path = ScheduleWebPaths.EXECUTOR_LOG_SHARD_CLAIM.replace("{id}", logId.toString())
+        var attempt = 0
+        while (true) {
+            try {
+                val response = jsonPost(client, path, ShardClaimRequest(runId)).retrieve().body(ShardClaimResponse::class.java)
+                val shardIndex = response?.shardIndex ?: return null
+                return ShardClaim(shardIndex, response.shardTotal)
+            } catch (exception: Exception) {
+                if (isPermanentHttpFailure(exception)) {
+                    logger.warn("调度中心拒绝领取动态分片，停止领取: logId={}, error={}", logId, exception.message)
+                    return null
+                }
+                if (++attempt > CALLBACK_MAX_RETRIES) {
+                    throw IllegalStateException("领取动态分片失败: logId=$logId, error=${exception.message}", exception)
+                }
+                Thread.sleep(CALLBACK_RETRY_DELAY_MILLIS)
+            }
+        }
+    }
+
+    /** 分片结果与开始/结束回调走同一单线程回调队列，保证先于本次执行的终态送达。 */
+    override fun complete(logId: Long, runId: Long, shardIndex: Int, success: Boolean, message: String?) {
+        if (logId <= 0) return
+        enqueueCallback(
+            ScheduleWebPaths.EXECUTOR_LOG_SHARD_COMPLETE.replace("{id}", logId.toString()),
+            ShardCompleteRequest(runId, shardIndex, success, message), "分片结果"
+        )
+    }
+
+    /** 已结束但终态尚未送达调度中心的日志 ID；随心跳上报，避免调度中心在回调到达前误判为丢失。 */
+    fun pendingFinishLogIds(): Set<Long> = HashSet<Long>(scheduledFinishDeliveries).apply { addAll(pendingFinishes.keys) }
+
     private fun postJson(remote: RestClient, path: String, body: Any) {
+        jsonPost(remote, path, body).retrieve().toBodilessEntity()
+    }
+
+    private fun jsonPost(remote: RestClient, path: String, body: Any): RestClient.RequestBodySpec {
         val token = properties.executor.accessToken?.takeIf { it.isNotBlank() }
         val request = remote.post()
             .uri(path)
@@ -175,17 +322,23 @@ class ScheduleLogReporter(
         if (properties.executor.authEnabled) {
             request.header(SCHEDULE_ACCESS_TOKEN_HEADER, token ?: "")
         }
-        request.retrieve().toBodilessEntity()
+        return request
     }
 
     override fun destroy() {
         // Spring 停机阶段允许有限同步刷写，运行中的 Handler 不会走到这里。
-        buffers.keys.toList().forEach(::flushSynchronously)
+        shipLogs()
         callbackExecutor.shutdownNow()
+        spill.close()
+        httpClient.close()
     }
 
     companion object {
+        /** 旧版逐日志接口的单次行数，也是合批行数下限。 */
         private const val BATCH_SIZE = 32
+        private const val MAX_SHIP_ROUNDS = 16
+        private const val SPILL_PROGRESS_LOG_LINES = 10_000
+        private const val GZIP = "gzip"
         private const val CALLBACK_MAX_RETRIES = 3
         private const val CALLBACK_RETRY_DELAY_MILLIS = 500L
         private const val FINISH_FLUSH_MAX_ATTEMPTS = 3
@@ -208,14 +361,66 @@ class ScheduleLogReporter(
         }
     }
 
-    /** 返回 false 时调用方把失败批次放回队首，避免日志上报乱序。 */
-    private fun publish(logId: Long, batch: LogBatch): PublishResult {
-        if (batch.lines.isEmpty()) return PublishResult.SUCCESS
+    /**
+     * 一次请求上报多个日志的批次。
+     * @return 需要稍后重试的部分；空表示已送达或已按永久错误丢弃
+     */
+    private fun publishBatch(batch: Map<Long, List<String>>): Map<Long, List<String>> {
+        if (batch.isEmpty()) return emptyMap()
+        if (!batchUnsupported) {
+            try {
+                val request = client.post()
+                    .uri(ScheduleWebPaths.EXECUTOR_LOG_HANDLE_APPEND_BATCH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .body(HandleLogBatchRequest(batch.map { (logId, lines) -> HandleLogBatchEntry(logId, lines) }))
+                if (properties.executor.handleLogCompression) request.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                if (properties.executor.authEnabled) {
+                    request.header(SCHEDULE_ACCESS_TOKEN_HEADER, properties.executor.accessToken?.takeIf { it.isNotBlank() } ?: "")
+                }
+                request.retrieve().body(HandleLogBatchResponse::class.java)?.rejected?.forEach(::discardBuffer)
+                return emptyMap()
+            } catch (exception: Exception) {
+                when {
+                    (exception as? RestClientResponseException)?.statusCode?.value() == 404 -> {
+                        batchUnsupported = true
+                        logger.warn("调度中心不支持业务日志合批接口，回退逐日志上报: {}", adminBaseUrl)
+                    }
+                    // 整批被拒（如请求体过大或个别日志不合法）时本批逐日志重发，只丢弃真正被拒的日志
+                    isPermanentHttpFailure(exception) ->
+                        logger.warn("合批上报被调度中心拒绝，本批回退逐日志上报: logs={}, error={}", batch.size, exception.message)
+                    else -> {
+                        logger.warn("合批上报业务执行日志失败: logs={}, error={}", batch.size, exception.message)
+                        return batch
+                    }
+                }
+            }
+        }
+        // 逐日志回退：遇到可重试错误后，本批剩余部分原样交回调用方，已送达的分片不重复上报
+        val unsent = LinkedHashMap<Long, List<String>>()
+        for ((logId, lines) in batch) {
+            if (unsent.isNotEmpty()) {
+                unsent[logId] = lines
+                continue
+            }
+            var sent = 0
+            for (chunk in lines.chunked(BATCH_SIZE)) {
+                if (publish(logId, chunk) == PublishResult.RETRY) break
+                sent += chunk.size
+            }
+            if (sent < lines.size) unsent[logId] = lines.subList(sent, lines.size)
+        }
+        return unsent
+    }
+
+    /** 旧版逐日志接口；返回 RETRY 时调用方把失败批次放回队首，避免日志上报乱序。 */
+    private fun publish(logId: Long, lines: List<String>): PublishResult {
+        if (lines.isEmpty()) return PublishResult.SUCCESS
         return runCatching {
             val token = properties.executor.accessToken?.takeIf { it.isNotBlank() }
             val request = client.post()
                 .uri(ScheduleWebPaths.EXECUTOR_LOG_HANDLE_APPEND.replace("{id}", logId.toString()))
-                .body(HandleLogAppendRequest(lines = batch.lines))
+                .body(HandleLogAppendRequest(lines = lines))
             if (properties.executor.authEnabled) {
                 request.header(SCHEDULE_ACCESS_TOKEN_HEADER, token ?: "")
             }
@@ -227,6 +432,22 @@ class ScheduleLogReporter(
         }
     }
 
+    /** 声明了 `Content-Encoding: gzip` 的请求在发送前压缩已序列化的请求体。 */
+    private fun compressRequestBody(
+        request: HttpRequest,
+        body: ByteArray,
+        execution: ClientHttpRequestExecution
+    ): ClientHttpResponse {
+        if (request.headers.getFirst(HttpHeaders.CONTENT_ENCODING) != GZIP || body.isEmpty()) {
+            return execution.execute(request, body)
+        }
+        val compressed = ByteArrayOutputStream(body.size / 4 + 64).also { output ->
+            GZIPOutputStream(output).use { it.write(body) }
+        }.toByteArray()
+        request.headers.contentLength = compressed.size.toLong()
+        return execution.execute(request, compressed)
+    }
+
     /** 已清理日志的 404 等永久错误直接丢弃，避免队首无限重试；408/429 仍可重试。 */
     private fun isPermanentHttpFailure(exception: Throwable): Boolean {
         val response = exception as? RestClientResponseException ?: return false
@@ -385,21 +606,14 @@ class ScheduleLogReporter(
 
     private enum class PublishResult { SUCCESS, RETRY, DROP }
 
-    /** 原子预占一行缓冲容量，避免多个 Handler 并发越过上限。 */
+    /**
+     * 预占一行缓冲容量，避免多个 Handler 并发越过上限。
+     * 单次原子加而非 CAS 重试循环：高频日志的多个线程不会在同一计数上反复失败重试。
+     */
     private fun reserveLine(): Boolean {
-        while (true) {
-            val current = bufferedLines.get()
-            if (current >= maxBufferedLines) return false
-            if (bufferedLines.compareAndSet(current, current + 1)) return true
-        }
-    }
-
-    /** 同一日志的一个待上报批次。 */
-    private data class LogBatch(val lines: List<String>)
-
-    /** 同一执行日志的待上报批次队列及其互斥锁。 */
-    private class LogBuffer {
-        val queue = ConcurrentLinkedDeque<LogBatch>()
+        if (bufferedLines.incrementAndGet() <= maxBufferedLines) return true
+        bufferedLines.decrementAndGet()
+        return false
     }
 
     /** 终态保底重投所需的最小上下文。 */
@@ -417,6 +631,26 @@ data class HandleLogAppendRequest(
     val lines: List<String>
 )
 
+/** 执行器跨日志合批追加业务日志的请求体。 */
+data class HandleLogBatchRequest(
+    /** 各日志的待追加行；同一 logId 在一批中只出现一次。 */
+    val entries: List<HandleLogBatchEntry>
+)
+
+/** 合批请求中单个执行日志的追加内容。 */
+data class HandleLogBatchEntry(
+    /** 执行日志 ID。 */
+    val logId: Long,
+    /** 按产生顺序追加的业务日志行。 */
+    val lines: List<String>
+)
+
+/** 合批追加的处理结果。 */
+data class HandleLogBatchResponse(
+    /** 不存在或已收口、不再接受追加的日志 ID；执行器据此丢弃其剩余缓冲。 */
+    val rejected: List<Long> = emptyList()
+)
+
 /** 执行器通知调度中心日志开始真正执行。 */
 data class LogStartedRequest(
     /** 执行器展示给管理端的开始执行说明。 */
@@ -436,3 +670,29 @@ data class LogFinishRequest(
     /** 执行器测得的实际耗时毫秒数；排队取消时可为 0 或为空。 */
     val durationMillis: Long? = null
 )
+
+/** 执行器领取动态分片的请求体。 */
+data class ShardClaimRequest(
+    /** 执行上下文中的触发批次 ID。 */
+    val runId: Long
+)
+
+/** 动态分片领取结果。 */
+data class ShardClaimResponse(
+    /** 领取到的逻辑分片下标；为空表示已无待处理分片或本次执行已不再活跃。 */
+    val shardIndex: Int? = null,
+    /** 本次触发的逻辑分片总数。 */
+    val shardTotal: Int = 0
+)
+
+/** 执行器回报动态分片处理结果的请求体。 */
+data class ShardCompleteRequest(
+    /** 执行上下文中的触发批次 ID。 */
+    val runId: Long,
+    /** 已处理的逻辑分片下标。 */
+    val shardIndex: Int,
+    /** Handler 是否处理成功。 */
+    val success: Boolean,
+    /** 可展示的处理结果或失败原因。 */
+    val message: String? = null
+)
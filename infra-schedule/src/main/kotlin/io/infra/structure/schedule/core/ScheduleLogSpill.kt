@@ -0,0 +1,135 @@
+package io.infra.structure.schedule.core
+
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 业务日志内存缓冲写满后的磁盘溢出文件。
+ *
+ * 记录按写入顺序追加（logId + UTF-8 行），读取方按批读出、上报成功后再 [commit] 推进读位置；
+ * 全部读完即截断文件复用空间。文件按进程独立创建并在退出时删除：执行器崩溃后对应日志已被调度中心
+ * 回收为终态，不再接受追加，残留记录没有重放价值。Handler 可能运行在虚拟线程上，因此使用显式锁而非 synchronized。
+ */
+class ScheduleLogSpill(
+    directory: String?,
+    private val maxBytes: Long
+) : Closeable {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val lock = ReentrantLock()
+    private val directory = File(directory?.takeIf { it.isNotBlank() } ?: System.getProperty("java.io.tmpdir"))
+    private var file: File? = null
+    private var raf: RandomAccessFile? = null
+    private var readOffset = 0L
+    private var writeOffset = 0L
+    private var lines = 0
+
+    @Volatile
+    private var empty = true
+
+    /** 是否仍有未上报的溢出记录；非空期间新日志也必须写入溢出文件，以保持同一日志的行序。 */
+    fun isEmpty(): Boolean = empty
+
+    /** 追加一行；超过容量或磁盘不可写时返回 false，由调用方丢弃并告警。 */
+    fun append(logId: Long, line: String): Boolean = lock.withLock {
+        val bytes = line.toByteArray(StandardCharsets.UTF_8)
+        if (writeOffset + RECORD_HEADER_BYTES + bytes.size > maxBytes) return false
+        try {
+            val target = open()
+            target.seek(writeOffset)
+            target.writeLong(logId)
+            target.writeInt(bytes.size)
+            target.write(bytes)
+            writeOffset = target.filePointer
+            lines++
+            empty = false
+            true
+        } catch (exception: Exception) {
+            logger.warn("写入业务日志溢出文件失败: file={}", file, exception)
+            false
+        }
+    }
+
+    /** 从当前读位置读出至多 [maxLines] 行 / [maxBytes] 字节；不推进读位置，上报成功后调用 [commit]。 */
+    fun read(maxLines: Int, maxBytes: Int): SpillChunk? = lock.withLock {
+        val source = raf ?: return null
+        if (readOffset >= writeOffset) return null
+        val records = ArrayList<Pair<Long, String>>()
+        var offset = readOffset
+        var bytes = 0
+        try {
+            source.seek(offset)
+            while (offset < writeOffset && records.size < maxLines && (records.isEmpty() || bytes < maxBytes)) {
+                val logId = source.readLong()
+                val length = source.readInt()
+                val buffer = ByteArray(length)
+                source.readFully(buffer)
+                records += logId to String(buffer, StandardCharsets.UTF_8)
+                offset = source.filePointer
+                bytes += length
+            }
+        } catch (exception: Exception) {
+            logger.warn("读取业务日志溢出文件失败，丢弃剩余溢出记录: file={}", file, exception)
+            reset()
+            return null
+        }
+        SpillChunk(records, offset)
+    }
+
+    /** 读出的批次已上报，推进读位置；全部读完时截断文件。 */
+    fun commit(chunk: SpillChunk) {
+        lock.withLock {
+            if (chunk.endOffset <= readOffset) return
+            readOffset = chunk.endOffset
+            lines -= chunk.records.size
+            if (readOffset >= writeOffset) reset()
+        }
+    }
+
+    /** 当前溢出行数，用于告警与监控。 */
+    fun size(): Int = lock.withLock { lines }
+
+    override fun close() {
+        lock.withLock {
+            runCatching { raf?.close() }
+            file?.delete()
+            raf = null
+            file = null
+            empty = true
+        }
+    }
+
+    private fun open(): RandomAccessFile {
+        raf?.let { return it }
+        directory.mkdirs()
+        val created = File.createTempFile("infra-schedule-handle-log-", ".spill", directory).apply { deleteOnExit() }
+        logger.warn("业务日志内存缓冲已满，开始溢出到磁盘: file={}", created)
+        file = created
+        return RandomAccessFile(created, "rw").also { raf = it }
+    }
+
+    private fun reset() {
+        readOffset = 0
+        writeOffset = 0
+        lines = 0
+        empty = true
+        runCatching { raf?.setLength(0) }
+    }
+
+    /** 一次读出的连续溢出记录及其结束位置。 */
+    class SpillChunk(
+        /** 按写入顺序排列的 (logId, 日志行)。 */
+        val records: List<Pair<Long, String>>,
+        /** 本批最后一条记录之后的文件位置。 */
+        val endOffset: Long
+    )
+
+    private companion object {
+        /** logId(8) + 长度(4)。 */
+        const val RECORD_HEADER_BYTES = 12
+    }
+}
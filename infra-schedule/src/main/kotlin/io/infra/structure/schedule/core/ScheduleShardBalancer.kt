@@ -0,0 +1,91 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.repository.ScheduleShardLeaseRepository
+import io.infra.structure.schedule.repository.ShardFilter
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.DisposableBean
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 基于租约的调度分片再平衡。
+ *
+ * 每轮 [rebalance] 续约成员资格与已持有分片，再按存活成员的 owner 排序确定每个分片的首选节点
+ * （`members[shardId % members.size]`）：非首选的已持有分片主动释放，由首选节点下一轮接管；
+ * 无人持有的首选分片立即领取。无人持有超过一个租约周期的分片任何节点都可领取，
+ * 因此单节点启动或首选节点异常时分片不会长期无人扫描。
+ *
+ * 连续续约失败直到租约到期后 [currentFilter] 返回空分片集合，节点停止扫描，避免与接管节点长期重叠。
+ */
+class ScheduleShardBalancer(
+    private val repository: ScheduleShardLeaseRepository,
+    private val owner: String,
+    private val shardCount: Int,
+    private val leaseMillis: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) : DisposableBean {
+    private val logger = LoggerFactory.getLogger(javaClass)
+    private val lock = ReentrantLock()
+    /** 分片行是否已补齐；仅在 [lock] 内读写。 */
+    private var shardsEnsured = false
+
+    @Volatile
+    private var assignment = Assignment(emptySet(), 0L)
+
+    init {
+        require(shardCount > 0) { "分片数必须大于 0" }
+        require(leaseMillis > 0) { "分片租约时长必须大于 0" }
+    }
+
+    /** 续约并按当前存活成员调整持有的分片，返回本轮结束后持有的分片。 */
+    fun rebalance(): Set<Int> = lock.withLock {
+        val now = clock()
+        val leaseUntil = now + leaseMillis
+        if (!shardsEnsured) {
+            repository.ensureShards(shardCount, now)
+            shardsEnsured = true
+        }
+        repository.heartbeatMember(owner, leaseUntil, now)
+        val members = repository.liveMembers(now).let { if (owner in it) it else (it + owner).sorted() }
+        repository.renew(owner, leaseUntil, now)
+        val held = HashSet<Int>()
+        repository.findShards().forEach { lease ->
+            if (lease.shardId !in 0 until shardCount) return@forEach
+            val preferred = members[lease.shardId % members.size] == owner
+            val mine = lease.owner == owner && lease.leaseUntil > now
+            val free = lease.owner == null || lease.leaseUntil <= now
+            when {
+                mine && !preferred -> repository.release(lease.shardId, owner, now)
+                mine -> held += lease.shardId
+                free && (preferred || lease.leaseUntil <= now - leaseMillis) ->
+                    if (repository.tryAcquire(lease.shardId, owner, leaseUntil, now)) held += lease.shardId
+            }
+        }
+        if (held != assignment.shards) {
+            logger.info("调度分片变更: owner={}, members={}, shards={}", owner, members.size, held.sorted())
+        }
+        assignment = Assignment(held, leaseUntil)
+        held
+    }
+
+    /** 当前可扫描的分片；租约已过期而未成功续约时为空集合。 */
+    fun currentFilter(): ShardFilter {
+        val current = assignment
+        return ShardFilter(shardCount, if (clock() < current.validUntil) current.shards else emptySet())
+    }
+
+    /** 释放已持有分片并注销成员，使其他节点无需等待租约过期即可接管。 */
+    override fun destroy() {
+        lock.withLock {
+            val held = assignment.shards
+            assignment = Assignment(emptySet(), 0L)
+            runCatching {
+                val now = clock()
+                held.forEach { repository.release(it, owner, now) }
+                repository.removeMember(owner)
+            }.onFailure { logger.warn("释放调度分片失败，等待租约过期后由其他节点接管: owner={}", owner, it) }
+        }
+    }
+
+    private class Assignment(val shards: Set<Int>, val validUntil: Long)
+}
@@ -125,6 +125,14 @@ enum class ExecutorAddressMode {
     AUTO_REGISTER
 }
 
+/** 执行器 JobThread 的线程实现。 */
+enum class ExecutorThreadMode {
+    /** 每个 jobId 一条平台线程，与 xxl-job `JobThread` 一致。 */
+    PLATFORM,
+    /** 每个 jobId 一条虚拟线程，空闲与阻塞等待只占用 JDK 虚拟线程调度器的有限载体线程。 */
+    VIRTUAL
+}
+
 /** 调度中心持久化的完整任务定义。所有时间均为 Unix 毫秒时间戳。 */
 data class ScheduleJob(
     /** 数据库自增任务 ID。 */
@@ -162,6 +170,23 @@ data class ScheduleJob(
     val retryIntervalMillis: Long = 1_000,
     /** 单次处理器调用最长执行时间（秒）；0 表示不限制。 */
     val timeoutSeconds: Long = 0,
+    /**
+     * 分片广播的逻辑分片数；大于 0 时各执行器同时启动，并通过
+     * [io.infra.structure.schedule.api.ScheduleShardHelper] 动态领取分片，0 表示每个执行器固定一片。
+     */
+    val logicalShardCount: Int = 0,
+    /**
+     * 执行优先级，取值 0..9，越大越优先。执行器配置全局并发上限时，按 `priority + 1` 的权重公平分配执行名额，
+     * 同等条件下优先级高者先执行；未配置上限时不影响执行。
+     */
+    val priority: Int = 0,
+    /**
+     * 是否合并重复触发。开启后执行器按 jobId、参数与分片位置识别重复触发：
+     * 串行策略下与仍在排队的相同触发合并执行；Handler 需容忍多次触发只执行一次。
+     */
+    val coalesceDuplicates: Boolean = false,
+    /** 开启合并时成功结果的缓存窗口（毫秒），窗口内的重复触发直接返回该结果；0 表示不缓存。 */
+    val resultCacheMillis: Long = 0,
     /** 下一次应触发的时间；禁用任务时为 null。 */
     val nextTriggerAt: Long? = null,
     /** 最近一次定时触发的计划时间。 */
@@ -207,7 +232,15 @@ data class ScheduleJobDraft(
     /** 重试间隔（毫秒）。 */
     val retryIntervalMillis: Long = 1_000,
     /** 单次执行超时秒数，0 表示不限制。 */
-    val timeoutSeconds: Long = 0
+    val timeoutSeconds: Long = 0,
+    /** 分片广播的逻辑分片数，0 表示每个执行器固定一片。 */
+    val logicalShardCount: Int = 0,
+    /** 执行优先级，取值 0..9，越大越优先。 */
+    val priority: Int = 0,
+    /** 是否合并参数相同的重复触发。 */
+    val coalesceDuplicates: Boolean = false,
+    /** 合并时成功结果的缓存毫秒数，0 表示不缓存。 */
+    val resultCacheMillis: Long = 0
 )
 
 /** 调度器传递给任务处理器的本次执行上下文。 */
@@ -234,7 +267,17 @@ data class JobExecutionContext(
      * 调度中心允许本次调用持续的最长时间（毫秒）。
      * 执行器 HTTP 客户端据此设置不短于该值的响应超时，避免网络层先于任务超时中断调用。
      */
-    val executionTimeoutMillis: Long = 0
+    val executionTimeoutMillis: Long = 0,
+    /** 动态分片广播的逻辑分片总数；0 表示静态分片，按 [shardIndex] / [shardTotal] 处理。 */
+    val logicalShardTotal: Int = 0,
+    /** 动态分片所属的触发批次（Outbox ID），领取与回报分片时原样带回调度中心。 */
+    val shardRunId: Long = 0,
+    /** 任务执行优先级；执行器限制全局并发时据此加权公平分配执行名额。 */
+    val priority: Int = 0,
+    /** 是否与仍在排队的相同触发（jobId、参数、分片位置一致）合并执行。 */
+    val coalesceDuplicates: Boolean = false,
+    /** 合并时成功结果的缓存窗口（毫秒）；窗口内的相同触发直接返回缓存结果，0 表示不缓存。 */
+    val resultCacheMillis: Long = 0
 )
 
 /** 任务处理器返回给调度器的执行结果。 */
@@ -299,6 +342,16 @@ data class ExecutionLogPage(
         get() = if (pageSize <= 0 || total <= 0) 0 else ((total + pageSize - 1) / pageSize).toInt()
 }
 
+/** 业务过程日志按追加顺序的一页分块，供详情页边加载边展示。 */
+data class HandleLogPage(
+    /** 本页分块按顺序拼接后的日志文本。 */
+    val content: String,
+    /** 下一页请求使用的游标；本页为空时沿用请求游标，便于运行中日志继续轮询。 */
+    val nextCursor: Long,
+    /** 本页已满，可能仍有后续分块。 */
+    val hasMore: Boolean
+)
+
 /** 一次任务触发在指定执行器上的执行审计记录。 */
 data class JobExecutionLog(
     /** 数据库自增日志 ID。 */
@@ -317,7 +370,10 @@ data class JobExecutionLog(
     val retryCount: Int = 0,
     /** 执行结果、失败原因或跳过原因。 */
     val message: String? = null,
-    /** 业务执行过程日志（[io.infra.structure.schedule.api.ScheduleLogHelper] 异步上报）。 */
+    /**
+     * 分块存储上线前的历史业务执行过程日志；新日志以分块追加，
+     * 经 [io.infra.structure.schedule.web.ScheduleWebPaths.LOG_HANDLE_CHUNKS] 分页读取。
+     */
     val handleLog: String? = null,
     /** 本次调用的目标地址（host:port 或完整 URL）；本地执行可为空。 */
     val targetAddress: String? = null,
@@ -325,6 +381,40 @@ data class JobExecutionLog(
     val durationMillis: Long? = null
 )
 
+/** 动态分片广播中单个逻辑分片的处理状态。 */
+enum class ShardProgressStatus {
+    /** 尚未被领取，或领取它的执行已结束而未回报，等待其他执行器领取。 */
+    PENDING,
+    /** 已被某次执行领取，处理中。 */
+    RUNNING,
+    /** 处理成功。 */
+    SUCCESS,
+    /** Handler 回报处理失败，不再分配。 */
+    FAILED
+}
+
+/** 一次分片广播触发中单个逻辑分片的进度。 */
+data class ShardProgress(
+    /** 所属触发批次（Outbox ID）。 */
+    val runId: Long,
+    /** 所属任务 ID。 */
+    val jobId: Long,
+    /** 逻辑分片下标，从 0 开始。 */
+    val shardIndex: Int,
+    /** 本次触发的逻辑分片总数。 */
+    val shardTotal: Int,
+    /** 当前处理状态。 */
+    val status: ShardProgressStatus = ShardProgressStatus.PENDING,
+    /** 最近一次领取该分片的执行日志 ID。 */
+    val logId: Long? = null,
+    /** 已被领取的次数；执行中断后重新领取会递增。 */
+    val attemptCount: Int = 0,
+    /** Handler 回报的结果说明或失败原因。 */
+    val message: String? = null,
+    /** 最近一次状态变更时间。 */
+    val updateTime: Long = 0
+)
+
 /**
  * 可靠触发 Outbox 记录。
  *
@@ -1,5 +1,6 @@
 package io.infra.structure.schedule.properties
 
+import io.infra.structure.schedule.model.ExecutorThreadMode
 import org.springframework.boot.context.properties.ConfigurationProperties
 import java.util.UUID
 
@@ -15,10 +16,15 @@ class InfraScheduleProperties {
     var dispatchBatchSize: Int = 100
     /** 单轮扫描最多领取的页数，避免到期任务过多时长期占用调度线程。 */
     var dispatchMaxPages: Int = 10
-    /** 用于编排任务执行的最大并发工作线程数。 */
+    /** 用于路由并发起执行器调用的工作线程数；等待执行结果与重试间隔不占用工作线程。 */
     var workerThreads: Int = 8
     /** 工作线程已满时允许在内存中等待的触发数量，超过后由 Outbox 留待后续重试。 */
     var workerQueueCapacity: Int = 1_000
+    /**
+     * 本节点同时在途（已领取、尚未收口）的 Outbox 触发上限；达到上限后停止领取，已领取的剩余记录释放回待投递。
+     * 0 表示按 [workerThreads] + [workerQueueCapacity] 计算。
+     */
+    var maxInFlightTriggers: Int = 0
     /** 当前调度节点标识前缀；集群部署时应配置为稳定且互不重复的值，实际租约 owner 会追加进程随机 token。 */
     var schedulerId: String = "schedule-${UUID.randomUUID()}"
     /**
@@ -28,6 +34,11 @@ class InfraScheduleProperties {
     var staleRunningLogMillis: Long = 600_000
     /** 单轮最多回收的僵尸运行中日志条数。 */
     var staleRunningLogBatchSize: Int = 100
+    /**
+     * 心跳对账的宽限时间（毫秒）：日志创建超过该时间且执行器连续两次心跳未上报时才回收为 LOST。
+     * 应大于一次投递从创建日志到执行器受理的最长耗时；0 表示关闭心跳对账，只依赖逐条探活。
+     */
+    var runningReconcileGraceMillis: Long = 60_000
     /** 任务未显式配置超时时的系统级最大执行时间（毫秒），0 表示不额外限制。 */
     var maxExecutionMillis: Long = 3_600_000
     /** COVER_EARLY 等待旧执行线程确认退出的最长时间（毫秒）。 */
@@ -42,6 +53,36 @@ class InfraScheduleProperties {
     var triggerOutboxCleanupBatchSize: Int = 1_000
     /** 调度扫描、僵尸回收与清理使用的定时线程数。 */
     var schedulerThreads: Int = 4
+    /**
+     * ROUND 游标与 LFU/LRU 统计是否保存在调度节点本地内存，按 [routeStateFlushMillis] 批量写回；
+     * 关闭后每次路由都读写共享表，多调度节点间保持严格的全局轮询顺序。
+     */
+    var routeStateLocal: Boolean = true
+    /** 本地路由统计写回共享表并刷新基线的间隔（毫秒）。 */
+    var routeStateFlushMillis: Long = 5_000
+    /**
+     * 是否启用内存时间轮触发：预加载即将到期的任务，按 tick 到期后再领取，替代每轮扫描都执行的到期领取查询。
+     * 数据库领取仍是任务归属与故障恢复的唯一依据。
+     */
+    var triggerWheelEnabled: Boolean = false
+    /** 时间轮 tick（毫秒），即触发精度。 */
+    var triggerWheelTickMillis: Long = 100
+    /** 每次预加载覆盖的到期时间窗口（毫秒），需大于 [triggerWheelPreloadIntervalMillis]。 */
+    var triggerWheelPreloadWindowMillis: Long = 10_000
+    /** 预加载间隔（毫秒），也是其他调度节点修改任务后本节点感知的最长延迟。 */
+    var triggerWheelPreloadIntervalMillis: Long = 5_000
+    /** 单次预加载的最大任务数。 */
+    var triggerWheelPreloadLimit: Int = 10_000
+    /**
+     * 多调度节点分片数：大于 0 时任务按 `job_id % shardCount` 分片，各节点经租约表分摊分片，
+     * 只领取、投递和回收所持分片内的记录；0 表示不分片，每个节点都扫描全部记录。
+     * 所有调度节点必须配置相同的值，且应明显大于节点数以便均衡。
+     */
+    var shardCount: Int = 0
+    /** 分片租约时长（毫秒）；节点失联后其分片最迟在该时长后由其他节点接管。 */
+    var shardLeaseMillis: Long = 30_000
+    /** 分片续约与再平衡间隔（毫秒），需明显小于 [shardLeaseMillis]。 */
+    var shardRebalanceIntervalMillis: Long = 5_000
     /** 本地执行器注册和健康检查配置。 */
     var executor: ExecutorProperties = ExecutorProperties()
     /** 管理 REST 接口暴露配置。 */
@@ -67,12 +108,61 @@ class InfraScheduleProperties {
         var connectTimeoutMillis: Long = 3_000
         /** 调度中心调用执行器时的响应超时（毫秒）。 */
         var readTimeoutMillis: Long = 30_000
+        /**
+         * 调度中心对单个执行器地址的最大并发请求数（即最多占用的连接数），0 表示不限制。
+         * 同步执行时连接占用到任务结束，设置时应不小于该执行器预期的并发任务数；等待超过连接超时按未送达失败。
+         */
+        var maxConnectionsPerAddress: Int = 0
         /** 向调度中心上报心跳的时间间隔（毫秒）。 */
         var heartbeatIntervalMillis: Long = 10_000
         /** 超过该时间未上报的执行器会被视为离线。 */
         var heartbeatTimeoutMillis: Long = 30_000
+        /**
+         * 调度中心路由候选快照的刷新间隔（毫秒）：超过后由一次路由触发重载，期间其余路由继续使用旧快照。
+         * 0 表示不缓存，每次路由都查询执行器表。
+         */
+        var routeCacheRefreshMillis: Long = 2_000
+        /** 路由候选快照的最大陈旧时间（毫秒），超过后路由必须同步重载；应明显小于 [heartbeatTimeoutMillis]。 */
+        var routeCacheMaxStaleMillis: Long = 10_000
         /** 执行器在调度中心暂不可用时，内存中最多缓冲的业务日志行数。 */
         var handleLogMaxBufferedLines: Int = 20_000
+        /** 单次合批上报的最大日志行数（跨 logId），达到后立即触发上报而不等待定时刷写。 */
+        var handleLogBatchMaxLines: Int = 1_000
+        /** 单次合批上报的最大日志字节数（按字符数估算，压缩前）。 */
+        var handleLogBatchMaxBytes: Int = 512 * 1024
+        /** 合批上报请求体是否 gzip 压缩；调度中心需为同版本以上才能解压。 */
+        var handleLogCompression: Boolean = true
+        /** 内存缓冲写满后溢出文件所在目录，为空时使用系统临时目录。 */
+        var handleLogSpillDir: String? = null
+        /** 溢出文件的最大字节数，超过后新日志行才会被丢弃。 */
+        var handleLogSpillMaxBytes: Long = 256L * 1024 * 1024
+        /**
+         * JobThread 使用的线程实现；承载大量 jobId 时可改为 VIRTUAL，
+         * 载体线程数由 JDK 参数 `jdk.virtualThreadScheduler.parallelism` / `maxPoolSize` 限定。
+         */
+        var jobThreadMode: ExecutorThreadMode = ExecutorThreadMode.PLATFORM
+        /** JobThread 连续空闲超过该时长（毫秒）后回收，下一次触发时重建；0 表示常驻。 */
+        var jobThreadIdleTimeoutMillis: Long = 300_000
+        /**
+         * 整个执行器同时运行的 Handler 上限；0 表示不限制。
+         * 超出上限的触发按任务优先级加权公平排队，长耗时批任务不会独占全部执行资源。
+         */
+        var maxConcurrentExecutions: Int = 0
+        /**
+         * 调度中心是否以异步协议（`/run-async`）调用远程执行器：受理即返回，终态经 finish 回调送达，
+         * 长任务不再占用 HTTP 连接。未升级的执行器返回 404 时自动回退同步 `/run`。
+         */
+        var asyncRun: Boolean = false
+        /**
+         * 异步执行等待终态时批量查询本节点全部等待中日志状态的间隔（毫秒），兜底回调落在其他调度节点；
+         * 回调丢失由执行器心跳对账识别。
+         */
+        var asyncRunPollMillis: Long = 5_000
+        /**
+         * 异步执行时同一执行器地址单次合批受理的最大触发数；该地址有请求在途时后续触发排队合并，1 表示逐条受理。
+         * 执行器版本不支持批量端点时自动回退逐条受理。
+         */
+        var asyncRunBatchMaxSize: Int = 200
     }
 
     /** 管理端接口安全开关。 */
@@ -16,4 +16,8 @@ interface RouteNodeStatRepository {
     fun stats(nodeKeys: Collection<String>): Map<String, RouteNodeStat>
     /** 记录一次路由选用。 */
     fun recordUse(nodeKey: String, now: Long = System.currentTimeMillis())
+    /** 批量记录 [count] 次选用，[lastRouteTime] 为其中最近一次的时间；实现应以单次写入完成。 */
+    fun recordUses(nodeKey: String, count: Int, lastRouteTime: Long) {
+        repeat(count) { recordUse(nodeKey, lastRouteTime) }
+    }
 }
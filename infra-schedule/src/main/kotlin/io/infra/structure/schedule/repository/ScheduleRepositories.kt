@@ -18,6 +18,8 @@ interface ScheduleJobRepository {
     fun updateLocked(id: Long, updater: (ScheduleJob) -> ScheduleJob): ScheduleJob
     /** 按主键查询任务。 */
     fun findById(id: Long): ScheduleJob?
+    /** 按主键批量查询任务，不存在的 ID 不出现在结果中。 */
+    fun findByIds(ids: Collection<Long>): List<ScheduleJob> = ids.mapNotNull(::findById)
     /** 查询全部任务。 */
     fun findAll(): List<ScheduleJob>
     /** 统计仍引用指定执行器的任务数量，用于阻止删除仍被任务使用的执行器。 */
@@ -28,8 +30,10 @@ interface ScheduleJobRepository {
     fun disableAndCancelPendingOutbox(id: Long, now: Long): Boolean
     /** 在同一事务中锁定任务、撤销未开始触发并删除任务定义。 */
     fun deleteAndCancelPendingOutbox(id: Long, now: Long): Boolean
-    /** 原子领取一页到期任务，并写入租约。 */
-    fun claimDueJobs(now: Long, limit: Int, leaseMillis: Long, owner: String): List<ScheduleJob>
+    /** 原子领取一页到期任务，并写入租约；[shards] 非空时只领取所列分片内的任务。 */
+    fun claimDueJobs(now: Long, limit: Int, leaseMillis: Long, owner: String, shards: ShardFilter? = null): List<ScheduleJob>
+    /** 只读查询 [dueBefore] 之前到期的启用任务计划，按计划时间升序；不加锁、不领取，供内存时间轮预加载。 */
+    fun findUpcomingTriggers(dueBefore: Long, limit: Int, shards: ShardFilter? = null): List<UpcomingTrigger>
     /** 仅释放当前 [owner] 的租约。 */
     fun releaseClaim(id: Long, owner: String)
     /** 仅推进调度进度字段；仅当前租约持有者能成功。 */
@@ -43,10 +47,50 @@ interface ScheduleJobRepository {
         outbox: ScheduleTriggerOutbox,
         updateTime: Long
     ): Boolean
+    /**
+     * 批量推进一页已领取任务的调度进度并写入 Outbox，语义同逐个调用 [completeScheduleAndEnqueue]。
+     * @return 推进成功（租约仍由 [owner] 持有）的任务 ID
+     */
+    fun completeSchedulesAndEnqueue(owner: String, advances: List<ScheduleAdvance>, now: Long): Set<Long> =
+        advances.filter { advance ->
+            completeScheduleAndEnqueue(
+                id = advance.jobId,
+                owner = owner,
+                lastTriggerAt = advance.triggerTime,
+                nextTriggerAt = advance.nextTriggerAt,
+                outbox = ScheduleTriggerOutbox(
+                    jobId = advance.jobId,
+                    triggerTime = advance.triggerTime,
+                    createTime = now,
+                    updateTime = now
+                ),
+                updateTime = now
+            )
+        }.mapTo(LinkedHashSet()) { it.jobId }
     /** 锁定仍存在的任务并写入手动触发 Outbox；暂停仅停止定时调度，不阻止管理员立即执行。 */
     fun enqueueManual(outbox: ScheduleTriggerOutbox): Boolean
 }
 
+/** 一个已领取任务的本次触发与推进后的下一次计划。 */
+data class ScheduleAdvance(
+    /** 任务主键。 */
+    val jobId: Long,
+    /** 本次触发的计划时间，写入 last_trigger_at 与 Outbox。 */
+    val triggerTime: Long,
+    /** 推进后的下一次触发时间。 */
+    val nextTriggerAt: Long
+)
+
+/** 即将到期的任务计划。 */
+data class UpcomingTrigger(
+    /** 任务主键。 */
+    var jobId: Long = 0,
+    /** 计划触发时间。 */
+    var nextTriggerAt: Long = 0,
+    /** 其他调度节点持有的领取租约截止时间；到期前无法领取。 */
+    var claimUntil: Long? = null
+)
+
 /** 待回收的活跃执行日志引用。 */
 data class StaleRunningLogRef(
     /** 执行日志主键。 */
@@ -77,6 +121,8 @@ interface ScheduleExecutionLogRepository {
         now: Long? = null
     ): JobExecutionLog?
     fun findById(id: Long): JobExecutionLog?
+    /** 按主键批量查询日志，不存在的 ID 不出现在结果中。 */
+    fun findByIds(ids: Collection<Long>): List<JobExecutionLog> = ids.mapNotNull(::findById)
     fun update(log: JobExecutionLog)
     /** 删除单条尚未执行业务副作用的日志，例如常驻任务被执行器丢弃的触发。 */
     fun delete(id: Long): Boolean
@@ -101,28 +147,54 @@ interface ScheduleExecutionLogRepository {
      */
     fun finishFromExecutor(log: JobExecutionLog, timeoutMessage: String): Boolean
     fun markRunningIfQueued(logId: Long, message: String): Boolean
-    /** 追加执行器上报的业务日志。 */
+    /** 以新分块追加执行器上报的业务日志；日志已终态或不存在时返回 false。 */
     fun appendHandleLog(logId: Long, chunk: String): Boolean
+    /** 按追加顺序读取 [afterChunkId] 之后的业务日志分块。 */
+    fun findHandleLogChunks(logId: Long, afterChunkId: Long, limit: Int): List<HandleLogChunk>
     /** 按主键游标轮换查询等待执行器确认终止的日志；用于 cancel 失败后的短周期补偿与探活。 */
-    fun findPendingCancellationCandidates(afterId: Long, limit: Int): List<StaleRunningLogRef>
+    fun findPendingCancellationCandidates(afterId: Long, limit: Int, shards: ShardFilter? = null): List<StaleRunningLogRef>
     /** 按主键游标轮换查询长时间未结束的普通运行日志。 */
-    fun findStaleRunningCandidates(staleBeforeTriggerTime: Long, afterId: Long, limit: Int): List<StaleRunningLogRef>
+    fun findStaleRunningCandidates(
+        staleBeforeTriggerTime: Long,
+        afterId: Long,
+        limit: Int,
+        shards: ShardFilter? = null
+    ): List<StaleRunningLogRef>
     /** 仅将仍处于 QUEUED/RUNNING 的日志回收为 LOST，避免覆盖并发进入的取消确认状态。 */
     fun markLostIfActive(id: Long, now: Long, message: String): Boolean
+    /** 批量版本的 [markLostIfActive]，返回实际回收条数。 */
+    fun markLostIfActive(ids: Collection<Long>, now: Long, message: String): Int =
+        ids.count { markLostIfActive(it, now, message) }
+    /** 查询发往 [targetAddress] 且创建不晚于 [createdBefore] 的活跃日志（含取消确认中），供心跳对账。 */
+    fun findActiveByTargetAddress(targetAddress: String, createdBefore: Long, limit: Int): List<StaleRunningLogRef>
     fun findActiveByJobId(jobId: Long, limit: Int = 100): List<JobExecutionLog>
     fun findByJobId(jobId: Long, limit: Int = 100): List<JobExecutionLog>
     fun query(query: ExecutionLogQuery): List<JobExecutionLog>
     fun count(query: ExecutionLogQuery): Long
-    /** 按主键批量删除早于阈值且已结束的历史日志。 */
+    /** 按主键批量删除早于阈值且已结束的历史日志及其业务日志分块。 */
     fun deleteFinishedBefore(finishTimeBefore: Long, limit: Int): Int
 }
 
+/** 一次追加写入的业务日志分块。 */
+data class HandleLogChunk(
+    /** 分块主键，同一执行日志内即追加顺序，用作分页游标。 */
+    val id: Long,
+    /** 本次追加的日志内容。 */
+    val content: String
+)
+
 /** 可靠触发 Outbox 的 MySQL 持久化 SPI。 */
 interface ScheduleTriggerOutboxRepository {
     /** 与任务调度进度在同一事务中插入待投递记录。 */
     fun enqueue(outbox: ScheduleTriggerOutbox): ScheduleTriggerOutbox
-    /** 用租约领取待投递记录。 */
-    fun claimPending(now: Long, limit: Int, leaseMillis: Long, owner: String): List<ScheduleTriggerOutbox>
+    /** 用租约领取待投递记录；[shards] 非空时只领取所列分片内任务的记录。 */
+    fun claimPending(
+        now: Long,
+        limit: Int,
+        leaseMillis: Long,
+        owner: String,
+        shards: ShardFilter? = null
+    ): List<ScheduleTriggerOutbox>
     /** 标记为当前领取方已完成处理。 */
     fun markDispatched(id: Long, owner: String, claimToken: String, now: Long): Boolean
     /** 延长正在处理的投递租约，防止长任务执行期间被其他调度节点重复领取。 */
@@ -0,0 +1,53 @@
+package io.infra.structure.schedule.repository
+
+/**
+ * 多调度节点之间的分片租约 SPI。
+ *
+ * 任务按 `job_id % shardCount` 划入固定数量的分片，每个分片同一时刻最多由一个调度节点持有租约；
+ * 节点只领取、投递和回收所持分片内的记录。租约只用于分摊扫描负载、减少节点间的锁竞争，
+ * 触发与投递的唯一归属仍由任务租约和 Outbox claim token 保证。
+ */
+interface ScheduleShardLeaseRepository {
+    /** 补齐 `[0, shardCount)` 的分片行；已存在的分片保持不变。 */
+    fun ensureShards(shardCount: Int, now: Long)
+
+    /** 登记或续约调度节点成员资格，并清理过期成员。 */
+    fun heartbeatMember(owner: String, leaseUntil: Long, now: Long)
+
+    /** 返回成员租约未过期的调度节点，按 owner 升序。 */
+    fun liveMembers(now: Long): List<String>
+
+    /** 注销调度节点成员资格，进程关闭时调用。 */
+    fun removeMember(owner: String)
+
+    /** 返回全部分片的当前租约。 */
+    fun findShards(): List<ShardLease>
+
+    /** 续约 [owner] 仍有效持有的全部分片，返回续约条数。 */
+    fun renew(owner: String, leaseUntil: Long, now: Long): Int
+
+    /** 分片无人持有、租约已过期或已由 [owner] 持有时写入租约。 */
+    fun tryAcquire(shardId: Int, owner: String, leaseUntil: Long, now: Long): Boolean
+
+    /** 只释放 [owner] 自身持有的分片。 */
+    fun release(shardId: Int, owner: String, now: Long): Boolean
+}
+
+/** 一个分片的租约状态。 */
+data class ShardLease(
+    /** 分片编号，`job_id % shardCount`。 */
+    var shardId: Int = 0,
+    /** 当前持有租约的调度节点；null 表示无人持有。 */
+    var owner: String? = null,
+    /** 租约截止时间戳毫秒。 */
+    var leaseUntil: Long = 0
+)
+
+/**
+ * 调度扫描的分片过滤条件：只处理 `job_id % shardCount` 落在 [shards] 内的记录。
+ * [shards] 为空表示当前节点不持有任何分片，调用方应跳过扫描。
+ */
+data class ShardFilter(
+    val shardCount: Int,
+    val shards: Set<Int>
+)
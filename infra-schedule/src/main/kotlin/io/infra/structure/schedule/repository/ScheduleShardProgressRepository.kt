@@ -0,0 +1,32 @@
+package io.infra.structure.schedule.repository
+
+import io.infra.structure.schedule.model.ShardProgress
+
+/**
+ * 动态分片广播的分片进度 SPI。
+ *
+ * 每次触发按 Outbox ID（runId）写入 `[0, shardTotal)` 个逻辑分片，参与本次触发的执行器逐个领取；
+ * 领取以条件更新互斥，同一分片同一时刻只归属一条执行日志。
+ */
+interface ScheduleShardProgressRepository {
+    /** 补齐本次触发的分片行；Outbox 重投时已存在的进度保持不变。 */
+    fun createShards(runId: Long, jobId: Long, shardTotal: Int, now: Long)
+
+    /** 把下标最小的待领取分片分配给 [logId]；没有剩余分片时返回 null。 */
+    fun claimNext(runId: Long, logId: Long, now: Long): ShardProgress?
+
+    /** 记录 [logId] 自身持有分片的处理结果；分片已被退回或改派时返回 false。 */
+    fun complete(runId: Long, shardIndex: Int, logId: Long, success: Boolean, message: String?, now: Long): Boolean
+
+    /** 执行结束后把 [logId] 仍持有的分片退回待领取，返回退回条数。 */
+    fun releaseByLog(runId: Long, logId: Long, now: Long): Int
+
+    /** 按下标返回本次触发的全部分片进度。 */
+    fun findByRun(runId: Long): List<ShardProgress>
+
+    /** 返回任务最近一次动态分片触发的全部分片进度；从未触发时为空。 */
+    fun findLatestByJob(jobId: Long): List<ShardProgress>
+
+    /** 分批删除 [updateTimeBefore] 之前最后变更的进度，与 Outbox 历史使用同一保留期。 */
+    fun deleteUpdatedBefore(updateTimeBefore: Long, limit: Int): Int
+}
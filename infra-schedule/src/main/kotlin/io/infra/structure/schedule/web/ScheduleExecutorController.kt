@@ -5,6 +5,9 @@ import io.infra.structure.schedule.core.ExecutorCancelRequest
 import io.infra.structure.schedule.core.ExecutorCancelResponse
 import io.infra.structure.schedule.core.ExecutorIdleBeatRequest
 import io.infra.structure.schedule.core.ExecutorIdleBeatResponse
+import io.infra.structure.schedule.core.ExecutorRunAcceptedResponse
+import io.infra.structure.schedule.core.ExecutorRunBatchRequest
+import io.infra.structure.schedule.core.ExecutorRunBatchResponse
 import io.infra.structure.schedule.core.ExecutorRunningRequest
 import io.infra.structure.schedule.core.ExecutorRunningResponse
 import io.infra.structure.schedule.core.ExecutorTaskTracker
@@ -42,6 +45,44 @@ class ScheduleExecutorController(
         return taskTracker.run(context)
     }
 
+    /**
+     * 异步执行：按阻塞策略入队后立即应答，不占用请求线程等待 Handler。
+     * 终态由 [io.infra.structure.schedule.core.ScheduleLogReporter] 的 finish 回调上报，因此必须携带 logId。
+     */
+    @PostMapping(
+        ScheduleWebPaths.RUN_ASYNC,
+        consumes = [MediaType.APPLICATION_JSON_VALUE],
+        produces = [MediaType.APPLICATION_JSON_VALUE]
+    )
+    fun runAsync(
+        @RequestHeader(value = SCHEDULE_ACCESS_TOKEN_HEADER, required = false) accessToken: String?,
+        @RequestBody context: JobExecutionContext
+    ): ExecutorRunAcceptedResponse {
+        requireAuthorized(accessToken)
+        return submitAsync(context)
+    }
+
+    /**
+     * 合批异步执行：按各自任务的阻塞策略入队，结果与请求顺序一一对应。
+     * 调度中心在同一执行器地址有请求在途时合并后续触发，突发整点触发不再逐条往返；
+     * 不同任务并行受理，单个 COVER_EARLY 等待旧线程退出不会拖慢整批应答（见 [ExecutorTaskTracker.submitAll]）。
+     */
+    @PostMapping(
+        ScheduleWebPaths.RUN_ASYNC_BATCH,
+        consumes = [MediaType.APPLICATION_JSON_VALUE],
+        produces = [MediaType.APPLICATION_JSON_VALUE]
+    )
+    fun runAsyncBatch(
+        @RequestHeader(value = SCHEDULE_ACCESS_TOKEN_HEADER, required = false) accessToken: String?,
+        @RequestBody request: ExecutorRunBatchRequest
+    ): ExecutorRunBatchResponse {
+        requireAuthorized(accessToken)
+        val admitted = taskTracker.submitAll(request.contexts.filter(::hasLogId)).iterator()
+        return ExecutorRunBatchResponse(
+            results = request.contexts.map { if (hasLogId(it)) accepted(admitted.next()) else MISSING_LOG_ID }
+        )
+    }
+
     /** 按执行日志 ID 中断本进程内对应的 handler 线程或队列项。 */
     @PostMapping(
         ScheduleWebPaths.CANCEL,
@@ -93,6 +134,14 @@ class ScheduleExecutorController(
         return ExecutorIdleBeatResponse(idle = taskTracker.isJobIdle(request.jobId))
     }
 
+    private fun submitAsync(context: JobExecutionContext): ExecutorRunAcceptedResponse =
+        if (hasLogId(context)) accepted(taskTracker.submit(context)) else MISSING_LOG_ID
+
+    private fun hasLogId(context: JobExecutionContext): Boolean = (context.logId ?: 0) > 0
+
+    private fun accepted(rejected: JobExecutionResult?) =
+        ExecutorRunAcceptedResponse(accepted = rejected == null, result = rejected)
+
     private fun requireAuthorized(accessToken: String?) {
         if (!properties.executor.authEnabled) return
         val expectedToken = properties.executor.accessToken?.takeIf { it.isNotBlank() }
@@ -101,4 +150,8 @@ class ScheduleExecutorController(
             throw ResponseStatusException(HttpStatus.UNAUTHORIZED, "执行器访问令牌无效")
         }
     }
+
+    private companion object {
+        val MISSING_LOG_ID = ExecutorRunAcceptedResponse(accepted = false, result = JobExecutionResult.failure("异步执行缺少 logId"))
+    }
 }
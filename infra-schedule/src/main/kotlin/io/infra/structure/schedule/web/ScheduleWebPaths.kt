@@ -24,10 +24,16 @@ object ScheduleWebPaths {
     const val LOG_CANCEL = "/logs/{id}/cancel"
     /** 执行器异步追加业务执行日志的相对路径模板。 */
     const val LOG_HANDLE_APPEND = "/logs/{id}/handle-log"
+    /** 管理端按游标分页读取业务执行日志分块的相对路径模板。 */
+    const val LOG_HANDLE_CHUNKS = "/logs/{id}/handle-log/chunks"
     /** 执行器异步追加业务执行日志的完整路径模板。 */
     const val EXECUTOR_LOG_HANDLE_APPEND = "$API_ROOT$LOG_HANDLE_APPEND"
     /** 拦截器排除用的 Ant 路径（匹配任意日志 ID）。 */
     const val EXECUTOR_LOG_HANDLE_APPEND_PATTERN = "$API_ROOT/logs/*/handle-log"
+    /** 执行器跨日志合批追加业务执行日志的相对路径。 */
+    const val LOG_HANDLE_APPEND_BATCH = "/logs/handle-log/batch"
+    /** 执行器合批追加业务执行日志的完整路径。 */
+    const val EXECUTOR_LOG_HANDLE_APPEND_BATCH = "$API_ROOT$LOG_HANDLE_APPEND_BATCH"
     /** 执行器通知日志已开始真正执行（QUEUED → RUNNING）。 */
     const val LOG_STARTED = "/logs/{id}/started"
     /** 执行器通知开始执行的完整路径模板。 */
@@ -40,6 +46,20 @@ object ScheduleWebPaths {
     const val EXECUTOR_LOG_FINISH = "$API_ROOT$LOG_FINISH"
     /** 拦截器排除用的 Ant 路径。 */
     const val EXECUTOR_LOG_FINISH_PATTERN = "$API_ROOT/logs/*/finish"
+    /** 执行器为指定日志领取下一个动态分片的相对路径模板。 */
+    const val LOG_SHARD_CLAIM = "/logs/{id}/shards/claim"
+    /** 执行器领取动态分片的完整路径模板。 */
+    const val EXECUTOR_LOG_SHARD_CLAIM = "$API_ROOT$LOG_SHARD_CLAIM"
+    /** 拦截器排除用的 Ant 路径。 */
+    const val EXECUTOR_LOG_SHARD_CLAIM_PATTERN = "$API_ROOT/logs/*/shards/claim"
+    /** 执行器回报动态分片处理结果的相对路径模板。 */
+    const val LOG_SHARD_COMPLETE = "/logs/{id}/shards/complete"
+    /** 执行器回报动态分片结果的完整路径模板。 */
+    const val EXECUTOR_LOG_SHARD_COMPLETE = "$API_ROOT$LOG_SHARD_COMPLETE"
+    /** 拦截器排除用的 Ant 路径。 */
+    const val EXECUTOR_LOG_SHARD_COMPLETE_PATTERN = "$API_ROOT/logs/*/shards/complete"
+    /** 管理端查询任务最近一次动态分片广播进度的相对路径模板。 */
+    const val JOB_SHARDS = "/jobs/{id}/shards"
     /** 预览任务接下来若干次调度时间的相对路径模板。 */
     const val JOB_NEXT_TRIGGERS = "/jobs/{id}/next-triggers"
     /** 按当前表单中的调度配置预览接下来若干次调度时间。 */
@@ -68,6 +88,14 @@ object ScheduleWebPaths {
     const val RUN = "/run"
     /** 调度中心调用执行器处理任务的完整路径。 */
     const val EXECUTOR_RUN = "$EXECUTOR_ROOT$RUN"
+    /** 执行器受理即返回、终态经 finish 回调上报的相对路径。 */
+    const val RUN_ASYNC = "/run-async"
+    /** 调度中心以异步协议调用执行器的完整路径。 */
+    const val EXECUTOR_RUN_ASYNC = "$EXECUTOR_ROOT$RUN_ASYNC"
+    /** 执行器一次受理多条异步触发的相对路径。 */
+    const val RUN_ASYNC_BATCH = "/run-async/batch"
+    /** 调度中心按执行器地址合批调用异步协议的完整路径。 */
+    const val EXECUTOR_RUN_ASYNC_BATCH = "$EXECUTOR_ROOT$RUN_ASYNC_BATCH"
     /** 执行器终止运行中任务的相对路径。 */
     const val CANCEL = "/cancel"
     /** 调度中心调用执行器终止任务的完整路径。 */
@@ -0,0 +1,168 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.ScheduleExecutor
+import io.infra.structure.schedule.model.ExecutorHeartbeat
+import io.infra.structure.schedule.model.ExecutorStatus
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import io.infra.structure.schedule.repository.ExecutorHeartbeatRepository
+import io.infra.structure.schedule.repository.RouteCursorRepository
+import io.infra.structure.schedule.repository.RouteNodeStat
+import io.infra.structure.schedule.repository.RouteNodeStatRepository
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ExecutorRegistryTest {
+
+    private val repository = FakeHeartbeatRepository()
+
+    @Test
+    fun softExpiredSnapshotIsReloadedByOneCaller() {
+        val registry = registry(refreshMillis = 50, maxStaleMillis = 60_000)
+        repository.addresses += "10.0.0.1:9999"
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999")
+        Thread.sleep(80)
+
+        repository.addresses += "10.0.0.2:9999"
+        val gate = repository.blockNextLoad()
+        val refresher = CompletableFuture.supplyAsync { addresses(registry) }
+        assertThat(repository.loadEntered.await(2, TimeUnit.SECONDS)).isTrue()
+
+        // 重载进行中，其余调用方不查库，继续使用旧快照
+        repeat(5) { assertThat(addresses(registry)).containsExactly("10.0.0.1:9999") }
+        assertThat(repository.loads.get()).isEqualTo(2)
+
+        gate.countDown()
+        assertThat(refresher.get(2, TimeUnit.SECONDS)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(repository.loads.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun snapshotBeyondMaxStaleIsReloadedSynchronously() {
+        val registry = registry(refreshMillis = 20, maxStaleMillis = 60)
+        repository.addresses += "10.0.0.1:9999"
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999")
+        Thread.sleep(100)
+
+        repository.addresses += "10.0.0.2:9999"
+
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(repository.loads.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun heartbeatFromNewAddressInvalidatesSnapshot() {
+        val registry = registry(refreshMillis = 60_000, maxStaleMillis = 60_000)
+        registry.heartbeat(GROUP, "executor", "10.0.0.1:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999")
+
+        // 已在快照中的地址续约不触发重载
+        registry.heartbeat(GROUP, "executor", "10.0.0.1:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999")
+        assertThat(repository.loads.get()).isEqualTo(1)
+
+        registry.heartbeat(GROUP, "executor", "10.0.0.2:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(repository.loads.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun invalidationDuringLoadDiscardsStaleResult() {
+        val registry = registry(refreshMillis = 60_000, maxStaleMillis = 60_000)
+        repository.addresses += "10.0.0.1:9999"
+        val gate = repository.blockNextLoad()
+        val loading = CompletableFuture.supplyAsync { addresses(registry) }
+        assertThat(repository.loadEntered.await(2, TimeUnit.SECONDS)).isTrue()
+
+        repository.addresses += "10.0.0.2:9999"
+        registry.invalidateRoutes(GROUP)
+        gate.countDown()
+
+        // 失效前读到的结果只返回给本次调用方，不写回快照
+        assertThat(loading.get(2, TimeUnit.SECONDS)).containsExactly("10.0.0.1:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(addresses(registry)).containsExactly("10.0.0.1:9999", "10.0.0.2:9999")
+        assertThat(repository.loads.get()).isEqualTo(2)
+    }
+
+    private fun registry(refreshMillis: Long, maxStaleMillis: Long) = ExecutorRegistry(
+        heartbeatRepository = repository,
+        heartbeatTimeoutMillis = 30_000,
+        clientFactory = { heartbeat -> FakeExecutor(heartbeat.executorGroup) },
+        routeStatRepository = NoopStatRepository,
+        routeCursorRepository = FirstCursorRepository,
+        routeCacheRefreshMillis = refreshMillis,
+        routeCacheMaxStaleMillis = maxStaleMillis
+    )
+
+    private fun addresses(registry: ExecutorRegistry): List<String?> =
+        registry.activeRouted(GROUP).map { it.hashRingKey }
+
+    /** 单个自动注册分组的心跳仓储；[blockNextLoad] 让下一次地址加载在读取后停住，模拟慢查询。 */
+    private class FakeHeartbeatRepository : ExecutorHeartbeatRepository {
+        private val executor = ExecutorHeartbeat(id = 1, executorGroup = GROUP, executorName = "executor", lastHeartbeatTime = 0)
+        val addresses = CopyOnWriteArrayList<String>()
+        val loads = AtomicInteger()
+        @Volatile
+        var loadEntered = CountDownLatch(1)
+        @Volatile
+        private var gate: CountDownLatch? = null
+
+        fun blockNextLoad(): CountDownLatch {
+            loadEntered = CountDownLatch(1)
+            return CountDownLatch(1).also { gate = it }
+        }
+
+        override fun heartbeat(heartbeat: ExecutorHeartbeat) {
+            heartbeat.address?.let { if (it !in addresses) addresses += it }
+        }
+
+        override fun list(executorGroup: String, now: Long, timeoutMillis: Long): List<ExecutorHeartbeat> {
+            loads.incrementAndGet()
+            return listOf(executor)
+        }
+
+        override fun listRoutableAddresses(executorId: Long, now: Long, timeoutMillis: Long): List<String> {
+            val loaded = addresses.sorted()
+            gate?.let {
+                gate = null
+                loadEntered.countDown()
+                it.await(2, TimeUnit.SECONDS)
+            }
+            return loaded
+        }
+
+        override fun save(executor: ExecutorHeartbeat) = executor
+        override fun findById(id: Long) = executor.takeIf { it.id == id }
+        override fun findByGroup(executorGroup: String) = executor.takeIf { it.executorGroup == executorGroup }
+        override fun listRegistered(executorGroup: String) = listOf(executor)
+        override fun listRegistered() = listOf(executor)
+        override fun updateStatus(id: Long, status: ExecutorStatus) = false
+        override fun markOffline(executorGroup: String, address: String?) = false
+        override fun deleteIfUnreferenced(id: Long) = false
+    }
+
+    private object FirstCursorRepository : RouteCursorRepository {
+        override fun nextRoundIndex(cursorKey: String, candidateSize: Int) = 0
+    }
+
+    private object NoopStatRepository : RouteNodeStatRepository {
+        override fun stats(nodeKeys: Collection<String>): Map<String, RouteNodeStat> = emptyMap()
+        override fun recordUse(nodeKey: String, now: Long) = Unit
+    }
+
+    private class FakeExecutor(override val group: String) : ScheduleExecutor {
+        override val id = "fake"
+        override fun execute(context: JobExecutionContext) = JobExecutionResult(success = true)
+    }
+
+    private companion object {
+        const val GROUP = "group"
+    }
+}
@@ -0,0 +1,388 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.ScheduleHandler
+import io.infra.structure.schedule.api.ScheduleJobHandler
+import io.infra.structure.schedule.model.BlockStrategy
+import io.infra.structure.schedule.model.ExecutorThreadMode
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class ExecutorTaskTrackerTest {
+
+    private val started = LinkedBlockingQueue<Long>()
+    private val releases = ConcurrentHashMap<Long, CountDownLatch>()
+    private val handlerThreads = CopyOnWriteArrayList<Thread>()
+    private val finished = ConcurrentHashMap<Long, JobExecutionResult>()
+    private val callers = Executors.newVirtualThreadPerTaskExecutor()
+    private val tracker = ExecutorTaskTracker(
+        handlerRegistry = HandlerRegistry(listOf(BlockingHandler())),
+        coverEarlyWaitMillis = 2_000,
+        onExecutionFinished = { context, result, _ -> finished[context.logId!!] = result },
+        threadMode = ExecutorThreadMode.VIRTUAL,
+        jobThreadIdleTimeoutMillis = 200
+    )
+
+    @AfterEach
+    fun close() {
+        releases.values.forEach { it.countDown() }
+        callers.shutdownNow()
+    }
+
+    @Test
+    fun serialTriggersRunInOrderOnVirtualThreads() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val second = trigger(2)
+        awaitQueued(2)
+
+        release(1)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(2)
+        release(2)
+        assertThat(second.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(handlerThreads).allMatch { it.isVirtual }
+    }
+
+    @Test
+    fun cancelQueuedTriggerOnlyRemovesThatTicket() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val second = trigger(2)
+        awaitQueued(2)
+        val third = trigger(3)
+        awaitQueued(3)
+
+        assertThat(tracker.cancel(2)).isTrue()
+        assertThat(second.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        assertThat(finished[2]?.cancelled).isTrue()
+
+        release(1)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(3)
+        release(3)
+        assertThat(third.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(started).isEmpty()
+    }
+
+    @Test
+    fun cancelRunningTriggerInterruptsHandler() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+
+        assertThat(tracker.cancel(1)).isTrue()
+
+        assertThat(first.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        assertThat(finished[1]?.cancelled).isTrue()
+        assertThat(started).isEmpty()
+    }
+
+    @Test
+    fun coverEarlyStopsPreviousThreadAndRunsNewTrigger() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val queued = trigger(2)
+        awaitQueued(2)
+
+        val cover = trigger(3, BlockStrategy.COVER_EARLY)
+
+        assertThat(first.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        assertThat(queued.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        assertThat(nextStarted()).isEqualTo(3)
+        release(3)
+        assertThat(cover.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(handlerThreads[0]).isNotSameAs(handlerThreads[1])
+        assertThat(handlerThreads[0].isAlive).isFalse()
+    }
+
+    @Test
+    fun idleJobThreadIsReclaimedAndRecreatedOnNextTrigger() {
+        release(1)
+        assertThat(trigger(1).get(2, TimeUnit.SECONDS).success).isTrue()
+        val idleThread = handlerThreads.single()
+        idleThread.join(2_000)
+        assertThat(idleThread.isAlive).isFalse()
+
+        release(2)
+        assertThat(trigger(2).get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(handlerThreads).hasSize(2)
+        assertThat(handlerThreads[1]).isNotSameAs(idleThread)
+    }
+
+    @Test
+    fun submitAcknowledgesAdmissionAndReportsCompletionThroughCallback() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+
+        assertThat(tracker.submit(context(2))).isNull()
+        assertThat(tracker.isRunning(2)).isTrue()
+        assertThat(tracker.submit(context(3, BlockStrategy.DISCARD_LATER))?.discarded).isTrue()
+
+        release(1)
+        release(2)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(2)
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (finished[2] == null) {
+            check(System.nanoTime() < deadline) { "异步触发未回调" }
+            Thread.sleep(5)
+        }
+        assertThat(finished[2]?.success).isTrue()
+    }
+
+    @Test
+    fun activeLogIdsCoverRunningAndQueuedTriggersUntilFinished() {
+        assertThat(tracker.activeLogIds()).isEmpty()
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val second = trigger(2)
+        awaitQueued(2)
+
+        assertThat(tracker.activeLogIds()).containsExactlyInAnyOrder(1L, 2L)
+
+        release(1)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(2)
+        assertThat(tracker.activeLogIds()).containsExactly(2L)
+        release(2)
+        assertThat(second.get(2, TimeUnit.SECONDS).success).isTrue()
+        // 终态回调先于票据移出，移出后集合为空
+        assertThat(finished.keys).containsExactlyInAnyOrder(1L, 2L)
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (tracker.activeLogIds().isNotEmpty()) {
+            check(System.nanoTime() < deadline) { "活跃集合未清空" }
+            Thread.sleep(5)
+        }
+    }
+
+    @Test
+    fun concurrencyCapHoldsOtherJobsAndCancelAbortsSlotWait() {
+        val capped = ExecutorTaskTracker(
+            handlerRegistry = HandlerRegistry(listOf(BlockingHandler())),
+            threadMode = ExecutorThreadMode.VIRTUAL,
+            maxConcurrentExecutions = 1
+        )
+        val first = callers.submit<JobExecutionResult> { capped.run(context(1, jobId = 1)) }
+        assertThat(nextStarted()).isEqualTo(1)
+        val waiting = callers.submit<JobExecutionResult> { capped.run(context(2, jobId = 2)) }
+        val next = callers.submit<JobExecutionResult> { capped.run(context(3, jobId = 3, priority = 9)) }
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (!capped.isRunning(2) || !capped.isRunning(3)) {
+            check(System.nanoTime() < deadline) { "触发未进入 JobThread" }
+            Thread.sleep(5)
+        }
+        assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull()
+
+        assertThat(capped.cancel(2)).isTrue()
+        assertThat(waiting.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        release(1)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(3)
+        release(3)
+        assertThat(next.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(started).isEmpty()
+    }
+
+    @Test
+    fun duplicateQueuedTriggersShareOneExecution() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val queued = dedupTrigger(2)
+        awaitQueued(2)
+        val duplicate = dedupTrigger(3)
+        awaitQueued(3)
+        val other = dedupTrigger(4, parameters = "other")
+        awaitQueued(4)
+
+        assertThat(tracker.activeLogIds()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L)
+        release(1)
+        assertThat(nextStarted()).isEqualTo(2)
+        release(2)
+        assertThat(queued.get(2, TimeUnit.SECONDS).success).isTrue()
+        val merged = duplicate.get(2, TimeUnit.SECONDS)
+        assertThat(merged.success).isTrue()
+        assertThat(merged.message).isEqualTo("与日志 #2 合并执行")
+        assertThat(finished[3]?.success).isTrue()
+        assertThat(nextStarted()).isEqualTo(4)
+        release(4)
+        assertThat(other.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(started).isEmpty()
+    }
+
+    @Test
+    fun cancelMergedTriggerKeepsLeaderQueued() {
+        val first = trigger(1)
+        assertThat(nextStarted()).isEqualTo(1)
+        val queued = dedupTrigger(2)
+        awaitQueued(2)
+        val duplicate = dedupTrigger(3)
+        awaitQueued(3)
+
+        assertThat(tracker.cancel(3)).isTrue()
+        assertThat(duplicate.get(2, TimeUnit.SECONDS).cancelled).isTrue()
+        release(1)
+        release(2)
+        assertThat(first.get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(2)
+        assertThat(queued.get(2, TimeUnit.SECONDS).success).isTrue()
+    }
+
+    @Test
+    fun successfulResultIsReusedWithinCacheWindow() {
+        release(1)
+        assertThat(dedupTrigger(1, resultCacheMillis = 60_000).get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(1)
+
+        val cached = tracker.run(dedupContext(2, resultCacheMillis = 60_000))
+        assertThat(cached.success).isTrue()
+        assertThat(cached.message).isEqualTo("复用日志 #1 的执行结果")
+        assertThat(tracker.submit(dedupContext(3, resultCacheMillis = 60_000))?.success).isTrue()
+        assertThat(started).isEmpty()
+
+        // 不带缓存窗口的触发照常执行
+        release(4)
+        assertThat(dedupTrigger(4).get(2, TimeUnit.SECONDS).success).isTrue()
+        assertThat(nextStarted()).isEqualTo(4)
+    }
+
+    @Test
+    fun submitAllAdmitsOtherJobsWhileCoverEarlyWaits() {
+        val stubborn = stubbornTracker(coverEarlyWaitMillis = 5_000)
+        callers.submit<JobExecutionResult> { stubborn.run(stubbornContext(1, jobId = 1)) }
+        assertThat(nextStarted()).isEqualTo(1)
+
+        val batch = callers.submit<List<JobExecutionResult?>> {
+            stubborn.submitAll(
+                listOf(
+                    stubbornContext(2, jobId = 1, blockStrategy = BlockStrategy.COVER_EARLY),
+                    stubbornContext(3, jobId = 2),
+                    stubbornContext(4, jobId = 2)
+                )
+            )
+        }
+
+        // 任务 1 的旧线程不响应终止，COVER_EARLY 仍在等待；任务 2 的两条触发已按序入队执行
+        assertThat(nextStarted()).isEqualTo(3)
+        release(3)
+        assertThat(nextStarted()).isEqualTo(4)
+        assertThat(batch.isDone).isFalse()
+
+        release(1)
+        assertThat(batch.get(2, TimeUnit.SECONDS)).containsExactly(null, null, null)
+        assertThat(nextStarted()).isEqualTo(2)
+    }
+
+    @Test
+    fun submitAllReportsUnfinishedAdmissionAsUncertainAtDeadline() {
+        val stubborn = stubbornTracker(coverEarlyWaitMillis = 5_000)
+        callers.submit<JobExecutionResult> { stubborn.run(stubbornContext(1, jobId = 1)) }
+        assertThat(nextStarted()).isEqualTo(1)
+
+        val results = stubborn.submitAll(
+            listOf(
+                stubbornContext(2, jobId = 1, blockStrategy = BlockStrategy.COVER_EARLY),
+                stubbornContext(3, jobId = 2)
+            ),
+            timeoutMillis = 200
+        )
+
+        assertThat(results[0]?.uncertain).isTrue()
+        assertThat(results[1]).isNull()
+        assertThat(nextStarted()).isEqualTo(3)
+        // 超时后受理在后台继续，旧线程退出即完成覆盖
+        release(1)
+        assertThat(nextStarted()).isEqualTo(2)
+    }
+
+    private fun trigger(logId: Long, blockStrategy: BlockStrategy = BlockStrategy.SERIAL): Future<JobExecutionResult> =
+        callers.submit<JobExecutionResult> { tracker.run(context(logId, blockStrategy)) }
+
+    private fun dedupTrigger(logId: Long, parameters: String = "", resultCacheMillis: Long = 0): Future<JobExecutionResult> =
+        callers.submit<JobExecutionResult> { tracker.run(dedupContext(logId, parameters, resultCacheMillis)) }
+
+    private fun dedupContext(logId: Long, parameters: String = "", resultCacheMillis: Long = 0) =
+        context(logId).copy(parameters = parameters, coalesceDuplicates = true, resultCacheMillis = resultCacheMillis)
+
+    private fun context(
+        logId: Long,
+        blockStrategy: BlockStrategy = BlockStrategy.SERIAL,
+        jobId: Long = JOB_ID,
+        priority: Int = 0
+    ) = JobExecutionContext(
+        jobId = jobId,
+        jobName = "blocking-job",
+        handler = "blocking",
+        parameters = "",
+        triggerTime = System.currentTimeMillis(),
+        logId = logId,
+        blockStrategy = blockStrategy,
+        priority = priority
+    )
+
+    private fun stubbornTracker(coverEarlyWaitMillis: Long) = ExecutorTaskTracker(
+        handlerRegistry = HandlerRegistry(listOf(StubbornHandler())),
+        coverEarlyWaitMillis = coverEarlyWaitMillis,
+        threadMode = ExecutorThreadMode.VIRTUAL
+    )
+
+    private fun stubbornContext(logId: Long, jobId: Long, blockStrategy: BlockStrategy = BlockStrategy.SERIAL) =
+        context(logId, blockStrategy, jobId).copy(handler = "stubborn")
+
+    private fun nextStarted(): Long? = started.poll(2, TimeUnit.SECONDS)
+
+    private fun awaitQueued(logId: Long) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (!tracker.isRunning(logId)) {
+            check(System.nanoTime() < deadline) { "触发未入队: $logId" }
+            Thread.sleep(5)
+        }
+    }
+
+    private fun release(logId: Long) {
+        latch(logId).countDown()
+    }
+
+    private fun latch(logId: Long): CountDownLatch = releases.computeIfAbsent(logId) { CountDownLatch(1) }
+
+    @ScheduleHandler("blocking")
+    private inner class BlockingHandler : ScheduleJobHandler {
+        override fun execute(context: JobExecutionContext): JobExecutionResult {
+            val logId = context.logId!!
+            handlerThreads += Thread.currentThread()
+            started.put(logId)
+            latch(logId).await()
+            return JobExecutionResult.success()
+        }
+    }
+
+    /** 忽略中断，模拟不响应终止的处理器，COVER_EARLY 只能等到它自行返回。 */
+    @ScheduleHandler("stubborn")
+    private inner class StubbornHandler : ScheduleJobHandler {
+        override fun execute(context: JobExecutionContext): JobExecutionResult {
+            val logId = context.logId!!
+            started.put(logId)
+            while (true) {
+                try {
+                    latch(logId).await()
+                    break
+                } catch (_: InterruptedException) {
+                }
+            }
+            return JobExecutionResult.success()
+        }
+    }
+
+    private companion object {
+        const val JOB_ID = 7L
+    }
+}
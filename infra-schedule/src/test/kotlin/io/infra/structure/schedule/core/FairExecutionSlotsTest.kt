@@ -0,0 +1,102 @@
+package io.infra.structure.schedule.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class FairExecutionSlotsTest {
+
+    @Test
+    fun waitersBlockUntilSlotReleased() {
+        val slots = FairExecutionSlots(1)
+        val first = slots.acquire(1, 0)
+        val second = acquireAsync(slots, 2, 0)
+        awaitWaiting(slots, 1)
+
+        assertThat(second.isDone).isFalse()
+        slots.release(first, 10)
+        assertThat(second.get(2, TimeUnit.SECONDS).jobId).isEqualTo(2)
+        assertThat(slots.runningCount).isEqualTo(1)
+    }
+
+    @Test
+    fun jobWithLessConsumedTimeGoesFirst() {
+        val slots = FairExecutionSlots(1)
+        slots.release(slots.acquire(1, 0), 1_000)
+        val holder = slots.acquire(3, 0)
+        val heavy = acquireAsync(slots, 1, 0)
+        awaitWaiting(slots, 1)
+        val light = acquireAsync(slots, 2, 0)
+        awaitWaiting(slots, 2)
+
+        slots.release(holder, 1)
+        assertThat(light.get(2, TimeUnit.SECONDS).jobId).isEqualTo(2)
+        assertThat(heavy.isDone).isFalse()
+        slots.release(light.get(), 1)
+        assertThat(heavy.get(2, TimeUnit.SECONDS).jobId).isEqualTo(1)
+    }
+
+    @Test
+    fun higherPriorityWinsTieAndIsChargedLess() {
+        val slots = FairExecutionSlots(1)
+        val holder = slots.acquire(1, 0)
+        val low = acquireAsync(slots, 2, 0)
+        awaitWaiting(slots, 1)
+        val high = acquireAsync(slots, 3, 9)
+        awaitWaiting(slots, 2)
+
+        slots.release(holder, 1)
+        val highSlot = high.get(2, TimeUnit.SECONDS)
+        slots.release(highSlot, 100)
+        slots.release(low.get(2, TimeUnit.SECONDS), 100)
+
+        // 同样执行 100ms，优先级 9 只推进 10 个虚拟时间单位，下一轮即使后到也排在优先级 0 之前
+        val nextHolder = slots.acquire(4, 0)
+        val lowAgain = acquireAsync(slots, 2, 0)
+        awaitWaiting(slots, 1)
+        val highAgain = acquireAsync(slots, 3, 9)
+        awaitWaiting(slots, 2)
+        slots.release(nextHolder, 1)
+        assertThat(highAgain.get(2, TimeUnit.SECONDS).jobId).isEqualTo(3)
+        assertThat(lowAgain.isDone).isFalse()
+    }
+
+    @Test
+    fun interruptedWaiterLeavesQueue() {
+        val slots = FairExecutionSlots(1)
+        val holder = slots.acquire(1, 0)
+        val waiting = CompletableFuture<Throwable?>()
+        val thread = Thread.ofVirtual().start {
+            waiting.complete(runCatching { slots.acquire(2, 0) }.exceptionOrNull())
+        }
+        awaitWaiting(slots, 1)
+
+        thread.interrupt()
+        assertThat(waiting.get(2, TimeUnit.SECONDS)).isInstanceOf(InterruptedException::class.java)
+        assertThat(slots.waitingCount).isZero()
+        slots.release(holder, 1)
+        assertThat(slots.runningCount).isZero()
+    }
+
+    private fun acquireAsync(slots: FairExecutionSlots, jobId: Long, priority: Int): CompletableFuture<ExecutionSlot> {
+        val future = CompletableFuture<ExecutionSlot>()
+        Thread.ofVirtual().start {
+            try {
+                future.complete(slots.acquire(jobId, priority))
+            } catch (exception: InterruptedException) {
+                future.completeExceptionally(ExecutionException(exception))
+            }
+        }
+        return future
+    }
+
+    private fun awaitWaiting(slots: FairExecutionSlots, count: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2)
+        while (slots.waitingCount < count) {
+            check(System.nanoTime() < deadline) { "等待方未在 2 秒内进入队列" }
+            Thread.sleep(1)
+        }
+    }
+}
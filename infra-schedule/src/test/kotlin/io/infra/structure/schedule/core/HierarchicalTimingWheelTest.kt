@@ -0,0 +1,86 @@
+package io.infra.structure.schedule.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+class HierarchicalTimingWheelTest {
+
+    private var clock = START
+    private val fired = ArrayList<Pair<Long, Long>>()
+
+    @Test
+    fun entriesFireOnFirstTickAtOrAfterDeadline() {
+        val wheel = HierarchicalTimingWheel<Long>(tickMillis = 100, startMillis = clock, wheelSize = 8, levels = 2)
+        listOf(START + 100, START + 150, START + 799, START + 800, START + 6_399).forEach { wheel.add(it, it) }
+
+        runUntil(wheel, START + 10_000)
+
+        assertThat(fired.map { it.first }).containsExactly(START + 100, START + 150, START + 799, START + 800, START + 6_399)
+        fired.forEach { (deadline, firedAt) -> assertThat(firedAt).isBetween(deadline, deadline + 99) }
+        assertThat(wheel.size()).isZero()
+    }
+
+    @Test
+    fun dueOrPastDeadlineIsRejectedForImmediateHandling() {
+        val wheel = HierarchicalTimingWheel<String>(tickMillis = 100, startMillis = clock)
+
+        assertThat(wheel.add(clock - 5_000, "past")).isFalse()
+        assertThat(wheel.add(wheel.currentMillis(), "current-tick")).isFalse()
+        assertThat(wheel.add(wheel.currentMillis() + 1, "next-tick")).isTrue()
+        assertThat(wheel.size()).isEqualTo(1)
+    }
+
+    @Test
+    fun cascadedAndOverflowEntriesKeepExactTiming() {
+        // 8 格 × 2 层只覆盖 6.4 秒，更远的条目经溢出表逐级下放
+        val wheel = HierarchicalTimingWheel<Long>(tickMillis = 100, startMillis = clock, wheelSize = 8, levels = 2)
+        val random = Random(42)
+        val deadlines = (1..2_000).map { START + 1 + random.nextInt(120_000) }
+        deadlines.forEach { wheel.add(it, it) }
+
+        runUntil(wheel, START + 121_000)
+
+        assertThat(fired).hasSize(deadlines.size)
+        assertThat(fired.map { Math.ceilDiv(it.first, 100L) }).isSorted()
+        fired.forEach { (deadline, firedAt) -> assertThat(firedAt).isBetween(deadline, deadline + 99) }
+    }
+
+    @Test
+    fun entriesAddedWhileAdvancingFireInOrder() {
+        val wheel = HierarchicalTimingWheel<Long>(tickMillis = 1_000, startMillis = clock)
+        wheel.add(START + 3_000, START + 3_000)
+
+        runUntil(wheel, START + 1_500)
+        wheel.add(START + 2_500, START + 2_500)
+        wheel.add(START + 70_000, START + 70_000)
+        runUntil(wheel, START + 80_000)
+
+        assertThat(fired.map { it.first }).containsExactly(START + 2_500, START + 3_000, START + 70_000)
+    }
+
+    @Test
+    fun clockJumpFiresEverythingOverdueAtOnce() {
+        val wheel = HierarchicalTimingWheel<Long>(tickMillis = 100, startMillis = clock, wheelSize = 8, levels = 3)
+        (1..50L).forEach { wheel.add(START + it * 1_000, it) }
+
+        clock = START + 3_600_000
+        wheel.advance(clock) { fired += it to clock }
+
+        assertThat(fired.map { it.first }).containsExactlyElementsOf(1..50L)
+        assertThat(wheel.currentMillis()).isBetween(clock - 99, clock)
+    }
+
+    /** 虚拟时钟按 tick 推进，记录每个条目的到期时刻。 */
+    private fun runUntil(wheel: HierarchicalTimingWheel<Long>, end: Long) {
+        while (clock < end) {
+            clock = wheel.nextTickMillis()
+            wheel.advance(clock) { fired += it to clock }
+        }
+    }
+
+    private companion object {
+        /** 故意不与 tick 对齐的起始时间。 */
+        const val START = 1_780_000_000_037L
+    }
+}
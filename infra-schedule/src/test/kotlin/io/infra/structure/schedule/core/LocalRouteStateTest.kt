@@ -0,0 +1,127 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.repository.RouteCursorRepository
+import io.infra.structure.schedule.repository.RouteNodeStat
+import io.infra.structure.schedule.repository.RouteNodeStatRepository
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class LocalRouteStateTest {
+
+    @Test
+    fun roundCursorSeedsOnceFromSharedCursor() {
+        val cursor = FakeCursorRepository(start = 7)
+        val state = LocalRouteState(cursor, FakeStatRepository())
+
+        val picks = (1..4).map { state.nextRoundIndex("job:1", 3) }
+
+        assertThat(picks).containsExactly(1, 2, 0, 1)
+        assertThat(cursor.calls).isEqualTo(1)
+        // 另一个调度节点从共享游标取到下一个起点，与本节点错开
+        assertThat(LocalRouteState(cursor, FakeStatRepository()).nextRoundIndex("job:1", 3)).isEqualTo(2)
+    }
+
+    @Test
+    fun roundCursorFallsBackToRandomSeedWhenSharedCursorFails() {
+        val state = LocalRouteState(FakeCursorRepository(start = 0, failing = true), FakeStatRepository())
+
+        val first = state.nextRoundIndex("job:1", 5)
+
+        assertThat(first).isBetween(0, 4)
+        assertThat(state.nextRoundIndex("job:1", 5)).isEqualTo((first + 1) % 5)
+    }
+
+    @Test
+    fun flushWritesIncrementsAndRebasesOnSharedBaseline() {
+        val shared = FakeStatRepository()
+        shared.recordUses("a", 10, 100)
+        val state = LocalRouteState(FakeCursorRepository(start = 0), shared)
+        assertThat(state.stats(listOf("a"))["a"]!!.useCount).isEqualTo(10)
+
+        state.recordUse("a", 200)
+        state.recordUse("a", 300)
+        assertThat(shared.writes).isEqualTo(1)
+        assertThat(state.stats(listOf("a"))["a"]).isEqualTo(RouteNodeStat("a", 12, 300))
+
+        // 其他调度节点在本周期内写回的选用次数在 flush 后被吸收
+        shared.recordUses("a", 5, 400)
+        state.flush()
+
+        assertThat(shared.writes).isEqualTo(3)
+        assertThat(shared.stats(listOf("a"))["a"]).isEqualTo(RouteNodeStat("a", 17, 400))
+        assertThat(state.stats(listOf("a"))["a"]).isEqualTo(RouteNodeStat("a", 17, 400))
+    }
+
+    @Test
+    fun failedFlushKeepsPendingForNextCycle() {
+        val shared = FakeStatRepository()
+        val state = LocalRouteState(FakeCursorRepository(start = 0), shared)
+        state.recordUse("a", 100)
+        state.recordUse("a", 200)
+
+        shared.failing = true
+        state.flush()
+        assertThat(state.stats(listOf("a"))["a"]!!.useCount).isEqualTo(2)
+
+        state.recordUse("a", 300)
+        shared.failing = false
+        state.flush()
+
+        assertThat(shared.stats(listOf("a"))["a"]).isEqualTo(RouteNodeStat("a", 3, 300))
+        assertThat(state.stats(listOf("a"))["a"]!!.useCount).isEqualTo(3)
+    }
+
+    @Test
+    fun flushWithoutPendingKeepsRecentNodes() {
+        val shared = FakeStatRepository()
+        val state = LocalRouteState(FakeCursorRepository(start = 0), shared)
+        state.recordUse("a", 100)
+        state.flush()
+
+        // 无待写回增量但仍在空闲淘汰时长内，不写回也不丢弃本地统计
+        state.flush()
+        state.recordUse("a", 200)
+        state.flush()
+
+        assertThat(shared.writes).isEqualTo(2)
+        assertThat(shared.stats(listOf("a"))["a"]).isEqualTo(RouteNodeStat("a", 2, 200))
+    }
+
+    private class FakeCursorRepository(
+        private var start: Int,
+        private val failing: Boolean = false
+    ) : RouteCursorRepository {
+        var calls = 0
+
+        override fun nextRoundIndex(cursorKey: String, candidateSize: Int): Int {
+            calls++
+            check(!failing) { "共享游标不可用" }
+            return Math.floorMod(start++, candidateSize)
+        }
+    }
+
+    private class FakeStatRepository : RouteNodeStatRepository {
+        private val stats = HashMap<String, RouteNodeStat>()
+        @Volatile
+        var failing = false
+        var writes = 0
+
+        override fun stats(nodeKeys: Collection<String>): Map<String, RouteNodeStat> =
+            synchronized(stats) { nodeKeys.mapNotNull { stats[it] }.associateBy { it.nodeKey } }
+
+        override fun recordUse(nodeKey: String, now: Long) = recordUses(nodeKey, 1, now)
+
+        override fun recordUses(nodeKey: String, count: Int, lastRouteTime: Long) {
+            check(!failing) { "共享统计不可用" }
+            synchronized(stats) {
+                writes++
+                val current = stats[nodeKey] ?: RouteNodeStat(nodeKey)
+                stats[nodeKey] = RouteNodeStat(
+                    nodeKey,
+                    current.useCount + count,
+                    maxOf(current.lastRouteTime, lastRouteTime)
+                )
+            }
+        }
+    }
+}
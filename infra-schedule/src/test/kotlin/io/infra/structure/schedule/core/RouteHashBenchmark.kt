@@ -0,0 +1,74 @@
+package io.infra.structure.schedule.core
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.TreeMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * 一致性 HASH 路由开销：缓存环、每次重建环与旧版 MD5 + TreeMap 实现对比。
+ *
+ * 运行：`mvn -pl infra-schedule test-compile` 后，
+ * `java -cp "infra-schedule/target/test-classes:infra-schedule/target/classes:<test classpath>" org.openjdk.jmh.Main RouteHashBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class RouteHashBenchmark {
+
+    @Param("10", "50")
+    @JvmField
+    var executorCount = 0
+
+    private lateinit var addresses: List<String>
+    private var sequence = 0L
+
+    @Setup
+    fun setUp() {
+        addresses = (1..executorCount).map { "http://10.0.1.$it:9999" }.sorted()
+    }
+
+    @Benchmark
+    fun cachedRing(): String? = RouteHash.selectConsistentAddress(nextKey(), addresses, "benchmark")
+
+    @Benchmark
+    fun rebuildRing(): String? = RouteHash.selectConsistentAddress(nextKey(), addresses)
+
+    @Benchmark
+    fun legacyMd5TreeMap(): String? {
+        val ring = TreeMap<Long, String>()
+        for (address in addresses) {
+            for (index in 0 until 100) {
+                ring[md5Hash32("SHARD-$address-NODE-$index")] = address
+            }
+        }
+        val tail = ring.tailMap(md5Hash32(nextKey()))
+        return if (tail.isNotEmpty()) tail[tail.firstKey()] else ring.firstEntry().value
+    }
+
+    /** 旧版环位置：MD5 取 digest 前 4 字节组成 32 位无符号整数（对齐 xxl-job）。 */
+    private fun md5Hash32(key: String): Long {
+        val digest = MessageDigest.getInstance("MD5").digest(key.toByteArray(StandardCharsets.UTF_8))
+        val hashCode = ((digest[3].toLong() and 0xFF) shl 24) or
+            ((digest[2].toLong() and 0xFF) shl 16) or
+            ((digest[1].toLong() and 0xFF) shl 8) or
+            (digest[0].toLong() and 0xFF)
+        return hashCode and 0xffffffffL
+    }
+
+    private fun nextKey(): String = (sequence++ % 10_000).toString()
+}
@@ -0,0 +1,83 @@
+package io.infra.structure.schedule.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class RouteHashTest {
+
+    @Test
+    fun keysSpreadEvenlyAcrossAddresses() {
+        val addresses = addresses(50)
+        val counts = HashMap<String, Int>()
+        repeat(KEY_COUNT) { jobId ->
+            val selected = RouteHash.selectConsistentAddress(jobId.toString(), addresses, "distribution")!!
+            counts.merge(selected, 1, Int::plus)
+        }
+
+        val mean = KEY_COUNT.toDouble() / addresses.size
+        assertThat(counts.keys).hasSize(addresses.size)
+        assertThat(counts.values.min()).isGreaterThan((mean * 0.5).toInt())
+        assertThat(counts.values.max()).isLessThan((mean * 1.6).toInt())
+    }
+
+    @Test
+    fun removingAnAddressOnlyRemapsItsOwnKeys() {
+        val before = addresses(10)
+        val removed = before[3]
+        val after = before - removed
+
+        var moved = 0
+        repeat(KEY_COUNT) { jobId ->
+            val key = jobId.toString()
+            val old = RouteHash.selectConsistentAddress(key, before)
+            val new = RouteHash.selectConsistentAddress(key, after)
+            if (old != removed) assertThat(new).isEqualTo(old)
+            if (old != new) moved++
+        }
+        assertThat(moved.toDouble() / KEY_COUNT).isLessThan(0.2)
+    }
+
+    @Test
+    fun addingAnAddressOnlyMovesKeysToIt() {
+        val before = addresses(10)
+        val added = "http://10.0.1.99:9999"
+        val after = (before + added).sorted()
+
+        var moved = 0
+        repeat(KEY_COUNT) { jobId ->
+            val key = jobId.toString()
+            val old = RouteHash.selectConsistentAddress(key, before)
+            val new = RouteHash.selectConsistentAddress(key, after)
+            if (new != old) {
+                assertThat(new).isEqualTo(added)
+                moved++
+            }
+        }
+        assertThat(moved.toDouble() / KEY_COUNT).isBetween(0.03, 0.2)
+    }
+
+    @Test
+    fun cachedRingFollowsAddressChanges() {
+        val before = addresses(5)
+        val after = before.dropLast(1)
+
+        repeat(1_000) { jobId ->
+            val key = jobId.toString()
+            assertThat(RouteHash.selectConsistentAddress(key, before, "group-a"))
+                .isEqualTo(RouteHash.selectConsistentAddress(key, before))
+        }
+        repeat(1_000) { jobId ->
+            val key = jobId.toString()
+            assertThat(RouteHash.selectConsistentAddress(key, after, "group-a"))
+                .isEqualTo(RouteHash.selectConsistentAddress(key, after))
+                .isIn(after)
+        }
+    }
+
+    private fun addresses(count: Int): List<String> =
+        (1..count).map { "http://10.0.1.$it:9999" }.sorted()
+
+    private companion object {
+        const val KEY_COUNT = 100_000
+    }
+}
@@ -0,0 +1,182 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.AsyncScheduleExecutor
+import io.infra.structure.schedule.api.ScheduleExecutor
+import io.infra.structure.schedule.model.JobExecutionContext
+import io.infra.structure.schedule.model.JobExecutionResult
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+
+class ScheduleAttemptRunnerTest {
+
+    private val attemptExecutor = Executors.newVirtualThreadPerTaskExecutor()
+    private val timer = Executors.newSingleThreadScheduledExecutor()
+    /** 模拟固定大小的调度工作线程池：只有一个线程，慢调用不得占住它。 */
+    private val worker = Executors.newSingleThreadExecutor()
+    private val runner = ScheduleAttemptRunner(attemptExecutor, timer)
+
+    @AfterEach
+    fun close() {
+        worker.shutdownNow()
+        timer.shutdownNow()
+        attemptExecutor.shutdownNow()
+    }
+
+    @Test
+    fun slowCallsDoNotHoldTheDispatchingThread() {
+        val release = CountDownLatch(1)
+        val executor = FakeExecutor { release.await(); JobExecutionResult.success() }
+
+        val attempts = worker.submit<List<AttemptFuture>> {
+            (1..20L).map { runner.start(executor, context(it), timeoutMillis = 0) }
+        }.get(2, TimeUnit.SECONDS)
+        // 20 个调用都在等待执行器时，唯一的工作线程仍能立即处理后续触发
+        assertThat(worker.submit<Boolean> { true }.get(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(attempts).noneMatch { it.isDone }
+
+        release.countDown()
+        assertThat(attempts.map { it.get(2, TimeUnit.SECONDS).success }).containsOnly(true)
+        assertThat(executor.calls.get()).isEqualTo(20)
+    }
+
+    @Test
+    fun timeoutCompletesAttemptAndCancelInterruptsTheCall() {
+        val interrupted = CountDownLatch(1)
+        val executor = FakeExecutor {
+            try {
+                Thread.sleep(10_000)
+                JobExecutionResult.success()
+            } catch (exception: InterruptedException) {
+                interrupted.countDown()
+                throw exception
+            }
+        }
+
+        val attempt = runner.start(executor, context(1), timeoutMillis = 50)
+
+        val error = runCatching { attempt.get(2, TimeUnit.SECONDS) }.exceptionOrNull()
+        assertThat(error).isInstanceOf(ExecutionException::class.java)
+        assertThat(error?.cause).isInstanceOf(TimeoutException::class.java)
+        assertThat(interrupted.count).isEqualTo(1)
+        attempt.cancel(true)
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue()
+    }
+
+    @Test
+    fun failuresAreDeliveredAsExceptionalCompletion() {
+        val executor = FakeExecutor { throw IllegalStateException("connection refused") }
+
+        val error = runCatching { runner.start(executor, context(1), timeoutMillis = 1_000).get(2, TimeUnit.SECONDS) }
+            .exceptionOrNull()
+
+        assertThat(error?.cause).isInstanceOf(IllegalStateException::class.java).hasMessage("connection refused")
+    }
+
+    @Test
+    fun retriesWaitOnTimerAndSucceedAfterInjectedFailures() {
+        val executor = FakeExecutor { call ->
+            Thread.sleep(20)
+            if (call < 3) JobExecutionResult.failure("第 $call 次失败") else JobExecutionResult.success("ok")
+        }
+        val startedAt = System.nanoTime()
+
+        val outcome = worker.submit<CompletableFuture<JobExecutionResult>> {
+            retry(executor, attempt = 0, maxRetries = 3, intervalMillis = 100)
+        }.get(1, TimeUnit.SECONDS)
+        // 重试间隔期间工作线程空闲
+        assertThat(worker.submit<Boolean> { true }.get(50, TimeUnit.MILLISECONDS)).isTrue()
+
+        assertThat(outcome.get(3, TimeUnit.SECONDS).message).isEqualTo("ok")
+        assertThat(executor.calls.get()).isEqualTo(3)
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(200)
+    }
+
+    @Test
+    fun asyncExecutorReleasesCallThreadAfterAdmission() {
+        val executor = FakeAsyncExecutor()
+
+        val attempt = runner.start(executor, context(1), timeoutMillis = 0)
+        attempt.task!!.get(2, TimeUnit.SECONDS)
+
+        // 受理后调用线程已归还，终态送达前 attempt 保持未完成
+        assertThat(attempt.isDone).isFalse()
+        executor.pending[1L]!!.complete(JobExecutionResult.success("ok"))
+        assertThat(attempt.get(2, TimeUnit.SECONDS).message).isEqualTo("ok")
+    }
+
+    @Test
+    fun timeoutCancelsPendingAsyncResult() {
+        val executor = FakeAsyncExecutor()
+
+        val attempt = runner.start(executor, context(1), timeoutMillis = 50)
+
+        val error = runCatching { attempt.get(2, TimeUnit.SECONDS) }.exceptionOrNull()
+        assertThat(error?.cause).isInstanceOf(TimeoutException::class.java)
+        attempt.task!!.get(2, TimeUnit.SECONDS)
+        assertThat(executor.pending[1L]!!.isCancelled).isTrue()
+    }
+
+    @Test
+    fun delayCompletesOnGivenExecutor() {
+        val delayed = runner.delay(50, worker)
+        assertThat(delayed.isDone).isFalse()
+
+        val thread = delayed.thenApply { Thread.currentThread() }.get(2, TimeUnit.SECONDS)
+
+        assertThat(thread).isEqualTo(worker.submit<Thread> { Thread.currentThread() }.get())
+        assertThat(runner.delay(0, worker).isDone).isTrue()
+    }
+
+    /** 与调度中心相同的重试链：结果在执行线程上处理，间隔由定时器唤醒。 */
+    private fun retry(
+        executor: ScheduleExecutor,
+        attempt: Int,
+        maxRetries: Int,
+        intervalMillis: Long
+    ): CompletableFuture<JobExecutionResult> =
+        runner.start(executor, context(attempt.toLong()), timeoutMillis = 1_000).thenCompose { result ->
+            if (result.success || attempt >= maxRetries) {
+                CompletableFuture.completedFuture(result)
+            } else {
+                runner.delay(intervalMillis, attemptExecutor).thenCompose {
+                    retry(executor, attempt + 1, maxRetries, intervalMillis)
+                }
+            }
+        }
+
+    private fun context(logId: Long) = JobExecutionContext(
+        jobId = 1,
+        jobName = "job",
+        handler = "handler",
+        parameters = "",
+        triggerTime = 0,
+        logId = logId
+    )
+
+    /** 可注入延迟与失败的执行器客户端；[handle] 收到从 1 开始的调用序号。 */
+    private class FakeExecutor(private val handle: (Int) -> JobExecutionResult) : ScheduleExecutor {
+        val calls = AtomicInteger()
+        override val id = "fake"
+        override val group = "fake"
+        override fun execute(context: JobExecutionContext): JobExecutionResult = handle(calls.incrementAndGet())
+    }
+
+    /** 受理即返回的执行器客户端；终态由测试经 [pending] 按 logId 送达。 */
+    private class FakeAsyncExecutor : AsyncScheduleExecutor {
+        val pending = ConcurrentHashMap<Long, CompletableFuture<JobExecutionResult>>()
+        override val id = "fake-async"
+        override val group = "fake"
+        override fun execute(context: JobExecutionContext): JobExecutionResult = executeAsync(context).get()
+        override fun executeAsync(context: JobExecutionContext): CompletableFuture<JobExecutionResult> =
+            CompletableFuture<JobExecutionResult>().also { pending[context.logId!!] = it }
+    }
+}
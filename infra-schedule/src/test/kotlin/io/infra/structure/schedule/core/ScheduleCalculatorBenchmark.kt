@@ -0,0 +1,73 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.model.ScheduleJob
+import io.infra.structure.schedule.model.ScheduleType
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.springframework.scheduling.support.CronExpression
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZonedDateTime
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cron 触发时间计算开销：每次解析、缓存解析结果，以及一次计算多次触发时间的对比。
+ *
+ * 运行方式同 [RouteHashBenchmark]：`org.openjdk.jmh.Main ScheduleCalculatorBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ScheduleCalculatorBenchmark {
+
+    private lateinit var job: ScheduleJob
+    private val zone = ZoneId.systemDefault()
+    private var from = 0L
+
+    @Setup
+    fun setUp() {
+        from = System.currentTimeMillis()
+        job = ScheduleJob(
+            name = "benchmark",
+            handler = "handler",
+            scheduleType = ScheduleType.CRON,
+            cron = EXPRESSION,
+            createTime = from,
+            updateTime = from
+        )
+    }
+
+    @Benchmark
+    fun parseEveryCall(): Long = CronExpression.parse(EXPRESSION)
+        .next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone))!!
+        .toInstant().toEpochMilli()
+
+    @Benchmark
+    fun cachedExpression(): Long = ScheduleCalculator.nextTriggerAt(job, from, zone)
+
+    @Benchmark
+    fun tenFireTimesChained(): Long {
+        var cursor = from
+        repeat(FIRE_COUNT) { cursor = ScheduleCalculator.nextTriggerAt(job, cursor, zone) }
+        return cursor
+    }
+
+    @Benchmark
+    fun tenFireTimesBulk(): Long = ScheduleCalculator.nextFireTimes(job, from, FIRE_COUNT, zone).last()
+
+    private companion object {
+        const val EXPRESSION = "0 */5 8-20 ? * MON-FRI"
+        const val FIRE_COUNT = 10
+    }
+}
@@ -0,0 +1,143 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.model.ScheduleJob
+import io.infra.structure.schedule.model.ScheduleType
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
+
+class ScheduleCalculatorTest {
+
+    @Test
+    fun bulkFireTimesMatchChainedSingleStepsAcrossDstTransitions() {
+        val from = millis(LocalDateTime.of(2026, 3, 6, 0, 0))
+        listOf("0 30 2 * * *", "0 0 * * * *", "0 */15 1-3 * * *", "0 0 12 * * *").forEach { expression ->
+            val job = cron(expression)
+            val bulk = ScheduleCalculator.nextFireTimes(job, from, 400, ZONE)
+
+            var cursor = from
+            bulk.forEach { time ->
+                assertThat(time).isEqualTo(ScheduleCalculator.nextTriggerAt(job, cursor, ZONE))
+                assertThat(time).isGreaterThan(cursor)
+                cursor = time
+            }
+        }
+    }
+
+    @Test
+    fun dailyCronKeepsLocalTimeAcrossSpringForward() {
+        val job = cron("0 0 12 * * *")
+        val times = ScheduleCalculator.nextFireTimes(job, millis(LocalDateTime.of(2026, 3, 7, 0, 0)), 3, ZONE)
+
+        assertThat(times.map(::local)).containsExactly(
+            LocalDateTime.of(2026, 3, 7, 12, 0),
+            LocalDateTime.of(2026, 3, 8, 12, 0),
+            LocalDateTime.of(2026, 3, 9, 12, 0)
+        )
+        assertThat(Duration.ofMillis(times[1] - times[0])).isEqualTo(Duration.ofHours(23))
+        assertThat(Duration.ofMillis(times[2] - times[1])).isEqualTo(Duration.ofHours(24))
+    }
+
+    @Test
+    fun dailyCronKeepsLocalTimeAcrossFallBack() {
+        val job = cron("0 0 12 * * *")
+        val times = ScheduleCalculator.nextFireTimes(job, millis(LocalDateTime.of(2026, 10, 31, 0, 0)), 3, ZONE)
+
+        assertThat(times.map(::local)).containsExactly(
+            LocalDateTime.of(2026, 10, 31, 12, 0),
+            LocalDateTime.of(2026, 11, 1, 12, 0),
+            LocalDateTime.of(2026, 11, 2, 12, 0)
+        )
+        assertThat(Duration.ofMillis(times[1] - times[0])).isEqualTo(Duration.ofHours(25))
+    }
+
+    @Test
+    fun cronInSkippedHourStillFiresOnSurroundingDays() {
+        val job = cron("0 30 2 * * *")
+        val times = ScheduleCalculator.nextFireTimes(job, millis(LocalDateTime.of(2026, 3, 7, 0, 0)), 3, ZONE)
+
+        assertThat(times.map(::local)).contains(
+            LocalDateTime.of(2026, 3, 7, 2, 30),
+            LocalDateTime.of(2026, 3, 9, 2, 30)
+        )
+        assertThat(times.toList()).isSorted().doesNotHaveDuplicates()
+    }
+
+    @Test
+    fun hourlyCronNeverRepeatsAnInstantAcrossFallBack() {
+        val job = cron("0 0 * * * *")
+        val times = ScheduleCalculator.nextFireTimes(job, millis(LocalDateTime.of(2026, 10, 31, 22, 0)), 8, ZONE)
+
+        assertThat(times.toList()).isSorted().doesNotHaveDuplicates()
+        times.forEach { time ->
+            assertThat(local(time).minute).isZero()
+            assertThat(Duration.ofMillis(time - times[0]).toHours()).isLessThan(10)
+        }
+    }
+
+    @Test
+    fun nextFutureTriggerSkipsMissedPeriodsLikeStepwiseCatchUp() {
+        val jobs = listOf(cron("0 30 2 * * *"), cron("0 */7 * * * *"), fixedRate(7_000), fixedRate(3_600_000))
+        val from = millis(LocalDateTime.of(2026, 3, 1, 0, 0))
+        listOf(
+            from - 1,
+            from,
+            millis(LocalDateTime.of(2026, 3, 8, 2, 45)),
+            millis(LocalDateTime.of(2026, 11, 1, 1, 30))
+        ).forEach { now ->
+            jobs.forEach { job ->
+                assertThat(ScheduleCalculator.nextFutureTriggerAt(job, from, now, ZONE))
+                    .isEqualTo(stepwiseNextFuture(job, from, now))
+            }
+        }
+    }
+
+    @Test
+    fun fixedRateFireTimesIgnoreZone() {
+        val job = fixedRate(3_600_000)
+        val from = millis(LocalDateTime.of(2026, 3, 8, 0, 0))
+
+        assertThat(ScheduleCalculator.nextFireTimes(job, from, 4, ZONE).toList())
+            .containsExactly(from + 3_600_000, from + 7_200_000, from + 10_800_000, from + 14_400_000)
+    }
+
+    @Test
+    fun previewStartsFromScheduledTriggerWhenInFuture() {
+        val now = millis(LocalDateTime.of(2026, 3, 7, 0, 0))
+        val scheduled = now + 60_000
+        val job = fixedRate(1_000).copy(nextTriggerAt = scheduled)
+
+        assertThat(ScheduleCalculator.nextTriggerTimes(job, now, 3))
+            .containsExactly(scheduled, scheduled + 1_000, scheduled + 2_000)
+        assertThat(ScheduleCalculator.nextTriggerTimes(job.copy(nextTriggerAt = now - 1), now, 2))
+            .containsExactly(now + 1_000, now + 2_000)
+    }
+
+    /** 优化前的逐周期推算，作为参照实现。 */
+    private fun stepwiseNextFuture(job: ScheduleJob, from: Long, now: Long): Long {
+        var candidate = ScheduleCalculator.nextTriggerAt(job, from, ZONE)
+        while (candidate <= now) candidate = ScheduleCalculator.nextTriggerAt(job, candidate, ZONE)
+        return candidate
+    }
+
+    private fun cron(expression: String) = job(ScheduleType.CRON).copy(cron = expression)
+
+    private fun fixedRate(millis: Long) = job(ScheduleType.FIXED_RATE).copy(fixedRateMillis = millis)
+
+    private fun job(type: ScheduleType) =
+        ScheduleJob(name = "job", handler = "handler", scheduleType = type, createTime = 0, updateTime = 0)
+
+    private fun millis(time: LocalDateTime): Long = time.atZone(ZONE).toInstant().toEpochMilli()
+
+    private fun local(millis: Long): LocalDateTime =
+        ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE).toLocalDateTime()
+
+    private companion object {
+        /** 2026-03-08 02:00 跳到 03:00，2026-11-01 02:00 回拨到 01:00。 */
+        val ZONE: ZoneId = ZoneId.of("America/New_York")
+    }
+}
@@ -0,0 +1,105 @@
+package io.infra.structure.schedule.core
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ScheduleLogBufferTest {
+
+    @Test
+    fun capacityBoundsAcceptedLines() {
+        val buffer = ScheduleLogBuffer(capacity = 2)
+
+        assertThat(buffer.offer("a")).isEqualTo(ScheduleLogBuffer.OfferResult.ACCEPTED)
+        assertThat(buffer.offer("b")).isEqualTo(ScheduleLogBuffer.OfferResult.ACCEPTED)
+        assertThat(buffer.offer("c")).isEqualTo(ScheduleLogBuffer.OfferResult.FULL)
+
+        assertThat(buffer.poll()).isEqualTo("a")
+        assertThat(buffer.offer("c")).isEqualTo(ScheduleLogBuffer.OfferResult.ACCEPTED)
+        assertThat(buffer.size()).isEqualTo(2)
+    }
+
+    @Test
+    fun retiredBufferRejectsOffersAndRestores() {
+        val buffer = ScheduleLogBuffer(capacity = 10)
+        buffer.offer("a")
+
+        assertThat(buffer.tryRetire()).isFalse()
+        buffer.poll()
+        assertThat(buffer.tryRetire()).isTrue()
+
+        assertThat(buffer.offer("b")).isEqualTo(ScheduleLogBuffer.OfferResult.RETIRED)
+        assertThat(buffer.restore(listOf("a"))).isFalse()
+        assertThat(buffer.size()).isZero()
+    }
+
+    @Test
+    fun restoredLinesKeepOrderAheadOfNewerLines() {
+        val buffer = ScheduleLogBuffer(capacity = 10)
+        listOf("1", "2", "3").forEach(buffer::offer)
+        val sent = listOf(buffer.poll()!!, buffer.poll()!!)
+        buffer.offer("4")
+
+        assertThat(buffer.restore(sent)).isTrue()
+
+        assertThat(generateSequence(buffer::poll).toList()).containsExactly("1", "2", "3", "4")
+    }
+
+    @Test
+    fun discardReturnsPendingLinesAndRetires() {
+        val buffer = ScheduleLogBuffer(capacity = 10)
+        repeat(3) { buffer.offer("line-$it") }
+
+        assertThat(buffer.discard()).isEqualTo(3)
+        assertThat(buffer.poll()).isNull()
+        assertThat(buffer.offer("late")).isEqualTo(ScheduleLogBuffer.OfferResult.RETIRED)
+        assertThat(buffer.discard()).isZero()
+    }
+
+    @Test
+    fun concurrentProducersLoseNoLinesWhileConsumerRetiresEmptyBuffers() {
+        // 与上报器相同的映射协议：消费者频繁回收空缓冲，生产者遇到已回收缓冲时换用新缓冲
+        val buffers = ConcurrentHashMap<Long, ScheduleLogBuffer>()
+        val producers = 4
+        val linesPerProducer = 50_000
+        val start = CountDownLatch(1)
+        val done = CountDownLatch(producers)
+        val pool = Executors.newFixedThreadPool(producers)
+        repeat(producers) { producer ->
+            pool.execute {
+                start.await()
+                repeat(linesPerProducer) { index ->
+                    while (true) {
+                        val buffer = buffers.computeIfAbsent(LOG_ID) { ScheduleLogBuffer(Int.MAX_VALUE) }
+                        if (buffer.offer("$producer:$index") == ScheduleLogBuffer.OfferResult.ACCEPTED) break
+                        buffers.remove(LOG_ID, buffer)
+                    }
+                }
+                done.countDown()
+            }
+        }
+        val received = ArrayList<String>()
+        start.countDown()
+        while (done.count > 0 || buffers.isNotEmpty()) {
+            buffers[LOG_ID]?.let { buffer ->
+                generateSequence(buffer::poll).forEach(received::add)
+                if (buffer.tryRetire()) buffers.remove(LOG_ID, buffer)
+            }
+        }
+        pool.shutdown()
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue()
+
+        assertThat(received).hasSize(producers * linesPerProducer)
+        // 同一生产者的行保持写入顺序
+        received.groupBy { it.substringBefore(':') }.values.forEach { lines ->
+            assertThat(lines.map { it.substringAfter(':').toInt() }).isSorted()
+        }
+    }
+
+    private companion object {
+        const val LOG_ID = 1L
+    }
+}
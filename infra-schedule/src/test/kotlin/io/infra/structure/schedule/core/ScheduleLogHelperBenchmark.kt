@@ -0,0 +1,180 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.ScheduleLogAppender
+import io.infra.structure.schedule.api.ScheduleLogHelper
+import io.infra.structure.schedule.api.ScheduleLogTimestamp
+import io.infra.structure.schedule.model.JobExecutionContext
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Group
+import org.openjdk.jmh.annotations.GroupThreads
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.time.Instant
+import java.time.ZoneId
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * `ScheduleLogHelper.log` 的单行开销：按秒缓存时间戳前缀与逐行 [DateTimeFormatter] 格式化对比，
+ * 以及 3 个 Handler 线程写同一执行日志、1 个上报线程取出时，无锁缓冲与旧版对象锁缓冲的吞吐对比。
+ *
+ * 运行方式同 [RouteHashBenchmark]：`org.openjdk.jmh.Main ScheduleLogHelperBenchmark`。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ScheduleLogHelperBenchmark {
+
+    private val legacyFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault())
+    private val timestamp = ScheduleLogTimestamp(ZoneId.systemDefault())
+    private val legacyAppender = LegacyAppender()
+    private val appender = LockFreeAppender()
+
+    @Setup
+    fun setUp() {
+        ScheduleLogHelper.install(appender)
+    }
+
+    @Benchmark
+    fun legacyFormatLine(): String = "${legacyFormatter.format(Instant.now())} $MESSAGE\n"
+
+    @Benchmark
+    fun cachedFormatLine(): String =
+        timestamp.appendTo(StringBuilder(MESSAGE.length + 25), System.currentTimeMillis())
+            .append(' ')
+            .append(MESSAGE)
+            .append('\n')
+            .toString()
+
+    /** 旧版 `log()`：逐行格式化时间戳，追加时与上报线程争用同一对象锁。 */
+    @Benchmark
+    @Group("legacyHelper")
+    @GroupThreads(3)
+    fun legacyLog() {
+        legacyAppender.offer(LOG_ID, "${legacyFormatter.format(Instant.now())} $MESSAGE\n")
+    }
+
+    @Benchmark
+    @Group("legacyHelper")
+    @GroupThreads(1)
+    fun legacyDrain(): Int = legacyAppender.drain()
+
+    @Benchmark
+    @Group("lockFreeHelper")
+    @GroupThreads(3)
+    fun lockFreeLog(binding: HandlerBinding): Boolean = ScheduleLogHelper.log(MESSAGE)
+
+    @Benchmark
+    @Group("lockFreeHelper")
+    @GroupThreads(1)
+    fun lockFreeDrain(): Int = appender.drain()
+
+    /** 每个 Handler 线程绑定执行上下文，与 JobThread 调用 handler 前的绑定一致。 */
+    @State(Scope.Thread)
+    open class HandlerBinding {
+        @Setup(Level.Trial)
+        fun bind() {
+            ScheduleLogHelper.bind(JobExecutionContext(1, "benchmark", "handler", "", 0, logId = LOG_ID))
+        }
+
+        @TearDown(Level.Trial)
+        fun unbind() {
+            ScheduleLogHelper.unbind()
+        }
+    }
+
+    /** 与 [ScheduleLogReporter] 相同的映射、回收与全局计数，只去掉网络上报。 */
+    private class LockFreeAppender : ScheduleLogAppender {
+        private val buffers = ConcurrentHashMap<Long, ScheduleLogBuffer>()
+        private val bufferedLines = AtomicInteger()
+
+        override fun offer(logId: Long, line: String) {
+            if (bufferedLines.incrementAndGet() > MAX_LINES) {
+                bufferedLines.decrementAndGet()
+                return
+            }
+            while (true) {
+                val buffer = buffers.computeIfAbsent(logId) { ScheduleLogBuffer(MAX_LINES) }
+                when (buffer.offer(line)) {
+                    ScheduleLogBuffer.OfferResult.ACCEPTED -> return
+                    ScheduleLogBuffer.OfferResult.RETIRED -> buffers.remove(logId, buffer)
+                    ScheduleLogBuffer.OfferResult.FULL -> {
+                        bufferedLines.decrementAndGet()
+                        return
+                    }
+                }
+            }
+        }
+
+        override fun flush(logId: Long) = Unit
+
+        fun drain(): Int {
+            var drained = 0
+            for ((logId, buffer) in buffers) {
+                while (drained < BATCH_LINES && buffer.poll() != null) drained++
+                if (buffer.tryRetire()) buffers.remove(logId, buffer)
+            }
+            bufferedLines.addAndGet(-drained)
+            return drained
+        }
+    }
+
+    /** 旧版 ScheduleLogReporter 的追加路径：全局 CAS 预占，追加与回收共用缓冲对象锁。 */
+    private class LegacyAppender : ScheduleLogAppender {
+        private val buffers = ConcurrentHashMap<Long, ConcurrentLinkedDeque<String>>()
+        private val bufferedLines = AtomicInteger()
+
+        override fun offer(logId: Long, line: String) {
+            while (true) {
+                val current = bufferedLines.get()
+                if (current >= MAX_LINES) return
+                if (bufferedLines.compareAndSet(current, current + 1)) break
+            }
+            while (true) {
+                val queue = buffers.computeIfAbsent(logId) { ConcurrentLinkedDeque() }
+                synchronized(queue) {
+                    if (buffers[logId] === queue) {
+                        queue.addLast(line)
+                        return
+                    }
+                }
+            }
+        }
+
+        override fun flush(logId: Long) = Unit
+
+        fun drain(): Int {
+            var drained = 0
+            for ((logId, queue) in buffers) {
+                while (drained < BATCH_LINES && queue.pollFirst() != null) drained++
+                synchronized(queue) {
+                    if (buffers[logId] === queue && queue.isEmpty()) buffers.remove(logId, queue)
+                }
+            }
+            bufferedLines.addAndGet(-drained)
+            return drained
+        }
+    }
+
+    private companion object {
+        const val LOG_ID = 1L
+        const val MAX_LINES = 20_000
+        const val BATCH_LINES = 1_000
+        const val MESSAGE = "处理第 42 批数据，耗时 17ms，累计 123456 行"
+    }
+}
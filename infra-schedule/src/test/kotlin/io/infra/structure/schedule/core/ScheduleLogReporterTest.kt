@@ -0,0 +1,185 @@
+package io.infra.structure.schedule.core
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import io.infra.structure.schedule.properties.InfraScheduleProperties
+import io.infra.structure.schedule.web.ScheduleWebPaths
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
+
+class ScheduleLogReporterTest {
+
+    private val admin = FakeAdmin()
+    private val reporters = CopyOnWriteArrayList<ScheduleLogReporter>()
+
+    @AfterEach
+    fun close() {
+        reporters.forEach { it.destroy() }
+        admin.server.stop(0)
+    }
+
+    @Test
+    fun linesAcrossLogsShipInOneCompressedBatch() {
+        val reporter = reporter()
+        (1..3).forEach { reporter.offer(1, "a-$it") }
+        (1..2).forEach { reporter.offer(2, "b-$it") }
+        reporter.offer(3, "c-1")
+
+        reporter.flush(3)
+        awaitReceived(6)
+
+        assertThat(admin.batchRequests.get()).isEqualTo(1)
+        assertThat(admin.gzipBatches.get()).isEqualTo(1)
+        assertThat(admin.perLogRequests.get()).isZero()
+        assertThat(admin.received[1L]).containsExactly("a-1", "a-2", "a-3")
+        assertThat(admin.received[2L]).containsExactly("b-1", "b-2")
+        assertThat(admin.received[3L]).containsExactly("c-1")
+    }
+
+    @Test
+    fun rejectedBatchFallsBackToPerLogForThatBatchOnly() {
+        val reporter = reporter()
+        admin.batchStatus = 413
+        reporter.offer(1, "a-1")
+        reporter.offer(2, "b-1")
+        reporter.offer(1, "a-2")
+
+        reporter.flush(1)
+        awaitReceived(3)
+
+        assertThat(admin.batchRequests.get()).isEqualTo(1)
+        assertThat(admin.received[1L]).containsExactly("a-1", "a-2")
+        assertThat(admin.received[2L]).containsExactly("b-1")
+
+        // 与 404 不同，整批被拒不关闭合批接口，下一批仍先走合批
+        admin.batchStatus = 200
+        reporter.offer(1, "a-3")
+        reporter.flush(1)
+        awaitReceived(4)
+        assertThat(admin.batchRequests.get()).isEqualTo(2)
+        assertThat(admin.received[1L]).containsExactly("a-1", "a-2", "a-3")
+    }
+
+    @Test
+    fun spilledLinesShipInOrderWithoutDuplicatesAfterPartialDelivery() {
+        val reporter = reporter(maxBufferedLines = 1_000, batchMaxLines = 32)
+        admin.batchStatus = 503
+        admin.perLogStatus = 503
+        // 单日志内存份额为 500 行，其余写入溢出文件；溢出开始后两个日志的行在文件中交错
+        val expected1 = (1..600).map { "a-$it" }
+        expected1.forEach { reporter.offer(1, it) }
+        val expected2 = ArrayList<String>()
+        (601..700).forEach { index ->
+            reporter.offer(1, "a-$index")
+            reporter.offer(2, "b-$index").also { expected2 += "b-$index" }
+        }
+
+        // 合批整批被拒后逐日志上报；日志 2 的首次逐日志上报可重试失败，同一溢出批中日志 1 的行已送达
+        admin.failNextPerLog[2L] = AtomicBoolean(true)
+        admin.batchStatus = 400
+        admin.perLogStatus = 200
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+        while (admin.receivedCount() < 800) {
+            check(System.nanoTime() < deadline) { "日志未在 10 秒内全部送达: ${admin.receivedCount()}" }
+            reporter.flush(1)
+            Thread.sleep(20)
+        }
+        Thread.sleep(100)
+
+        assertThat(admin.failNextPerLog[2L]!!.get()).isFalse()
+        assertThat(admin.received[1L]).containsExactlyElementsOf(expected1 + (601..700).map { "a-$it" })
+        assertThat(admin.received[2L]).containsExactlyElementsOf(expected2)
+    }
+
+    private fun reporter(maxBufferedLines: Int = 20_000, batchMaxLines: Int = 1_000): ScheduleLogReporter {
+        val properties = InfraScheduleProperties().apply {
+            executor.adminAddress = "http://127.0.0.1:${admin.server.address.port}"
+            executor.handleLogMaxBufferedLines = maxBufferedLines
+            executor.handleLogBatchMaxLines = batchMaxLines
+            executor.handleLogSpillDir = Files.createTempDirectory("schedule-log-spill").toString()
+        }
+        return ScheduleLogReporter(properties).also { reporters += it }
+    }
+
+    private fun awaitReceived(count: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (admin.receivedCount() < count) {
+            check(System.nanoTime() < deadline) { "日志未在 5 秒内送达: ${admin.receivedCount()}/$count" }
+            Thread.sleep(5)
+        }
+    }
+
+    /** 记录送达行的调度中心替身；合批与逐日志接口的响应码可在测试中切换。 */
+    private class FakeAdmin {
+        val server: HttpServer = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        val received = ConcurrentHashMap<Long, MutableList<String>>()
+        val batchRequests = AtomicInteger()
+        val gzipBatches = AtomicInteger()
+        val perLogRequests = AtomicInteger()
+        /** 指定日志的下一次逐日志上报返回 503。 */
+        val failNextPerLog = ConcurrentHashMap<Long, AtomicBoolean>()
+        @Volatile
+        var batchStatus = 200
+        @Volatile
+        var perLogStatus = 200
+
+        init {
+            server.createContext(ScheduleWebPaths.API_ROOT) { exchange -> exchange.use(::handle) }
+            server.start()
+        }
+
+        fun receivedCount(): Int = received.values.sumOf { synchronized(it) { it.size } }
+
+        private fun handle(exchange: HttpExchange) {
+            val path = exchange.requestURI.path
+            val gzip = exchange.requestHeaders.getFirst("Content-Encoding") == "gzip"
+            val body = (if (gzip) GZIPInputStream(exchange.requestBody) else exchange.requestBody).readAllBytes().decodeToString()
+            if (path == ScheduleWebPaths.EXECUTOR_LOG_HANDLE_APPEND_BATCH) {
+                batchRequests.incrementAndGet()
+                if (gzip) gzipBatches.incrementAndGet()
+                if (batchStatus != 200) return respond(exchange, batchStatus, "")
+                ENTRY.findAll(body).forEach { entry ->
+                    val logId = LOG_ID.find(entry.value)!!.groupValues[1].toLong()
+                    record(logId, lines(LINES.find(entry.value)!!.groupValues[1]))
+                }
+                return respond(exchange, 200, """{"rejected":[]}""")
+            }
+            val logId = path.removePrefix("${ScheduleWebPaths.API_ROOT}/logs/").substringBefore('/').toLong()
+            perLogRequests.incrementAndGet()
+            val failOnce = failNextPerLog[logId]?.compareAndSet(true, false) == true
+            if (failOnce || perLogStatus != 200) return respond(exchange, 503, "")
+            record(logId, lines(LINES.find(body)!!.groupValues[1]))
+            respond(exchange, 200, "")
+        }
+
+        private fun record(logId: Long, lines: List<String>) {
+            val target = received.computeIfAbsent(logId) { ArrayList() }
+            synchronized(target) { target += lines }
+        }
+
+        private fun lines(array: String): List<String> = STRING.findAll(array).map { it.groupValues[1] }.toList()
+
+        private fun respond(exchange: HttpExchange, status: Int, body: String) {
+            val bytes = body.toByteArray()
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(status, if (bytes.isEmpty()) -1 else bytes.size.toLong())
+            if (bytes.isNotEmpty()) exchange.responseBody.write(bytes)
+        }
+
+        private companion object {
+            val ENTRY = Regex("""\{[^{}]*\}""")
+            val LOG_ID = Regex(""""logId"\s*:\s*(\d+)""")
+            val LINES = Regex(""""lines"\s*:\s*\[([^\]]*)\]""")
+            val STRING = Regex(""""([^"]*)"""")
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.ScheduleLogTimestamp
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.time.Instant
+import java.time.ZoneId
+import java.time.format.DateTimeFormatter
+import java.util.Random
+
+class ScheduleLogTimestampTest {
+
+    @Test
+    fun matchesDateTimeFormatterAcrossSecondsAndDstTransitions() {
+        listOf("UTC", "Asia/Shanghai", "America/New_York").map(ZoneId::of).forEach { zone ->
+            val expected = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(zone)
+            val timestamp = ScheduleLogTimestamp(zone)
+            // 2026-03-08 与 2026-11-01 为纽约夏令时切换日，覆盖偏移在整秒边界变化的情形
+            val starts = listOf(1_772_953_200_000L, 1_793_512_800_000L, 1_760_000_000_000L)
+            val random = Random(7)
+            starts.forEach { start ->
+                var millis = start - 5_000
+                repeat(5_000) {
+                    millis += random.nextInt(5)
+                    val actual = timestamp.appendTo(StringBuilder(), millis).toString()
+                    assertThat(actual).isEqualTo(expected.format(Instant.ofEpochMilli(millis)))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun padsMillisecondsToThreeDigits() {
+        val timestamp = ScheduleLogTimestamp(ZoneId.of("UTC"))
+
+        assertThat(timestamp.appendTo(StringBuilder(), 1_000).toString()).isEqualTo("1970-01-01 00:00:01.000")
+        assertThat(timestamp.appendTo(StringBuilder(), 1_007).toString()).isEqualTo("1970-01-01 00:00:01.007")
+        assertThat(timestamp.appendTo(StringBuilder(), 1_042).toString()).isEqualTo("1970-01-01 00:00:01.042")
+        assertThat(timestamp.appendTo(StringBuilder(), 1_999).toString()).isEqualTo("1970-01-01 00:00:01.999")
+    }
+}
@@ -0,0 +1,157 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.repository.ScheduleShardLeaseRepository
+import io.infra.structure.schedule.repository.ShardLease
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class ScheduleShardBalancerTest {
+
+    private var clock = 1_000_000L
+    private val repository = InMemoryShardLeaseRepository()
+
+    @Test
+    fun replicasSplitShardsEvenlyWithoutOverlap() {
+        val nodes = (1..3).map { balancer("node-$it") }
+
+        rounds(nodes, 3)
+
+        val owned = nodes.map { it.currentFilter().shards }
+        assertThat(owned.flatten()).hasSize(SHARDS).containsExactlyInAnyOrderElementsOf(0 until SHARDS)
+        assertThat(owned.map { it.size }).containsOnly(5, 6)
+    }
+
+    @Test
+    fun singleReplicaTakesAllShardsOnFirstRound() {
+        val node = balancer("node-1")
+
+        assertThat(node.rebalance()).hasSize(SHARDS)
+        assertThat(node.currentFilter().shards).hasSize(SHARDS)
+    }
+
+    @Test
+    fun crashedReplicaShardsAreTakenOverAfterLeaseExpiry() {
+        val nodes = (1..3).map { balancer("node-$it") }
+        rounds(nodes, 3)
+        val crashed = nodes[1]
+        val survivors = nodes - crashed
+        val orphaned = crashed.currentFilter().shards
+
+        // 租约到期前存活节点不得抢占，避免与仍在扫描的节点重叠
+        clock += LEASE / 2
+        rounds(survivors, 1)
+        assertThat(survivors.flatMap { it.currentFilter().shards }).doesNotContainAnyElementsOf(orphaned)
+
+        clock += LEASE
+        rounds(survivors, 2)
+        assertThat(crashed.currentFilter().shards).isEmpty()
+        assertThat(survivors.flatMap { it.currentFilter().shards }).containsExactlyInAnyOrderElementsOf(0 until SHARDS)
+    }
+
+    @Test
+    fun joiningReplicaReceivesShareFromExistingOwners() {
+        val first = balancer("node-1")
+        val second = balancer("node-2")
+        rounds(listOf(first, second), 3)
+        val joining = balancer("node-3")
+
+        rounds(listOf(first, second, joining), 3)
+
+        val owned = listOf(first, second, joining).map { it.currentFilter().shards }
+        assertThat(owned[2]).isNotEmpty()
+        assertThat(owned.flatten()).hasSize(SHARDS).containsExactlyInAnyOrderElementsOf(0 until SHARDS)
+    }
+
+    @Test
+    fun gracefulShutdownHandsShardsOverWithoutWaitingForLease() {
+        val nodes = (1..2).map { balancer("node-$it") }
+        rounds(nodes, 3)
+
+        nodes[0].destroy()
+        rounds(listOf(nodes[1]), 2)
+
+        assertThat(nodes[1].currentFilter().shards).hasSize(SHARDS)
+    }
+
+    @Test
+    fun filterBecomesEmptyWhenRenewalKeepsFailing() {
+        val node = balancer("node-1")
+        node.rebalance()
+        repository.failing = true
+
+        clock += LEASE - 1
+        assertThat(runCatching { node.rebalance() }.isFailure).isTrue()
+        assertThat(node.currentFilter().shards).hasSize(SHARDS)
+
+        clock += 1
+        assertThat(node.currentFilter().shards).isEmpty()
+    }
+
+    private fun balancer(owner: String) = ScheduleShardBalancer(repository, owner, SHARDS, LEASE) { clock }
+
+    /** 模拟多副本各自按周期执行再平衡，每轮之间时钟前进一个再平衡间隔。 */
+    private fun rounds(nodes: List<ScheduleShardBalancer>, count: Int) {
+        repeat(count) {
+            nodes.forEach { it.rebalance() }
+            clock += INTERVAL
+        }
+    }
+
+    /** 与 MySQL 实现相同的条件更新语义，替代多个调度节点共享的租约表。 */
+    private class InMemoryShardLeaseRepository : ScheduleShardLeaseRepository {
+        private val shards = sortedMapOf<Int, ShardLease>()
+        private val members = HashMap<String, Long>()
+        var failing = false
+
+        override fun ensureShards(shardCount: Int, now: Long) {
+            check()
+            (0 until shardCount).forEach { shards.putIfAbsent(it, ShardLease(it)) }
+        }
+
+        override fun heartbeatMember(owner: String, leaseUntil: Long, now: Long) {
+            check()
+            members[owner] = leaseUntil
+            members.values.removeIf { it <= now }
+        }
+
+        override fun liveMembers(now: Long): List<String> = members.filterValues { it > now }.keys.sorted()
+
+        override fun removeMember(owner: String) {
+            members.remove(owner)
+        }
+
+        override fun findShards(): List<ShardLease> = shards.values.map { it.copy() }
+
+        override fun renew(owner: String, leaseUntil: Long, now: Long): Int {
+            check()
+            val owned = shards.values.filter { it.owner == owner && it.leaseUntil > now }
+            owned.forEach { it.leaseUntil = leaseUntil }
+            return owned.size
+        }
+
+        override fun tryAcquire(shardId: Int, owner: String, leaseUntil: Long, now: Long): Boolean {
+            val lease = shards[shardId] ?: return false
+            if (lease.owner != null && lease.owner != owner && lease.leaseUntil > now) return false
+            lease.owner = owner
+            lease.leaseUntil = leaseUntil
+            return true
+        }
+
+        override fun release(shardId: Int, owner: String, now: Long): Boolean {
+            val lease = shards[shardId]?.takeIf { it.owner == owner } ?: return false
+            lease.owner = null
+            lease.leaseUntil = now
+            return true
+        }
+
+        private fun check() {
+            if (failing) throw IllegalStateException("数据库不可用")
+        }
+    }
+
+    private companion object {
+        const val SHARDS = 16
+        const val LEASE = 30_000L
+        const val INTERVAL = 5_000L
+    }
+}
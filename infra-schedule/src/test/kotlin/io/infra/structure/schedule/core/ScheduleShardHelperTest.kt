@@ -0,0 +1,100 @@
+package io.infra.structure.schedule.core
+
+import io.infra.structure.schedule.api.ScheduleLogHelper
+import io.infra.structure.schedule.api.ScheduleShardClaimer
+import io.infra.structure.schedule.api.ScheduleShardHelper
+import io.infra.structure.schedule.api.ShardClaim
+import io.infra.structure.schedule.model.JobExecutionContext
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+
+class ScheduleShardHelperTest {
+
+    @AfterEach
+    fun tearDown() {
+        ScheduleLogHelper.unbind()
+    }
+
+    @Test
+    fun staticBroadcastRunsFixedShardOnce() {
+        val claimer = FakeClaimer(shardTotal = 8)
+        ScheduleShardHelper.install(claimer)
+        ScheduleLogHelper.bind(context(logicalShardTotal = 0, shardIndex = 1, shardTotal = 3))
+        val processed = ArrayList<ShardClaim>()
+
+        assertThat(ScheduleShardHelper.forEachShard { processed.add(it) }).isEqualTo(1)
+
+        assertThat(processed).containsExactly(ShardClaim(1, 3))
+        assertThat(claimer.claims).isZero()
+    }
+
+    @Test
+    fun dynamicBroadcastClaimsUntilExhaustedAndReportsEachShard() {
+        val claimer = FakeClaimer(shardTotal = 4)
+        ScheduleShardHelper.install(claimer)
+        ScheduleLogHelper.bind(context(logicalShardTotal = 4))
+        val processed = ArrayList<Int>()
+
+        assertThat(ScheduleShardHelper.forEachShard { processed.add(it.shardIndex) }).isEqualTo(4)
+
+        assertThat(processed).containsExactly(0, 1, 2, 3)
+        assertThat(claimer.completed).containsExactly("0:true", "1:true", "2:true", "3:true")
+    }
+
+    @Test
+    fun failedShardIsReportedAndExceptionPropagates() {
+        val claimer = FakeClaimer(shardTotal = 4)
+        ScheduleShardHelper.install(claimer)
+        ScheduleLogHelper.bind(context(logicalShardTotal = 4))
+
+        val error = runCatching {
+            ScheduleShardHelper.forEachShard { if (it.shardIndex == 1) error("boom") }
+        }.exceptionOrNull()
+
+        assertThat(error?.message).isEqualTo("boom")
+        assertThat(claimer.completed).containsExactly("0:true", "1:false")
+        assertThat(claimer.messages[1]).isEqualTo("boom")
+    }
+
+    @Test
+    fun claimNextIsNullWithoutDynamicContext() {
+        ScheduleShardHelper.install(FakeClaimer(shardTotal = 4))
+
+        assertThat(ScheduleShardHelper.claimNext()).isNull()
+        ScheduleLogHelper.bind(context(logicalShardTotal = 0))
+        assertThat(ScheduleShardHelper.claimNext()).isNull()
+    }
+
+    private fun context(logicalShardTotal: Int, shardIndex: Int = 0, shardTotal: Int = 1) = JobExecutionContext(
+        1, "job", "handler", "", 0,
+        shardIndex = shardIndex,
+        shardTotal = shardTotal,
+        logId = LOG_ID,
+        logicalShardTotal = logicalShardTotal,
+        shardRunId = RUN_ID
+    )
+
+    /** 按下标顺序发放分片并记录回报，模拟调度中心的进度表。 */
+    private class FakeClaimer(private val shardTotal: Int) : ScheduleShardClaimer {
+        var claims = 0
+        val completed = ArrayList<String>()
+        val messages = HashMap<Int, String?>()
+
+        override fun claim(logId: Long, runId: Long): ShardClaim? {
+            assertThat(logId).isEqualTo(LOG_ID)
+            assertThat(runId).isEqualTo(RUN_ID)
+            return claims.takeIf { it < shardTotal }?.let { ShardClaim(claims++, shardTotal) }
+        }
+
+        override fun complete(logId: Long, runId: Long, shardIndex: Int, success: Boolean, message: String?) {
+            completed.add("$shardIndex:$success")
+            messages[shardIndex] = message
+        }
+    }
+
+    private companion object {
+        const val LOG_ID = 11L
+        const val RUN_ID = 42L
+    }
+}